@@ -0,0 +1,132 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.content.bodyparsers;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wisdom.api.content.BodyParser;
+import org.wisdom.api.content.JacksonModuleRepository;
+import org.wisdom.api.http.Context;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * Parses the payloads of a Jackson binary data format (such as Smile or CBOR) to build objects. It uses the Jackson
+ * modules registered in the {@link JacksonModuleRepository}. Sub-classes are the components, they give the factory
+ * of the data format and its mime type, and inject the repository.
+ */
+public abstract class AbstractJacksonBinaryBodyParser implements BodyParser {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AbstractJacksonBinaryBodyParser.class);
+
+    private final Class<? extends JsonFactory> format;
+
+    private final String mimeType;
+
+    /**
+     * Creates the parser.
+     *
+     * @param format   the class of the factory implementing the data format
+     * @param mimeType the mime type of the data format
+     */
+    protected AbstractJacksonBinaryBodyParser(Class<? extends JsonFactory> format, String mimeType) {
+        this.format = format;
+        this.mimeType = mimeType;
+    }
+
+    /**
+     * @return the repository providing the mappers.
+     */
+    protected abstract JacksonModuleRepository repository();
+
+    /**
+     * Builds an instance of {@literal T} from the request payload.
+     *
+     * @param context  The context
+     * @param classOfT The class we expect
+     * @param <T>      the type of the object
+     * @return the build object, {@literal null} if the object cannot be built.
+     */
+    public <T> T invoke(Context context, Class<T> classOfT) {
+        return invoke(context, classOfT, null);
+    }
+
+    /**
+     * Builds an instance of {@literal T} from the request payload.
+     *
+     * @param context     The context
+     * @param classOfT    The class we expect
+     * @param genericType the generic type
+     * @param <T>         the type of the object
+     * @return the build object, {@literal null} if the object cannot be built.
+     */
+    public <T> T invoke(Context context, Class<T> classOfT, Type genericType) {
+        T t = null;
+        try {
+            final byte[] content = context.raw();
+            if (content == null || content.length == 0) {
+                return null;
+            }
+            ObjectMapper mapper = repository().mapper(format);
+            if (genericType != null) {
+                t = mapper.readValue(content, mapper.constructType(genericType));
+            } else {
+                t = mapper.readValue(content, classOfT);
+            }
+        } catch (IOException e) {
+            LOGGER.error("Error parsing incoming {} payload", mimeType, e);
+        }
+
+        return t;
+    }
+
+    /**
+     * Builds an instance of {@literal T} from the request payload.
+     *
+     * @param bytes    the payload.
+     * @param classOfT The class we expect
+     * @param <T>      the type of the object
+     * @return the build object, {@literal null} if the object cannot be built.
+     */
+    @Override
+    public <T> T invoke(byte[] bytes, Class<T> classOfT) {
+        T t = null;
+        try {
+            t = repository().mapper(format).readValue(bytes, classOfT);
+        } catch (IOException e) {
+            LOGGER.error("Error parsing incoming {} payload", mimeType, e);
+        }
+
+        return t;
+    }
+
+    /**
+     * @return the singleton list containing the mime type of the data format.
+     */
+    public List<String> getContentTypes() {
+        return ImmutableList.of(mimeType);
+    }
+
+}
@@ -0,0 +1,55 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.content.bodyparsers;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.apache.felix.ipojo.annotations.Component;
+import org.apache.felix.ipojo.annotations.Instantiate;
+import org.apache.felix.ipojo.annotations.Provides;
+import org.apache.felix.ipojo.annotations.Requires;
+import org.wisdom.api.content.BodyParser;
+import org.wisdom.api.content.JacksonModuleRepository;
+import org.wisdom.api.http.MimeTypes;
+
+/**
+ * The component responsible of parsing CBOR payload to build objects. It uses the Jackson modules registered in the
+ * {@link JacksonModuleRepository}.
+ */
+@Component
+@Provides(specifications = BodyParser.class)
+@Instantiate
+public class BodyParserCBOR extends AbstractJacksonBinaryBodyParser {
+
+    @Requires
+    JacksonModuleRepository repository;
+
+    /**
+     * Creates the CBOR parser.
+     */
+    public BodyParserCBOR() {
+        super(CBORFactory.class, MimeTypes.CBOR);
+    }
+
+    @Override
+    protected JacksonModuleRepository repository() {
+        return repository;
+    }
+
+}
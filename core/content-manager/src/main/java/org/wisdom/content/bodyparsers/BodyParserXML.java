@@ -70,17 +70,24 @@ public class BodyParserXML implements BodyParser {
     public <T> T invoke(Context context, Class<T> classOfT, Type genericType) {
         T t = null;
         try {
-            final String content = context.body();
-            if (content == null || content.length() == 0) {
-                return null;
-            }
             if (classOfT.equals(Document.class)) {
+                final String content = context.body();
+                if (content == null || content.length() == 0) {
+                    return null;
+                }
                 return (T) parseXMLDocument(content.getBytes(Charsets.UTF_8));
             }
+            // The object is bound while the raw body is read, without decoding it into a String first. The XML
+            // parser detects the encoding from the document itself.
+            final byte[] content = context.raw();
+            if (content == null || content.length == 0) {
+                return null;
+            }
             if (genericType != null) {
-                t = xml.xmlMapper().readValue(content, xml.xmlMapper().constructType(genericType));
+                t = xml.xmlMapper().readValue(new ByteArrayInputStream(content),
+                        xml.xmlMapper().constructType(genericType));
             } else {
-                t = xml.xmlMapper().readValue(content, classOfT);
+                t = xml.fromXML(new ByteArrayInputStream(content), classOfT);
             }
         } catch (IOException e) {
             LOGGER.error(ERROR, e);
@@ -95,7 +102,7 @@ public class BodyParserXML implements BodyParser {
             if (classOfT.equals(Document.class)) {
                 return (T) parseXMLDocument(bytes);
             }
-            t = xml.xmlMapper().readValue(bytes, classOfT);
+            t = xml.fromXML(new ByteArrayInputStream(bytes), classOfT);
         } catch (IOException e) {
             LOGGER.error(ERROR, e);
         }
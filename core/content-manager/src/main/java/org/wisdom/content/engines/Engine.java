@@ -20,6 +20,7 @@
 package org.wisdom.content.engines;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.net.MediaType;
 import org.apache.felix.ipojo.annotations.Component;
 import org.apache.felix.ipojo.annotations.Instantiate;
@@ -27,9 +28,11 @@ import org.apache.felix.ipojo.annotations.Provides;
 import org.apache.felix.ipojo.annotations.Requires;
 import org.slf4j.LoggerFactory;
 import org.wisdom.api.content.*;
+import org.wisdom.api.http.MimeTypes;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Content Engine.
@@ -39,6 +42,11 @@ import java.util.List;
 @Instantiate(name = "ContentEngine")
 public class Engine implements ContentEngine {
 
+    /**
+     * The binary formats, only selected when explicitly accepted by the client, never for wildcards.
+     */
+    private static final Set<String> BINARY_FORMATS = ImmutableSet.of(MimeTypes.SMILE, MimeTypes.CBOR);
+
     @Requires(specification = BodyParser.class, optional = true)
     List<BodyParser> parsers;
     @Requires(specification = ContentSerializer.class, optional = true)
@@ -92,6 +100,9 @@ public class Engine implements ContentEngine {
         }
         for (MediaType type : mediaTypes) {
             for (ContentSerializer ser : serializers) {
+                if (type.hasWildcard() && BINARY_FORMATS.contains(ser.getContentType())) {
+                    continue;
+                }
                 MediaType mt = MediaType.parse(ser.getContentType());
                 if (mt.is(type.withoutParameters())) {
                     return ser;
@@ -19,6 +19,7 @@
  */
 package org.wisdom.content.jackson;
 
+import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
@@ -44,6 +45,10 @@ import javax.xml.XMLConstants;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import javax.xml.transform.OutputKeys;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerException;
@@ -52,7 +57,11 @@ import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
 import java.io.*;
 import java.nio.charset.Charset;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
 /**
@@ -82,11 +91,32 @@ public class JacksonSingleton implements JacksonModuleRepository, Json, Xml {
      */
     private XmlMapper xml;
 
+    /**
+     * The mappers handling the other data formats, created on demand and discarded when the modules change.
+     */
+    private final Map<Class<? extends JsonFactory>, ObjectMapper> formats = new HashMap<>();
+
     /**
      * The document builder factory used to create new document.
      */
     private DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
 
+    /**
+     * The transformer factory used to serialize documents. Looking up the factory is costly, so it is done once.
+     */
+    private final TransformerFactory transformerFactory = TransformerFactory.newInstance();
+
+    /**
+     * The StAX factory used to read XML streams incrementally. Once configured, it is thread-safe.
+     */
+    private final XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+
+    /**
+     * The document builders and transformers are not thread-safe, each thread reuses its own.
+     */
+    private final ThreadLocal<DocumentBuilder> builders = new ThreadLocal<>();
+    private final ThreadLocal<Transformer> transformers = new ThreadLocal<>();
+
     /**
      * The logger.
      */
@@ -114,6 +144,9 @@ public class JacksonSingleton implements JacksonModuleRepository, Json, Xml {
             // Some parser do not support the option (and should probably not be used).
             LOGGER.error("Cannot use secure processing for XML document", e);
         }
+        // Streams are not allowed to declare DTDs or external entities.
+        inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
     }
 
     /**
@@ -288,6 +321,7 @@ public class JacksonSingleton implements JacksonModuleRepository, Json, Xml {
         synchronized (lock) {
             this.mapper = mapper;
             this.xml = xml;
+            formats.clear();
             // mapper and xml are set to null on invalidation.
             if (mapper != null && xml != null) {
                 applyMapperConfiguration(mapper, xml);
@@ -295,7 +329,7 @@ public class JacksonSingleton implements JacksonModuleRepository, Json, Xml {
         }
     }
 
-    private void applyMapperConfiguration(ObjectMapper mapper, XmlMapper xml) {
+    private void applyMapperConfiguration(ObjectMapper... mappers) {
         Configuration conf = null;
 
         // Check for test.
@@ -306,22 +340,24 @@ public class JacksonSingleton implements JacksonModuleRepository, Json, Xml {
         if (conf == null) {
             LOGGER.info("Using default (Wisdom) configuration of Jackson");
             LOGGER.info("FAIL_ON_UNKNOWN_PROPERTIES is disabled");
-            mapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
-            xml.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+            for (ObjectMapper mapper : mappers) {
+                mapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+            }
         } else {
             LOGGER.info("Applying custom configuration on Jackson mapper");
             Set<String> keys = conf.asMap().keySet();
             for (String key : keys) {
-                setFeature(mapper, xml, key, conf.getBoolean(key));
+                setFeature(key, conf.getBoolean(key), mappers);
             }
         }
     }
 
-    private void setFeature(ObjectMapper mapper, XmlMapper xml, String key, Boolean value) {
+    private void setFeature(String key, Boolean value, ObjectMapper... mappers) {
         try {
             MapperFeature feature = MapperFeature.valueOf(key);
-            mapper.configure(feature, value);
-            xml.configure(feature, value);
+            for (ObjectMapper mapper : mappers) {
+                mapper.configure(feature, value);
+            }
             return;
         } catch (IllegalArgumentException e) {
             // Next attempt
@@ -329,8 +365,9 @@ public class JacksonSingleton implements JacksonModuleRepository, Json, Xml {
 
         try {
             DeserializationFeature feature = DeserializationFeature.valueOf(key);
-            mapper.configure(feature, value);
-            xml.configure(feature, value);
+            for (ObjectMapper mapper : mappers) {
+                mapper.configure(feature, value);
+            }
             return;
         } catch (IllegalArgumentException e) {
             // Next attempt
@@ -338,8 +375,9 @@ public class JacksonSingleton implements JacksonModuleRepository, Json, Xml {
 
         try {
             SerializationFeature feature = SerializationFeature.valueOf(key);
-            mapper.configure(feature, value);
-            xml.configure(feature, value);
+            for (ObjectMapper mapper : mappers) {
+                mapper.configure(feature, value);
+            }
             return;
         } catch (IllegalArgumentException e) {
             // Next attempt
@@ -347,8 +385,9 @@ public class JacksonSingleton implements JacksonModuleRepository, Json, Xml {
 
         try {
             JsonParser.Feature feature = JsonParser.Feature.valueOf(key);
-            mapper.configure(feature, value);
-            xml.configure(feature, value);
+            for (ObjectMapper mapper : mappers) {
+                mapper.configure(feature, value);
+            }
             return;
         } catch (IllegalArgumentException e) {
             // Next attempt
@@ -356,8 +395,9 @@ public class JacksonSingleton implements JacksonModuleRepository, Json, Xml {
 
         try {
             JsonGenerator.Feature feature = JsonGenerator.Feature.valueOf(key);
-            mapper.configure(feature, value);
-            xml.configure(feature, value);
+            for (ObjectMapper mapper : mappers) {
+                mapper.configure(feature, value);
+            }
             return;
         } catch (IllegalArgumentException e) {
             // There is no other attempts, but we catch it because we want to customize the error message.
@@ -404,9 +444,39 @@ public class JacksonSingleton implements JacksonModuleRepository, Json, Xml {
             xml.registerModule(module);
         }
 
+        formats.clear();
         applyMapperConfiguration(mapper, xml);
     }
 
+    /**
+     * Gets the mapper handling the data format of the given factory, such as Smile or CBOR. The mapper is
+     * configured as the JSON mapper, and uses the registered modules. Mappers are rebuilt when modules arrive or
+     * leave, so do not keep the returned mapper.
+     *
+     * @param format the class of the factory implementing the data format, must have a public no-argument
+     *               constructor
+     * @return the mapper
+     */
+    @Override
+    public ObjectMapper mapper(Class<? extends JsonFactory> format) {
+        synchronized (lock) {
+            ObjectMapper current = formats.get(format);
+            if (current == null) {
+                try {
+                    current = new ObjectMapper(format.newInstance());
+                } catch (InstantiationException | IllegalAccessException e) {
+                    throw new IllegalArgumentException("Cannot instantiate the data format " + format.getName(), e);
+                }
+                for (Module module : modules) {
+                    current.registerModule(module);
+                }
+                applyMapperConfiguration(current);
+                formats.put(format, current);
+            }
+            return current;
+        }
+    }
+
     /**
      * Un-registers a JSON Module.
      *
@@ -477,7 +547,7 @@ public class JacksonSingleton implements JacksonModuleRepository, Json, Xml {
     @Override
     public Document fromInputStream(InputStream stream, Charset encoding) throws IOException {
         try {
-            DocumentBuilder builder = factory.newDocumentBuilder();
+            DocumentBuilder builder = builder();
 
             InputSource is = new InputSource(stream);
             if (encoding == null) {
@@ -521,6 +591,58 @@ public class JacksonSingleton implements JacksonModuleRepository, Json, Xml {
         }
     }
 
+    /**
+     * Builds a new instance of the given class <em>clazz</em> from the given XML stream. The object is bound while
+     * the stream is read, without building an intermediate document or string. The stream is not closed by this
+     * method.
+     *
+     * @param stream the stream, must not be {@literal null}
+     * @param clazz  the class of the instance to construct
+     * @return an instance of the class.
+     * @throws java.io.IOException if the stream cannot be read or is not a valid XML document
+     */
+    @Override
+    public <A> A fromXML(InputStream stream, Class<A> clazz) throws IOException {
+        // The stream is closed by the caller.
+        return xmlMapper().reader().without(JsonParser.Feature.AUTO_CLOSE_SOURCE).forType(clazz).readValue(stream);
+    }
+
+    /**
+     * Reads the children of the root element of the given XML stream as a sequence of instances of the given class
+     * <em>clazz</em>. Instances are bound one at a time, when the iterator is advanced, so large documents (such as
+     * feeds) are processed in bounded memory. The stream is not closed by this method.
+     *
+     * @param stream the stream, must not be {@literal null}
+     * @param clazz  the class of the instances to construct
+     * @return an iterator over the bound instances
+     * @throws java.io.IOException if the stream cannot be read or does not start with an XML element
+     */
+    @Override
+    public <A> Iterator<A> readValues(InputStream stream, Class<A> clazz) throws IOException {
+        try {
+            XMLStreamReader reader = inputFactory.createXMLStreamReader(stream);
+            // Move to the root element, its children are the values.
+            reader.nextTag();
+            return new XmlValueIterator<>(xmlMapper(), reader, clazz);
+        } catch (XMLStreamException e) {
+            throw new IOException("Cannot read the given XML stream", e);
+        }
+    }
+
+    /**
+     * Writes the XML form of the given object to the given stream, as it is produced. The stream is not closed by
+     * this method.
+     *
+     * @param value  the object to write
+     * @param stream the stream, must not be {@literal null}
+     * @throws java.io.IOException if the object cannot be serialized or written
+     */
+    @Override
+    public void writeTo(Object value, OutputStream stream) throws IOException {
+        // The stream is closed by the caller.
+        xmlMapper().writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET).writeValue(stream, value);
+    }
+
     /**
      * Retrieves the string form of the given XML document.
      *
@@ -531,16 +653,11 @@ public class JacksonSingleton implements JacksonModuleRepository, Json, Xml {
     public String stringify(Document document) {
         try {
             StringWriter sw = new StringWriter();
-            TransformerFactory tf = TransformerFactory.newInstance();
-            Transformer transformer = tf.newTransformer();
-            transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "no");
-            transformer.setOutputProperty(OutputKeys.METHOD, "xml");
-            transformer.setOutputProperty(OutputKeys.INDENT, "yes");
-            transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
-
-            transformer.transform(new DOMSource(document), new StreamResult(sw));
+            transformer().transform(new DOMSource(document), new StreamResult(sw));
             return sw.toString();
         } catch (TransformerException e) {
+            // Do not reuse a transformer left in an unknown state.
+            transformers.remove();
             throw new RuntimeException(e);
         }
     }
@@ -552,12 +669,121 @@ public class JacksonSingleton implements JacksonModuleRepository, Json, Xml {
      */
     public Document newDocument() {
         try {
-            return factory.newDocumentBuilder().newDocument();
+            return builder().newDocument();
         } catch (ParserConfigurationException e) {
             throw new RuntimeException(e);
         }
     }
 
+    /**
+     * Gets the document builder of the current thread. Builders are reset before being reused.
+     *
+     * @return the document builder
+     * @throws ParserConfigurationException if the builder cannot be created
+     */
+    private DocumentBuilder builder() throws ParserConfigurationException {
+        DocumentBuilder builder = builders.get();
+        if (builder == null) {
+            synchronized (factory) {
+                builder = factory.newDocumentBuilder();
+            }
+            builders.set(builder);
+        } else {
+            builder.reset();
+        }
+        return builder;
+    }
+
+    /**
+     * Gets the transformer of the current thread.
+     *
+     * @return the transformer
+     * @throws TransformerException if the transformer cannot be created
+     */
+    private Transformer transformer() throws TransformerException {
+        Transformer transformer = transformers.get();
+        if (transformer == null) {
+            synchronized (transformerFactory) {
+                transformer = transformerFactory.newTransformer();
+            }
+            transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "no");
+            transformer.setOutputProperty(OutputKeys.METHOD, "xml");
+            transformer.setOutputProperty(OutputKeys.INDENT, "yes");
+            transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
+            transformers.set(transformer);
+        }
+        return transformer;
+    }
+
+    /**
+     * Iterates over the children of the root element of an XML stream, binding them one at a time.
+     *
+     * @param <A> the type of value
+     */
+    private static class XmlValueIterator<A> implements Iterator<A> {
+
+        private final XmlMapper mapper;
+        private final XMLStreamReader reader;
+        private final Class<A> clazz;
+
+        /**
+         * Whether the reader is positioned on the start of the next value.
+         */
+        private boolean ready;
+
+        private boolean done;
+
+        XmlValueIterator(XmlMapper mapper, XMLStreamReader reader, Class<A> clazz) {
+            this.mapper = mapper;
+            this.reader = reader;
+            this.clazz = clazz;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (ready) {
+                return true;
+            }
+            if (done) {
+                return false;
+            }
+            try {
+                // Skip the text and comments between values, until the next child or the end of the root.
+                while (reader.hasNext()) {
+                    int event = reader.next();
+                    if (event == XMLStreamConstants.START_ELEMENT) {
+                        ready = true;
+                        return true;
+                    }
+                    if (event == XMLStreamConstants.END_ELEMENT) {
+                        break;
+                    }
+                }
+                done = true;
+                reader.close();
+                return false;
+            } catch (XMLStreamException e) {
+                done = true;
+                throw new UncheckedIOException(new IOException("Cannot read the given XML stream", e));
+            }
+        }
+
+        @Override
+        public A next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            ready = false;
+            try {
+                // Binds the current element, the reader is then positioned on its end tag.
+                return mapper.readValue(reader, clazz);
+            } catch (IOException e) {
+                done = true;
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
     /**
      * Binds a module.
      *
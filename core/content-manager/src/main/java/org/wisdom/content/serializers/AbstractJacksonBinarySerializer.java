@@ -0,0 +1,69 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.content.serializers;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.wisdom.api.content.ContentSerializer;
+import org.wisdom.api.content.JacksonModuleRepository;
+import org.wisdom.api.http.Renderable;
+
+/**
+ * Renders content in a Jackson binary data format (such as Smile or CBOR). It uses the Jackson modules registered in
+ * the {@link JacksonModuleRepository}. As a binary format, it is only used when the client explicitly accepts it.
+ * Sub-classes are the components, they give the factory of the data format and its mime type, and inject the
+ * repository.
+ */
+public abstract class AbstractJacksonBinarySerializer implements ContentSerializer {
+
+    private final Class<? extends JsonFactory> format;
+
+    private final String mimeType;
+
+    /**
+     * Creates the serializer.
+     *
+     * @param format   the class of the factory implementing the data format
+     * @param mimeType the mime type of the data format
+     */
+    protected AbstractJacksonBinarySerializer(Class<? extends JsonFactory> format, String mimeType) {
+        this.format = format;
+        this.mimeType = mimeType;
+    }
+
+    /**
+     * @return the repository providing the mappers.
+     */
+    protected abstract JacksonModuleRepository repository();
+
+    @Override
+    public String getContentType() {
+        return mimeType;
+    }
+
+    @Override
+    public void serialize(Renderable<?> renderable) {
+        try {
+            renderable.setSerializedForm(repository().mapper(format).writeValueAsBytes(renderable.content()));
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.content.serializers;
+
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.apache.felix.ipojo.annotations.Component;
+import org.apache.felix.ipojo.annotations.Instantiate;
+import org.apache.felix.ipojo.annotations.Provides;
+import org.apache.felix.ipojo.annotations.Requires;
+import org.wisdom.api.content.ContentSerializer;
+import org.wisdom.api.content.JacksonModuleRepository;
+import org.wisdom.api.http.MimeTypes;
+
+/**
+ * Renders Smile content. It uses the Jackson modules registered in the {@link JacksonModuleRepository}. As a binary
+ * format, it is only used when the client explicitly accepts it.
+ */
+@Component
+@Instantiate
+@Provides(specifications = ContentSerializer.class)
+public class SmileSerializer extends AbstractJacksonBinarySerializer {
+
+    @Requires
+    JacksonModuleRepository repository;
+
+    /**
+     * Creates the Smile serializer.
+     */
+    public SmileSerializer() {
+        super(SmileFactory.class, MimeTypes.SMILE);
+    }
+
+    @Override
+    protected JacksonModuleRepository repository() {
+        return repository;
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.content.bodyparsers;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.google.common.collect.ImmutableList;
+import org.junit.Before;
+import org.junit.Test;
+import org.wisdom.api.http.Context;
+import org.wisdom.api.http.MimeTypes;
+import org.wisdom.content.jackson.JacksonSingleton;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Check the Body Parsers responsible for parsing Smile and CBOR bodies.
+ */
+public class BodyParserBinaryTest {
+
+    private JacksonSingleton singleton;
+    private BodyParserSmile smile;
+    private BodyParserCBOR cbor;
+
+    /**
+     * This field is used to retrieve the Type.
+     */
+    List<Data> tmp;
+
+    @Before
+    public void setUp() {
+        singleton = new JacksonSingleton();
+        singleton.validate();
+        smile = new BodyParserSmile();
+        smile.repository = singleton;
+        cbor = new BodyParserCBOR();
+        cbor.repository = singleton;
+    }
+
+    @Test
+    public void testParsing() throws IOException {
+        Data data = smile.invoke(context(encode(SmileFactory.class, data())), Data.class);
+        assertThat(data.getName()).isEqualTo("wisdom");
+        assertThat(data.getFriends()).containsExactly("clement", "jonathan");
+        assertThat(data.getAge()).isEqualTo(2);
+
+        data = cbor.invoke(context(encode(CBORFactory.class, data())), Data.class);
+        assertThat(data.getName()).isEqualTo("wisdom");
+        assertThat(data.getFriends()).containsExactly("clement", "jonathan");
+        assertThat(data.getAge()).isEqualTo(2);
+
+        data = cbor.invoke(encode(CBORFactory.class, data()), Data.class);
+        assertThat(data.getName()).isEqualTo("wisdom");
+    }
+
+    @Test
+    public void testParsingWithGenericType() throws Exception {
+        Type type = this.getClass().getDeclaredField("tmp").getGenericType();
+        byte[] payload = encode(SmileFactory.class, ImmutableList.of(data()));
+        List<Data> list = smile.invoke(context(payload), List.class, type);
+        assertThat(list).hasSize(1);
+        assertThat(list.get(0)).isInstanceOf(Data.class);
+        assertThat(list.get(0).getFriends()).containsExactly("clement", "jonathan");
+    }
+
+    @Test
+    public void testRegisteredModulesAreUsed() throws IOException {
+        SimpleModule module = new SimpleModule("upper");
+        module.addDeserializer(String.class, new StdDeserializer<String>(String.class) {
+            @Override
+            public String deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+                return p.getValueAsString().toUpperCase();
+            }
+        });
+        singleton.register(module);
+
+        Data data = cbor.invoke(context(encode(CBORFactory.class, data())), Data.class);
+        assertThat(data.getName()).isEqualTo("WISDOM");
+
+        singleton.unregister(module);
+        data = cbor.invoke(context(encode(CBORFactory.class, data())), Data.class);
+        assertThat(data.getName()).isEqualTo("wisdom");
+    }
+
+    @Test
+    public void testEmptyAndInvalidPayloads() {
+        assertThat(smile.invoke(context(null), Data.class)).isNull();
+        assertThat(smile.invoke(context(new byte[0]), Data.class)).isNull();
+        assertThat(cbor.invoke(context(new byte[]{(byte) 0xff, 0x00}), Data.class)).isNull();
+        assertThat(smile.invoke(new byte[]{0x01, 0x02}, Data.class)).isNull();
+    }
+
+    @Test
+    public void testMimeTypes() {
+        assertThat(smile.getContentTypes()).containsExactly(MimeTypes.SMILE);
+        assertThat(cbor.getContentTypes()).containsExactly(MimeTypes.CBOR);
+    }
+
+    private static Data data() {
+        Data data = new Data();
+        data.setName("wisdom");
+        data.setAge(2);
+        data.setFriends(ImmutableList.of("clement", "jonathan"));
+        return data;
+    }
+
+    private static byte[] encode(Class<? extends com.fasterxml.jackson.core.JsonFactory> format, Object value)
+            throws JsonProcessingException {
+        try {
+            return new ObjectMapper(format.newInstance()).writeValueAsBytes(value);
+        } catch (InstantiationException | IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Context context(byte[] payload) {
+        Context context = mock(Context.class);
+        when(context.raw()).thenReturn(payload);
+        return context;
+    }
+}
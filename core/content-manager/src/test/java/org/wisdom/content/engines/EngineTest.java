@@ -25,7 +25,9 @@ import com.google.common.net.MediaType;
 import org.junit.Before;
 import org.junit.Test;
 import org.wisdom.api.http.MimeTypes;
+import org.wisdom.content.serializers.CBORSerializer;
 import org.wisdom.content.serializers.JSONSerializer;
+import org.wisdom.content.serializers.SmileSerializer;
 import org.wisdom.content.serializers.XMLSerializer;
 
 import java.util.*;
@@ -94,6 +96,20 @@ public class EngineTest {
 
     }
 
+    @Test
+    public void testBinaryFormatsAreOnlyUsedWhenAccepted() throws Exception {
+        SmileSerializer smile = new SmileSerializer();
+        CBORSerializer cbor = new CBORSerializer();
+        engine.serializers = ImmutableList.of(smile, cbor, json, xml);
+
+        assertThat(engine.getBestSerializer(mediaTypes("*/*"))).isEqualTo(json);
+        assertThat(engine.getBestSerializer(mediaTypes("application/*"))).isEqualTo(json);
+        assertThat(engine.getBestSerializer(mediaTypes(MimeTypes.SMILE))).isEqualTo(smile);
+        assertThat(engine.getBestSerializer(mediaTypes(MimeTypes.CBOR + ", */*;q=0.5"))).isEqualTo(cbor);
+        assertThat(engine.getBestSerializer(mediaTypes(MimeTypes.CBOR + ";q=0.5, application/json")))
+                .isEqualTo(json);
+    }
+
     @Test
     public void testMediaType() throws Exception {
         String accept = "text/*;q=0.3, text/html;q=0.7, text/html;level=1, text/html;level=2;q=0.4, */*;q=0.5";
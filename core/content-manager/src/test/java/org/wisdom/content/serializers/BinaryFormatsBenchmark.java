@@ -0,0 +1,93 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.content.serializers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.Test;
+import org.wisdom.content.jackson.JacksonSingleton;
+import org.wisdom.test.parents.WisdomBenchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares the payload size and the encoding and decoding throughput of JSON, Smile and CBOR, on a typical
+ * service-to-service payload (a list of records).
+ * <p>
+ * Launch it with: {@code mvn test -Dtest=BinaryFormatsBenchmark -Dwisdom.benchmark=true}.
+ */
+public class BinaryFormatsBenchmark extends WisdomBenchmark {
+
+    @Test
+    public void measureThroughput() throws Exception {
+        JacksonSingleton singleton = new JacksonSingleton();
+        singleton.validate();
+        List<Item> payload = payload();
+
+        report("format\tbytes\tencodings/s\tdecodings/s");
+        measure("JSON", singleton.mapper(), payload);
+        measure("Smile", singleton.mapper(SmileFactory.class), payload);
+        measure("CBOR", singleton.mapper(CBORFactory.class), payload);
+    }
+
+    private void measure(String name, final ObjectMapper mapper, final List<Item> payload) throws Exception {
+        final byte[] bytes = mapper.writeValueAsBytes(payload);
+        double encodings = throughput(new Operation() {
+            @Override
+            public void run() throws Exception {
+                mapper.writeValueAsBytes(payload);
+            }
+        });
+        double decodings = throughput(new Operation() {
+            @Override
+            public void run() throws Exception {
+                mapper.readValue(bytes, Item[].class);
+            }
+        });
+        report("%s\t%d\t%.0f\t%.0f", name, bytes.length, encodings, decodings);
+    }
+
+    private static List<Item> payload() {
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            Item item = new Item();
+            item.id = i;
+            item.name = "item-" + i;
+            item.price = i * 1.25;
+            item.available = i % 2 == 0;
+            item.tags = new String[]{"wisdom", "catalog", "tag-" + (i % 10)};
+            items.add(item);
+        }
+        return items;
+    }
+
+    /**
+     * A record of the payload.
+     */
+    public static class Item {
+        public long id;
+        public String name;
+        public double price;
+        public boolean available;
+        public String[] tags;
+    }
+}
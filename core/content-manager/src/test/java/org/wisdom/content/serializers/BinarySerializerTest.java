@@ -0,0 +1,77 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.content.serializers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.google.common.collect.ImmutableMap;
+import org.apache.commons.io.IOUtils;
+import org.junit.Before;
+import org.junit.Test;
+import org.wisdom.api.bodies.RenderableObject;
+import org.wisdom.api.http.MimeTypes;
+import org.wisdom.content.jackson.JacksonSingleton;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks the Smile and CBOR serializers.
+ */
+public class BinarySerializerTest {
+
+    private JacksonSingleton singleton;
+
+    @Before
+    public void setUp() {
+        singleton = new JacksonSingleton();
+        singleton.validate();
+    }
+
+    @Test
+    public void testSmile() throws Exception {
+        SmileSerializer serializer = new SmileSerializer();
+        serializer.repository = singleton;
+        assertThat(serializer.getContentType()).isEqualTo(MimeTypes.SMILE);
+
+        RenderableObject renderable = new RenderableObject(ImmutableMap.of("name", "wisdom", "age", 2));
+        serializer.serialize(renderable);
+        byte[] bytes = IOUtils.toByteArray(renderable.render(null, null));
+        // Smile documents start with the ":)\n" header.
+        assertThat(new String(bytes, 0, 3, "US-ASCII")).isEqualTo(":)\n");
+        Map read = new ObjectMapper(new SmileFactory()).readValue(bytes, Map.class);
+        assertThat(read).containsEntry("name", "wisdom").containsEntry("age", 2);
+    }
+
+    @Test
+    public void testCBOR() throws Exception {
+        CBORSerializer serializer = new CBORSerializer();
+        serializer.repository = singleton;
+        assertThat(serializer.getContentType()).isEqualTo(MimeTypes.CBOR);
+
+        RenderableObject renderable = new RenderableObject(ImmutableMap.of("name", "wisdom", "age", 2));
+        serializer.serialize(renderable);
+        byte[] bytes = IOUtils.toByteArray(renderable.render(null, null));
+        Map read = new ObjectMapper(new CBORFactory()).readValue(bytes, Map.class);
+        assertThat(read).containsEntry("name", "wisdom").containsEntry("age", 2);
+    }
+}
@@ -27,10 +27,15 @@ import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.wisdom.content.jackson.JacksonSingleton;
 
-import java.io.ByteArrayInputStream;
-import java.io.InputStream;
+import org.wisdom.api.bodies.RenderableXMLStream;
+
+import java.io.*;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
 
 /**
  * Test the XML support.
@@ -138,4 +143,194 @@ public class XMLSingletonTest {
                 .contains("<message>Welcome</message")
                 .contains("</data>");
     }
+
+    @Test
+    public void testFromXMLUsingStream() throws Exception {
+        String txt = "<data version=\"1\" lg=\"en\">" +
+                "<message>Hello</message></data>";
+        TrackingInputStream stream = new TrackingInputStream(txt.getBytes(Charsets.UTF_8));
+
+        Data data = xml.fromXML(stream, Data.class);
+        assertThat(data.lg).isEqualTo("en");
+        assertThat(data.version).isEqualTo(1);
+        assertThat(data.message.message).isEqualTo("Hello");
+        assertThat(stream.closed).isFalse();
+    }
+
+    @Test
+    public void testReadValues() throws Exception {
+        String txt = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+                "<feed>\n" +
+                "  <!-- first -->\n" +
+                "  <data version=\"1\" lg=\"en\"><message>Hello</message></data>\n" +
+                "  <data version=\"2\" lg=\"fr\"><message>Bonjour</message></data>\n" +
+                "</feed>\n";
+        TrackingInputStream stream = new TrackingInputStream(txt.getBytes(Charsets.UTF_8));
+
+        Iterator<Data> iterator = xml.readValues(stream, Data.class);
+        assertThat(iterator.hasNext()).isTrue();
+        assertThat(iterator.hasNext()).isTrue();
+        Data data = iterator.next();
+        assertThat(data.lg).isEqualTo("en");
+        assertThat(data.message.message).isEqualTo("Hello");
+        data = iterator.next();
+        assertThat(data.version).isEqualTo(2);
+        assertThat(data.message.message).isEqualTo("Bonjour");
+        assertThat(iterator.hasNext()).isFalse();
+        try {
+            iterator.next();
+            fail("NoSuchElementException expected");
+        } catch (NoSuchElementException e) {
+            // Expected.
+        }
+        assertThat(stream.closed).isFalse();
+
+        assertThat(xml.readValues(new ByteArrayInputStream("<feed/>".getBytes(Charsets.UTF_8)), Data.class)
+                .hasNext()).isFalse();
+    }
+
+    @Test
+    public void testReadValuesFromLargeFeed() throws Exception {
+        final int count = 100000;
+        // The feed is produced while being read, it is never held in memory.
+        InputStream stream = new SequenceInputStream(new Enumeration<InputStream>() {
+            int index = -1;
+
+            @Override
+            public boolean hasMoreElements() {
+                return index <= count;
+            }
+
+            @Override
+            public InputStream nextElement() {
+                String chunk;
+                if (index == -1) {
+                    chunk = "<feed>";
+                } else if (index == count) {
+                    chunk = "</feed>";
+                } else {
+                    chunk = "<data version=\"" + index + "\" lg=\"en\"><message>m" + index + "</message></data>";
+                }
+                index++;
+                return new ByteArrayInputStream(chunk.getBytes(Charsets.UTF_8));
+            }
+        });
+
+        Iterator<Data> iterator = xml.readValues(stream, Data.class);
+        int read = 0;
+        while (iterator.hasNext()) {
+            Data data = iterator.next();
+            assertThat(data.version).isEqualTo(read);
+            read++;
+        }
+        assertThat(read).isEqualTo(count);
+    }
+
+    @Test
+    public void testReadValuesFromInvalidStream() throws Exception {
+        Iterator<Data> iterator = xml.readValues(
+                new ByteArrayInputStream("<feed><data version=\"1\"></feed>".getBytes(Charsets.UTF_8)), Data.class);
+        try {
+            while (iterator.hasNext()) {
+                iterator.next();
+            }
+            fail("UncheckedIOException expected");
+        } catch (UncheckedIOException e) {
+            // Expected.
+        }
+
+        try {
+            xml.readValues(new ByteArrayInputStream("not xml".getBytes(Charsets.UTF_8)), Data.class);
+            fail("IOException expected");
+        } catch (IOException e) {
+            // Expected.
+        }
+    }
+
+    @Test
+    public void testWriteTo() throws Exception {
+        Data data = new Data();
+        data.version = 1;
+        data.lg = "en";
+        data.message = new Message("Hello");
+        TrackingOutputStream stream = new TrackingOutputStream();
+
+        xml.writeTo(data, stream);
+        assertThat(stream.closed).isFalse();
+        assertThat(stream.toString("UTF-8")).startsWith("<Data").contains("<lg>en</lg>").contains("Hello");
+    }
+
+    @Test
+    public void testRenderableXMLStream() throws Exception {
+        Data data = new Data();
+        data.version = 1;
+        data.lg = "en";
+        data.message = new Message("Hello");
+        RenderableXMLStream renderable = new RenderableXMLStream(xml, data);
+        assertThat(renderable.mustBeChunked()).isTrue();
+        assertThat(renderable.requireSerializer()).isFalse();
+        assertThat(renderable.length()).isEqualTo(-1);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        renderable.writeTo(null, null, out);
+        assertThat(out.toString("UTF-8")).contains("<lg>en</lg>").contains("Hello");
+        assertThat(IOUtils.toString(renderable.render(null, null), Charsets.UTF_8)).isEqualTo(out.toString("UTF-8"));
+    }
+
+    @Test
+    public void testDocumentsAndStringsAcrossThreads() throws Exception {
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < 100; i++) {
+                    try {
+                        Document document = xml.fromString("<data version=\"" + i + "\"/>");
+                        assertThat(xml.stringify(document)).contains("version=\"" + i + "\"");
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            }
+        };
+        Thread[] threads = new Thread[4];
+        final Throwable[] failure = new Throwable[1];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(task);
+            threads[i].setUncaughtExceptionHandler(new Thread.UncaughtExceptionHandler() {
+                @Override
+                public void uncaughtException(Thread t, Throwable e) {
+                    failure[0] = e;
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertThat(failure[0]).isNull();
+    }
+
+    private static class TrackingInputStream extends ByteArrayInputStream {
+        boolean closed;
+
+        TrackingInputStream(byte[] buf) {
+            super(buf);
+        }
+
+        @Override
+        public void close() throws IOException {
+            closed = true;
+            super.close();
+        }
+    }
+
+    private static class TrackingOutputStream extends ByteArrayOutputStream {
+        boolean closed;
+
+        @Override
+        public void close() throws IOException {
+            closed = true;
+            super.close();
+        }
+    }
 }
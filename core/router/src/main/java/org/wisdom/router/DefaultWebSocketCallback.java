@@ -44,6 +44,7 @@ public class DefaultWebSocketCallback {
 
     private final Controller controller;
     private final Method method;
+    private final String uri;
     private final Pattern regex;
     private final ImmutableList<String> parameterNames;
     protected final WebSocketRouter router;
@@ -62,6 +63,7 @@ public class DefaultWebSocketCallback {
         this.router = router;
         this.controller = controller;
         this.method = method;
+        this.uri = uri;
         this.regex = Pattern.compile(RouteUtils.convertRawUriToRegex(uri));
         this.parameterNames = ImmutableList.copyOf(RouteUtils.extractParameters(uri));
     }
@@ -80,6 +82,13 @@ public class DefaultWebSocketCallback {
         return method;
     }
 
+    /**
+     * @return the listened uri, as written in the annotation (including the controller's prefix).
+     */
+    public String getUri() {
+        return uri;
+    }
+
     /**
      * @return the computed URI regular expression.
      */
@@ -0,0 +1,167 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.router;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The messages received from one client on one web socket, waiting to be dispatched to the {@code @OnMessage}
+ * callbacks.
+ * <p>
+ * Messages are dispatched serially, in their reception order, by a single task draining a batch of messages. When
+ * the mailbox is full, the router stops reading from the client until half of the pending messages have been
+ * dispatched. If the executor rejects the dispatching task, the pending messages are dropped.
+ */
+class Mailbox implements Callable<Void> {
+
+    private final WebSocketRouter router;
+    private final String uri;
+    private final String client;
+
+    private final Queue<byte[]> messages = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    /**
+     * Whether the reading from the client is paused. Guarded by the mailbox monitor, so pause and resume requests
+     * reach the dispatchers in order.
+     */
+    private boolean paused;
+
+    /**
+     * Creates a new mailbox.
+     *
+     * @param router the router
+     * @param uri    the web socket url
+     * @param client the client id
+     */
+    Mailbox(WebSocketRouter router, String uri, String client) {
+        this.router = router;
+        this.uri = uri;
+        this.client = client;
+    }
+
+    /**
+     * Adds a message to the mailbox, and schedules the dispatching task if not already scheduled.
+     *
+     * @param content the received content
+     */
+    void enqueue(byte[] content) {
+        messages.add(content);
+        if (size.incrementAndGet() >= router.mailboxCapacity) {
+            synchronized (this) {
+                if (!paused && size.get() >= router.mailboxCapacity) {
+                    paused = true;
+                    router.pause(uri, client);
+                }
+            }
+        }
+        schedule();
+    }
+
+    /**
+     * @return the number of messages waiting to be dispatched.
+     */
+    int size() {
+        return size.get();
+    }
+
+    /**
+     * @return whether the reading from the client is paused.
+     */
+    synchronized boolean isPaused() {
+        return paused;
+    }
+
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            try {
+                router.executor.submit(this);
+            } catch (RejectedExecutionException e) { //NOSONAR
+                // No task is going to drain the mailbox, and if the client is paused, no message is going to
+                // trigger another attempt. Drop the pending messages and read from the client again.
+                int dropped = drop();
+                scheduled.set(false);
+                WebSocketRouter.getLogger().error("Cannot dispatch the messages received on {} from {}, the executor " +
+                        "has rejected the task, {} message(s) dropped", uri, client, dropped);
+            }
+        }
+    }
+
+    /**
+     * Drops the pending messages, and resumes the client if paused.
+     *
+     * @return the number of dropped messages
+     */
+    private int drop() {
+        int dropped = 0;
+        while (messages.poll() != null) {
+            size.decrementAndGet();
+            dropped++;
+        }
+        router.droppedMessages.add(dropped);
+        synchronized (this) {
+            if (paused) {
+                paused = false;
+                router.resume(uri, client);
+            }
+        }
+        return dropped;
+    }
+
+    /**
+     * Dispatches a batch of messages. If messages remain, another task is scheduled, so long conversations do not
+     * monopolize the thread.
+     *
+     * @return {@code null}
+     */
+    @Override
+    public Void call() {
+        List<OnMessageWebSocketCallback> callbacks = router.callbacks(uri);
+        int dispatched = 0;
+        byte[] content;
+        while (dispatched < router.batchSize && (content = messages.poll()) != null) {
+            size.decrementAndGet();
+            dispatched++;
+            for (OnMessageWebSocketCallback callback : callbacks) {
+                router.invoke(callback, uri, client, content);
+            }
+        }
+
+        synchronized (this) {
+            if (paused && size.get() <= router.mailboxCapacity / 2) {
+                paused = false;
+                router.resume(uri, client);
+            }
+        }
+
+        scheduled.set(false);
+        if (!messages.isEmpty()) {
+            schedule();
+        }
+        return null;
+    }
+}
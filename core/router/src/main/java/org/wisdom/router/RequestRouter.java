@@ -96,6 +96,11 @@ public class RequestRouter extends AbstractRouter {
 
     private Set<RouteDelegate> routes = new LinkedHashSet<>();
 
+    /**
+     * The version of the set of routes, incremented when controllers arrive or leave.
+     */
+    private volatile long version;
+
     /**
      * Binds a new controller.
      *
@@ -126,6 +131,7 @@ public class RequestRouter extends AbstractRouter {
             // remove all new routes as one has failed
             routes.removeAll(newRoutes); //NOSONAR
         }
+        version++;
     }
 
     /**
@@ -142,6 +148,7 @@ public class RequestRouter extends AbstractRouter {
                 routes.remove(r);
             }
         }
+        version++;
     }
 
     private void ensureNoConflicts(List<Route> newRoutes) {
@@ -320,6 +327,14 @@ public class RequestRouter extends AbstractRouter {
         return copy();
     }
 
+    /**
+     * @return the version of the set of routes, incremented every time a controller arrives or leaves.
+     */
+    @Override
+    public long getRoutesVersion() {
+        return version;
+    }
+
     private String computeUrlForRoute(Route route, Map<String, Object> params) {
         if (params == null) {
             // No variables, return the raw url.
@@ -448,13 +463,21 @@ public class RequestRouter extends AbstractRouter {
     }
 
     /**
-     * Unbinds a filter.
+     * Unbinds a filter. Filters implementing {@link AutoCloseable} are closed, as their service is gone (the
+     * instance has been invalidated or reconfigured), letting them release the resources they hold (connections,
+     * threads...).
      *
      * @param filter the filter
      */
     @Unbind
     public synchronized void unbindFilter(Filter filter) {
-        filters.remove(filter);
+        if (filters.remove(filter) && filter instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) filter).close();
+            } catch (Exception e) {
+                LOGGER.warn("Cannot close the filter {}", filter, e);
+            }
+        }
     }
 
     /**
@@ -327,44 +327,61 @@ public class RouteDelegate extends Route {
                 context.setParameters(parameters);
 
                 // Invoke the action method.
-                final Result result = (Result) getControllerMethod().invoke(
-                        getControllerObject(), parameters);
-
-                // Manage the VARY header if the route has a 'consume' set:
-                if (! result.getHeaders().containsKey(HeaderNames.VARY)) {
-                    String headers = null;
-                    if (! getAcceptedMediaTypes().isEmpty()) {
-                        headers = HeaderNames.CONTENT_TYPE;
-                    }
-                    if (! getProducedMediaTypes().isEmpty()) {
-                        if (headers == null) {
-                            headers = HeaderNames.ACCEPT;
-                        } else {
-                            headers += ", " + HeaderNames.ACCEPT;
-                        }
-                    }
-                    if (headers != null) {
-                        result.with(HeaderNames.VARY, headers);
-                    }
-                }
+                final Result result = CompletionStageResult.from(getControllerMethod().invoke(
+                        getControllerObject(), parameters));
 
-                // Manage produced types
-                final Set<MediaType> mediaTypes = route.getProducedMediaTypes();
-                if (mediaTypes.isEmpty()  || result.getContentType() != null
-                        || result.getRenderable() != null  && result.getRenderable().mimetype() != null) {
-                    return result;
+                if (result instanceof CompletionStageResult) {
+                    // The result is not yet available, decorate it on completion.
+                    return new CompletionStageResult(((CompletionStageResult) result).stage()
+                            .thenApply(this::decorate));
                 }
+                return decorate(result);
+            }
+        }
 
-                // check whether we can set the produced media type
-                if (mediaTypes.size() == 1) {
-                    // Only one
-                    result.as(mediaTypes.iterator().next().toString());
+        /**
+         * Sets the {@literal VARY} header and the produced media type on the result returned by the action method.
+         *
+         * @param result the result
+         * @return the given result
+         */
+        private Result decorate(Result result) {
+            if (result == null) {
+                return null;
+            }
+            // Manage the VARY header if the route has a 'consume' set:
+            if (! result.getHeaders().containsKey(HeaderNames.VARY)) {
+                String headers = null;
+                if (! getAcceptedMediaTypes().isEmpty()) {
+                    headers = HeaderNames.CONTENT_TYPE;
+                }
+                if (! getProducedMediaTypes().isEmpty()) {
+                    if (headers == null) {
+                        headers = HeaderNames.ACCEPT;
+                    } else {
+                        headers += ", " + HeaderNames.ACCEPT;
+                    }
                 }
-                // Else we cannot do anything.
+                if (headers != null) {
+                    result.with(HeaderNames.VARY, headers);
+                }
+            }
 
+            // Manage produced types
+            final Set<MediaType> mediaTypes = route.getProducedMediaTypes();
+            if (mediaTypes.isEmpty()  || result.getContentType() != null
+                    || result.getRenderable() != null  && result.getRenderable().mimetype() != null) {
                 return result;
+            }
 
+            // check whether we can set the produced media type
+            if (mediaTypes.size() == 1) {
+                // Only one
+                result.as(mediaTypes.iterator().next().toString());
             }
+            // Else we cannot do anything.
+
+            return result;
         }
 
         /**
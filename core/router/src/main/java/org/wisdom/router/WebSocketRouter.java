@@ -39,13 +39,19 @@ import org.wisdom.api.router.RouteUtils;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
-import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Component handling web socket frame routing.
+ * <p>
+ * Messages received from a client are queued in a {@link Mailbox} and dispatched serially, so each client's
+ * messages are handled in order, by batches.
  */
 @Component(immediate = true)
 @Provides(specifications = Publisher.class)
@@ -54,6 +60,16 @@ public class WebSocketRouter implements WebSocketListener, Publisher {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(WebSocketRouter.class);
 
+    /**
+     * The maximum number of uris with dynamic parts kept in the index.
+     */
+    private static final int MAX_INDEXED_URIS = 1024;
+
+    /**
+     * The characters indicating that a listened uri is not a plain uri (dynamic parts or regular expressions).
+     */
+    private static final String PATTERN_CHARACTERS = "{}*+?()[]\\.|^$";
+
     @Requires
     WebSocketDispatcher[] dispatchers;
 
@@ -61,6 +77,39 @@ public class WebSocketRouter implements WebSocketListener, Publisher {
     Set<DefaultWebSocketCallback> closes = new LinkedHashSet<>();
     Set<OnMessageWebSocketCallback> listeners = new LinkedHashSet<>();
 
+    /**
+     * The {@code @OnMessage} callbacks to call for a given uri. Plain uris are indexed when controllers are bound,
+     * the others on their first message (until {@link #MAX_INDEXED_URIS} is reached). The map is replaced, never
+     * cleared, when the controllers change, so a concurrent lookup cannot index a stale entry in the new map.
+     */
+    volatile ConcurrentMap<String, List<OnMessageWebSocketCallback>> index = new ConcurrentHashMap<>();
+
+    /**
+     * An immutable copy of the {@code @OnMessage} callbacks, used to resolve the uris that are not indexed without
+     * taking the router's lock. It is written before the index, and read after.
+     */
+    private volatile List<OnMessageWebSocketCallback> snapshot = Collections.emptyList();
+
+    /**
+     * The mailboxes of the connected clients, indexed by client and uri.
+     */
+    final ConcurrentMap<String, Mailbox> mailboxes = new ConcurrentHashMap<>();
+
+    /**
+     * The number of pending messages from a client above which the client is paused.
+     */
+    int mailboxCapacity = 256;
+
+    /**
+     * The maximum number of messages dispatched by a single task.
+     */
+    int batchSize = 32;
+
+    /**
+     * The number of received messages dropped because the executor rejected their dispatching.
+     */
+    final LongAdder droppedMessages = new LongAdder();
+
     @Requires(optional = true)
     private ContentEngine contentEngine;
 
@@ -77,6 +126,14 @@ public class WebSocketRouter implements WebSocketListener, Publisher {
         return LOGGER;
     }
 
+    /**
+     * @return the number of received messages that have been dropped because the executor rejected their
+     * dispatching.
+     */
+    public long getDroppedMessageCount() {
+        return droppedMessages.sum();
+    }
+
     /**
      * Registers the current router in the dispatcher.
      */
@@ -95,6 +152,7 @@ public class WebSocketRouter implements WebSocketListener, Publisher {
 
     @Invalidate
     public void stop() {
+        mailboxes.clear();
         for (WebSocketDispatcher dispatcher : dispatchers) {
             dispatcher.unregister(this);
         }
@@ -108,6 +166,7 @@ public class WebSocketRouter implements WebSocketListener, Publisher {
     @Bind(aggregate = true)
     public synchronized void bindController(Controller controller) {
         analyze(controller);
+        reindex();
     }
 
     /**
@@ -192,6 +251,67 @@ public class WebSocketRouter implements WebSocketListener, Publisher {
             }
         }
         listeners.removeAll(toRemove);  //NOSONAR type is correct here.
+        reindex();
+    }
+
+    /**
+     * Rebuilds the index of {@code @OnMessage} callbacks. Must be called with the router's lock held.
+     */
+    private void reindex() {
+        List<OnMessageWebSocketCallback> callbacks = Collections.unmodifiableList(new ArrayList<>(listeners));
+        ConcurrentMap<String, List<OnMessageWebSocketCallback>> map = new ConcurrentHashMap<>();
+        for (OnMessageWebSocketCallback listener : callbacks) {
+            String uri = listener.getUri();
+            if (isPlain(uri) && !map.containsKey(uri)) {
+                map.put(uri, resolve(callbacks, uri));
+            }
+        }
+        snapshot = callbacks;
+        index = map;
+    }
+
+    private static boolean isPlain(String uri) {
+        for (int i = 0; i < uri.length(); i++) {
+            if (PATTERN_CHARACTERS.indexOf(uri.charAt(i)) != -1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Computes the list of callbacks matching the given uri.
+     */
+    private static List<OnMessageWebSocketCallback> resolve(List<OnMessageWebSocketCallback> callbacks,
+                                                            String uri) {
+        List<OnMessageWebSocketCallback> list = new ArrayList<>();
+        for (OnMessageWebSocketCallback listener : callbacks) {
+            if (listener.matches(uri)) {
+                list.add(listener);
+            }
+        }
+        return list.isEmpty() ? Collections.<OnMessageWebSocketCallback>emptyList()
+                : Collections.unmodifiableList(list);
+    }
+
+    /**
+     * Gets the {@code @OnMessage} callbacks to call when a message is received on the given uri.
+     *
+     * @param uri the url of the web socket
+     * @return the list of callbacks, empty if none
+     */
+    List<OnMessageWebSocketCallback> callbacks(String uri) {
+        // Read the index first, the snapshot is at least as recent.
+        ConcurrentMap<String, List<OnMessageWebSocketCallback>> map = index;
+        List<OnMessageWebSocketCallback> callbacks = map.get(uri);
+        if (callbacks == null) {
+            // Resolved without lock. Once the index is full, the uris are resolved on every message.
+            callbacks = resolve(snapshot, uri);
+            if (map.size() < MAX_INDEXED_URIS) {
+                map.putIfAbsent(uri, callbacks);
+            }
+        }
+        return callbacks;
     }
 
     /**
@@ -203,27 +323,70 @@ public class WebSocketRouter implements WebSocketListener, Publisher {
      */
     @Override
     public void received(final String uri, final String from, final byte[] content) {
-        for (final OnMessageWebSocketCallback listener : listeners) {
-            if (listener.matches(uri)) {
-                 executor.submit(new Callable<Void>() {
-                     @Override
-                     public Void call() throws Exception {
-                         try {
-                             listener.invoke(uri, from, content);
-                         } catch (InvocationTargetException e) { //NOSONAR
-                             LOGGER.error("An error occurred in the @OnMessage callback {}#{} : {}",
-                                     listener.getController().getClass().getName(), listener.getMethod().getName
-                                             (), e.getTargetException().getMessage(), e.getTargetException()
-                             );
-                         } catch (Exception e) {
-                             LOGGER.error("An error occurred in the @OnMessage callback {}#{} : {}",
-                                     listener.getController().getClass().getName(), listener.getMethod().getName(), e.getMessage(), e);
-                         }
-                         return null;
-                     }
-                 });
+        if (callbacks(uri).isEmpty()) {
+            return;
+        }
+        Mailbox mailbox = mailboxes.get(key(uri, from));
+        if (mailbox == null) {
+            Mailbox created = new Mailbox(this, uri, from);
+            mailbox = mailboxes.putIfAbsent(key(uri, from), created);
+            if (mailbox == null) {
+                mailbox = created;
             }
         }
+        mailbox.enqueue(content);
+    }
+
+    private static String key(String uri, String client) {
+        return client + " " + uri;
+    }
+
+    /**
+     * Invokes the given {@code @OnMessage} callback, logging the errors.
+     *
+     * @param listener the callback
+     * @param uri      the url of the web socket
+     * @param from     the client having sent the message
+     * @param content  the received content
+     */
+    void invoke(OnMessageWebSocketCallback listener, String uri, String from, byte[] content) {
+        try {
+            listener.invoke(uri, from, content);
+        } catch (InvocationTargetException e) { //NOSONAR
+            LOGGER.error("An error occurred in the @OnMessage callback {}#{} : {}",
+                    listener.getController().getClass().getName(), listener.getMethod().getName
+                            (), e.getTargetException().getMessage(), e.getTargetException()
+            );
+        } catch (Exception e) {
+            LOGGER.error("An error occurred in the @OnMessage callback {}#{} : {}",
+                    listener.getController().getClass().getName(), listener.getMethod().getName(), e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Stops reading the messages sent by the given client, as its mailbox is full.
+     *
+     * @param uri    the url of the web socket
+     * @param client the client id
+     */
+    void pause(String uri, String client) {
+        LOGGER.debug("Pausing the web socket client {} on {}, too many pending messages", client, uri);
+        for (WebSocketDispatcher dispatcher : dispatchers) {
+            dispatcher.pause(uri, client);
+        }
+    }
+
+    /**
+     * Reads again the messages sent by the given client.
+     *
+     * @param uri    the url of the web socket
+     * @param client the client id
+     */
+    void resume(String uri, String client) {
+        LOGGER.debug("Resuming the web socket client {} on {}", client, uri);
+        for (WebSocketDispatcher dispatcher : dispatchers) {
+            dispatcher.resume(uri, client);
+        }
     }
 
     /**
@@ -259,6 +422,8 @@ public class WebSocketRouter implements WebSocketListener, Publisher {
      */
     @Override
     public void closed(String uri, String client) {
+        // The pending messages are still dispatched.
+        mailboxes.remove(key(uri, client));
         for (DefaultWebSocketCallback close : closes) {
             if (close.matches(uri)) {
                 try {
@@ -28,6 +28,9 @@ import org.wisdom.api.annotations.Route;
 import org.wisdom.api.http.*;
 import org.wisdom.api.utils.KnownMimeTypes;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -226,4 +229,31 @@ public class NegotiationTest {
 
     }
 
+    @Test
+    public void testThatCompletionStagesAreDecoratedOnCompletion() throws Exception {
+        final CompletableFuture<Result> future = new CompletableFuture<>();
+        Controller controller = new DefaultController() {
+
+            @Route(method= HttpMethod.GET, uri="/", produces = "application/json")
+            public CompletionStage<Result> getJson() {
+                return future;
+            }
+        };
+
+        router.bindController(controller);
+
+        when(request.accepts("application/json")).thenReturn(true);
+        org.wisdom.api.router.Route route = router.getRouteFor(HttpMethod.GET, "/", request);
+        assertThat(route.isUnbound()).isFalse();
+        Result result = route.invoke();
+        assertThat(result).isInstanceOf(CompletionStageResult.class);
+        CompletionStage<Result> stage = ((CompletionStageResult) result).stage();
+        assertThat(stage.toCompletableFuture().isDone()).isFalse();
+
+        future.complete(new Result(Status.OK));
+        Result completed = stage.toCompletableFuture().get();
+        assertThat(completed.getStatusCode()).isEqualTo(200);
+        assertThat(completed.getContentType()).isEqualTo("application/json");
+        assertThat(completed.getHeaders().get(HeaderNames.VARY)).isEqualTo(HeaderNames.ACCEPT);
+    }
 }
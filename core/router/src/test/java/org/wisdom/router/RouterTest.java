@@ -241,12 +241,16 @@ public class RouterTest {
         controller.setRoutes(ImmutableList.of(
                 new RouteBuilder().route(HttpMethod.GET).on("/foo/{path+}").to(controller, "foo")
         ));
+        long version = router.getRoutesVersion();
         router.bindController(controller);
+        assertThat(router.getRoutesVersion()).isGreaterThan(version);
+        version = router.getRoutesVersion();
 
         assertThat(router.getRouteFor(HttpMethod.GET, "/foo/bar", request).isUnbound()).isFalse();
 
         router.unbindController(controller);
         assertThat(router.getRouteFor(HttpMethod.GET, "/foo/bar", request).isUnbound()).isTrue();
+        assertThat(router.getRoutesVersion()).isGreaterThan(version);
 
     }
 
@@ -274,6 +278,41 @@ public class RouterTest {
         assertThat(router.getFilters()).hasSize(0);
     }
 
+    @Test
+    public void testThatClosableFiltersAreClosedWhenUnbound() {
+        final AtomicInteger closed = new AtomicInteger();
+        class ClosableFilter implements Filter, AutoCloseable {
+            @Override
+            public Result call(Route route, RequestContext context) throws Exception {
+                return null;
+            }
+
+            @Override
+            public Pattern uri() {
+                return null;
+            }
+
+            @Override
+            public int priority() {
+                return 0;
+            }
+
+            @Override
+            public void close() {
+                closed.incrementAndGet();
+            }
+        }
+        Filter filter = new ClosableFilter();
+        router.bindFilter(filter);
+        assertThat(closed.get()).isEqualTo(0);
+        router.unbindFilter(filter);
+        assertThat(router.getFilters()).hasSize(0);
+        assertThat(closed.get()).isEqualTo(1);
+        // Not bound anymore, not closed again.
+        router.unbindFilter(filter);
+        assertThat(closed.get()).isEqualTo(1);
+    }
+
     @Test
     public void testThatFiltersCannotBeAddedTwice() {
         Filter filter = new Filter() {
@@ -36,10 +36,13 @@ import org.wisdom.api.http.websockets.WebSocketDispatcher;
 import org.wisdom.content.converters.ParamConverterEngine;
 
 import java.nio.charset.Charset;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.entry;
@@ -184,6 +187,164 @@ public class WebSocketRouterTest {
         router.unbindController(controller);
     }
 
+    @Test
+    public void testMessagesAreDispatchedInOrderByBatches() throws Exception {
+        WebSocketRouter router = new WebSocketRouter();
+        router.converter = new ParamConverterEngine(
+                Collections.<ParameterConverter>emptyList(),
+                Collections.<ParameterFactory>emptyList());
+        final WebSocketDispatcher dispatcher = mock(WebSocketDispatcher.class);
+        router.dispatchers = new WebSocketDispatcher[]{dispatcher};
+        router.executor = mock(ManagedExecutorService.class);
+        router.batchSize = 3;
+        router.mailboxCapacity = 4;
+        final List<Callable<Void>> tasks = new ArrayList<>();
+        doAnswer(new Answer() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                tasks.add((Callable<Void>) invocation.getArguments()[0]);
+                return null;
+            }
+        }).when(router.executor).submit(any(Callable.class));
+
+        final List<String> messages = new ArrayList<>();
+        final DefaultController controller = new DefaultController() {
+
+            @OnMessage("/ws")
+            public void foo(@Body String message) {
+                messages.add(message);
+            }
+
+        };
+        router.bindController(controller);
+        assertThat(router.index).containsKey("/ws");
+
+        for (int i = 0; i < 5; i++) {
+            router.received("/ws", "client", String.valueOf(i).getBytes(Charset.defaultCharset()));
+        }
+        // A single task is scheduled for the client.
+        assertThat(tasks).hasSize(1);
+        // The mailbox is full, the client is paused.
+        verify(dispatcher).pause("/ws", "client");
+
+        // The first batch.
+        tasks.remove(0).call();
+        assertThat(messages).containsExactly("0", "1", "2");
+        verify(dispatcher).resume("/ws", "client");
+        assertThat(tasks).hasSize(1);
+
+        tasks.remove(0).call();
+        assertThat(messages).containsExactly("0", "1", "2", "3", "4");
+        assertThat(tasks).isEmpty();
+
+        router.closed("/ws", "client");
+        assertThat(router.mailboxes).isEmpty();
+        router.unbindController(controller);
+        assertThat(router.index).isEmpty();
+    }
+
+    @Test
+    public void testPendingMessagesAreDroppedWhenTheExecutorRejectsTheDispatching() throws Exception {
+        WebSocketRouter router = new WebSocketRouter();
+        router.converter = new ParamConverterEngine(
+                Collections.<ParameterConverter>emptyList(),
+                Collections.<ParameterFactory>emptyList());
+        final WebSocketDispatcher dispatcher = mock(WebSocketDispatcher.class);
+        router.dispatchers = new WebSocketDispatcher[]{dispatcher};
+        router.executor = mock(ManagedExecutorService.class);
+        router.batchSize = 1;
+        router.mailboxCapacity = 4;
+        final List<Callable<Void>> tasks = new ArrayList<>();
+        final boolean[] reject = {false};
+        doAnswer(new Answer() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                if (reject[0]) {
+                    throw new RejectedExecutionException("Saturated");
+                }
+                tasks.add((Callable<Void>) invocation.getArguments()[0]);
+                return null;
+            }
+        }).when(router.executor).submit(any(Callable.class));
+
+        final List<String> messages = new ArrayList<>();
+        final DefaultController controller = new DefaultController() {
+
+            @OnMessage("/ws")
+            public void foo(@Body String message) {
+                messages.add(message);
+            }
+
+        };
+        router.bindController(controller);
+
+        for (int i = 0; i < 5; i++) {
+            router.received("/ws", "client", String.valueOf(i).getBytes(Charset.defaultCharset()));
+        }
+        // The mailbox is full, the client is paused.
+        verify(dispatcher).pause("/ws", "client");
+        Mailbox mailbox = router.mailboxes.get("client /ws");
+        assertThat(mailbox.isPaused()).isTrue();
+
+        // The executor is saturated, the next batch cannot be scheduled.
+        reject[0] = true;
+        tasks.remove(0).call();
+        assertThat(messages).containsExactly("0");
+        // The pending messages are dropped, and the client is read again.
+        assertThat(mailbox.size()).isEqualTo(0);
+        assertThat(mailbox.isPaused()).isFalse();
+        verify(dispatcher).resume("/ws", "client");
+        assertThat(router.getDroppedMessageCount()).isEqualTo(4);
+
+        // The next messages are dispatched once the executor accepts the task.
+        reject[0] = false;
+        router.received("/ws", "client", "5".getBytes(Charset.defaultCharset()));
+        assertThat(tasks).hasSize(1);
+        tasks.remove(0).call();
+        assertThat(messages).containsExactly("0", "5");
+
+        router.unbindController(controller);
+    }
+
+    @Test
+    public void testDynamicUrisBeyondTheIndexCapacity() {
+        WebSocketRouter router = new WebSocketRouter();
+        router.dispatchers = new WebSocketDispatcher[]{mock(WebSocketDispatcher.class)};
+        final DefaultController controller = new DefaultController() {
+
+            @OnMessage("/ws/{name}")
+            public void foo(@Body String message) {
+                // Nothing.
+            }
+
+        };
+        router.bindController(controller);
+        assertThat(router.index).isEmpty();
+
+        for (int i = 0; i < 2000; i++) {
+            assertThat(router.callbacks("/ws/" + i)).hasSize(1);
+        }
+        // The index is bounded, the other uris are resolved on every message.
+        assertThat(router.index).hasSize(1024);
+        assertThat(router.callbacks("/ws/1999")).hasSize(1);
+        assertThat(router.callbacks("/other")).isEmpty();
+
+        router.unbindController(controller);
+        assertThat(router.index).isEmpty();
+        assertThat(router.callbacks("/ws/1999")).isEmpty();
+    }
+
+    @Test
+    public void testMessagesWithoutCallbacksAreIgnored() {
+        WebSocketRouter router = new WebSocketRouter();
+        router.dispatchers = new WebSocketDispatcher[]{mock(WebSocketDispatcher.class)};
+        router.executor = mock(ManagedExecutorService.class);
+
+        router.received("/ws", "client", "hello".getBytes(Charset.defaultCharset()));
+        verify(router.executor, never()).submit(any(Callable.class));
+        assertThat(router.mailboxes).isEmpty();
+    }
+
     @Test
     public void testControllerWithOpenAndCloseAnnotations() {
         WebSocketRouter router = new WebSocketRouter();
@@ -47,4 +47,12 @@ public @interface Async {
      * The default unit is <em>SECONDS</em>.
      */
     TimeUnit unit() default TimeUnit.SECONDS;
+
+    /**
+     * Sets the name of the executor computing the result. Giving a dedicated executor (a <em>bulkhead</em>) to slow
+     * actions avoids starving the other actions. The executor must be configured in the {@code pools.executors}
+     * section of the application configuration. If the executor is saturated, the request is rejected with a
+     * {@literal 503 - Service Unavailable} response. By default, the system executor is used.
+     */
+    String executor() default "";
 }
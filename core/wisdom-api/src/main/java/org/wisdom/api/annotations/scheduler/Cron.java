@@ -0,0 +1,71 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.api.annotations.scheduler;
+
+import org.wisdom.api.scheduler.OverlapPolicy;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * An annotation to a job executed according to a cron expression. The expression contains 5 fields (minute, hour,
+ * day of month, month, day of week), or 6 fields when the seconds are given first:
+ * <code>
+ *     <pre>
+ *         0 * * * *: every hour, on the hour
+ *         30 2 * * MON-FRI: at 2:30 on week days
+ *         *&#47;10 * * * * *: every 10 seconds
+ *         0 0 1 * *: every first day of the month, at midnight
+ *     </pre>
+ * </code>
+ *
+ * The fields support lists ({@code 1,15}), ranges ({@code 1-5}), steps ({@code *&#47;15}) and names ({@code JAN},
+ * {@code MON}). The {@code @yearly}, {@code @monthly}, {@code @weekly}, {@code @daily}, {@code @midnight} and
+ * {@code @hourly} shortcuts are also supported. The expression is evaluated in the default time zone, unless
+ * {@code zone} is set.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Cron {
+
+    /**
+     * Sets the cron expression.
+     */
+    String value();
+
+    /**
+     * Sets the time zone used to evaluate the expression, such as {@code Europe/Paris}. The default time zone is
+     * used if not set.
+     */
+    String zone() default "";
+
+    /**
+     * Sets the maximum random delay added to each execution, using the {@link Every} syntax (for instance
+     * {@code 5m}). Jobs scheduled at the same time (typically on the hour) are spread over this amount of time.
+     */
+    String jitter() default "";
+
+    /**
+     * Sets what happens when an execution is still running when the next one is due.
+     */
+    OverlapPolicy overlap() default OverlapPolicy.COALESCE;
+}
@@ -19,6 +19,8 @@
  */
 package org.wisdom.api.annotations.scheduler;
 
+import org.wisdom.api.scheduler.OverlapPolicy;
+
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
@@ -68,6 +70,16 @@ public @interface Every {
      */
     TimeUnit unit() default TimeUnit.MINUTES;
 
+    /**
+     * Sets the maximum random delay added to each execution, using the same syntax as the period (for instance
+     * {@code 30s}). Jobs having the same period are spread over this amount of time instead of being executed at the
+     * same instant. It should be shorter than the period.
+     */
+    String jitter() default "";
 
+    /**
+     * Sets what happens when an execution is still running when the next one is due.
+     */
+    OverlapPolicy overlap() default OverlapPolicy.COALESCE;
 
 }
@@ -34,7 +34,7 @@ import java.io.InputStream;
 public class RenderableObject implements Renderable<Object> {
 
     private final Object object;
-    private String serialized;
+    private byte[] serialized;
 
     public RenderableObject(Object o) {
         this.object = o;
@@ -45,11 +45,22 @@ public class RenderableObject implements Renderable<Object> {
         if (serialized == null) {
             throw new RenderableException("Serialization required before rendering");
         }
-        return new ByteArrayInputStream(serialized.getBytes(Charsets.UTF_8));
+        return new ByteArrayInputStream(serialized);
     }
 
     @Override
     public void setSerializedForm(String serialized) {
+        // A null form means the serialization failed, rendering reports it.
+        this.serialized = serialized == null ? null : serialized.getBytes(Charsets.UTF_8);
+    }
+
+    /**
+     * Sets the binary serialized form, used by the binary formats.
+     *
+     * @param serialized the serialized form
+     */
+    @Override
+    public void setSerializedForm(byte[] serialized) {
         this.serialized = serialized;
     }
 
@@ -19,7 +19,6 @@
  */
 package org.wisdom.api.bodies;
 
-import com.google.common.base.Charsets;
 import org.slf4j.LoggerFactory;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
@@ -27,18 +26,29 @@ import org.wisdom.api.http.*;
 
 import javax.xml.transform.OutputKeys;
 import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
-import java.io.StringWriter;
 
 /**
  * A renderable object taking an Document as parameter.
  */
 public class RenderableXML implements Renderable<Document> {
 
+    /**
+     * The factory creating the transformers. Looking up the factory is costly, so it is done once.
+     */
+    private static final TransformerFactory FACTORY = TransformerFactory.newInstance();
+
+    /**
+     * The transformers are not thread-safe, each thread reuses its own.
+     */
+    private static final ThreadLocal<Transformer> TRANSFORMERS = new ThreadLocal<>();
+
     private final Document document;
     private byte[] rendered;
 
@@ -60,19 +70,30 @@ public class RenderableXML implements Renderable<Document> {
 
     private void render() throws RenderableException {
         try {
-            StringWriter sw = new StringWriter();
-            TransformerFactory tf = TransformerFactory.newInstance();
-            Transformer transformer = tf.newTransformer();
+            // The document is encoded while being written, without intermediate String.
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            transformer().transform(new DOMSource(document), new StreamResult(out));
+            rendered = out.toByteArray();
+        } catch (Exception ex) {
+            // Do not reuse a transformer left in an unknown state.
+            TRANSFORMERS.remove();
+            throw new RenderableException("Error converting XML document to String", ex);
+        }
+    }
+
+    private static Transformer transformer() throws TransformerConfigurationException {
+        Transformer transformer = TRANSFORMERS.get();
+        if (transformer == null) {
+            synchronized (FACTORY) {
+                transformer = FACTORY.newTransformer();
+            }
             transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "no");
             transformer.setOutputProperty(OutputKeys.METHOD, "xml");
             transformer.setOutputProperty(OutputKeys.INDENT, "yes");
             transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
-
-            transformer.transform(new DOMSource(document), new StreamResult(sw));
-            rendered = sw.toString().getBytes(Charsets.UTF_8);
-        } catch (Exception ex) {
-            throw new RenderableException("Error converting XML document to String", ex);
+            TRANSFORMERS.set(transformer);
         }
+        return transformer;
     }
 
     @Override
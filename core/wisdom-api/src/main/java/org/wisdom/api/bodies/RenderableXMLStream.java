@@ -0,0 +1,119 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.api.bodies;
+
+import org.wisdom.api.content.Xml;
+import org.wisdom.api.http.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * A renderable object writing the XML form of an object directly to the response, as it is produced. Unlike
+ * serialized objects, the XML form is never held entirely in memory, which suits large documents such as feeds.
+ */
+public class RenderableXMLStream implements StreamingRenderable<Object> {
+
+    private final Xml xml;
+    private final Object content;
+
+    /**
+     * Creates the renderable object.
+     *
+     * @param xml     the XML service serializing the object
+     * @param content the object to write
+     */
+    public RenderableXMLStream(Xml xml, Object content) {
+        this.xml = xml;
+        this.content = content;
+    }
+
+    /**
+     * Writes the XML form of the object to the given stream.
+     *
+     * @param context the HTTP context
+     * @param result  the result having built this renderable object
+     * @param out     the stream receiving the content
+     * @throws IOException if the object cannot be serialized or written
+     */
+    @Override
+    public void writeTo(Context context, Result result, OutputStream out) throws IOException {
+        xml.writeTo(content, out);
+        out.flush();
+    }
+
+    /**
+     * Serializes the object into memory, for engines not supporting streaming.
+     *
+     * @param context the HTTP context
+     * @param result  the result having built this renderable object
+     * @return the stream to read the XML form
+     * @throws RenderableException if the object cannot be serialized
+     */
+    @Override
+    public InputStream render(Context context, Result result) throws RenderableException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            xml.writeTo(content, out);
+        } catch (IOException e) {
+            throw new RenderableException("Cannot serialize " + content + " to XML", e);
+        }
+        return new ByteArrayInputStream(out.toByteArray());
+    }
+
+    /**
+     * @return {@literal -1}, the length is not known before the object is serialized.
+     */
+    @Override
+    public long length() {
+        return -1;
+    }
+
+    @Override
+    public String mimetype() {
+        return MimeTypes.XML;
+    }
+
+    @Override
+    public Object content() {
+        return content;
+    }
+
+    @Override
+    public boolean requireSerializer() {
+        return false;
+    }
+
+    @Override
+    public void setSerializedForm(String serialized) {
+        // Not supported, the object is serialized while being written.
+    }
+
+    /**
+     * @return {@literal true}, the XML form is sent by chunks, as it is produced.
+     */
+    @Override
+    public boolean mustBeChunked() {
+        return true;
+    }
+}
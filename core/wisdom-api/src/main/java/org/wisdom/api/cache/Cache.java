@@ -62,4 +62,17 @@ public interface Cache {
      * @return {@literal true} if the value was effectively removed form the cache, {@literal false} otherwise.
      */
     public boolean remove(String key);
+
+    /**
+     * Removes all the values whose key starts with the given prefix. Implementations that cannot enumerate their keys
+     * keep this default behavior and reject the call.
+     *
+     * @param prefix the key prefix
+     * @return the number of values removed from the cache.
+     * @throws UnsupportedOperationException if the implementation does not support prefix invalidation
+     */
+    default int removeByPrefix(String prefix) {
+        throw new UnsupportedOperationException("The cache implementation " + getClass().getName()
+                + " does not support the removal by prefix");
+    }
 }
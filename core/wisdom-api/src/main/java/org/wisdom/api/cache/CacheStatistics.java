@@ -0,0 +1,185 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.api.cache;
+
+import org.wisdom.api.utils.LatencyHistogram;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistics about a cache region or a cached action. Counters are based on {@link LongAdder} and the load times on
+ * a {@link LatencyHistogram}, so recording is cheap and does not contend under load.
+ */
+public class CacheStatistics {
+
+    private final String name;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder puts = new LongAdder();
+    private final LongAdder removals = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LatencyHistogram loads = new LatencyHistogram();
+
+    /**
+     * Creates a new statistics object.
+     *
+     * @param name the name of the cache region or of the cached action
+     */
+    public CacheStatistics(String name) {
+        this.name = name;
+    }
+
+    /**
+     * @return the name of the cache region or of the cached action.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Records a cache hit.
+     */
+    public void hit() {
+        hits.increment();
+    }
+
+    /**
+     * Records a cache miss.
+     */
+    public void miss() {
+        misses.increment();
+    }
+
+    /**
+     * Records an insertion.
+     */
+    public void put() {
+        puts.increment();
+    }
+
+    /**
+     * Records an explicit removal.
+     */
+    public void removed() {
+        removals.increment();
+    }
+
+    /**
+     * Records an eviction (the entry was removed to make room for another one).
+     */
+    public void evicted() {
+        evictions.increment();
+    }
+
+    /**
+     * Records an expiration.
+     */
+    public void expired() {
+        expirations.increment();
+    }
+
+    /**
+     * Records the time taken to compute a value that was missing from the cache.
+     *
+     * @param nanos the load time in nanoseconds
+     */
+    public void loaded(long nanos) {
+        loads.record(nanos);
+    }
+
+    /**
+     * @return the number of hits.
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * @return the number of misses.
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return the ratio of hits among the lookups, zero if there were no lookups.
+     */
+    public double getHitRatio() {
+        long h = getHitCount();
+        long total = h + getMissCount();
+        return total > 0 ? (double) h / total : 0.0d;
+    }
+
+    /**
+     * @return the number of insertions.
+     */
+    public long getPutCount() {
+        return puts.sum();
+    }
+
+    /**
+     * @return the number of explicit removals.
+     */
+    public long getRemovalCount() {
+        return removals.sum();
+    }
+
+    /**
+     * @return the number of evictions.
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return the number of expirations.
+     */
+    public long getExpirationCount() {
+        return expirations.sum();
+    }
+
+    /**
+     * Gets the current number of entries. This implementation does not track the size and returns -1,
+     * implementations able to compute it should override this method.
+     *
+     * @return the number of entries, -1 if unknown.
+     */
+    public long getSize() {
+        return -1;
+    }
+
+    /**
+     * @return the histogram of the load times, in nanoseconds.
+     */
+    public LatencyHistogram getLoadTimes() {
+        return loads;
+    }
+
+    /**
+     * @param unit the unit
+     * @return the average load time in the given unit.
+     */
+    public double getAverageLoadTime(TimeUnit unit) {
+        return loads.getMean() / unit.toNanos(1);
+    }
+}
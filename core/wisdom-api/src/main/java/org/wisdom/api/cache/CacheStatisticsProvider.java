@@ -0,0 +1,37 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.api.cache;
+
+import java.util.Collection;
+
+/**
+ * A service exposing cache statistics. It is generally provided by the cache service implementations (one
+ * statistics object per cache region) and by the interceptor handling {@link Cached} actions (one statistics object
+ * per action). Monitoring tools collect the statistics from all the providers.
+ */
+public interface CacheStatisticsProvider {
+
+    /**
+     * Gets the statistics. The returned statistics are live objects, and are updated continuously.
+     *
+     * @return the statistics, empty if none.
+     */
+    Collection<CacheStatistics> getCacheStatistics();
+}
@@ -0,0 +1,181 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2015 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.api.concurrent;
+
+import java.util.List;
+
+/**
+ * Service periodically sampling the {@link ManagedExecutorService} (and schedulers) activity. It keeps a bounded
+ * history of samples (queue depth, active threads, rejections, completion latency) and reports the hung tasks with
+ * the stack of the thread executing them, so saturation incidents can be diagnosed after the fact.
+ */
+public interface ExecutorDiagnostics {
+
+    /**
+     * Gets the recorded samples of the given executor.
+     *
+     * @param executor the executor name
+     * @return the samples, oldest first, empty if the executor is unknown
+     */
+    List<Sample> getSamples(String executor);
+
+    /**
+     * Gets the hung tasks detected on the given executor. The list is bounded, the oldest reports are dropped.
+     *
+     * @param executor the executor name
+     * @return the hung task reports, oldest first, empty if none
+     */
+    List<HungTask> getHungTasks(String executor);
+
+    /**
+     * A sample of the activity of an executor.
+     */
+    final class Sample {
+
+        private final long timestamp;
+        private final int queueSize;
+        private final int activeCount;
+        private final int poolSize;
+        private final long rejected;
+        private final long completed;
+        private final int hung;
+        private final double averageLatency;
+        private final long p99Latency;
+
+        /**
+         * Creates a sample.
+         *
+         * @param timestamp      the sampling date (milliseconds since epoch)
+         * @param queueSize      the number of queued tasks
+         * @param activeCount    the number of threads executing tasks
+         * @param poolSize       the number of threads
+         * @param rejected       the number of tasks rejected since the previous sample
+         * @param completed      the number of tasks completed since the previous sample
+         * @param hung           the number of hung tasks
+         * @param averageLatency the average execution time (ms) of the tasks completed since the previous sample
+         * @param p99Latency     the 99th percentile of the execution time (ms), since the executor creation
+         */
+        public Sample(long timestamp, int queueSize, int activeCount, int poolSize, long rejected, long completed,
+                      int hung, double averageLatency, long p99Latency) {
+            this.timestamp = timestamp;
+            this.queueSize = queueSize;
+            this.activeCount = activeCount;
+            this.poolSize = poolSize;
+            this.rejected = rejected;
+            this.completed = completed;
+            this.hung = hung;
+            this.averageLatency = averageLatency;
+            this.p99Latency = p99Latency;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        public int getQueueSize() {
+            return queueSize;
+        }
+
+        public int getActiveCount() {
+            return activeCount;
+        }
+
+        public int getPoolSize() {
+            return poolSize;
+        }
+
+        public long getRejected() {
+            return rejected;
+        }
+
+        public long getCompleted() {
+            return completed;
+        }
+
+        public int getHung() {
+            return hung;
+        }
+
+        public double getAverageLatency() {
+            return averageLatency;
+        }
+
+        public long getP99Latency() {
+            return p99Latency;
+        }
+    }
+
+    /**
+     * A report about a hung task.
+     */
+    final class HungTask {
+
+        private final String executor;
+        private final String task;
+        private final String thread;
+        private final long detectionDate;
+        private final long runTime;
+        private final String[] stack;
+
+        /**
+         * Creates a report.
+         *
+         * @param executor      the executor name
+         * @param task          a description of the task
+         * @param thread        the name of the thread executing the task, {@code null} if the task has not started
+         * @param detectionDate the detection date (milliseconds since epoch)
+         * @param runTime       the time spent (ms) executing the task when it was detected
+         * @param stack         the stack of the thread executing the task, empty if not sampled
+         */
+        public HungTask(String executor, String task, String thread, long detectionDate, long runTime,
+                        String[] stack) {
+            this.executor = executor;
+            this.task = task;
+            this.thread = thread;
+            this.detectionDate = detectionDate;
+            this.runTime = runTime;
+            this.stack = stack;
+        }
+
+        public String getExecutor() {
+            return executor;
+        }
+
+        public String getTask() {
+            return task;
+        }
+
+        public String getThread() {
+            return thread;
+        }
+
+        public long getDetectionDate() {
+            return detectionDate;
+        }
+
+        public long getRunTime() {
+            return runTime;
+        }
+
+        public String[] getStack() {
+            return stack.clone();
+        }
+    }
+}
@@ -20,6 +20,7 @@
 package org.wisdom.api.concurrent;
 
 import com.google.common.util.concurrent.ListeningExecutorService;
+import org.wisdom.api.utils.LatencyHistogram;
 
 import java.util.Collection;
 import java.util.concurrent.BlockingQueue;
@@ -55,6 +56,17 @@ public interface ManagedExecutorService extends ListeningExecutorService {
         DAEMON
     }
 
+    /**
+     * The type of executor backing the service. {@code THREAD_POOL} relies on a
+     * {@link java.util.concurrent.ThreadPoolExecutor} sharing a single work queue, while {@code WORK_STEALING}
+     * relies on a {@link java.util.concurrent.ForkJoinPool} where each worker has its own queue and steals tasks
+     * from the others. The latter suits fan-out workloads, where a task submits lots of sub-tasks.
+     */
+    enum ExecutorType {
+        THREAD_POOL,
+        WORK_STEALING
+    }
+
     /**
      * @return the name of the thread pool.
      */
@@ -112,6 +124,11 @@ public interface ManagedExecutorService extends ListeningExecutorService {
      */
     public long getCompletedTaskCount();
 
+    /**
+     * @return the number of tasks rejected by the executor (because it is saturated or shut down).
+     */
+    public long getRejectedTaskCount();
+
     /**
      * @return the core number of threads.
      */
@@ -143,9 +160,21 @@ public interface ManagedExecutorService extends ListeningExecutorService {
 
     /**
      * @return the task queue used by this executor.
+     * @throws UnsupportedOperationException if the executor does not have a single task queue, use
+     *                                       {@link #getQueueSize()} to monitor such executors.
      */
     public BlockingQueue<Runnable> getQueue();
 
+    /**
+     * Gets the number of tasks waiting to be executed. Unlike {@link #getQueue()}, this method is supported by all
+     * the executors.
+     *
+     * @return the (approximate) number of queued tasks
+     */
+    default int getQueueSize() {
+        return getQueue().size();
+    }
+
     /**
      * Tries to remove from the work queue all {@link java.util.concurrent.Future}
      * tasks that have been cancelled. This method can be useful as a
@@ -187,14 +216,13 @@ public interface ManagedExecutorService extends ListeningExecutorService {
     public ExecutionStatistics getExecutionTimeStatistics();
 
     /**
-     * Represents execution statistics of a thread pool.
+     * Represents execution statistics of a thread pool. Recording is lock-free: counters are striped and the
+     * execution times are stored in a {@link LatencyHistogram}, so threads completing tasks concurrently do not
+     * contend on a monitor. Values are approximated when read concurrently with updates.
      */
     public static class ExecutionStatistics {
 
-        private long count;
-        private long sum;
-        private long min = Long.MAX_VALUE;
-        private long max = Long.MIN_VALUE;
+        private final LatencyHistogram histogram = new LatencyHistogram();
 
         /**
          * Records a new {@code int} value into the statistics.
@@ -210,11 +238,8 @@ public interface ManagedExecutorService extends ListeningExecutorService {
          *
          * @param value the input value
          */
-        public synchronized void accept(long value) {
-            ++count;
-            sum += value;
-            min = Math.min(min, value);
-            max = Math.max(max, value);
+        public void accept(long value) {
+            histogram.record(value);
         }
 
         /**
@@ -224,11 +249,8 @@ public interface ManagedExecutorService extends ListeningExecutorService {
          * @param other another {@code ExecutionStatistics}
          * @throws NullPointerException if {@code other} is null
          */
-        public synchronized void combine(final ExecutionStatistics other) {
-            count += other.getCount();
-            sum += other.getTotalExecutionTime();
-            min = Math.min(min, other.getMinimumExecutionTime());
-            max = Math.max(max, other.getMaximumExecutionTime());
+        public void combine(final ExecutionStatistics other) {
+            histogram.merge(other.histogram);
         }
 
         /**
@@ -236,7 +258,7 @@ public interface ManagedExecutorService extends ListeningExecutorService {
          *
          * @return the copied object
          */
-        public synchronized ExecutionStatistics copy() {
+        public ExecutionStatistics copy() {
             ExecutionStatistics statistics = new ExecutionStatistics();
             statistics.combine(this);
             return statistics;
@@ -247,8 +269,8 @@ public interface ManagedExecutorService extends ListeningExecutorService {
          *
          * @return the count of values
          */
-        public final synchronized long getCount() {
-            return count;
+        public final long getCount() {
+            return histogram.getCount();
         }
 
         /**
@@ -256,7 +278,7 @@ public interface ManagedExecutorService extends ListeningExecutorService {
          *
          * @return the number of tasks
          */
-        public final synchronized long getNumberOfTasks() {
+        public final long getNumberOfTasks() {
             return getCount();
         }
 
@@ -266,8 +288,8 @@ public interface ManagedExecutorService extends ListeningExecutorService {
          *
          * @return the sum of values, or zero if none
          */
-        public final synchronized long getTotalExecutionTime() {
-            return sum;
+        public final long getTotalExecutionTime() {
+            return histogram.getSum();
         }
 
         /**
@@ -276,8 +298,8 @@ public interface ManagedExecutorService extends ListeningExecutorService {
          *
          * @return the minimum value, or {@code Long.MAX_VALUE} if none
          */
-        public final synchronized long getMinimumExecutionTime() {
-            return min;
+        public final long getMinimumExecutionTime() {
+            return histogram.getMin();
         }
 
         /**
@@ -286,8 +308,8 @@ public interface ManagedExecutorService extends ListeningExecutorService {
          *
          * @return the maximum value, or {@code Long.MIN_VALUE} if none
          */
-        public final synchronized long getMaximumExecutionTime() {
-            return max;
+        public final long getMaximumExecutionTime() {
+            return histogram.getMax();
         }
 
         /**
@@ -296,8 +318,19 @@ public interface ManagedExecutorService extends ListeningExecutorService {
          *
          * @return The arithmetic mean of values, or zero if none
          */
-        public final synchronized double getAverageExecutionTime() {
-            return getCount() > 0 ? (double) getTotalExecutionTime() / getNumberOfTasks() : 0.0d;
+        public final double getAverageExecutionTime() {
+            return histogram.getMean();
+        }
+
+        /**
+         * Returns the execution time at the given quantile, such as 0.5 for the median or 0.99 for the 99th
+         * percentile. The result is approximated (relative error below 6.25%).
+         *
+         * @param quantile the quantile, between 0 and 1
+         * @return the execution time at the given quantile, zero if no values have been recorded
+         */
+        public final long getPercentileExecutionTime(double quantile) {
+            return histogram.getPercentile(quantile);
         }
 
         @Override
@@ -308,15 +341,18 @@ public interface ManagedExecutorService extends ListeningExecutorService {
          * debugging. The exact presentation format is unspecified and may vary
          * between implementations and versions.
          */
-        public synchronized String toString() {
+        public String toString() {
             return String.format(
-                    "%s{count=%d, sum=%d, min=%d, average=%f, max=%d}",
+                    "%s{count=%d, sum=%d, min=%d, average=%f, max=%d, p50=%d, p99=%d, p999=%d}",
                     this.getClass().getSimpleName(),
                     getCount(),
                     getTotalExecutionTime(),
                     getMinimumExecutionTime(),
                     getAverageExecutionTime(),
-                    getMaximumExecutionTime());
+                    getMaximumExecutionTime(),
+                    getPercentileExecutionTime(0.5),
+                    getPercentileExecutionTime(0.99),
+                    getPercentileExecutionTime(0.999));
         }
 
     }
@@ -19,7 +19,9 @@
  */
 package org.wisdom.api.content;
 
+import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 /**
  * A service exposed by the content manager to let applications register custom JSON serializer and deserializer
@@ -45,4 +47,25 @@ public interface JacksonModuleRepository {
      */
     public void unregister(Module module);
 
+    /**
+     * Gets the mapper handling the data format of the given factory, such as Smile or CBOR. The mapper is
+     * configured as the JSON mapper, and uses the registered modules. Mappers are rebuilt when modules arrive or
+     * leave, so do not keep the returned mapper.
+     *
+     * <p/>
+     * The default implementation returns a new mapper, without the registered modules. Implementations are
+     * expected to override it.
+     *
+     * @param format the class of the factory implementing the data format, must have a public no-argument
+     *               constructor
+     * @return the mapper
+     */
+    default ObjectMapper mapper(Class<? extends JsonFactory> format) {
+        try {
+            return new ObjectMapper(format.newInstance());
+        } catch (InstantiationException | IllegalAccessException e) {
+            throw new IllegalArgumentException("Cannot instantiate the data format " + format.getName(), e);
+        }
+    }
+
 }
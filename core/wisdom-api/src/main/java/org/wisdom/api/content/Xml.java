@@ -21,10 +21,17 @@ package org.wisdom.api.content;
 
 import com.fasterxml.jackson.dataformat.xml.XmlMapper;
 import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 
 /**
  * A service interface used to handle XML objects and String.
@@ -81,6 +88,67 @@ public interface Xml {
      */
     <A> A fromXML(String xml, Class<A> clazz);
 
+    /**
+     * Builds a new instance of the given class <em>clazz</em> from the given XML stream. The object is bound while
+     * the stream is read, without building an intermediate document or string. The stream is not closed by this
+     * method.
+     * <p>
+     * The default implementation builds the document first, implementations should override it.
+     *
+     * @param stream the stream, must not be {@literal null}
+     * @param clazz  the class of the instance to construct
+     * @return an instance of the class.
+     * @throws java.io.IOException if the stream cannot be read or is not a valid XML document
+     */
+    default <A> A fromXML(InputStream stream, Class<A> clazz) throws IOException {
+        return fromXML(fromInputStream(stream, null), clazz);
+    }
+
+    /**
+     * Reads the children of the root element of the given XML stream as a sequence of instances of the given class
+     * <em>clazz</em>. Instances are bound one at a time, when the iterator is advanced, so large documents (such as
+     * feeds) are processed in bounded memory. The stream is not closed by this method.
+     * <p>
+     * Failures happening while iterating are reported as {@link java.io.UncheckedIOException}.
+     * <p>
+     * The default implementation builds the document first (so does not bound the memory), and binds each child
+     * element when the iterator reaches it. Implementations should override it.
+     *
+     * @param stream the stream, must not be {@literal null}
+     * @param clazz  the class of the instances to construct
+     * @return an iterator over the bound instances
+     * @throws java.io.IOException if the stream cannot be read or does not start with an XML element
+     */
+    default <A> Iterator<A> readValues(InputStream stream, Class<A> clazz) throws IOException {
+        NodeList children = fromInputStream(stream, null).getDocumentElement().getChildNodes();
+        List<Element> elements = new ArrayList<>();
+        for (int i = 0; i < children.getLength(); i++) {
+            Node child = children.item(i);
+            if (child instanceof Element) {
+                elements.add((Element) child);
+            }
+        }
+        return elements.stream().map(element -> {
+            Document document = newDocument();
+            document.appendChild(document.importNode(element, true));
+            return fromXML(document, clazz);
+        }).iterator();
+    }
+
+    /**
+     * Writes the XML form of the given object to the given stream, as it is produced. The stream is not closed by
+     * this method.
+     * <p>
+     * The default implementation serializes the object in memory first, implementations should override it.
+     *
+     * @param value  the object to write
+     * @param stream the stream, must not be {@literal null}
+     * @throws java.io.IOException if the object cannot be serialized or written
+     */
+    default void writeTo(Object value, OutputStream stream) throws IOException {
+        stream.write(xmlMapper().writeValueAsBytes(value));
+    }
+
     /**
      * Retrieves the string form of the given XML document.
      *
@@ -20,6 +20,7 @@
 package org.wisdom.api.http;
 
 import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
 
 /**
  * An extension of result instructing the engine to render the result asynchronously. That means that the result
@@ -33,6 +34,16 @@ public class AsyncResult extends Result {
      */
     private final Callable<Result> callable;
 
+    /**
+     * The timeout in nanoseconds, 0 if none.
+     */
+    private final long timeout;
+
+    /**
+     * The name of the executor computing the result, {@code null} for the system executor.
+     */
+    private final String executor;
+
     /**
      * Creates a new asynchronous result.
      *
@@ -40,7 +51,36 @@ public class AsyncResult extends Result {
      *                 callable must not be {@literal null}.
      */
     public AsyncResult(Callable<Result> callable) {
+        this(callable, 0, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Creates a new asynchronous result with a timeout. If the result is not computed before the timeout, the
+     * engine cancels the computation and replies with a {@literal 504 - Gateway Timeout} response.
+     *
+     * @param callable the callable that computes the result. This wrapped code is executed in another thread. This
+     *                 callable must not be {@literal null}.
+     * @param timeout  the timeout, 0 or negative to disable the timeout
+     * @param unit     the unit of the timeout
+     */
+    public AsyncResult(Callable<Result> callable, long timeout, TimeUnit unit) {
+        this(callable, timeout, unit, null);
+    }
+
+    /**
+     * Creates a new asynchronous result computed by the given executor. If the executor rejects the computation
+     * (because it is saturated), the engine replies with a {@literal 503 - Service Unavailable} response.
+     *
+     * @param callable the callable that computes the result. This wrapped code is executed in another thread. This
+     *                 callable must not be {@literal null}.
+     * @param timeout  the timeout, 0 or negative to disable the timeout
+     * @param unit     the unit of the timeout
+     * @param executor the name of the executor, {@code null} or empty to use the system executor
+     */
+    public AsyncResult(Callable<Result> callable, long timeout, TimeUnit unit, String executor) {
         this.callable = callable;
+        this.timeout = timeout > 0 ? unit.toNanos(timeout) : 0;
+        this.executor = executor == null || executor.isEmpty() ? null : executor;
     }
 
     /**
@@ -49,4 +89,19 @@ public class AsyncResult extends Result {
     public Callable<Result> callable() {
         return callable;
     }
+
+    /**
+     * @param unit the unit
+     * @return the timeout in the given unit, 0 if the result has no timeout.
+     */
+    public long timeout(TimeUnit unit) {
+        return unit.convert(timeout, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @return the name of the executor computing the result, {@code null} for the system executor.
+     */
+    public String executor() {
+        return executor;
+    }
 }
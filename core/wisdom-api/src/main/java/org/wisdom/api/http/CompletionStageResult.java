@@ -0,0 +1,82 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.api.http;
+
+import java.util.concurrent.CompletionStage;
+
+/**
+ * An extension of result wrapping a {@link CompletionStage} redeemed with the actual result. Unlike
+ * {@link AsyncResult}, no thread is used to wait for the result: the engine writes the response when the stage
+ * completes, from the context (event loop) having received the request. It lets actions relying on non-blocking
+ * clients (HTTP client, event bus...) release the request thread without occupying another one.
+ * <p>
+ * Action methods can return a {@code CompletionStage<Result>} directly, the router wraps it in a
+ * {@link CompletionStageResult}. Headers set on this result (by filters or interceptors) are merged into the
+ * redeemed result.
+ */
+public class CompletionStageResult extends Result {
+
+    /**
+     * The stage redeemed with the actual result.
+     */
+    private final CompletionStage<Result> stage;
+
+    /**
+     * Creates a new completion stage result.
+     *
+     * @param stage the stage redeemed with the result to send to the client, must not be {@literal null}.
+     */
+    public CompletionStageResult(CompletionStage<Result> stage) {
+        this.stage = stage;
+    }
+
+    /**
+     * @return the stage.
+     */
+    public CompletionStage<Result> stage() {
+        return stage;
+    }
+
+    /**
+     * Transforms the value returned by an action method to a result. {@link CompletionStage} are wrapped into
+     * {@link CompletionStageResult}, results are returned as they are.
+     *
+     * @param returned the value returned by the action method
+     * @return the result
+     */
+    @SuppressWarnings("unchecked")
+    public static Result from(Object returned) {
+        if (returned instanceof CompletionStage) {
+            return new CompletionStageResult((CompletionStage<Result>) returned);
+        }
+        return (Result) returned;
+    }
+
+    /**
+     * Checks whether the given type can be returned by an action method, i.e. a {@link Result} or a
+     * {@link CompletionStage}.
+     *
+     * @param type the return type of the action method
+     * @return {@code true} if the type is supported, {@code false} otherwise
+     */
+    public static boolean isSupportedReturnType(Class<?> type) {
+        return type.isAssignableFrom(Result.class) || CompletionStage.class.isAssignableFrom(type);
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.api.http;
+
+/**
+ * A result opening a Server-Sent Events stream. The engine keeps the HTTP response open and writes the events
+ * published on the channel (using the {@link org.wisdom.api.http.sse.EventChannel} service) as they happen.
+ * <p>
+ * When a client reconnects with the {@literal Last-Event-ID} header, the events published since this
+ * identifier are sent first, as long as they are still retained by the channel.
+ */
+public class EventStreamResult extends Result {
+
+    /**
+     * The name of the channel.
+     */
+    private final String channel;
+
+    /**
+     * The reconnection delay sent to the client, in milliseconds, {@literal -1} to use the client's default.
+     */
+    private long retry = -1;
+
+    /**
+     * Creates a new event stream result.
+     *
+     * @param channel the name of the channel, must not be {@literal null}.
+     */
+    public EventStreamResult(String channel) {
+        super(Status.OK);
+        this.channel = channel;
+    }
+
+    /**
+     * @return the name of the channel.
+     */
+    public String channel() {
+        return channel;
+    }
+
+    /**
+     * Sets the delay the client waits before reconnecting when the connection is lost.
+     *
+     * @param millis the delay in milliseconds
+     * @return the current result
+     */
+    public EventStreamResult retry(long millis) {
+        this.retry = millis;
+        return this;
+    }
+
+    /**
+     * @return the reconnection delay in milliseconds, {@literal -1} if not set.
+     */
+    public long retry() {
+        return retry;
+    }
+}
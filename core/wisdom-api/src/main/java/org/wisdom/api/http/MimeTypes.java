@@ -65,6 +65,14 @@ public final class MimeTypes {
      * Content-Type of server sent events.
      */
     public static final String EVENT_STREAM = "text/event-stream";
+    /**
+     * Content-Type of Smile (binary JSON) data.
+     */
+    public static final String SMILE = "application/x-jackson-smile";
+    /**
+     * Content-Type of CBOR (Concise Binary Object Representation) data.
+     */
+    public static final String CBOR = "application/cbor";
     /**
      * Content-Type of binary data.
      */
@@ -79,6 +79,17 @@ public interface Renderable<T> {
      */
     void setSerializedForm(String serialized);
 
+    /**
+     * Sets the final form of the renderable object, when it is serialized to a binary format. By default,
+     * renderable objects do not support binary forms.
+     *
+     * @param serialized the serialized form
+     * @throws UnsupportedOperationException if this renderable object does not support binary forms
+     */
+    default void setSerializedForm(byte[] serialized) {
+        throw new UnsupportedOperationException("The renderable object " + this + " does not support binary forms");
+    }
+
     /**
      * Checks whether the current renderable must be sent as chunk to the client. It's often the case for large
      * files, or content with unknown length.
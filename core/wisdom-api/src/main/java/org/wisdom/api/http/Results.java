@@ -28,6 +28,7 @@ import java.io.File;
 import java.io.InputStream;
 import java.net.URL;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionStage;
 
 
 /**
@@ -491,4 +492,27 @@ public abstract class Results {
         return new AsyncResult(task);
     }
 
+    /**
+     * Creates a new result redeemed when the given stage completes. Unlike {@link #async(Callable)}, no thread is
+     * used to wait for the result, so it should be used when the result is computed using non-blocking APIs.
+     *
+     * @param stage the stage redeemed with the result.
+     * @return the result.
+     */
+    public static CompletionStageResult async(CompletionStage<Result> stage) {
+        return new CompletionStageResult(stage);
+    }
+
+    /**
+     * Creates a result opening a Server-Sent Events stream on the given channel. The response is kept open, and
+     * the events published on the channel using the {@link org.wisdom.api.http.sse.EventChannel} service are sent
+     * to the client.
+     *
+     * @param channel the name of the channel
+     * @return the result.
+     */
+    public static EventStreamResult eventStream(String channel) {
+        return new EventStreamResult(channel);
+    }
+
 }
@@ -0,0 +1,49 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.api.http;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A renderable object able to write its content directly to the response, as it is produced. Engines supporting
+ * it call {@link #writeTo(Context, Result, OutputStream)} from a separate thread, and send the written data to the
+ * client in chunks, so the content is never entirely held in memory and the client receives the first bytes
+ * early. Other engines use {@link #render(Context, Result)}.
+ * <p>
+ * Streaming renderable objects must be sent as chunks ({@link #mustBeChunked()} returns {@literal true}) and do
+ * not require serializers.
+ *
+ * @param <T> the type of content.
+ */
+public interface StreamingRenderable<T> extends Renderable<T> {
+
+    /**
+     * Writes the content to the given stream. The stream is closed by the caller. As the response headers may have
+     * been sent when a failure happens, failures cannot change the response status: engines abort the response.
+     *
+     * @param context the HTTP context
+     * @param result  the result having built this renderable object
+     * @param out     the stream receiving the content
+     * @throws IOException         if the content cannot be written, for instance because the client has gone
+     * @throws RenderableException if the content cannot be rendered
+     */
+    void writeTo(Context context, Result result, OutputStream out) throws IOException, RenderableException;
+}
@@ -0,0 +1,57 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.api.http.sse;
+
+/**
+ * Service to publish Server-Sent Events. Clients subscribe to a channel using an action method returning
+ * {@link org.wisdom.api.http.Results#eventStream(String)}.
+ * <p>
+ * Each published event gets an identifier, increasing per channel. The last events of each channel are retained
+ * so clients reconnecting with the {@literal Last-Event-ID} header receive the events they have missed.
+ */
+public interface EventChannel {
+
+    /**
+     * Publishes an unnamed event ({@literal message} events in the browser) on the given channel.
+     *
+     * @param channel the name of the channel
+     * @param data    the data, may contain several lines
+     * @return the identifier of the event
+     */
+    long publish(String channel, String data);
+
+    /**
+     * Publishes a named event on the given channel.
+     *
+     * @param channel the name of the channel
+     * @param event   the name of the event, {@literal null} for unnamed events
+     * @param data    the data, may contain several lines
+     * @return the identifier of the event
+     */
+    long publish(String channel, String event, String data);
+
+    /**
+     * Gets the number of clients currently subscribed to the given channel.
+     *
+     * @param channel the name of the channel
+     * @return the number of subscribers
+     */
+    int subscribers(String channel);
+}
@@ -75,4 +75,31 @@ public interface WebSocketDispatcher {
      * @param message the message to send
      */
     public void send(String uri, String client, byte[] message);
+
+    /**
+     * Asks the engine to stop reading the messages sent by a specific client listening to a web socket. This
+     * method is used when the received messages are not consumed fast enough. If the client is not connected,
+     * nothing happens. By default, this method does nothing, engines not supporting back-pressure keep reading the
+     * messages.
+     *
+     * @param uri    the web socket url
+     * @param client the client id, retrieved from the {@link org.wisdom.api.http.websockets.WebSocketListener#opened
+     *               (String, String)} method.
+     */
+    default void pause(String uri, String client) {
+        // Not supported by default.
+    }
+
+    /**
+     * Asks the engine to read again the messages sent by a client previously paused using
+     * {@link #pause(String, String)}. If the client is not connected, nothing happens. By default, this method does
+     * nothing.
+     *
+     * @param uri    the web socket url
+     * @param client the client id, retrieved from the {@link org.wisdom.api.http.websockets.WebSocketListener#opened
+     *               (String, String)} method.
+     */
+    default void resume(String uri, String client) {
+        // Not supported by default.
+    }
 }
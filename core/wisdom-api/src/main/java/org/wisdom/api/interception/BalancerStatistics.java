@@ -0,0 +1,81 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.api.interception;
+
+import java.util.List;
+
+/**
+ * A service exposing the statistics of a load balancer and of its members. Filters balancing the requests between
+ * several servers provide this service, and monitoring tools publish the statistics as metrics.
+ */
+public interface BalancerStatistics {
+
+    /**
+     * @return the name of the balancer.
+     */
+    String getName();
+
+    /**
+     * @return the statistics of the current members of the balancer.
+     */
+    List<? extends Member> getMemberStatistics();
+
+    /**
+     * The statistics of a member of a balancer.
+     */
+    interface Member {
+
+        /**
+         * @return the name of the member.
+         */
+        String getName();
+
+        /**
+         * @return the number of requests sent to the member that have not received a response yet.
+         */
+        int getOutstandingRequests();
+
+        /**
+         * @return the (peak weighted moving average) latency of the member in milliseconds, {@literal 0} if unknown.
+         */
+        double getLatency();
+
+        /**
+         * @return the number of requests sent to the member.
+         */
+        long getRequestCount();
+
+        /**
+         * @return the number of requests sent to the member that have failed.
+         */
+        long getErrorCount();
+
+        /**
+         * @return {@literal true} if the member is temporarily ejected because of its error rate or latency.
+         */
+        boolean isEjected();
+
+        /**
+         * @return the state of the circuit breaker of the member: {@literal closed}, {@literal open} or {@literal
+         * half-open}.
+         */
+        String getCircuitState();
+    }
+}
@@ -331,7 +331,7 @@ public class Route {
         if (isUnbound()) {
             return new Result().status(unboundStatus).noContentIfNone();
         } else {
-            return (Result) controllerMethod.invoke(controller);
+            return CompletionStageResult.from(controllerMethod.invoke(controller));
         }
     }
 
@@ -21,10 +21,12 @@ package org.wisdom.api.router;
 
 import com.google.common.base.Preconditions;
 import org.wisdom.api.Controller;
+import org.wisdom.api.http.CompletionStageResult;
 import org.wisdom.api.http.HttpMethod;
 import org.wisdom.api.http.Result;
 
 import java.lang.reflect.Method;
+import java.util.concurrent.CompletionStage;
 
 /**
  * Builder object to create routes.
@@ -107,9 +109,10 @@ public class RouteBuilder {
         Preconditions.checkNotNull(method);
         this.controller = controller;
         this.controllerMethod = method;
-        if (!method.getReturnType().isAssignableFrom(Result.class)) {
+        if (!CompletionStageResult.isSupportedReturnType(method.getReturnType())) {
             throw new IllegalArgumentException(ERROR_CTRL + method + ERROR_IN + controller
-                    .getClass() + "`, or the method does not return a " + Result.class.getName() + " object");
+                    .getClass() + "`, or the method does not return a " + Result.class.getName() + " or a "
+                    + CompletionStage.class.getName() + " object");
         }
         return _build();
     }
@@ -161,8 +164,8 @@ public class RouteBuilder {
         }
 
         // make sure that the return type of that controller method
-        // is of type Result.
-        if (methodFromQueryingClass.getReturnType().isAssignableFrom(Result.class)) {
+        // is of type Result (or CompletionStage).
+        if (CompletionStageResult.isSupportedReturnType(methodFromQueryingClass.getReturnType())) {
             return methodFromQueryingClass;
         } else {
             throw new NoSuchMethodException("The method " + controllerMethod + " is declared in " + controller
@@ -142,6 +142,17 @@ public interface Router {
      */
     Collection<Route> getRoutes();
 
+    /**
+     * Gets the version of the set of routes. The version changes every time routes are added or removed, letting
+     * components computing data from {@link #getRoutes()} know when this data must be recomputed.
+     *
+     * @return the version, {@literal -1} if the router does not track the changes of its routes
+     * @since 0.10.0
+     */
+    default long getRoutesVersion() {
+        return -1;
+    }
+
     // Method avoiding using maps in controllers.
 
     /**
@@ -0,0 +1,39 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.api.scheduler;
+
+/**
+ * Defines what happens when the execution of a job lasts longer than the time until its next execution. The
+ * executions of a job never run concurrently.
+ */
+public enum OverlapPolicy {
+
+    /**
+     * The executions that should have started while the job was running are skipped. The job is executed at its
+     * next scheduled time.
+     */
+    SKIP,
+
+    /**
+     * The executions that should have started while the job was running are merged in a single execution, started
+     * as soon as the running one completes.
+     */
+    COALESCE
+}
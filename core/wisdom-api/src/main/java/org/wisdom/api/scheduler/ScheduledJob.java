@@ -0,0 +1,69 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.api.scheduler;
+
+import org.wisdom.api.concurrent.ManagedExecutorService;
+
+/**
+ * A job scheduled by Wisdom, i.e. a method annotated with {@link org.wisdom.api.annotations.scheduler.Every} or
+ * {@link org.wisdom.api.annotations.scheduler.Cron} in a {@link Scheduled} service.
+ */
+public interface ScheduledJob {
+
+    /**
+     * @return the name of the job, i.e. the class and method names.
+     */
+    String getName();
+
+    /**
+     * @return a human readable description of the schedule, such as {@code every 1h}.
+     */
+    String getSchedule();
+
+    /**
+     * @return the number of completed executions.
+     */
+    long getRunCount();
+
+    /**
+     * @return the number of executions that have thrown an exception.
+     */
+    long getFailureCount();
+
+    /**
+     * @return the number of executions skipped (or coalesced) because the previous execution was still running.
+     */
+    long getSkippedCount();
+
+    /**
+     * @return the start date of the last execution (milliseconds since epoch), 0 if never executed.
+     */
+    long getLastRunTime();
+
+    /**
+     * @return the date of the next execution (milliseconds since epoch), 0 if the job is not scheduled.
+     */
+    long getNextRunTime();
+
+    /**
+     * @return the statistics about the execution time of the job (in milliseconds).
+     */
+    ManagedExecutorService.ExecutionStatistics getStatistics();
+}
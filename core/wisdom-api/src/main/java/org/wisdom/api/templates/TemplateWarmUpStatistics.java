@@ -0,0 +1,49 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.api.templates;
+
+/**
+ * A service exposing the statistics of the template warm-up. Template engines parsing their templates when they are
+ * deployed (instead of on their first rendering) provide this service, and monitoring tools publish the statistics
+ * as metrics.
+ */
+public interface TemplateWarmUpStatistics {
+
+    /**
+     * @return the name of the template engine, as returned by {@link TemplateEngine#name()}.
+     */
+    String engine();
+
+    /**
+     * @return the duration of the last warm-up in milliseconds, {@literal -1} if no warm-up has completed yet.
+     */
+    long getLastWarmUpDuration();
+
+    /**
+     * @return the number of templates successfully warmed up since the engine has started.
+     */
+    long getWarmedUpTemplateCount();
+
+    /**
+     * @return the number of templates, or expressions within templates, that could not be parsed during the
+     * warm-ups since the engine has started.
+     */
+    long getWarmUpErrorCount();
+}
@@ -0,0 +1,178 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.api.utils;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram recording positive values such as latencies.
+ * <p>
+ * Values are stored in log-linear buckets: each power of two is split in 16 sub-buckets, so the relative error of
+ * the computed percentiles is below 6.25%. Recording a value is wait-free (a few atomic increments) and does not
+ * allocate, so it can be used on hot paths. Reads are not atomic with respect to concurrent writes, and so
+ * returns approximated (but consistent enough) values.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = SUB_BUCKETS + (63 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator min = new LongAccumulator(Math::min, Long.MAX_VALUE);
+    private final LongAccumulator max = new LongAccumulator(Math::max, Long.MIN_VALUE);
+
+    /**
+     * Records a value. Negative values are recorded as 0.
+     *
+     * @param value the value
+     */
+    public void record(long value) {
+        long v = value < 0 ? 0 : value;
+        buckets.incrementAndGet(index(v));
+        count.increment();
+        sum.add(v);
+        min.accumulate(v);
+        max.accumulate(v);
+    }
+
+    /**
+     * @return the number of recorded values.
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * @return the sum of the recorded values, zero if none.
+     */
+    public long getSum() {
+        return sum.sum();
+    }
+
+    /**
+     * @return the minimum recorded value, {@code Long.MAX_VALUE} if none.
+     */
+    public long getMin() {
+        return min.get();
+    }
+
+    /**
+     * @return the maximum recorded value, {@code Long.MIN_VALUE} if none.
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * @return the arithmetic mean of the recorded values, zero if none.
+     */
+    public double getMean() {
+        long c = getCount();
+        return c > 0 ? (double) getSum() / c : 0.0d;
+    }
+
+    /**
+     * Computes the value at the given quantile. The returned value is the upper bound of the bucket containing the
+     * quantile, capped by the maximum recorded value.
+     *
+     * @param quantile the quantile, between 0 and 1 (0.99 for the 99th percentile)
+     * @return the value at the given quantile, zero if no values have been recorded
+     */
+    public long getPercentile(double quantile) {
+        if (quantile < 0 || quantile > 1) {
+            throw new IllegalArgumentException("The quantile must be in [0, 1], got " + quantile);
+        }
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = buckets.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(upperBound(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * Adds all the values recorded by the given histogram into this one.
+     *
+     * @param other the other histogram
+     */
+    public void merge(LatencyHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            long c = other.buckets.get(i);
+            if (c != 0) {
+                buckets.addAndGet(i, c);
+            }
+        }
+        count.add(other.getCount());
+        sum.add(other.getSum());
+        min.accumulate(other.getMin());
+        max.accumulate(other.getMax());
+    }
+
+    /**
+     * Clears all the recorded values. Values recorded concurrently may or may not be kept.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets.set(i, 0);
+        }
+        count.reset();
+        sum.reset();
+        min.reset();
+        max.reset();
+    }
+
+    static int index(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int mantissa = (int) (value >>> shift) - SUB_BUCKETS;
+        return SUB_BUCKETS + shift * SUB_BUCKETS + mantissa;
+    }
+
+    static long upperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKETS) / SUB_BUCKETS;
+        int mantissa = (index - SUB_BUCKETS) % SUB_BUCKETS;
+        long lower = ((long) (SUB_BUCKETS + mantissa)) << shift;
+        return lower + (1L << shift) - 1;
+    }
+}
@@ -28,6 +28,7 @@ import org.junit.Test;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.wisdom.api.http.MimeTypes;
+import org.wisdom.api.http.RenderableException;
 import org.xml.sax.InputSource;
 
 import javax.xml.parsers.DocumentBuilder;
@@ -40,6 +41,7 @@ import java.util.Arrays;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
 
 /**
  * Check the Empty Http Body
@@ -250,6 +252,28 @@ public class RenderableTest {
         body.setSerializedForm("a,b,c");
         byte[] bytes = IOUtils.toByteArray(body.render(null, null));
         assertThat(new String(bytes, Charsets.UTF_8)).isEqualTo("a,b,c");
+
+        // Binary form
+        body.setSerializedForm(new byte[]{0, 1, 2});
+        assertThat(IOUtils.toByteArray(body.render(null, null))).isEqualTo(new byte[]{0, 1, 2});
+    }
+
+    @Test
+    public void testRenderableObjectWithoutSerializedForm() throws Exception {
+        RenderableObject body = new RenderableObject("a");
+        body.setSerializedForm("a");
+        body.setSerializedForm((String) null);
+        try {
+            body.render(null, null);
+            fail("Serialization required");
+        } catch (RenderableException e) {
+            assertThat(e.getMessage()).contains("Serialization required");
+        }
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testBinaryFormNotSupported() {
+        new RenderableString("hello").setSerializedForm(new byte[]{0});
     }
 
 }
@@ -68,5 +68,29 @@ public class ExecutionStatisticsTest {
         assertThat(statistics.getTotalExecutionTime()).isEqualTo(20);
     }
 
+    @Test
+    public void testPercentiles() {
+        ManagedExecutorService.ExecutionStatistics statistics = new ManagedExecutorService.ExecutionStatistics();
+        for (int i = 1; i <= 1000; i++) {
+            statistics.accept(i);
+        }
+        assertThat(statistics.getPercentileExecutionTime(0.5)).isBetween(490L, 530L);
+        assertThat(statistics.getPercentileExecutionTime(0.99)).isBetween(980L, 1000L);
+        assertThat(statistics.getPercentileExecutionTime(0.999)).isBetween(990L, 1000L);
+
+        ManagedExecutorService.ExecutionStatistics copy = statistics.copy();
+        assertThat(copy.getCount()).isEqualTo(1000);
+        assertThat(copy.getPercentileExecutionTime(0.99)).isEqualTo(statistics.getPercentileExecutionTime(0.99));
+        assertThat(copy.toString()).contains("p99=");
+    }
 
-}
\ No newline at end of file
+    @Test
+    public void testEmpty() {
+        ManagedExecutorService.ExecutionStatistics statistics = new ManagedExecutorService.ExecutionStatistics();
+        assertThat(statistics.getCount()).isEqualTo(0);
+        assertThat(statistics.getAverageExecutionTime()).isEqualTo(0.0);
+        assertThat(statistics.getMinimumExecutionTime()).isEqualTo(Long.MAX_VALUE);
+        assertThat(statistics.getMaximumExecutionTime()).isEqualTo(Long.MIN_VALUE);
+        assertThat(statistics.copy().getMinimumExecutionTime()).isEqualTo(Long.MAX_VALUE);
+    }
+}
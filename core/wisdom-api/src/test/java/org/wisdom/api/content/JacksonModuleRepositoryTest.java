@@ -0,0 +1,60 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.api.content;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.xml.XmlFactory;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks the default methods of the {@link JacksonModuleRepository} service.
+ */
+public class JacksonModuleRepositoryTest {
+
+    private final JacksonModuleRepository repository = new JacksonModuleRepository() {
+        @Override
+        public void register(Module module) {
+            // Not used.
+        }
+
+        @Override
+        public void unregister(Module module) {
+            // Not used.
+        }
+    };
+
+    @Test
+    public void testMapperForAFormat() {
+        ObjectMapper mapper = repository.mapper(XmlFactory.class);
+        assertThat(mapper.getFactory()).isInstanceOf(XmlFactory.class);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMapperForAnAbstractFactory() {
+        repository.mapper(AbstractFactory.class);
+    }
+
+    private abstract static class AbstractFactory extends JsonFactory {
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.api.content;
+
+import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.xml.sax.InputSource;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks the default methods of the {@link Xml} service, built on the document and string methods.
+ */
+public class XmlTest {
+
+    private final Xml xml = new MinimalXml();
+
+    @Test
+    public void testFromStream() throws IOException {
+        Person person = xml.fromXML(stream("<person><name>wisdom</name></person>"), Person.class);
+        assertThat(person.name).isEqualTo("wisdom");
+    }
+
+    @Test
+    public void testReadValues() throws IOException {
+        Iterator<Person> iterator = xml.readValues(
+                stream("<people><person><name>a</name></person> <person><name>b</name></person></people>"),
+                Person.class);
+        assertThat(ImmutableList.copyOf(iterator)).extracting("name").containsExactly("a", "b");
+    }
+
+    @Test
+    public void testWriteTo() throws IOException {
+        Person person = new Person();
+        person.name = "wisdom";
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        xml.writeTo(person, out);
+        assertThat(out.toString("UTF-8")).contains("<name>wisdom</name>");
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static class Person {
+        public String name;
+    }
+
+    /**
+     * An implementation providing only the abstract methods.
+     */
+    private static class MinimalXml implements Xml {
+
+        private final XmlMapper mapper = new XmlMapper();
+
+        @Override
+        public XmlMapper xmlMapper() {
+            return mapper;
+        }
+
+        @Override
+        public Document fromString(String xml) throws IOException {
+            return parse(new InputSource(new StringReader(xml)));
+        }
+
+        @Override
+        public Document fromInputStream(InputStream stream, Charset encoding) throws IOException {
+            return parse(new InputSource(stream));
+        }
+
+        @Override
+        public <A> A fromXML(Document document, Class<A> clazz) {
+            return fromXML(stringify(document), clazz);
+        }
+
+        @Override
+        public <A> A fromXML(String xml, Class<A> clazz) {
+            try {
+                return mapper.readValue(xml, clazz);
+            } catch (IOException e) {
+                throw new IllegalArgumentException(e);
+            }
+        }
+
+        @Override
+        public String stringify(Document xml) {
+            try {
+                StringWriter writer = new StringWriter();
+                TransformerFactory.newInstance().newTransformer().transform(new DOMSource(xml),
+                        new StreamResult(writer));
+                return writer.toString();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public Document newDocument() {
+            try {
+                return DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private static Document parse(InputSource source) throws IOException {
+            try {
+                return DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(source);
+            } catch (Exception e) {
+                throw new IOException(e);
+            }
+        }
+    }
+}
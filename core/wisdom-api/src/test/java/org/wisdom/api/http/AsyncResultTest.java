@@ -22,6 +22,9 @@ package org.wisdom.api.http;
 import org.junit.Test;
 
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -42,4 +45,47 @@ public class AsyncResultTest {
         assertThat(async.callable()).isNotNull();
         assertThat(async.callable().call().getStatusCode()).isEqualTo(200);
     }
+
+    @Test
+    public void testTimeout() throws Exception {
+        Callable<Result> callable = new Callable<Result>() {
+            @Override
+            public Result call() throws Exception {
+                return Results.ok();
+            }
+        };
+        assertThat(new AsyncResult(callable).timeout(TimeUnit.MILLISECONDS)).isEqualTo(0);
+        assertThat(new AsyncResult(callable, -1, TimeUnit.SECONDS).timeout(TimeUnit.MILLISECONDS)).isEqualTo(0);
+        assertThat(new AsyncResult(callable, 2, TimeUnit.SECONDS).timeout(TimeUnit.MILLISECONDS)).isEqualTo(2000);
+    }
+
+    @Test
+    public void testExecutor() throws Exception {
+        Callable<Result> callable = new Callable<Result>() {
+            @Override
+            public Result call() throws Exception {
+                return Results.ok();
+            }
+        };
+        assertThat(new AsyncResult(callable).executor()).isNull();
+        assertThat(new AsyncResult(callable, 1, TimeUnit.SECONDS, "").executor()).isNull();
+        AsyncResult result = new AsyncResult(callable, 1, TimeUnit.SECONDS, "reports");
+        assertThat(result.executor()).isEqualTo("reports");
+        assertThat(result.timeout(TimeUnit.SECONDS)).isEqualTo(1);
+    }
+
+    @Test
+    public void testCompletionStage() throws Exception {
+        CompletableFuture<Result> future = new CompletableFuture<>();
+        CompletionStageResult result = Results.async(future);
+        assertThat(result.stage()).isSameAs(future);
+        assertThat(CompletionStageResult.from(future)).isInstanceOf(CompletionStageResult.class);
+        Result ok = Results.ok();
+        assertThat(CompletionStageResult.from(ok)).isSameAs(ok);
+
+        assertThat(CompletionStageResult.isSupportedReturnType(Result.class)).isTrue();
+        assertThat(CompletionStageResult.isSupportedReturnType(CompletionStage.class)).isTrue();
+        assertThat(CompletionStageResult.isSupportedReturnType(CompletableFuture.class)).isTrue();
+        assertThat(CompletionStageResult.isSupportedReturnType(String.class)).isFalse();
+    }
 }
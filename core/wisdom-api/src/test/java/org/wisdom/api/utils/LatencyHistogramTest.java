@@ -0,0 +1,109 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.api.utils;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Checks the latency histogram.
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void testEmpty() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertThat(histogram.getCount()).isEqualTo(0);
+        assertThat(histogram.getMean()).isEqualTo(0.0);
+        assertThat(histogram.getPercentile(0.99)).isEqualTo(0);
+        assertThat(histogram.getMin()).isEqualTo(Long.MAX_VALUE);
+        assertThat(histogram.getMax()).isEqualTo(Long.MIN_VALUE);
+    }
+
+    @Test
+    public void testStatisticsAndPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i);
+        }
+        assertThat(histogram.getCount()).isEqualTo(1000);
+        assertThat(histogram.getSum()).isEqualTo(500500);
+        assertThat(histogram.getMin()).isEqualTo(1);
+        assertThat(histogram.getMax()).isEqualTo(1000);
+        assertThat(histogram.getMean()).isEqualTo(500.5);
+
+        // Precision is 1/16.
+        assertThat((double) histogram.getPercentile(0.5)).isCloseTo(500, within(500 / 16.0));
+        assertThat((double) histogram.getPercentile(0.99)).isCloseTo(990, within(990 / 16.0));
+        assertThat((double) histogram.getPercentile(0.999)).isCloseTo(999, within(999 / 16.0));
+        assertThat(histogram.getPercentile(1)).isEqualTo(1000);
+        assertThat(histogram.getPercentile(0)).isEqualTo(1);
+
+        histogram.reset();
+        assertThat(histogram.getCount()).isEqualTo(0);
+        assertThat(histogram.getPercentile(0.5)).isEqualTo(0);
+    }
+
+    @Test
+    public void testBuckets() {
+        long previous = -1;
+        for (long value : new long[]{0, 1, 15, 16, 17, 31, 32, 33, 1000, 1L << 40, Long.MAX_VALUE}) {
+            int index = LatencyHistogram.index(value);
+            assertThat(LatencyHistogram.upperBound(index)).isGreaterThanOrEqualTo(value);
+            if (index > 0) {
+                assertThat(LatencyHistogram.upperBound(index - 1)).isLessThan(value);
+            }
+            assertThat(LatencyHistogram.upperBound(index)).isGreaterThanOrEqualTo(previous);
+            previous = LatencyHistogram.upperBound(index);
+        }
+        assertThat(LatencyHistogram.upperBound(LatencyHistogram.index(Long.MAX_VALUE))).isEqualTo(Long.MAX_VALUE);
+    }
+
+    @Test
+    public void testConcurrentRecording() throws InterruptedException {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        final int threads = 8;
+        final CountDownLatch done = new CountDownLatch(threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 10000; i++) {
+                        histogram.record(i % 100);
+                    }
+                    done.countDown();
+                }
+            });
+        }
+        assertThat(done.await(30, TimeUnit.SECONDS)).isTrue();
+        executor.shutdown();
+        assertThat(histogram.getCount()).isEqualTo(threads * 10000);
+        assertThat(histogram.getMax()).isEqualTo(99);
+        assertThat(histogram.getMin()).isEqualTo(0);
+    }
+}
@@ -28,11 +28,15 @@ import org.wisdom.api.concurrent.*;
 
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Collectors;
 
 /**
  * Common methods used in the different
  * {@link org.wisdom.api.concurrent.ManagedExecutorService} implementations.
+ * <p>
+ * The submission path does not take any lock: the underlying {@link ThreadPoolExecutor} is thread-safe, the
+ * running tasks are tracked in a concurrent set, and the statistics are lock-free.
  */
 public abstract class AbstractManagedExecutorService implements ManagedExecutorService {
 
@@ -42,12 +46,16 @@ public abstract class AbstractManagedExecutorService implements ManagedExecutorS
     protected ListeningExecutorService executor;
     protected ThreadPoolExecutor internalPool;
 
-    protected final Set<Task<?>> tasks = new LinkedHashSet<>();
+    protected final Set<Task<?>> tasks = ConcurrentHashMap.newKeySet();
     protected final Logger logger;
 
-    protected ExecutionStatistics statistics = new ExecutionStatistics();
+    protected final ExecutionStatistics statistics = new ExecutionStatistics();
 
-    protected List<ExecutionContextService> ecs;
+    protected final LongAdder rejected = new LongAdder();
+
+    protected volatile AdaptiveConcurrencyLimiter limiter;
+
+    protected volatile List<ExecutionContextService> ecs;
 
     protected AbstractManagedExecutorService(String name, long hungTime, List<ExecutionContextService> ecs) {
         Preconditions.checkNotNull(name);
@@ -63,6 +71,20 @@ public abstract class AbstractManagedExecutorService implements ManagedExecutorS
         return this;
     }
 
+    /**
+     * Sets the executor service running the tasks when it is not a {@link ThreadPoolExecutor}. In this case,
+     * implementations must override the methods relying on the internal pool ({@link #getPoolSize()},
+     * {@link #getQueue()}...).
+     *
+     * @param executor the executor service
+     * @return the current managed executor service
+     */
+    protected AbstractManagedExecutorService setInternalExecutor(ExecutorService executor) {
+        this.internalPool = null;
+        this.executor = MoreExecutors.listeningDecorator(executor);
+        return this;
+    }
+
     protected ThreadPoolExecutor getInternalPool() {
         return internalPool;
     }
@@ -81,29 +103,30 @@ public abstract class AbstractManagedExecutorService implements ManagedExecutorS
     }
 
     @Override
-    public synchronized Collection<ManagedFutureTask> getHungTasks() {
+    public Collection<ManagedFutureTask> getHungTasks() {
         return tasks.stream().filter(task -> task.isTaskHang()).collect(Collectors.toList());
     }
 
     @Override
-    public synchronized void shutdown() {
+    public void shutdown() {
         executor.shutdown();
     }
 
 
     @Override
-    public synchronized List<Runnable> shutdownNow() {
+    public List<Runnable> shutdownNow() {
         for (Task task : tasks) {
             task.cancel(true);
         }
         return executor.shutdownNow();
     }
 
-    protected synchronized ExecutionContext createExecutionContext() {
-        if (ecs == null) {
+    protected ExecutionContext createExecutionContext() {
+        List<ExecutionContextService> services = ecs;
+        if (services == null) {
             return null;
         }
-        List<ExecutionContextService> copy = new ArrayList<>(ecs);
+        List<ExecutionContextService> copy = new ArrayList<>(services);
         List<ExecutionContext> ec = new ArrayList<>();
         for (ExecutionContextService svc : copy) {
             ec.add(svc.prepare());
@@ -112,7 +135,7 @@ public abstract class AbstractManagedExecutorService implements ManagedExecutorS
     }
 
     @Override
-    public synchronized boolean isShutdown() {
+    public boolean isShutdown() {
         return executor.isShutdown();
     }
 
@@ -124,18 +147,18 @@ public abstract class AbstractManagedExecutorService implements ManagedExecutorS
      * @return {@code true} if all tasks have completed following shut down
      */
     @Override
-    public synchronized boolean isTerminated() {
+    public boolean isTerminated() {
         return executor.isTerminated();
     }
 
     @Override
-    public synchronized boolean awaitTermination(long timeout, TimeUnit unit)
+    public boolean awaitTermination(long timeout, TimeUnit unit)
             throws InterruptedException {
         return executor.awaitTermination(timeout, unit);
     }
 
     @Override
-    public synchronized <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks) throws InterruptedException {
+    public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks) throws InterruptedException {
         List<Future<T>> futures = executor.invokeAll(tasks);
         List<Future<T>> manageable = new ArrayList<>(futures.size());
         int i = 0;
@@ -154,7 +177,7 @@ public abstract class AbstractManagedExecutorService implements ManagedExecutorS
 
 
     @Override
-    public synchronized <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks, long timeout, TimeUnit unit) throws InterruptedException {
+    public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks, long timeout, TimeUnit unit) throws InterruptedException {
         List<Future<T>> futures = executor.invokeAll(tasks, timeout, unit);
         List<Future<T>> manageable = new ArrayList<>(futures.size());
         int i = 0;
@@ -169,22 +192,79 @@ public abstract class AbstractManagedExecutorService implements ManagedExecutorS
 
 
     @Override
-    public synchronized <T> T invokeAny(Collection<? extends Callable<T>> tasks)
+    public <T> T invokeAny(Collection<? extends Callable<T>> tasks)
             throws InterruptedException, ExecutionException {
         return executor.invokeAny(tasks);
     }
 
     @Override
-    public synchronized <T> T invokeAny(Collection<? extends Callable<T>> tasks,
+    public <T> T invokeAny(Collection<? extends Callable<T>> tasks,
                            long timeout, TimeUnit unit)
             throws InterruptedException, ExecutionException, TimeoutException {
         return executor.invokeAny(tasks, timeout, unit);
     }
 
     @Override
-    public synchronized void execute(Runnable command) {
-        Task<Void> task = getNewTaskFor(command, null);
-        task.execute();
+    public void execute(Runnable command) {
+        if (command == null) {
+            throw new NullPointerException();
+        }
+        track(execute(getNewTaskFor(command, null)));
+    }
+
+    /**
+     * Submits the given task to the underlying executor, counting the rejections.
+     *
+     * @param task the task
+     * @param <T>  the type of result
+     * @return the submitted task
+     */
+    private <T> Task<T> execute(final Task<T> task) {
+        final AdaptiveConcurrencyLimiter limit = limiter;
+        if (limit == null) {
+            try {
+                return task.execute();
+            } catch (RejectedExecutionException e) {
+                rejected.increment();
+                throw e;
+            }
+        }
+
+        if (!limit.tryAcquire()) {
+            rejected.increment();
+            throw new RejectedExecutionException("Concurrency limit (" + limit.getLimit() + ") reached on the " +
+                    "executor " + name);
+        }
+        final long start = System.nanoTime();
+        try {
+            task.execute();
+        } catch (RejectedExecutionException e) {
+            limit.release();
+            rejected.increment();
+            throw e;
+        }
+        task.addListener(() -> limit.release(System.nanoTime() - start, task.isCancelled()),
+                MoreExecutors.sameThreadExecutor());
+        return task;
+    }
+
+    /**
+     * Sets the limiter bounding the number of tasks accepted by this executor. Submissions exceeding the limit are
+     * rejected with a {@link RejectedExecutionException}.
+     *
+     * @param limiter the limiter, {@code null} to accept tasks until the queue is full
+     * @return the current managed executor service
+     */
+    public AbstractManagedExecutorService setConcurrencyLimiter(AdaptiveConcurrencyLimiter limiter) {
+        this.limiter = limiter;
+        return this;
+    }
+
+    /**
+     * @return the limiter bounding the number of tasks accepted by this executor, {@code null} if none.
+     */
+    public AdaptiveConcurrencyLimiter getConcurrencyLimiter() {
+        return limiter;
     }
 
 
@@ -195,7 +275,7 @@ public abstract class AbstractManagedExecutorService implements ManagedExecutorS
      * @return the number of threads
      */
     @Override
-    public synchronized int getLargestPoolSize() {
+    public int getLargestPoolSize() {
         return internalPool.getLargestPoolSize();
     }
 
@@ -205,7 +285,7 @@ public abstract class AbstractManagedExecutorService implements ManagedExecutorS
      * @return the maximum allowed number of threads
      */
     @Override
-    public synchronized int getMaximumPoolSize() {
+    public int getMaximumPoolSize() {
         return internalPool.getMaximumPoolSize();
     }
 
@@ -215,7 +295,7 @@ public abstract class AbstractManagedExecutorService implements ManagedExecutorS
      * @return the number of threads
      */
     @Override
-    public synchronized int getPoolSize() {
+    public int getPoolSize() {
         return internalPool.getPoolSize();
     }
 
@@ -225,7 +305,7 @@ public abstract class AbstractManagedExecutorService implements ManagedExecutorS
      * @return the core number of threads
      */
     @Override
-    public synchronized int getCorePoolSize() {
+    public int getCorePoolSize() {
         return internalPool.getCorePoolSize();
     }
 
@@ -239,10 +319,20 @@ public abstract class AbstractManagedExecutorService implements ManagedExecutorS
      * @return the number of tasks
      */
     @Override
-    public synchronized long getCompletedTaskCount() {
+    public long getCompletedTaskCount() {
         return internalPool.getCompletedTaskCount();
     }
 
+    /**
+     * Returns the number of tasks rejected by this executor.
+     *
+     * @return the number of rejected tasks
+     */
+    @Override
+    public long getRejectedTaskCount() {
+        return rejected.sum();
+    }
+
     /**
      * Returns the approximate number of threads that are actively
      * executing tasks.
@@ -250,7 +340,7 @@ public abstract class AbstractManagedExecutorService implements ManagedExecutorS
      * @return the number of threads
      */
     @Override
-    public synchronized int getActiveCount() {
+    public int getActiveCount() {
         return internalPool.getActiveCount();
     }
 
@@ -263,7 +353,7 @@ public abstract class AbstractManagedExecutorService implements ManagedExecutorS
      * @return the task queue
      */
     @Override
-    public synchronized BlockingQueue<Runnable> getQueue() {
+    public BlockingQueue<Runnable> getQueue() {
         return internalPool.getQueue();
     }
 
@@ -278,7 +368,7 @@ public abstract class AbstractManagedExecutorService implements ManagedExecutorS
      * the presence of interference by other threads.
      */
     @Override
-    public synchronized void purge() {
+    public void purge() {
         internalPool.purge();
     }
 
@@ -299,7 +389,7 @@ public abstract class AbstractManagedExecutorService implements ManagedExecutorS
      * @return {@code true} if the task was removed
      */
     @Override
-    public synchronized boolean remove(Runnable task) {
+    public boolean remove(Runnable task) {
         return internalPool.remove(task);
     }
 
@@ -312,7 +402,7 @@ public abstract class AbstractManagedExecutorService implements ManagedExecutorS
      * @return the number of tasks
      */
     @Override
-    public synchronized long getTaskCount() {
+    public long getTaskCount() {
         return internalPool.getTaskCount();
     }
 
@@ -325,27 +415,24 @@ public abstract class AbstractManagedExecutorService implements ManagedExecutorS
      * @return the time limit
      */
     @Override
-    public synchronized long getKeepAliveTime(TimeUnit unit) {
+    public long getKeepAliveTime(TimeUnit unit) {
         return internalPool.getKeepAliveTime(unit);
     }
 
     @Override
-    public synchronized <T> ManagedFutureTask<T> submit(Callable<T> task) {
+    public <T> ManagedFutureTask<T> submit(Callable<T> task) {
         if (task == null) {
             throw new NullPointerException();
         }
-        return getNewTaskFor(task).execute();
+        return track(execute(getNewTaskFor(task)));
     }
 
     @Override
-    public synchronized <T> ManagedFutureTask<T> submit(Runnable task, T result) {
+    public <T> ManagedFutureTask<T> submit(Runnable task, T result) {
         if (task == null) {
             throw new NullPointerException();
         }
-        final Task t = getNewTaskFor(task, result).execute();
-        t.addListener(() -> tasks.remove(t));
-        tasks.add(t);
-        return t;
+        return track(execute(getNewTaskFor(task, result)));
     }
 
     @Override
@@ -354,12 +441,26 @@ public abstract class AbstractManagedExecutorService implements ManagedExecutorS
         return submit(task, null); //NOSONAR
     }
 
+    /**
+     * Tracks the given task until its completion, so it can be reported as hung.
+     *
+     * @param task the submitted task
+     * @param <T>  the type of result
+     * @return the given task
+     */
+    protected <T> Task<T> track(final Task<T> task) {
+        tasks.add(task);
+        // Runs in the thread completing the task, avoid submitting another task to the executor.
+        task.addListener(() -> tasks.remove(task), MoreExecutors.sameThreadExecutor());
+        return task;
+    }
+
     /**
      * Computes the execution time of the completed task (given), and add it to the statistics.
      *
      * @param task the completed task
      */
-    protected synchronized void addToStatistics(Task task) {
+    protected void addToStatistics(Task task) {
         statistics.accept(task.getTaskCompletionTime() - task.getTaskStartTime());
     }
 }
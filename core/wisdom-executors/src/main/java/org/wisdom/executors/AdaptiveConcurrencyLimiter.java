@@ -0,0 +1,183 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2015 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.executors;
+
+import org.wisdom.api.configuration.Configuration;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits the number of tasks an executor accepts (queued and running), and adapts this limit to the measured
+ * latency. The limit follows a gradient: as long as the latency of the tasks stays close to the minimal latency
+ * observed (the latency without queueing), the limit grows; when tasks start waiting, the latency increases and the
+ * limit shrinks proportionally. Tasks cancelled before completion (typically because of a timeout) are considered as
+ * dropped and decrease the limit multiplicatively.
+ * <p>
+ * Acquiring and releasing a permit does not take any lock.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    /**
+     * The minimal latency is forgotten every {@code RESET_INTERVAL} samples, so the limiter adapts to a change of
+     * the workload.
+     */
+    private static final int RESET_INTERVAL = 1000;
+
+    /**
+     * The factor applied to the limit when a task is dropped.
+     */
+    private static final double BACKOFF = 0.9;
+
+    private final int min;
+    private final int max;
+    private final double smoothing;
+    private final double tolerance;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong estimate;
+    private final AtomicLong minLatency = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicInteger samples = new AtomicInteger();
+
+    private volatile int limit;
+
+    /**
+     * Creates a limiter.
+     *
+     * @param initial   the initial limit
+     * @param min       the minimal limit
+     * @param max       the maximal limit
+     * @param smoothing the weight of a new estimation, between 0 (never changes) and 1 (no smoothing)
+     * @param tolerance the ratio between the measured latency and the minimal latency from which the limit shrinks
+     */
+    public AdaptiveConcurrencyLimiter(int initial, int min, int max, double smoothing, double tolerance) {
+        if (min < 1 || max < min || initial < min || initial > max) {
+            throw new IllegalArgumentException("Invalid concurrency limits, 1 <= min (" + min + ") <= initial ("
+                    + initial + ") <= max (" + max + ") expected");
+        }
+        this.min = min;
+        this.max = max;
+        this.smoothing = smoothing;
+        this.tolerance = tolerance;
+        this.limit = initial;
+        this.estimate = new AtomicLong(Double.doubleToLongBits(initial));
+    }
+
+    /**
+     * Creates a limiter from the given configuration. Supported keys are {@code initial} (20 by default),
+     * {@code min} (1 by default), {@code max} (1000 by default), {@code smoothing} (0.2 by default) and
+     * {@code tolerance} (2 by default).
+     *
+     * @param configuration the configuration, may be {@code null}
+     * @return the limiter, {@code null} if the configuration is {@code null}
+     */
+    public static AdaptiveConcurrencyLimiter create(Configuration configuration) {
+        if (configuration == null) {
+            return null;
+        }
+        return new AdaptiveConcurrencyLimiter(
+                configuration.getIntegerWithDefault("initial", 20),
+                configuration.getIntegerWithDefault("min", 1),
+                configuration.getIntegerWithDefault("max", 1000),
+                configuration.getDoubleWithDefault("smoothing", 0.2),
+                configuration.getDoubleWithDefault("tolerance", 2.0));
+    }
+
+    /**
+     * Tries to acquire a permit.
+     *
+     * @return {@code true} if the permit was acquired, {@code false} if the limit is reached.
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Releases a permit without updating the limit, for instance because the task could not be submitted.
+     */
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * Releases a permit and updates the limit.
+     *
+     * @param latency the latency of the task in nanoseconds, from its submission to its completion
+     * @param dropped whether or not the task has been dropped (cancelled) instead of completed
+     */
+    public void release(long latency, boolean dropped) {
+        int current = inFlight.getAndDecrement();
+        if (dropped) {
+            update(BACKOFF, 0, false);
+            return;
+        }
+
+        if (samples.incrementAndGet() % RESET_INTERVAL == 0) {
+            minLatency.set(latency);
+        }
+        long minimum = minLatency.accumulateAndGet(latency, Math::min);
+
+        double estimated = Double.longBitsToDouble(estimate.get());
+        if (current < estimated / 2) {
+            // The executor is not used enough to learn anything about its capacity.
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * minimum / Math.max(1, latency)));
+        update(gradient, Math.sqrt(estimated), true);
+    }
+
+    private void update(double gradient, double headroom, boolean smooth) {
+        while (true) {
+            long bits = estimate.get();
+            double current = Double.longBitsToDouble(bits);
+            double target = current * gradient + headroom;
+            if (smooth) {
+                target = current * (1 - smoothing) + target * smoothing;
+            }
+            double next = Math.max(min, Math.min(max, target));
+            if (estimate.compareAndSet(bits, Double.doubleToLongBits(next))) {
+                limit = (int) next;
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return the current limit.
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * @return the number of permits currently acquired.
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
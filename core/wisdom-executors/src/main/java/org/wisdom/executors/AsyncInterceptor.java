@@ -22,12 +22,9 @@ package org.wisdom.executors;
 import org.apache.felix.ipojo.annotations.Component;
 import org.apache.felix.ipojo.annotations.Instantiate;
 import org.apache.felix.ipojo.annotations.Provides;
-import org.apache.felix.ipojo.annotations.Requires;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wisdom.api.annotations.scheduler.Async;
-import org.wisdom.api.concurrent.ManagedExecutorService;
-import org.wisdom.api.concurrent.ManagedFutureTask;
 import org.wisdom.api.exceptions.HttpException;
 import org.wisdom.api.http.AsyncResult;
 import org.wisdom.api.http.Result;
@@ -35,8 +32,6 @@ import org.wisdom.api.interception.Interceptor;
 import org.wisdom.api.interception.RequestContext;
 
 import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeoutException;
 
 /**
  * The interceptor managing {@link Async} actions.
@@ -48,50 +43,32 @@ public class AsyncInterceptor extends Interceptor<Async> {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(AsyncInterceptor.class);
 
-    @Requires(filter = "(name=" + ManagedExecutorService.SYSTEM + ")", proxy = false)
-    protected ManagedExecutorService executor;
-
+    /**
+     * Computes the result in the calling thread. The timeout is enforced by the engine, that cancels (and so
+     * interrupts) the computation when it is reached, so no other thread waits for the result.
+     */
     private class ResultRetriever implements Callable<Result> {
 
         private final RequestContext context;
-        private final Async configuration;
 
         /**
          * Creates a {@link org.wisdom.executors.AsyncInterceptor.ResultRetriever}.
          *
-         * @param context       the context
-         * @param configuration the annotation configuration
+         * @param context the context
          */
-        public ResultRetriever(RequestContext context, Async configuration) {
+        public ResultRetriever(RequestContext context) {
             this.context = context;
-            this.configuration = configuration;
         }
 
         @Override
         public Result call() throws Exception {
-            final ManagedFutureTask<Result> task = executor.submit(new Callable<Result>() {
-                @Override
-                public Result call() throws Exception {
-                    return context.proceed();
-                }
-            });
-
             Result result;
             try {
-                result = task.get(configuration.timeout(), configuration.unit());
-            } catch (TimeoutException e) {
-                LOGGER.debug("Call on {} was cancelled because it took more than {} {}",
-                        context.route().getUrl(),
-                        configuration.unit(),
-                        configuration.timeout()
-                );
-                // Interrupt the computation if supported.
-                task.cancel(true);
-                throw new HttpException(Result.GATEWAY_TIMEOUT, "Request timeout");
+                result = context.proceed();
             } catch (InterruptedException e) {
                 LOGGER.debug("Call on {} was interrupted", context.route().getUrl());
                 throw new HttpException(Result.GATEWAY_TIMEOUT, "Request timeout");
-            } catch (ExecutionException e) {
+            } catch (Exception e) {
                 throw new HttpException(Result.INTERNAL_SERVER_ERROR, "Computation error", e);
             }
 
@@ -108,7 +85,7 @@ public class AsyncInterceptor extends Interceptor<Async> {
     /**
      * Wrap the action method as an asynchronous method. The result is computed asynchronously and returned to the
      * client once computed. Optionally a timeout can be set to return an error if the result takes too much time to
-     * be computed.
+     * be computed, and the executor computing the result can be chosen.
      *
      * @param configuration the interception configuration
      * @param context       the interception context
@@ -118,7 +95,7 @@ public class AsyncInterceptor extends Interceptor<Async> {
     public Result call(final Async configuration, final RequestContext context) throws Exception {
         Callable<Result> callable;
         if (configuration.timeout() > 0) {
-            callable = new ResultRetriever(context, configuration);
+            callable = new ResultRetriever(context);
         } else {
             callable = new Callable<Result>() {
                 @Override
@@ -127,7 +104,7 @@ public class AsyncInterceptor extends Interceptor<Async> {
                 }
             };
         }
-        return new AsyncResult(callable);
+        return new AsyncResult(callable, configuration.timeout(), configuration.unit(), configuration.executor());
     }
 
     /**
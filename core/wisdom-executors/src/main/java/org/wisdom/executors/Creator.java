@@ -112,10 +112,15 @@ public class Creator {
 
     private void createExecutor(String name, Configuration conf) {
         LOGGER.info("Creating executor {}", name);
-        ManagedExecutorServiceImpl executor;
+        AbstractManagedExecutorService executor;
         if (conf != null) {
-            executor = new ManagedExecutorServiceImpl(name, conf, ecs);
-
+            if (conf.get("type", ManagedExecutorService.ExecutorType.class,
+                    ManagedExecutorService.ExecutorType.THREAD_POOL)
+                    == ManagedExecutorService.ExecutorType.WORK_STEALING) {
+                executor = new WorkStealingManagedExecutorServiceImpl(name, conf, ecs);
+            } else {
+                executor = new ManagedExecutorServiceImpl(name, conf, ecs);
+            }
         } else {
             executor = new ManagedExecutorServiceImpl(
                     ManagedExecutorService.SYSTEM,
@@ -129,6 +134,9 @@ public class Creator {
                     Thread.NORM_PRIORITY,
                     ecs);
         }
+        if (conf != null) {
+            executor.setConcurrencyLimiter(AdaptiveConcurrencyLimiter.create(conf.getConfiguration("limit")));
+        }
         ServiceRegistration reg = context.registerService(
                 EXPOSED_CLASSES_FOR_EXECUTORS,
                 executor,
@@ -0,0 +1,263 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2015 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.executors;
+
+import org.apache.felix.ipojo.annotations.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wisdom.api.concurrent.ExecutorDiagnostics;
+import org.wisdom.api.concurrent.ManagedExecutorService;
+import org.wisdom.api.concurrent.ManagedFutureTask;
+import org.wisdom.api.configuration.ApplicationConfiguration;
+import org.wisdom.api.configuration.Configuration;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Periodically samples the managed executors. Each run records the queue depth, the number of active threads, the
+ * number of rejections and the completion latency of every executor in a bounded history, and reports the tasks
+ * running for longer than the executor's {@code hungTime}. The stack of the thread executing a hung task is
+ * captured once per task, and the number of captured stacks is rate-limited as walking a thread stack is costly.
+ * <p>
+ * The sweeper uses its own thread, so it keeps running when the executors it watches are saturated.
+ */
+@Component
+@Provides(specifications = ExecutorDiagnostics.class)
+@Instantiate
+public class ExecutorSweeper implements ExecutorDiagnostics {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExecutorSweeper.class);
+
+    @Requires(specification = ManagedExecutorService.class, optional = true)
+    List<ManagedExecutorService> executors;
+
+    @Requires
+    ApplicationConfiguration configuration;
+
+    long period = 1000;
+    int history = 300;
+    int stacksPerMinute = 10;
+    int maxHungTasks = 20;
+
+    private final Map<String, ExecutorHistory> histories = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService timer;
+
+    private long stackTokens = stacksPerMinute;
+    private long lastRefill = System.currentTimeMillis();
+
+    /**
+     * Reads the {@code pools.diagnostics} configuration and starts the sampling.
+     */
+    @Validate
+    public void start() {
+        Configuration conf = configuration.getConfiguration("pools.diagnostics");
+        if (conf != null) {
+            period = conf.getDuration("period", TimeUnit.MILLISECONDS, period);
+            history = conf.getIntegerWithDefault("history", history);
+            stacksPerMinute = conf.getIntegerWithDefault("stacksPerMinute", stacksPerMinute);
+            maxHungTasks = conf.getIntegerWithDefault("maxHungTasks", maxHungTasks);
+        }
+        stackTokens = stacksPerMinute;
+        lastRefill = System.currentTimeMillis();
+        timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "wisdom-executor-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.scheduleAtFixedRate(() -> {
+            try {
+                sweep();
+            } catch (RuntimeException e) { //NOSONAR must not kill the periodic task
+                LOGGER.error("Cannot sample the executors", e);
+            }
+        }, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the sampling.
+     */
+    @Invalidate
+    public void stop() {
+        if (timer != null) {
+            timer.shutdownNow();
+            timer = null;
+        }
+        histories.clear();
+    }
+
+    /**
+     * Samples all the executors. Only called from the sweeper thread (or from tests).
+     */
+    void sweep() {
+        List<ManagedExecutorService> services = executors;
+        if (services == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        refill(now);
+        Set<String> seen = new HashSet<>();
+        for (ManagedExecutorService executor : new ArrayList<>(services)) {
+            seen.add(executor.name());
+            ExecutorHistory h = histories.computeIfAbsent(executor.name(), n -> new ExecutorHistory());
+            h.sample(executor, now);
+        }
+        // Forget the executors that are gone.
+        histories.keySet().retainAll(seen);
+    }
+
+    private void refill(long now) {
+        long elapsed = now - lastRefill;
+        long tokens = elapsed * stacksPerMinute / 60000;
+        if (tokens > 0) {
+            stackTokens += tokens;
+            lastRefill = now;
+        }
+        stackTokens = Math.min(stacksPerMinute, stackTokens);
+    }
+
+    private boolean acquireStackToken() {
+        if (stackTokens > 0) {
+            stackTokens--;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Gets the recorded samples of the given executor.
+     *
+     * @param executor the executor name
+     * @return the samples, oldest first, empty if the executor is unknown
+     */
+    @Override
+    public List<Sample> getSamples(String executor) {
+        ExecutorHistory h = histories.get(executor);
+        if (h == null) {
+            return Collections.emptyList();
+        }
+        return h.samples();
+    }
+
+    /**
+     * Gets the hung tasks detected on the given executor.
+     *
+     * @param executor the executor name
+     * @return the hung task reports, oldest first, empty if none
+     */
+    @Override
+    public List<HungTask> getHungTasks(String executor) {
+        ExecutorHistory h = histories.get(executor);
+        if (h == null) {
+            return Collections.emptyList();
+        }
+        return h.hungTasks();
+    }
+
+    /**
+     * The history of an executor. Written by the sweeper thread, read by any thread.
+     */
+    private class ExecutorHistory {
+
+        private final ArrayDeque<Sample> samples = new ArrayDeque<>();
+        private final ArrayDeque<HungTask> hung = new ArrayDeque<>();
+        private final Set<ManagedFutureTask> reported = Collections.newSetFromMap(new WeakHashMap<>());
+
+        private long rejected = -1;
+        private long count;
+        private long total;
+
+        void sample(ManagedExecutorService executor, long now) {
+            ManagedExecutorService.ExecutionStatistics statistics = executor.getExecutionTimeStatistics();
+            long currentRejected = executor.getRejectedTaskCount();
+            long currentCount = statistics.getCount();
+            long currentTotal = statistics.getTotalExecutionTime();
+
+            long completed = 0;
+            long rejectedDelta = 0;
+            double average = 0;
+            if (rejected >= 0) {
+                completed = currentCount - count;
+                rejectedDelta = currentRejected - rejected;
+                if (completed > 0) {
+                    average = (double) (currentTotal - total) / completed;
+                }
+            }
+            rejected = currentRejected;
+            count = currentCount;
+            total = currentTotal;
+
+            Collection<ManagedFutureTask> hungTasks = executor.getHungTasks();
+            for (ManagedFutureTask task : hungTasks) {
+                if (reported.add(task)) {
+                    report(executor.name(), task, now);
+                }
+            }
+
+            Sample sample = new Sample(now, executor.getQueueSize(), executor.getActiveCount(),
+                    executor.getPoolSize(), rejectedDelta, completed, hungTasks.size(), average,
+                    statistics.getPercentileExecutionTime(0.99));
+            synchronized (this) {
+                samples.addLast(sample);
+                while (samples.size() > history) {
+                    samples.removeFirst();
+                }
+            }
+        }
+
+        private void report(String executor, ManagedFutureTask task, long now) {
+            String description = task.getClass().getName();
+            String threadName = null;
+            String[] stack = new String[0];
+            if (task instanceof Task) {
+                description = ((Task) task).getDescription();
+                Thread thread = ((Task) task).getExecutionThread();
+                if (thread != null) {
+                    threadName = thread.getName();
+                    if (acquireStackToken()) {
+                        StackTraceElement[] elements = thread.getStackTrace();
+                        stack = new String[elements.length];
+                        for (int i = 0; i < elements.length; i++) {
+                            stack[i] = elements[i].toString();
+                        }
+                    }
+                }
+            }
+            LOGGER.warn("Task {} hung in executor {} (running for {} ms)", description, executor,
+                    task.getTaskRunTime());
+            HungTask report = new HungTask(executor, description, threadName, now, task.getTaskRunTime(), stack);
+            synchronized (this) {
+                hung.addLast(report);
+                while (hung.size() > maxHungTasks) {
+                    hung.removeFirst();
+                }
+            }
+        }
+
+        synchronized List<Sample> samples() {
+            return new ArrayList<>(samples);
+        }
+
+        synchronized List<HungTask> hungTasks() {
+            return new ArrayList<>(hung);
+        }
+    }
+}
@@ -81,7 +81,8 @@ public class ManagedExecutorServiceImpl extends AbstractManagedExecutorService
                 TimeUnit.MILLISECONDS, queue, builder.build(), new RejectedExecutionHandler() {
             @Override
             public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
-                System.out.println("REJECTED EXECUTION : " + r);
+                // Counted by the submission methods.
+                throw new RejectedExecutionException("Task rejected by the executor " + name());
             }
         });
         executor.allowCoreThreadTimeOut(allowCoreThreadTimeOut);
@@ -103,7 +104,7 @@ public class ManagedExecutorServiceImpl extends AbstractManagedExecutorService
         return queue;
     }
 
-    protected synchronized <V> Task<V> getNewTaskFor(Runnable task, V result) {
+    protected <V> Task<V> getNewTaskFor(Runnable task, V result) {
         return new Task<>(executor, task, result, createExecutionContext(),
                 hungTime, this);
     }
@@ -120,8 +121,9 @@ public class ManagedExecutorServiceImpl extends AbstractManagedExecutorService
      * @param services the context services
      */
     public void setExecutionContextService(ExecutionContextService... services) {
-        ecs = new ArrayList<>();
-        Collections.addAll(ecs, services);
+        List<ExecutionContextService> list = new ArrayList<>();
+        Collections.addAll(list, services);
+        ecs = list;
     }
 
 }
@@ -44,6 +44,8 @@ public class Task<V> extends FutureTask<V> implements ListenableFuture<V>, Manag
     private long startDate;
     private long completionDate;
     private long hungTime;
+    private final String description;
+    private volatile Thread thread;
 
     protected Task(
             ListeningExecutorService executor,
@@ -53,6 +55,7 @@ public class Task<V> extends FutureTask<V> implements ListenableFuture<V>, Manag
             long hungTime,
             AbstractManagedExecutorService parent) {
         super(runnable, result);
+        this.description = runnable.getClass().getName();
         this.callable = new EnhancedCallable(Executors.callable(runnable, result));
         this.executor = executor;
         this.executionContext = executionContext;
@@ -76,6 +79,7 @@ public class Task<V> extends FutureTask<V> implements ListenableFuture<V>, Manag
             long hungTime,
             AbstractManagedExecutorService parent) {
         super(callable);
+        this.description = callable.getClass().getName();
         this.callable = new EnhancedCallable(callable);
         this.executor = executor;
         this.executionContext = executionContext;
@@ -233,6 +237,20 @@ public class Task<V> extends FutureTask<V> implements ListenableFuture<V>, Manag
         return executionContext;
     }
 
+    /**
+     * @return the thread executing the task, {@code null} if the task is not running.
+     */
+    public Thread getExecutionThread() {
+        return thread;
+    }
+
+    /**
+     * @return a description of the task, i.e. the class name of the submitted runnable or callable.
+     */
+    public String getDescription() {
+        return description;
+    }
+
     class EnhancedCallable implements Callable<V> {
 
         private final Callable<V> delegate;
@@ -248,12 +266,14 @@ public class Task<V> extends FutureTask<V> implements ListenableFuture<V>, Manag
                     executionContext.apply();
                 }
                 startDate = System.currentTimeMillis();
+                thread = Thread.currentThread();
                 return delegate.call();
             } catch (Throwable e) { //NOSONAR
                 // We set the exception in the task.
                 setException(e);
                 throw e;
             } finally {
+                thread = null;
                 completionDate = System.currentTimeMillis();
                 if (executionContext != null) {
                     executionContext.unapply();
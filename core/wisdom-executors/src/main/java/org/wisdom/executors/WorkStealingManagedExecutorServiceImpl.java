@@ -0,0 +1,467 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2015 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.executors;
+
+import com.google.common.util.concurrent.ListenableFutureTask;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import org.wisdom.api.concurrent.ExecutionContext;
+import org.wisdom.api.concurrent.ExecutionContextService;
+import org.wisdom.api.concurrent.ManagedExecutorService;
+import org.wisdom.api.configuration.Configuration;
+
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Implementation of the {@link org.wisdom.api.concurrent.ManagedExecutorService} backed by a
+ * {@link java.util.concurrent.ForkJoinPool}. Each worker thread has its own deque and steals work from the others
+ * when idle, so tasks submitted from a worker thread (fan-out) do not contend on a shared queue.
+ * <p>
+ * Execution contexts, hung task detection and statistics are supported as in
+ * {@link org.wisdom.executors.ManagedExecutorServiceImpl}. When {@code virtualThreads} is enabled and the runtime
+ * supports it (Java 21+), tasks are run on virtual threads instead.
+ */
+public class WorkStealingManagedExecutorServiceImpl extends AbstractManagedExecutorService
+        implements ManagedExecutorService {
+
+    private final ForkJoinPool pool;
+    private final int parallelism;
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final AtomicInteger threads = new AtomicInteger();
+    private final AtomicInteger largest = new AtomicInteger();
+
+    public WorkStealingManagedExecutorServiceImpl(String name, Configuration configuration,
+                                                  List<ExecutionContextService> ecs) {
+        this(
+                name,
+                configuration.get("threadType", ThreadType.class, ThreadType.POOLED),
+                configuration.getDuration("hungTime", TimeUnit.MILLISECONDS, 60000),
+                configuration.getIntegerWithDefault("parallelism", Runtime.getRuntime().availableProcessors()),
+                configuration.getBooleanWithDefault("asyncMode", false),
+                configuration.getBooleanWithDefault("virtualThreads", false),
+                configuration.getIntegerWithDefault("priority", Thread.NORM_PRIORITY),
+                ecs);
+    }
+
+    public WorkStealingManagedExecutorServiceImpl(
+            final String name,
+            final ThreadType tu,
+            long hungTime,
+            int parallelism,
+            boolean asyncMode,
+            boolean virtualThreads,
+            final int priority,
+            List<ExecutionContextService> ecs) {
+        super(name, hungTime, ecs);
+        this.parallelism = parallelism;
+
+        ExecutorService virtual = virtualThreads ? createVirtualThreadExecutor(name) : null;
+        if (virtual != null) {
+            this.pool = null;
+            setInternalExecutor(virtual);
+            return;
+        }
+
+        final AtomicInteger counter = new AtomicInteger();
+        ForkJoinPool.ForkJoinWorkerThreadFactory factory = new ForkJoinPool.ForkJoinWorkerThreadFactory() {
+            @Override
+            public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+                ForkJoinWorkerThread thread = new WorkerThread(pool);
+                thread.setName(name + "-" + counter.getAndIncrement());
+                thread.setDaemon(tu == ThreadType.DAEMON);
+                thread.setPriority(priority);
+                return thread;
+            }
+        };
+        this.pool = new ForkJoinPool(parallelism, factory,
+                new Thread.UncaughtExceptionHandler() {
+                    @Override
+                    public void uncaughtException(Thread t, Throwable e) {
+                        logger.error("Uncaught exception in thread '{}'", t.getName(), e);
+                    }
+                }, asyncMode);
+        setInternalExecutor(pool);
+    }
+
+    /**
+     * Tries to create an executor running each task in a new virtual thread. Virtual threads are only available on
+     * Java 21+, so the API is accessed reflectively.
+     *
+     * @param name the executor name, used as thread name prefix
+     * @return the executor, {@code null} if the runtime does not support virtual threads
+     */
+    private ExecutorService createVirtualThreadExecutor(String name) {
+        try {
+            // Use the public Thread.Builder interface, the implementation classes are not accessible.
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Method nameMethod = builderClass.getMethod("name", String.class, long.class);
+            builder = nameMethod.invoke(builder, name + "-", 0L);
+            ThreadFactory factory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+            return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                    .invoke(null, factory);
+        } catch (Exception e) { //NOSONAR
+            logger.warn("Virtual threads are not supported by the current runtime ({}), using a fork-join pool " +
+                    "instead", System.getProperty("java.version"));
+            return null;
+        }
+    }
+
+    /**
+     * @return whether or not the tasks are run on virtual threads.
+     */
+    public boolean isUsingVirtualThreads() {
+        return pool == null;
+    }
+
+    /**
+     * @return the underlying fork-join pool, {@code null} if virtual threads are used.
+     */
+    protected ForkJoinPool getForkJoinPool() {
+        return pool;
+    }
+
+    @Override
+    protected <V> Task<V> getNewTaskFor(Runnable task, V result) {
+        return new WorkStealingTask<>(executor, task, result, createExecutionContext(), hungTime, this);
+    }
+
+    @Override
+    protected <V> Task<V> getNewTaskFor(Callable<V> callable) {
+        return new WorkStealingTask<>(executor, callable, createExecutionContext(), hungTime, this);
+    }
+
+    @Override
+    protected <T> Task<T> track(Task<T> task) {
+        submitted.increment();
+        return super.track(task);
+    }
+
+    @Override
+    protected void addToStatistics(Task task) {
+        completed.increment();
+        super.addToStatistics(task);
+    }
+
+    /**
+     * Submits all the tasks (so they can be stolen by idle workers) and waits for their completion. Unlike the
+     * thread pool version, the tasks are managed: the execution context is applied and the tasks are tracked.
+     */
+    @Override
+    public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks) throws InterruptedException {
+        List<Future<T>> futures = new ArrayList<>(tasks.size());
+        try {
+            for (Callable<T> callable : tasks) {
+                futures.add(submit(callable));
+            }
+            for (Future<T> future : futures) {
+                await(future);
+            }
+            return futures;
+        } catch (InterruptedException | RuntimeException e) {
+            cancelAll(futures);
+            throw e;
+        }
+    }
+
+    @Override
+    public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks, long timeout, TimeUnit unit)
+            throws InterruptedException {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        List<Future<T>> futures = new ArrayList<>(tasks.size());
+        try {
+            for (Callable<T> callable : tasks) {
+                futures.add(submit(callable));
+            }
+            for (Future<T> future : futures) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0 || !await(future, remaining)) {
+                    cancelAll(futures);
+                    break;
+                }
+            }
+            return futures;
+        } catch (InterruptedException | RuntimeException e) {
+            cancelAll(futures);
+            throw e;
+        }
+    }
+
+    private static <T> void cancelAll(List<Future<T>> futures) {
+        for (Future<T> future : futures) {
+            future.cancel(true);
+        }
+    }
+
+    private static void await(Future<?> future) throws InterruptedException {
+        try {
+            future.get();
+        } catch (ExecutionException | CancellationException e) { //NOSONAR
+            // Reported by the future itself.
+        }
+    }
+
+    private static boolean await(Future<?> future, long nanos) throws InterruptedException {
+        try {
+            future.get(nanos, TimeUnit.NANOSECONDS);
+            return true;
+        } catch (ExecutionException | CancellationException e) { //NOSONAR
+            // Reported by the future itself.
+            return true;
+        } catch (TimeoutException e) { //NOSONAR
+            return false;
+        }
+    }
+
+    /**
+     * Blocks on the given future. When called from a worker thread, the pool is notified so it can activate a
+     * spare thread and keep its parallelism level.
+     *
+     * @param future the future
+     * @param nanos  the timeout in nanoseconds, {@link Long#MAX_VALUE} to wait forever
+     * @param <V>    the type of result
+     * @return the result
+     */
+    private static <V> V managedGet(final Future<V> future, final long nanos)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        if (!future.isDone() && Thread.currentThread() instanceof ForkJoinWorkerThread) {
+            final long deadline = nanos == Long.MAX_VALUE ? 0 : System.nanoTime() + nanos;
+            ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker() {
+                @Override
+                public boolean block() throws InterruptedException {
+                    try {
+                        if (nanos == Long.MAX_VALUE) {
+                            future.get();
+                        } else {
+                            future.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                        }
+                    } catch (ExecutionException | CancellationException | TimeoutException e) { //NOSONAR
+                        // Reported below.
+                    }
+                    return true;
+                }
+
+                @Override
+                public boolean isReleasable() {
+                    return future.isDone();
+                }
+            });
+            if (!future.isDone()) {
+                throw new TimeoutException();
+            }
+        }
+        if (nanos == Long.MAX_VALUE) {
+            return future.get();
+        }
+        return future.get(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @return the approximate number of threads that are actively executing tasks.
+     */
+    @Override
+    public int getActiveCount() {
+        if (pool == null) {
+            return tasks.size();
+        }
+        return pool.getActiveThreadCount();
+    }
+
+    /**
+     * @return the approximate total number of tasks that have completed execution.
+     */
+    @Override
+    public long getCompletedTaskCount() {
+        return completed.sum();
+    }
+
+    /**
+     * @return the parallelism level of the pool.
+     */
+    @Override
+    public int getCorePoolSize() {
+        return pool == null ? 0 : parallelism;
+    }
+
+    /**
+     * Fork-join pools manage their idle threads by themselves, so this method returns 0.
+     *
+     * @param unit the time unit
+     * @return 0
+     */
+    @Override
+    public long getKeepAliveTime(TimeUnit unit) {
+        return 0;
+    }
+
+    @Override
+    public int getLargestPoolSize() {
+        if (pool == null) {
+            return largest.get();
+        }
+        return Math.max(largest.get(), pool.getPoolSize());
+    }
+
+    /**
+     * @return the maximum number of threads. The pool may create additional threads to compensate blocked
+     * workers.
+     */
+    @Override
+    public int getMaximumPoolSize() {
+        return pool == null ? Integer.MAX_VALUE : parallelism;
+    }
+
+    @Override
+    public int getPoolSize() {
+        if (pool == null) {
+            return tasks.size();
+        }
+        return pool.getPoolSize();
+    }
+
+    /**
+     * Fork-join pools do not have a single work queue, and their queued tasks cannot be listed without removing
+     * them. Use {@link #getQueueSize()} instead.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public BlockingQueue<Runnable> getQueue() {
+        throw new UnsupportedOperationException("The work-stealing executor " + name + " does not have a single "
+                + "task queue, use getQueueSize() instead");
+    }
+
+    /**
+     * @return the number of queued tasks (submissions and forked tasks).
+     */
+    @Override
+    public int getQueueSize() {
+        if (pool == null) {
+            return 0;
+        }
+        long count = pool.getQueuedSubmissionCount() + pool.getQueuedTaskCount();
+        return (int) Math.min(Integer.MAX_VALUE, count);
+    }
+
+    @Override
+    public long getTaskCount() {
+        return submitted.sum();
+    }
+
+    /**
+     * Cancelled tasks are dropped by the fork-join pool when reached, so there is nothing to purge.
+     */
+    @Override
+    public void purge() {
+        // Nothing to do.
+    }
+
+    /**
+     * Tasks cannot be removed from the fork-join pool queues, cancel the task instead.
+     *
+     * @param task the task
+     * @return {@code false}
+     */
+    @Override
+    public boolean remove(Runnable task) {
+        return false;
+    }
+
+    private class WorkerThread extends ForkJoinWorkerThread {
+
+        WorkerThread(ForkJoinPool pool) {
+            super(pool);
+        }
+
+        @Override
+        protected void onStart() {
+            super.onStart();
+            int count = threads.incrementAndGet();
+            int max;
+            while (count > (max = largest.get())) {
+                if (largest.compareAndSet(max, count)) {
+                    break;
+                }
+            }
+        }
+
+        @Override
+        protected void onTermination(Throwable exception) {
+            threads.decrementAndGet();
+            super.onTermination(exception);
+        }
+    }
+
+    /**
+     * A task submitted to the fork-join pool. When submitted from a worker of the same pool, the task is pushed
+     * to the worker own deque instead of the shared submission queues. Blocking on the result from a worker
+     * thread lets the pool compensate the blocked worker.
+     *
+     * @param <V> the type of result
+     */
+    private class WorkStealingTask<V> extends Task<V> {
+
+        WorkStealingTask(ListeningExecutorService executor, Runnable runnable, V result,
+                         ExecutionContext executionContext, long hungTime,
+                         AbstractManagedExecutorService parent) {
+            super(executor, runnable, result, executionContext, hungTime, parent);
+        }
+
+        WorkStealingTask(ListeningExecutorService executor, Callable<V> callable,
+                         ExecutionContext executionContext, long hungTime,
+                         AbstractManagedExecutorService parent) {
+            super(executor, callable, executionContext, hungTime, parent);
+        }
+
+        @Override
+        protected Task<V> execute() {
+            Thread current = Thread.currentThread();
+            if (pool != null && current instanceof ForkJoinWorkerThread
+                    && ((ForkJoinWorkerThread) current).getPool() == pool && !pool.isShutdown()) {
+                ListenableFutureTask<V> task = ListenableFutureTask.create(callable);
+                ForkJoinTask.adapt(task).fork();
+                submitted(task);
+                return this;
+            }
+            return super.execute();
+        }
+
+        @Override
+        public V get() throws InterruptedException, ExecutionException {
+            try {
+                return managedGet(future, Long.MAX_VALUE);
+            } catch (TimeoutException e) {
+                // Cannot happen without timeout.
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public V get(long timeout, TimeUnit unit) throws InterruptedException, TimeoutException,
+                ExecutionException {
+            return managedGet(future, unit.toNanos(timeout));
+        }
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.executors.scheduler;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.BitSet;
+import java.util.Locale;
+
+/**
+ * A parsed cron expression. The expression contains 5 fields (minute, hour, day of month, month, day of week), or 6
+ * fields when the seconds are given first. As in the Vixie cron, when both the day of month and the day of week are
+ * restricted, a day matches if either field matches.
+ */
+public final class CronExpression {
+
+    private static final String[] MONTHS = {"JAN", "FEB", "MAR", "APR", "MAY", "JUN", "JUL", "AUG", "SEP", "OCT",
+            "NOV", "DEC"};
+    private static final String[] DAYS = {"SUN", "MON", "TUE", "WED", "THU", "FRI", "SAT"};
+
+    /**
+     * The search of the next execution stops after this number of years (for instance for February 30th).
+     */
+    private static final int MAX_YEARS = 5;
+
+    private final String expression;
+    private final ZoneId zone;
+
+    private final BitSet seconds;
+    private final BitSet minutes;
+    private final BitSet hours;
+    private final BitSet daysOfMonth;
+    private final BitSet months;
+    private final BitSet daysOfWeek;
+    private final boolean dayOfMonthRestricted;
+    private final boolean dayOfWeekRestricted;
+
+    /**
+     * Parses the given expression.
+     *
+     * @param expression the expression
+     * @param zone       the time zone used to evaluate the expression
+     * @throws IllegalArgumentException if the expression is invalid
+     */
+    public CronExpression(String expression, ZoneId zone) {
+        this.expression = expression;
+        this.zone = zone;
+        String[] fields = expand(expression.trim()).split("\\s+");
+        if (fields.length != 5 && fields.length != 6) {
+            throw new IllegalArgumentException("Invalid cron expression '" + expression + "', 5 or 6 fields " +
+                    "expected");
+        }
+        int i = 0;
+        if (fields.length == 6) {
+            seconds = parse(fields[i++], 0, 59, null);
+        } else {
+            seconds = new BitSet();
+            seconds.set(0);
+        }
+        minutes = parse(fields[i++], 0, 59, null);
+        hours = parse(fields[i++], 0, 23, null);
+        dayOfMonthRestricted = !isWildcard(fields[i]);
+        daysOfMonth = parse(fields[i++], 1, 31, null);
+        months = parse(fields[i++], 1, 12, MONTHS);
+        dayOfWeekRestricted = !isWildcard(fields[i]);
+        daysOfWeek = parse(fields[i], 0, 7, DAYS);
+        // Sunday is either 0 or 7.
+        if (daysOfWeek.get(7)) {
+            daysOfWeek.set(0);
+        }
+    }
+
+    private static String expand(String expression) {
+        switch (expression.toLowerCase(Locale.ENGLISH)) {
+            case "@yearly":
+            case "@annually":
+                return "0 0 1 1 *";
+            case "@monthly":
+                return "0 0 1 * *";
+            case "@weekly":
+                return "0 0 * * 0";
+            case "@daily":
+            case "@midnight":
+                return "0 0 * * *";
+            case "@hourly":
+                return "0 * * * *";
+            default:
+                return expression;
+        }
+    }
+
+    private static boolean isWildcard(String field) {
+        return "*".equals(field) || "?".equals(field);
+    }
+
+    private BitSet parse(String field, int min, int max, String[] names) {
+        BitSet set = new BitSet(max + 1);
+        for (String part : field.split(",")) {
+            int step = 1;
+            String range = part;
+            int slash = part.indexOf('/');
+            if (slash != -1) {
+                range = part.substring(0, slash);
+                step = toInt(part.substring(slash + 1), 1, max, null);
+            }
+            int from;
+            int to;
+            if (isWildcard(range)) {
+                from = min;
+                to = max;
+            } else {
+                int dash = range.indexOf('-');
+                if (dash != -1) {
+                    from = toInt(range.substring(0, dash), min, max, names);
+                    to = toInt(range.substring(dash + 1), min, max, names);
+                } else {
+                    from = toInt(range, min, max, names);
+                    // 'n/step' means from n to the max.
+                    to = slash != -1 ? max : from;
+                }
+            }
+            if (from > to) {
+                throw new IllegalArgumentException("Invalid range '" + range + "' in cron expression '"
+                        + expression + "'");
+            }
+            for (int v = from; v <= to; v += step) {
+                set.set(v);
+            }
+        }
+        return set;
+    }
+
+    private int toInt(String value, int min, int max, String[] names) {
+        if (names != null) {
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].equalsIgnoreCase(value)) {
+                    // Months start at 1, days at 0.
+                    return i + min;
+                }
+            }
+        }
+        int v;
+        try {
+            v = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid value '" + value + "' in cron expression '"
+                    + expression + "'", e);
+        }
+        if (v < min || v > max) {
+            throw new IllegalArgumentException("Value '" + value + "' out of range [" + min + ", " + max
+                    + "] in cron expression '" + expression + "'");
+        }
+        return v;
+    }
+
+    /**
+     * Computes the next execution time strictly after the given date.
+     *
+     * @param after the date (milliseconds since epoch)
+     * @return the next execution time (milliseconds since epoch), -1 if the expression never matches
+     */
+    public long next(long after) {
+        ZonedDateTime time = Instant.ofEpochMilli(after).atZone(zone)
+                .truncatedTo(ChronoUnit.SECONDS).plusSeconds(1);
+        int limit = time.getYear() + MAX_YEARS;
+        while (time.getYear() <= limit) {
+            if (!months.get(time.getMonthValue())) {
+                time = time.plusMonths(1).withDayOfMonth(1).truncatedTo(ChronoUnit.DAYS);
+            } else if (!matchesDay(time)) {
+                time = time.plusDays(1).truncatedTo(ChronoUnit.DAYS);
+            } else if (!hours.get(time.getHour())) {
+                time = time.plusHours(1).truncatedTo(ChronoUnit.HOURS);
+            } else if (!minutes.get(time.getMinute())) {
+                time = time.plusMinutes(1).truncatedTo(ChronoUnit.MINUTES);
+            } else if (!seconds.get(time.getSecond())) {
+                time = time.plusSeconds(1);
+            } else {
+                return time.toInstant().toEpochMilli();
+            }
+        }
+        return -1;
+    }
+
+    private boolean matchesDay(ZonedDateTime time) {
+        boolean dom = daysOfMonth.get(time.getDayOfMonth());
+        // DayOfWeek goes from 1 (Monday) to 7 (Sunday), cron uses 0 for Sunday.
+        DayOfWeek day = time.getDayOfWeek();
+        boolean dow = daysOfWeek.get(day.getValue() % 7);
+        if (dayOfMonthRestricted && dayOfWeekRestricted) {
+            return dom || dow;
+        }
+        return dom && dow;
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+}
@@ -23,18 +23,31 @@ import com.google.common.base.Strings;
 import org.joda.time.Period;
 import org.joda.time.format.PeriodFormatter;
 import org.joda.time.format.PeriodFormatterBuilder;
+import org.wisdom.api.annotations.scheduler.Cron;
 import org.wisdom.api.annotations.scheduler.Every;
+import org.wisdom.api.concurrent.ManagedExecutorService;
+import org.wisdom.api.concurrent.ManagedScheduledExecutorService;
 import org.wisdom.api.concurrent.ManagedScheduledFutureTask;
+import org.wisdom.api.scheduler.OverlapPolicy;
 import org.wisdom.api.scheduler.Scheduled;
+import org.wisdom.api.scheduler.ScheduledJob;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.time.ZoneId;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Structure holding a job.
+ * <p>
+ * Once started, a job schedules its next execution when the current one completes, so executions never overlap.
+ * If an execution completes after the time of the next one, the missed executions are skipped or coalesced according
+ * to the {@link OverlapPolicy}. A random delay (the jitter) can be added to each execution.
  */
-public class Job {
+public class Job implements ScheduledJob {
 
     /**
      * The period formatter to parse the perdiod given as String.
@@ -53,12 +66,35 @@ public class Job {
             .appendSeconds()
             .appendSuffix("s", "s")
             .toFormatter();
+
+    /**
+     * When searching the last missed execution of a cron job, the search stops after this number of executions.
+     */
+    private static final int MAX_MISSED_EXECUTIONS = 1000;
+
     private final Method method;
     private final Scheduled scheduled;
     private final TimeUnit unit;
-    private ManagedScheduledFutureTask task;
+    private final CronExpression cron;
+    private final long jitter;
+    private final OverlapPolicy overlap;
+    private volatile ManagedScheduledFutureTask task;
     private long period;
 
+    private final ManagedExecutorService.ExecutionStatistics statistics =
+            new ManagedExecutorService.ExecutionStatistics();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private volatile long lastRun;
+    private volatile long nextRun;
+    private volatile boolean cancelled;
+    /**
+     * Incremented every time the job is started, so executions started before a cancellation do not schedule
+     * executions once the job is restarted.
+     */
+    private int generation;
+    private ManagedScheduledExecutorService scheduler;
+
     /**
      * Creates a new instance of Job.
      *
@@ -69,6 +105,7 @@ public class Job {
     public Job(Scheduled scheduled, Method method, Every every) {
         this.method = method;
         this.scheduled = scheduled;
+        this.cron = null;
         if (every.period() > 0) {
             this.period = every.period();
             this.unit = every.unit();
@@ -80,6 +117,27 @@ public class Job {
                         .getName() + ", neither the period as String nor as long was given");
             }
         }
+        this.jitter = getJitter(every.jitter());
+        this.overlap = every.overlap() == null ? OverlapPolicy.COALESCE : every.overlap();
+    }
+
+    /**
+     * Creates a new instance of Job executed according to a cron expression.
+     *
+     * @param scheduled the scheduled object, must not be {@literal null}
+     * @param method    the method to call on this scheduled object, must not be {@literal null}
+     * @param cron      the cron annotation
+     * @throws IllegalArgumentException if the cron expression or the time zone are invalid
+     */
+    public Job(Scheduled scheduled, Method method, Cron cron) {
+        this.method = method;
+        this.scheduled = scheduled;
+        this.cron = new CronExpression(cron.value(),
+                Strings.isNullOrEmpty(cron.zone()) ? ZoneId.systemDefault() : ZoneId.of(cron.zone()));
+        this.period = -1;
+        this.unit = TimeUnit.MILLISECONDS;
+        this.jitter = getJitter(cron.jitter());
+        this.overlap = cron.overlap() == null ? OverlapPolicy.COALESCE : cron.overlap();
     }
 
     /**
@@ -106,6 +164,19 @@ public class Job {
         return -1;
     }
 
+    /**
+     * Parses the given jitter.
+     *
+     * @param jitter the jitter using the period syntax, may be {@code null} or empty
+     * @return the jitter in milliseconds, 0 if none
+     */
+    private static long getJitter(String jitter) {
+        if (Strings.isNullOrEmpty(jitter)) {
+            return 0;
+        }
+        return TimeUnit.SECONDS.toMillis(toDuration(PERIOD_FORMATTER.parsePeriod(jitter)));
+    }
+
     public Method method() {
         return method;
     }
@@ -122,9 +193,11 @@ public class Job {
                 try {
                     method.invoke(scheduled);
                 } catch (IllegalAccessException e) {
+                    failures.increment();
                     WisdomTaskScheduler.getLogger().error("Error while accessing to the scheduled method {}.{}",
                             scheduled.getClass().getName(), method.getName(), e);
                 } catch (InvocationTargetException e) {
+                    failures.increment();
                     WisdomTaskScheduler.getLogger().error("Error in scheduled method {}.{}",
                             scheduled.getClass().getName(), method.getName(), e);
                 }
@@ -132,6 +205,134 @@ public class Job {
         };
     }
 
+    /**
+     * Starts the job: its first execution is scheduled on the given scheduler.
+     *
+     * @param scheduler the scheduler
+     */
+    public synchronized void start(ManagedScheduledExecutorService scheduler) {
+        this.scheduler = scheduler;
+        this.cancelled = false;
+        generation++;
+        long now = System.currentTimeMillis();
+        long first = cron != null ? cron.next(now) : now + unit.toMillis(period);
+        schedule(generation, first, first + jitter());
+    }
+
+    /**
+     * Cancels the job. The running execution (if any) is interrupted, and no other execution is scheduled.
+     */
+    public synchronized void cancel() {
+        cancelled = true;
+        nextRun = 0;
+        if (task != null) {
+            task.cancel(true);
+        }
+    }
+
+    private long jitter() {
+        return jitter > 0 ? ThreadLocalRandom.current().nextLong(jitter + 1) : 0;
+    }
+
+    /**
+     * Computes the next execution time.
+     *
+     * @param previous the previous execution time (without jitter)
+     * @return the next execution time, -1 if none
+     */
+    private long next(long previous) {
+        if (cron != null) {
+            return cron.next(previous);
+        }
+        return previous + unit.toMillis(period);
+    }
+
+    /**
+     * Schedules an execution.
+     *
+     * @param gen  the generation of the job having planned this execution
+     * @param time the execution time without jitter, used to compute the following execution time
+     * @param at   the actual execution time
+     */
+    private synchronized void schedule(final int gen, final long time, long at) {
+        if (gen != generation) {
+            return;
+        }
+        if (cancelled || time == -1) {
+            nextRun = 0;
+            return;
+        }
+        nextRun = at;
+        submitted(scheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                execute(gen, time);
+            }
+        }, Math.max(0, at - System.currentTimeMillis()), TimeUnit.MILLISECONDS));
+    }
+
+    private void execute(int gen, long time) {
+        if (cancelled) {
+            return;
+        }
+        long begin = System.currentTimeMillis();
+        lastRun = begin;
+        try {
+            function().run();
+        } finally {
+            statistics.accept(System.currentTimeMillis() - begin);
+        }
+        scheduleAfter(gen, time);
+    }
+
+    /**
+     * Schedules the execution following the one planned at the given time, applying the overlap policy if the
+     * execution has completed after the time of the next one.
+     *
+     * @param gen  the generation of the job having planned the completed execution
+     * @param time the time of the completed execution (without jitter)
+     */
+    private void scheduleAfter(int gen, long time) {
+        long now = System.currentTimeMillis();
+        long next = next(time);
+        if (next == -1 || next > now) {
+            schedule(gen, next, next + jitter());
+            return;
+        }
+
+        // The execution took longer than expected, find the missed executions.
+        long missed;
+        long last;
+        if (cron == null) {
+            long step = unit.toMillis(period);
+            missed = (now - next) / step + 1;
+            last = next + (missed - 1) * step;
+            next = last + step;
+        } else {
+            missed = 0;
+            last = next;
+            while (next != -1 && next <= now && missed < MAX_MISSED_EXECUTIONS) {
+                last = next;
+                next = cron.next(next);
+                missed++;
+            }
+            if (next != -1 && next <= now) {
+                // Too many missed executions, stop counting.
+                last = now;
+                next = cron.next(now);
+            }
+        }
+
+        if (overlap == OverlapPolicy.COALESCE) {
+            // All the missed executions are merged into a single one, started now.
+            skipped.add(missed - 1);
+            schedule(gen, last, now);
+        } else {
+            skipped.add(missed);
+            schedule(gen, next, next + jitter());
+        }
+    }
+
     /**
      * Method called when the job is submitted. It provides a reference to the task object.
      *
@@ -156,7 +357,7 @@ public class Job {
     }
 
     /**
-     * @return the period.
+     * @return the period, -1 for cron jobs.
      */
     public long period() {
         return period;
@@ -168,4 +369,67 @@ public class Job {
     public TimeUnit unit() {
         return unit;
     }
+
+    /**
+     * @return the cron expression, {@code null} for periodic jobs.
+     */
+    public CronExpression cron() {
+        return cron;
+    }
+
+    /**
+     * @return the overlap policy.
+     */
+    public OverlapPolicy overlap() {
+        return overlap;
+    }
+
+    @Override
+    public String getName() {
+        return scheduled.getClass().getName() + "#" + method.getName();
+    }
+
+    @Override
+    public String getSchedule() {
+        String schedule;
+        if (cron != null) {
+            schedule = "cron " + cron;
+        } else {
+            schedule = "every " + period + " " + unit.name().toLowerCase(Locale.ENGLISH);
+        }
+        if (jitter > 0) {
+            schedule += " (jitter " + jitter + " ms)";
+        }
+        return schedule;
+    }
+
+    @Override
+    public long getRunCount() {
+        return statistics.getCount();
+    }
+
+    @Override
+    public long getFailureCount() {
+        return failures.sum();
+    }
+
+    @Override
+    public long getSkippedCount() {
+        return skipped.sum();
+    }
+
+    @Override
+    public long getLastRunTime() {
+        return lastRun;
+    }
+
+    @Override
+    public long getNextRunTime() {
+        return nextRun;
+    }
+
+    @Override
+    public ManagedExecutorService.ExecutionStatistics getStatistics() {
+        return statistics.copy();
+    }
 }
@@ -22,12 +22,15 @@ package org.wisdom.executors.scheduler;
 import org.apache.felix.ipojo.annotations.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.wisdom.api.annotations.scheduler.Cron;
 import org.wisdom.api.annotations.scheduler.Every;
 import org.wisdom.api.concurrent.ManagedScheduledExecutorService;
-import org.wisdom.api.concurrent.ManagedScheduledFutureTask;
 import org.wisdom.api.scheduler.Scheduled;
+import org.wisdom.api.scheduler.ScheduledJob;
+import org.wisdom.api.scheduler.ScheduledJobRegistry;
 
 import java.lang.reflect.Method;
+import java.time.DateTimeException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -35,8 +38,9 @@ import java.util.List;
  * Manage scheduled job using the system scheduler.
  */
 @Component(immediate = true)
+@Provides(specifications = ScheduledJobRegistry.class)
 @Instantiate
-public class WisdomTaskScheduler {
+public class WisdomTaskScheduler implements ScheduledJobRegistry {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(WisdomTaskScheduler.class);
 
@@ -62,10 +66,8 @@ public class WisdomTaskScheduler {
         LOGGER.info("Scheduled service bound ({}) - analyzing jobs", scheduled);
         List<Job> extracted = extractJobsFromScheduled(scheduled);
         for (Job job : extracted) {
-            LOGGER.info("Job extracted from {} : {}", scheduled, job.method().getName());
-            ManagedScheduledFutureTask task = scheduler.scheduleAtFixedRate(job.function(),
-                    job.period(), job.period(), job.unit());
-            job.submitted(task);
+            LOGGER.info("Job extracted from {} : {} ({})", scheduled, job.method().getName(), job.getSchedule());
+            job.start(scheduler);
         }
         jobs.addAll(extracted);
     }
@@ -79,7 +81,7 @@ public class WisdomTaskScheduler {
         for (Job job : jobs) {
             LOGGER.info("Cancelling periodic task {}#{} on invalidation", job.scheduled().getClass().getName(),
                     job.method().getName());
-            job.task().cancel(true);
+            job.cancel();
             job.submitted(null);
         }
     }
@@ -92,9 +94,7 @@ public class WisdomTaskScheduler {
     public synchronized void validate() {
         for (Job job : jobs) {
             if (job.task() == null) {
-                ManagedScheduledFutureTask task = scheduler.scheduleAtFixedRate(job.function(),
-                        job.period(), job.period(), job.unit());
-                job.submitted(task);
+                job.start(scheduler);
             }
         }
     }
@@ -110,7 +110,7 @@ public class WisdomTaskScheduler {
             if (job.scheduled().equals(scheduled)) {
                 LOGGER.info("Cancelling periodic task {}#{}", job.scheduled().getClass().getName(),
                         job.method().getName());
-                job.task().cancel(true);
+                job.cancel();
                 jobs.remove(job);
             }
         }
@@ -118,7 +118,7 @@ public class WisdomTaskScheduler {
 
     /**
      * Extracts the {@link Job} from a {@link Scheduled} service. If creates an instance of {@link Job} for each
-     * method annotated with {@link Every} contained in the {@link Scheduled} class.
+     * method annotated with {@link Every} or {@link Cron} contained in the {@link Scheduled} class.
      *
      * @param scheduled the scheduled object
      * @return the list of job
@@ -136,8 +136,25 @@ public class WisdomTaskScheduler {
                             scheduled.getClass().getName(), method.getName(), e);
                 }
             }
+            Cron cron = method.getAnnotation(Cron.class);
+            if (cron != null) {
+                try {
+                    listOfJobs.add(new Job(scheduled, method, cron));
+                } catch (IllegalArgumentException | DateTimeException e) {
+                    LOGGER.error("Cannot parse the cron expression '{}' from scheduled method {}.{}", cron.value(),
+                            scheduled.getClass().getName(), method.getName(), e);
+                }
+            }
         }
         return listOfJobs;
     }
 
+    /**
+     * @return the scheduled jobs.
+     */
+    @Override
+    public synchronized List<ScheduledJob> getJobs() {
+        return new ArrayList<ScheduledJob>(jobs);
+    }
+
 }
@@ -0,0 +1,151 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2015 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.executors;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.After;
+import org.junit.Test;
+import org.wisdom.api.concurrent.ManagedExecutorService;
+import org.wisdom.test.parents.FakeConfiguration;
+
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+public class AdaptiveConcurrencyLimiterTest {
+
+    CountDownLatch latch = new CountDownLatch(1);
+
+    ManagedExecutorServiceImpl executor = new ManagedExecutorServiceImpl(
+            "test",
+            ManagedExecutorService.ThreadType.POOLED,
+            60000,
+            10,
+            10,
+            1000,
+            true,
+            Integer.MAX_VALUE,
+            Thread.NORM_PRIORITY,
+            new ArrayList<>());
+
+    @After
+    public void tearDown() {
+        latch.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testPermits() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10, 0.2, 2.0);
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isFalse();
+        assertThat(limiter.getInFlight()).isEqualTo(2);
+        limiter.release();
+        assertThat(limiter.tryAcquire()).isTrue();
+    }
+
+    @Test
+    public void testLimitGrowsWhileTheLatencyIsStable() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 100, 0.2, 2.0);
+        for (int i = 0; i < 200; i++) {
+            // Keep the executor busy
+            while (limiter.tryAcquire()) {
+                // Acquire all the permits.
+            }
+            limiter.release(TimeUnit.MILLISECONDS.toNanos(10), false);
+        }
+        assertThat(limiter.getLimit()).isEqualTo(100);
+    }
+
+    @Test
+    public void testLimitShrinksWhenTheLatencyIncreases() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(50, 1, 100, 0.2, 2.0);
+        while (limiter.tryAcquire()) {
+            // Acquire all the permits.
+        }
+        limiter.release(TimeUnit.MILLISECONDS.toNanos(10), false);
+        for (int i = 0; i < 100; i++) {
+            limiter.tryAcquire();
+            // Tasks are queued, the latency is 10 times the minimal latency.
+            limiter.release(TimeUnit.MILLISECONDS.toNanos(100), false);
+        }
+        assertThat(limiter.getLimit()).isLessThan(50);
+    }
+
+    @Test
+    public void testLimitShrinksOnDrops() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(50, 5, 100, 0.2, 2.0);
+        for (int i = 0; i < 100; i++) {
+            limiter.tryAcquire();
+            limiter.release(0, true);
+        }
+        assertThat(limiter.getLimit()).isEqualTo(5);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidLimits() {
+        new AdaptiveConcurrencyLimiter(0, 1, 10, 0.2, 2.0);
+    }
+
+    @Test
+    public void testCreationFromConfiguration() {
+        assertThat(AdaptiveConcurrencyLimiter.create(null)).isNull();
+        AdaptiveConcurrencyLimiter limiter = AdaptiveConcurrencyLimiter.create(
+                new FakeConfiguration(ImmutableMap.<String, Object>of("initial", 5, "max", 10)));
+        assertThat(limiter.getLimit()).isEqualTo(5);
+    }
+
+    @Test
+    public void testExecutorRejectsTasksBeyondTheLimit() throws Exception {
+        executor.setConcurrencyLimiter(new AdaptiveConcurrencyLimiter(2, 1, 2, 0.2, 2.0));
+        Runnable blocking = new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    latch.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        executor.submit(blocking);
+        executor.submit(blocking);
+        try {
+            executor.submit(blocking);
+            fail("Rejection expected");
+        } catch (RejectedExecutionException e) {
+            // Expected.
+        }
+        assertThat(executor.getRejectedTaskCount()).isEqualTo(1);
+
+        latch.countDown();
+        // Permits are released on completion.
+        long deadline = System.currentTimeMillis() + 1000;
+        while (executor.getConcurrencyLimiter().getInFlight() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        assertThat(executor.submit(blocking).get(1, TimeUnit.SECONDS)).isNull();
+    }
+}
@@ -66,7 +66,6 @@ public class AsyncInterceptorTest {
                     }
                 }
         ).when(bundle).loadClass(anyString());
-        interceptor.executor = executor;
     }
 
     @After
@@ -182,31 +181,59 @@ public class AsyncInterceptorTest {
         when(async.timeout()).thenReturn(10l);
         when(async.unit()).thenReturn(TimeUnit.MILLISECONDS);
 
-        Result result = interceptor.call(async, rc);
+        final Result result = interceptor.call(async, rc);
         assertThat(result).isInstanceOf(AsyncResult.class);
 
         final Result[] retrieved = {null};
         final Throwable[] errors = {null};
 
-        ManagedFutureTask<Result> r = executor.submit(((AsyncResult) result).callable())
-                .onSuccess(new ManagedFutureTask.SuccessCallback<Result>() {
-                    @Override
-                    public void onSuccess(ManagedFutureTask<Result> future, Result result) {
-                        retrieved[0] = result;
-                    }
-                })
-                .onFailure(new ManagedFutureTask.FailureCallback() {
-                    @Override
-                    public void onFailure(ManagedFutureTask future, Throwable throwable) {
-                        errors[0] = throwable;
-                    }
-                });
-        Thread.sleep(100);
+        // The engine interrupts the computation when the timeout is reached.
+        Thread thread = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    retrieved[0] = ((AsyncResult) result).callable().call();
+                } catch (Exception e) {
+                    errors[0] = e;
+                }
+            }
+        };
+        thread.start();
+        Thread.sleep(((AsyncResult) result).timeout(TimeUnit.MILLISECONDS));
+        thread.interrupt();
+        thread.join(1000);
+
         assertThat(retrieved[0]).isNull();
         assertThat(errors[0]).isNotNull().isInstanceOf(HttpException.class);
         assertThat(errors[0].getMessage())
                 .contains("Request timeout");
     }
 
+    @Test
+    public void testThatTheTimeoutDoesNotHoldAnotherThread() throws Exception {
+        RequestContext rc = mock(RequestContext.class);
+        final String[] thread = {null};
+        doAnswer(new Answer<Result>() {
+
+            @Override
+            public Result answer(InvocationOnMock invocation) throws Throwable {
+                thread[0] = Thread.currentThread().getName();
+                return Results.ok("Done");
+            }
+        }).when(rc).proceed();
 
+        Async async = mock(Async.class);
+        when(async.timeout()).thenReturn(1l);
+        when(async.unit()).thenReturn(TimeUnit.SECONDS);
+        when(async.executor()).thenReturn("reports");
+
+        Result result = interceptor.call(async, rc);
+        assertThat(((AsyncResult) result).timeout(TimeUnit.MILLISECONDS)).isEqualTo(1000);
+        assertThat(((AsyncResult) result).executor()).isEqualTo("reports");
+
+        // The action is invoked in the thread calling the callable.
+        assertThat(((AsyncResult) result).callable().call().getStatusCode()).isEqualTo(200);
+        assertThat(thread[0]).isEqualTo(Thread.currentThread().getName());
+        assertThat(Thread.currentThread().isInterrupted()).isFalse();
+    }
 }
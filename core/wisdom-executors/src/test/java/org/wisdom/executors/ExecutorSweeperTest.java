@@ -0,0 +1,146 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2015 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.executors;
+
+import org.junit.After;
+import org.junit.Test;
+import org.wisdom.api.concurrent.ExecutorDiagnostics;
+import org.wisdom.api.concurrent.ManagedExecutorService;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+public class ExecutorSweeperTest {
+
+    CountDownLatch latch = new CountDownLatch(1);
+
+    ManagedExecutorServiceImpl executor = new ManagedExecutorServiceImpl(
+            "test",
+            ManagedExecutorService.ThreadType.POOLED,
+            10,
+            1,
+            1,
+            1000,
+            true,
+            1,
+            Thread.NORM_PRIORITY,
+            new ArrayList<>());
+
+    ExecutorSweeper sweeper = new ExecutorSweeper();
+
+    @After
+    public void tearDown() {
+        latch.countDown();
+        executor.shutdownNow();
+    }
+
+    private Runnable blocking() {
+        return new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    latch.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+    }
+
+    @Test
+    public void testSamplesAndRejections() throws InterruptedException {
+        sweeper.executors = Collections.<ManagedExecutorService>singletonList(executor);
+        sweeper.sweep();
+
+        executor.execute(blocking());
+        executor.execute(blocking());
+        try {
+            executor.execute(blocking());
+            fail("Rejection expected");
+        } catch (RejectedExecutionException e) {
+            // Expected.
+        }
+        assertThat(executor.getRejectedTaskCount()).isEqualTo(1);
+
+        Thread.sleep(50);
+        sweeper.sweep();
+        List<ExecutorDiagnostics.Sample> samples = sweeper.getSamples("test");
+        assertThat(samples).hasSize(2);
+        ExecutorDiagnostics.Sample last = samples.get(1);
+        assertThat(last.getRejected()).isEqualTo(1);
+        assertThat(last.getQueueSize()).isEqualTo(1);
+        assertThat(last.getActiveCount()).isEqualTo(1);
+        // The hung time is computed from the submission, so the queued task is hung too.
+        assertThat(last.getHung()).isEqualTo(2);
+
+        // Rejections are reported as deltas.
+        sweeper.sweep();
+        assertThat(sweeper.getSamples("test").get(2).getRejected()).isEqualTo(0);
+        assertThat(sweeper.getSamples("unknown")).isEmpty();
+    }
+
+    @Test
+    public void testHungTasksAreReportedOnceWithTheirStack() throws InterruptedException {
+        sweeper.executors = Collections.<ManagedExecutorService>singletonList(executor);
+        executor.execute(blocking());
+        Thread.sleep(50);
+
+        sweeper.sweep();
+        sweeper.sweep();
+        List<ExecutorDiagnostics.HungTask> reports = sweeper.getHungTasks("test");
+        assertThat(reports).hasSize(1);
+        ExecutorDiagnostics.HungTask report = reports.get(0);
+        assertThat(report.getExecutor()).isEqualTo("test");
+        assertThat(report.getTask()).contains("ExecutorSweeperTest");
+        assertThat(report.getThread()).isNotNull();
+        assertThat(report.getRunTime()).isGreaterThanOrEqualTo(10);
+        assertThat(report.getStack()).isNotEmpty();
+        assertThat(report.getStack()[0]).isNotEmpty();
+    }
+
+    @Test
+    public void testStackCaptureIsRateLimited() throws InterruptedException {
+        sweeper.stacksPerMinute = 0;
+        sweeper.executors = Collections.<ManagedExecutorService>singletonList(executor);
+        executor.execute(blocking());
+        Thread.sleep(50);
+
+        sweeper.sweep();
+        List<ExecutorDiagnostics.HungTask> reports = sweeper.getHungTasks("test");
+        assertThat(reports).hasSize(1);
+        assertThat(reports.get(0).getStack()).isEmpty();
+    }
+
+    @Test
+    public void testRemovedExecutorsAreForgotten() {
+        sweeper.executors = Collections.<ManagedExecutorService>singletonList(executor);
+        sweeper.sweep();
+        assertThat(sweeper.getSamples("test")).hasSize(1);
+        sweeper.executors = Collections.emptyList();
+        sweeper.sweep();
+        assertThat(sweeper.getSamples("test")).isEmpty();
+    }
+}
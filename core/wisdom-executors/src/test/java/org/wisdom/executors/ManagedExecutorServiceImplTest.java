@@ -199,9 +199,65 @@ public class ManagedExecutorServiceImplTest {
 
         // Management API
         assertThat(executor.getQueue()).hasSize(0);
+        assertThat(executor.getQueueSize()).isEqualTo(0);
         assertThat(executor.getActiveCount()).isEqualTo(1);
     }
 
+    @Test
+    public void testConcurrentSubmissions() throws InterruptedException {
+        final ManagedExecutorServiceImpl pool = new ManagedExecutorServiceImpl(
+                "concurrent",
+                ManagedExecutorService.ThreadType.POOLED,
+                60000,
+                8,
+                8,
+                1000,
+                true,
+                Integer.MAX_VALUE,
+                Thread.NORM_PRIORITY,
+                null);
+        final int submitters = 8;
+        final int tasksPerSubmitter = 1000;
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(submitters * tasksPerSubmitter);
+        ExecutorService clients = Executors.newFixedThreadPool(submitters);
+        for (int i = 0; i < submitters; i++) {
+            clients.submit(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int j = 0; j < tasksPerSubmitter; j++) {
+                        pool.execute(new Runnable() {
+                            @Override
+                            public void run() {
+                                done.countDown();
+                            }
+                        });
+                    }
+                }
+            });
+        }
+        start.countDown();
+        assertThat(done.await(30, TimeUnit.SECONDS)).isTrue();
+
+        // Statistics are recorded after the task completion, wait until all of them are there.
+        for (int i = 0; i < 100
+                && pool.getExecutionTimeStatistics().getCount() < submitters * tasksPerSubmitter; i++) {
+            Thread.sleep(10);
+        }
+        assertThat(pool.getExecutionTimeStatistics().getCount()).isEqualTo(submitters * tasksPerSubmitter);
+        assertThat(pool.getExecutionTimeStatistics().getPercentileExecutionTime(0.99)).isGreaterThanOrEqualTo(0);
+        assertThat(pool.getHungTasks()).isEmpty();
+        assertThat(pool.tasks).isEmpty();
+
+        clients.shutdownNow();
+        pool.shutdownNow();
+    }
+
     @Test
     public void testExecutionContextSwitch() throws InterruptedException {
         final ThreadLocal<String> context = new ThreadLocal();
@@ -0,0 +1,265 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2015 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.executors;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.After;
+import org.junit.Test;
+import org.wisdom.api.concurrent.ExecutionContext;
+import org.wisdom.api.concurrent.ExecutionContextService;
+import org.wisdom.api.concurrent.ManagedExecutorService;
+import org.wisdom.api.concurrent.ManagedFutureTask;
+import org.wisdom.test.parents.FakeConfiguration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class WorkStealingManagedExecutorServiceImplTest {
+
+    WorkStealingManagedExecutorServiceImpl executor = new WorkStealingManagedExecutorServiceImpl(
+            "test",
+            ManagedExecutorService.ThreadType.POOLED,
+            50,
+            2,
+            false,
+            false,
+            Thread.NORM_PRIORITY,
+            new ArrayList<ExecutionContextService>());
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testCreation() throws ExecutionException, InterruptedException {
+        ManagedFutureTask<String> future = executor.submit(new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                return Thread.currentThread().getName();
+            }
+        });
+        assertThat(future).isInstanceOf(Task.class);
+        assertThat(future.get()).startsWith("test-");
+        assertThat(executor.getForkJoinPool()).isNotNull();
+        assertThat(executor.isUsingVirtualThreads()).isFalse();
+        assertThat(executor.getCorePoolSize()).isEqualTo(2);
+        assertThat(executor.getMaximumPoolSize()).isEqualTo(2);
+        assertThat(executor.getLargestPoolSize()).isGreaterThanOrEqualTo(1);
+    }
+
+    @Test
+    public void testCreationFromConfiguration() {
+        FakeConfiguration configuration = new FakeConfiguration(ImmutableMap.<String, Object>of(
+                "type", "WORK_STEALING",
+                "parallelism", 3));
+        WorkStealingManagedExecutorServiceImpl service =
+                new WorkStealingManagedExecutorServiceImpl("conf", configuration, null);
+        assertThat(service.getCorePoolSize()).isEqualTo(3);
+        assertThat(service.getActiveCount()).isEqualTo(0);
+        assertThat(service.getQueueSize()).isEqualTo(0);
+        assertThat(service.getTaskCount()).isEqualTo(0);
+        service.shutdown();
+    }
+
+    @Test
+    public void testQueueSize() throws Exception {
+        final CountDownLatch running = new CountDownLatch(2);
+        final CountDownLatch release = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            futures.add(executor.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    running.countDown();
+                    release.await();
+                    return null;
+                }
+            }));
+        }
+        // The two threads are blocked, the two other tasks are queued.
+        running.await(1, TimeUnit.SECONDS);
+        assertThat(executor.getQueueSize()).isEqualTo(2);
+        release.countDown();
+        for (Future<?> future : futures) {
+            future.get(1, TimeUnit.SECONDS);
+        }
+        assertThat(executor.getQueueSize()).isEqualTo(0);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testThatThereIsNoSingleQueue() {
+        executor.getQueue();
+    }
+
+    @Test
+    public void testVirtualThreadsFallback() throws ExecutionException, InterruptedException {
+        WorkStealingManagedExecutorServiceImpl service = new WorkStealingManagedExecutorServiceImpl("virtual",
+                ManagedExecutorService.ThreadType.POOLED, 60000, 2, false, true, Thread.NORM_PRIORITY, null);
+        // Virtual threads are used if the runtime supports them, otherwise it falls back to a fork-join pool.
+        assertThat(service.isUsingVirtualThreads()).isEqualTo(service.getForkJoinPool() == null);
+        assertThat(service.submit(new Runnable() {
+            @Override
+            public void run() {
+                // Do nothing.
+            }
+        }, "done").get()).isEqualTo("done");
+        service.shutdownNow();
+    }
+
+    @Test
+    public void testFanOut() throws ExecutionException, InterruptedException, TimeoutException {
+        final AtomicInteger counter = new AtomicInteger();
+        // Each task submits sub-tasks to the same executor and waits for them, with a parallelism of 2.
+        ManagedFutureTask<Integer> future = executor.submit(new Callable<Integer>() {
+            @Override
+            public Integer call() throws Exception {
+                List<Callable<Integer>> children = new ArrayList<>();
+                for (int i = 0; i < 10; i++) {
+                    children.add(new Callable<Integer>() {
+                        @Override
+                        public Integer call() throws Exception {
+                            List<Callable<Integer>> leaves = new ArrayList<>();
+                            for (int j = 0; j < 10; j++) {
+                                leaves.add(new Callable<Integer>() {
+                                    @Override
+                                    public Integer call() throws Exception {
+                                        return counter.incrementAndGet() > 0 ? 1 : 0;
+                                    }
+                                });
+                            }
+                            int sum = 0;
+                            for (Future<Integer> leaf : executor.invokeAll(leaves)) {
+                                sum += leaf.get();
+                            }
+                            return sum;
+                        }
+                    });
+                }
+                int sum = 0;
+                for (Future<Integer> child : executor.invokeAll(children)) {
+                    sum += child.get();
+                }
+                return sum;
+            }
+        });
+
+        assertThat(future.get(30, TimeUnit.SECONDS)).isEqualTo(100);
+        assertThat(counter.get()).isEqualTo(100);
+        // 1 + 10 + 100 tasks
+        assertThat(executor.getTaskCount()).isEqualTo(111);
+        for (int i = 0; i < 100 && executor.getCompletedTaskCount() < 111; i++) {
+            Thread.sleep(10);
+        }
+        assertThat(executor.getCompletedTaskCount()).isEqualTo(111);
+        assertThat(executor.getExecutionTimeStatistics().getCount()).isEqualTo(111);
+    }
+
+    @Test
+    public void testInvokeAllWithTimeout() throws InterruptedException {
+        List<Callable<String>> callables = new ArrayList<>();
+        callables.add(new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                return "fast";
+            }
+        });
+        callables.add(new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                Thread.sleep(10000);
+                return "slow";
+            }
+        });
+        List<Future<String>> futures = executor.invokeAll(callables, 200, TimeUnit.MILLISECONDS);
+        assertThat(futures).hasSize(2);
+        assertThat(futures.get(0).isDone()).isTrue();
+        assertThat(futures.get(1).isCancelled()).isTrue();
+    }
+
+    @Test
+    public void testHungTaskDetection() throws InterruptedException, ExecutionException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        ManagedFutureTask<?> future = executor.submit(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    latch.await();
+                } catch (InterruptedException e) {
+                    // Ignore it.
+                }
+            }
+        });
+        Thread.sleep(100);
+        assertThat(future.isTaskHang()).isTrue();
+        assertThat(executor.getHungTasks()).hasSize(1).contains(future);
+        latch.countDown();
+        future.get();
+    }
+
+    @Test
+    public void testExecutionContextSwitch() throws ExecutionException, InterruptedException {
+        final ThreadLocal<String> context = new ThreadLocal<>();
+        executor.ecs.add(new ExecutionContextService() {
+            @Override
+            public String name() {
+                return "context";
+            }
+
+            @Override
+            public ExecutionContext prepare() {
+                return new ExecutionContext() {
+
+                    private String local = context.get();
+
+                    @Override
+                    public void apply() {
+                        context.set(local);
+                    }
+
+                    @Override
+                    public void unapply() {
+                        context.remove();
+                    }
+                };
+            }
+        });
+
+        context.set("Stuff");
+        // The context is propagated to the task, and from the task to its sub-tasks.
+        ManagedFutureTask<String> future = executor.submit(new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                return context.get() + executor.submit(new Callable<String>() {
+                    @Override
+                    public String call() throws Exception {
+                        return context.get();
+                    }
+                }).get();
+            }
+        });
+        assertThat(future.get()).isEqualTo("StuffStuff");
+        context.remove();
+    }
+}
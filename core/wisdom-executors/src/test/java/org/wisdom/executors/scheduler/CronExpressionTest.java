@@ -0,0 +1,103 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2015 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.executors.scheduler;
+
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks the cron expression parsing and evaluation.
+ */
+public class CronExpressionTest {
+
+    private static final ZoneId UTC = ZoneOffset.UTC;
+
+    private static long at(int year, int month, int day, int hour, int minute, int second) {
+        return LocalDateTime.of(year, month, day, hour, minute, second).toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    @Test
+    public void testEveryHour() {
+        CronExpression cron = new CronExpression("0 * * * *", UTC);
+        assertThat(cron.next(at(2015, 3, 10, 10, 15, 0))).isEqualTo(at(2015, 3, 10, 11, 0, 0));
+        // Strictly after
+        assertThat(cron.next(at(2015, 3, 10, 11, 0, 0))).isEqualTo(at(2015, 3, 10, 12, 0, 0));
+        assertThat(new CronExpression("@hourly", UTC).next(at(2015, 3, 10, 23, 59, 59)))
+                .isEqualTo(at(2015, 3, 11, 0, 0, 0));
+    }
+
+    @Test
+    public void testSeconds() {
+        CronExpression cron = new CronExpression("*/10 * * * * *", UTC);
+        assertThat(cron.next(at(2015, 3, 10, 10, 15, 3))).isEqualTo(at(2015, 3, 10, 10, 15, 10));
+        assertThat(cron.next(at(2015, 3, 10, 10, 15, 55))).isEqualTo(at(2015, 3, 10, 10, 16, 0));
+    }
+
+    @Test
+    public void testListsRangesAndNames() {
+        CronExpression cron = new CronExpression("30 2 * * MON-FRI", UTC);
+        // 2015-03-14 is a Saturday.
+        assertThat(cron.next(at(2015, 3, 13, 3, 0, 0))).isEqualTo(at(2015, 3, 16, 2, 30, 0));
+
+        cron = new CronExpression("0 8,12 1 JAN,jul *", UTC);
+        assertThat(cron.next(at(2015, 3, 10, 0, 0, 0))).isEqualTo(at(2015, 7, 1, 8, 0, 0));
+        assertThat(cron.next(at(2015, 7, 1, 8, 0, 0))).isEqualTo(at(2015, 7, 1, 12, 0, 0));
+
+        cron = new CronExpression("0 0 * * 7", UTC);
+        // 2015-03-15 is a Sunday.
+        assertThat(cron.next(at(2015, 3, 10, 0, 0, 0))).isEqualTo(at(2015, 3, 15, 0, 0, 0));
+    }
+
+    @Test
+    public void testDayOfMonthOrDayOfWeek() {
+        // The 13th or any Friday.
+        CronExpression cron = new CronExpression("0 0 13 * 5", UTC);
+        assertThat(cron.next(at(2015, 3, 10, 0, 0, 0))).isEqualTo(at(2015, 3, 13, 0, 0, 0));
+        assertThat(cron.next(at(2015, 3, 13, 0, 0, 0))).isEqualTo(at(2015, 3, 20, 0, 0, 0));
+    }
+
+    @Test
+    public void testImpossibleDate() {
+        assertThat(new CronExpression("0 0 30 2 *", UTC).next(at(2015, 1, 1, 0, 0, 0))).isEqualTo(-1);
+        // Leap years
+        assertThat(new CronExpression("0 0 29 2 *", UTC).next(at(2015, 1, 1, 0, 0, 0)))
+                .isEqualTo(at(2016, 2, 29, 0, 0, 0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidNumberOfFields() {
+        new CronExpression("* * *", UTC);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOutOfRange() {
+        new CronExpression("60 * * * *", UTC);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidValue() {
+        new CronExpression("0 * * FOO *", UTC);
+    }
+}
@@ -21,7 +21,9 @@ package org.wisdom.executors.scheduler;
 
 import org.joda.time.Period;
 import org.junit.Test;
+import org.wisdom.api.annotations.scheduler.Cron;
 import org.wisdom.api.annotations.scheduler.Every;
+import org.wisdom.api.scheduler.OverlapPolicy;
 import org.wisdom.api.scheduler.Scheduled;
 
 import java.util.concurrent.TimeUnit;
@@ -109,6 +111,46 @@ public class JobTest {
         assertThat(job.period()).isEqualTo(60);
     }
 
+    @Test
+    public void testJitterAndOverlap() throws NoSuchMethodException {
+        Every every = create("1h");
+        when(every.jitter()).thenReturn("5m");
+        when(every.overlap()).thenReturn(OverlapPolicy.SKIP);
+        MyScheduled scheduled = new MyScheduled();
+        Job job = new Job(scheduled, MyScheduled.class.getMethod("operation"), every);
+        assertThat(job.overlap()).isEqualTo(OverlapPolicy.SKIP);
+        assertThat(job.getSchedule()).isEqualTo("every 3600 seconds (jitter 300000 ms)");
+        assertThat(job.getName()).endsWith("MyScheduled#operation");
+
+        // Default values
+        job = new Job(scheduled, MyScheduled.class.getMethod("operation"), create("1h"));
+        assertThat(job.overlap()).isEqualTo(OverlapPolicy.COALESCE);
+        assertThat(job.getSchedule()).isEqualTo("every 3600 seconds");
+    }
+
+    @Test
+    public void testCronJob() throws NoSuchMethodException {
+        Cron cron = mock(Cron.class);
+        when(cron.value()).thenReturn("0 * * * *");
+        when(cron.zone()).thenReturn("UTC");
+        when(cron.jitter()).thenReturn("");
+        when(cron.overlap()).thenReturn(OverlapPolicy.SKIP);
+        MyScheduled scheduled = new MyScheduled();
+        Job job = new Job(scheduled, MyScheduled.class.getMethod("operation"), cron);
+        assertThat(job.cron()).isNotNull();
+        assertThat(job.period()).isEqualTo(-1);
+        assertThat(job.getSchedule()).isEqualTo("cron 0 * * * *");
+    }
+
+    @Test
+    public void testMetrics() throws NoSuchMethodException {
+        MyScheduled scheduled = new MyScheduled();
+        Job job = new Job(scheduled, MyScheduled.class.getMethod("error"), create("60s"));
+        job.function().run();
+        assertThat(job.getFailureCount()).isEqualTo(1);
+        assertThat(job.getNextRunTime()).isEqualTo(0);
+    }
+
     private class MyScheduled implements Scheduled {
 
         private boolean called;
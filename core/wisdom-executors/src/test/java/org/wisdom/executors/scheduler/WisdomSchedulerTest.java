@@ -26,13 +26,17 @@ import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 import org.osgi.framework.Bundle;
 import org.osgi.framework.BundleContext;
+import org.wisdom.api.annotations.scheduler.Cron;
 import org.wisdom.api.annotations.scheduler.Every;
+import org.wisdom.api.scheduler.OverlapPolicy;
 import org.wisdom.api.scheduler.Scheduled;
+import org.wisdom.api.scheduler.ScheduledJob;
 import org.wisdom.executors.ManagedScheduledExecutorServiceImpl;
 import org.wisdom.test.parents.FakeConfiguration;
 
 import java.util.Collections;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -91,6 +95,61 @@ public class WisdomSchedulerTest {
         assertThat(scheduler.jobs).hasSize(0);
     }
 
+    @Test
+    public void testCronScheduled() throws InterruptedException {
+        MyCronScheduled scheduled = new MyCronScheduled();
+        scheduler.bindScheduled(scheduled);
+        assertThat(scheduler.jobs).hasSize(1);
+        Thread.sleep(2100);
+        assertThat(scheduled.counter.get()).isGreaterThan(0);
+        ScheduledJob job = scheduler.getJobs().get(0);
+        assertThat(job.getRunCount()).isEqualTo(scheduled.counter.get());
+        assertThat(job.getNextRunTime()).isGreaterThan(System.currentTimeMillis() - 1000);
+        scheduler.unbindScheduled(scheduled);
+        assertThat(scheduler.jobs).hasSize(0);
+    }
+
+    @Test
+    public void testOverlappingExecutionsAreSkipped() throws InterruptedException {
+        MySlowScheduled scheduled = new MySlowScheduled();
+        scheduler.bindScheduled(scheduled);
+        Thread.sleep(4000);
+        ScheduledJob job = scheduler.getJobs().get(0);
+        // The job never runs concurrently, and lasts 2.5 periods
+        assertThat(scheduled.concurrent.get()).isFalse();
+        assertThat(job.getSkippedCount()).isGreaterThan(0);
+        assertThat(job.getStatistics().getMaximumExecutionTime()).isGreaterThanOrEqualTo(2500);
+        scheduler.unbindScheduled(scheduled);
+    }
+
+    private class MyCronScheduled implements Scheduled {
+
+        AtomicInteger counter = new AtomicInteger();
+
+        @Cron("* * * * * *")
+        public void operation() {
+            counter.incrementAndGet();
+        }
+    }
+
+    private class MySlowScheduled implements Scheduled {
+
+        AtomicInteger running = new AtomicInteger();
+        AtomicBoolean concurrent = new AtomicBoolean();
+
+        @Every(period = 1, unit = TimeUnit.SECONDS, overlap = OverlapPolicy.SKIP)
+        public void operation() throws InterruptedException {
+            if (running.incrementAndGet() > 1) {
+                concurrent.set(true);
+            }
+            try {
+                Thread.sleep(2500);
+            } finally {
+                running.decrementAndGet();
+            }
+        }
+    }
+
     private class MyScheduled implements Scheduled {
 
         AtomicInteger counter = new AtomicInteger();
@@ -0,0 +1,153 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.test.parents;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A class easing the implementation of micro-benchmarks. It measures the throughput of an operation, after a
+ * warm-up phase, and reports the results through the logger.
+ * <p/>
+ * Benchmarks are skipped unless the {@code wisdom.benchmark} system property is set to {@literal true}, so they
+ * never slow down the regular build. Launch one with: {@code mvn test -Dtest=MyBenchmark -Dwisdom.benchmark=true}.
+ * The warm-up and measurement durations (in milliseconds) can be set with the {@code wisdom.benchmark.warmup} and
+ * {@code wisdom.benchmark.duration} system properties.
+ */
+public class WisdomBenchmark {
+
+    /**
+     * The system property enabling the benchmarks.
+     */
+    public static final String ENABLED = "wisdom.benchmark";
+
+    /**
+     * The warm-up duration in milliseconds.
+     */
+    public static final long WARM_UP = Long.getLong(ENABLED + ".warmup", 2000L);
+
+    /**
+     * The measurement duration in milliseconds.
+     */
+    public static final long DURATION = Long.getLong(ENABLED + ".duration", 3000L);
+
+    /**
+     * The logger used to report the results.
+     */
+    protected final Logger logger = LoggerFactory.getLogger(getClass());
+
+    /**
+     * Skips the benchmark if not enabled.
+     */
+    @Before
+    public void checkEnabled() {
+        Assume.assumeTrue("Benchmarks are enabled with -D" + ENABLED + "=true", Boolean.getBoolean(ENABLED));
+    }
+
+    /**
+     * An operation to measure.
+     */
+    public interface Operation {
+        /**
+         * Executes the operation once.
+         *
+         * @throws Exception if the operation fails, the benchmark fails
+         */
+        void run() throws Exception;
+    }
+
+    /**
+     * Measures the throughput of the given operation, executed in the calling thread.
+     *
+     * @param operation the operation
+     * @return the number of operations per second
+     * @throws Exception if the operation fails
+     */
+    public static double throughput(Operation operation) throws Exception {
+        run(operation, WARM_UP);
+        return run(operation, DURATION) * 1000.0 / DURATION;
+    }
+
+    /**
+     * Measures the throughput of the given operation, executed concurrently by the given number of threads.
+     *
+     * @param threads   the number of threads
+     * @param operation the operation, must be thread-safe
+     * @return the number of operations per second (for all the threads)
+     * @throws Exception if the operation fails
+     */
+    public static double throughput(int threads, Operation operation) throws Exception {
+        run(threads, operation, WARM_UP);
+        return run(threads, operation, DURATION) * 1000.0 / DURATION;
+    }
+
+    /**
+     * Reports a line of results.
+     *
+     * @param format the format of the line, as in {@link String#format(String, Object...)}
+     * @param args   the arguments
+     */
+    public void report(String format, Object... args) {
+        logger.info(String.format(format, args));
+    }
+
+    private static long run(Operation operation, long duration) throws Exception {
+        long count = 0;
+        long end = System.currentTimeMillis() + duration;
+        while (System.currentTimeMillis() < end) {
+            operation.run();
+            count++;
+        }
+        return count;
+    }
+
+    private static long run(int threads, final Operation operation, final long duration) throws Exception {
+        final LongAdder count = new LongAdder();
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        start.await();
+                        count.add(run(operation, duration));
+                        return null;
+                    }
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return count.sum();
+    }
+}
@@ -0,0 +1,457 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2015 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.framework.vertx;
+
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServerResponse;
+import org.apache.felix.ipojo.annotations.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wisdom.api.configuration.ApplicationConfiguration;
+import org.wisdom.api.http.sse.EventChannel;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Manages the Server-Sent Events channels and their subscribers.
+ * <p>
+ * Each event is encoded once, and the same buffer is written to all the subscribers, from their event loop. The last
+ * events of each channel are retained in a ring buffer, so clients reconnecting with the {@literal Last-Event-ID}
+ * header receive the events they missed. Subscribers not reading fast enough (write queue full) are disconnected:
+ * they reconnect and resume from the ring buffer.
+ * <p>
+ * The number of retained events is configured using {@literal vertx.sse.history} (256 by default). A comment is
+ * sent to all subscribers every {@literal vertx.sse.heartbeat} seconds (15 by default, 0 to disable) to keep the
+ * connections open through the proxies.
+ * <p>
+ * Channels without subscribers and without any activity (event published, subscriber leaving) for
+ * {@literal vertx.sse.retention} seconds (300 by default) are evicted with their history, so channels created for
+ * short-lived topics do not accumulate. A channel is created again when an event is published or a client subscribes.
+ */
+@Component
+@Provides(specifications = EventChannel.class)
+@Instantiate
+public class EventStreams implements EventChannel {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(EventStreams.class);
+
+    private static final Pattern LINES = Pattern.compile("\r\n|\r|\n");
+
+    /**
+     * The comment sent periodically to keep the connections open (and detect the closed ones).
+     */
+    private static final Buffer HEARTBEAT = Buffer.buffer(":\n\n");
+
+    private final ConcurrentMap<String, Channel> channels = new ConcurrentHashMap<>();
+
+    /**
+     * The number of events retained per channel.
+     */
+    private int history;
+
+    /**
+     * The time (in nanoseconds) after which a channel without subscribers and without activity is evicted.
+     */
+    private long retention = TimeUnit.MINUTES.toNanos(5);
+
+    /**
+     * The number of subscribers disconnected because they were too slow.
+     */
+    private final LongAdder disconnected = new LongAdder();
+
+    @Requires
+    Vertx vertx;
+
+    @Requires
+    ApplicationConfiguration configuration;
+
+    /**
+     * The id of the periodic timer sending the heartbeats, {@literal -1} if none.
+     */
+    private long heartbeat = -1;
+
+    /**
+     * The id of the periodic timer evicting the idle channels, {@literal -1} if none.
+     */
+    private long sweeper = -1;
+
+    /**
+     * Creates the event streams, configured when the component starts.
+     */
+    public EventStreams() {
+        this(256);
+    }
+
+    /**
+     * Creates the event streams.
+     *
+     * @param history the number of events retained per channel to be replayed to the reconnecting clients.
+     */
+    EventStreams(int history) {
+        this.history = Math.max(history, 1);
+    }
+
+    /**
+     * Configures the retained history, starts the heartbeats and the eviction of the idle channels.
+     */
+    @Validate
+    public void start() {
+        history = Math.max(configuration.getIntegerWithDefault("vertx.sse.history", 256), 1);
+        int period = configuration.getIntegerWithDefault("vertx.sse.heartbeat", 15);
+        if (period > 0) {
+            heartbeat = vertx.setPeriodic(TimeUnit.SECONDS.toMillis(period), id -> heartbeat());
+        }
+        int idle = Math.max(configuration.getIntegerWithDefault("vertx.sse.retention", 300), 0);
+        retention = TimeUnit.SECONDS.toNanos(idle);
+        sweeper = vertx.setPeriodic(TimeUnit.SECONDS.toMillis(Math.max(idle, 1)), id -> evict(System.nanoTime()));
+    }
+
+    /**
+     * Stops the heartbeats, the eviction of the idle channels, and closes all the subscriptions.
+     */
+    @Invalidate
+    public void stop() {
+        if (heartbeat != -1) {
+            vertx.cancelTimer(heartbeat);
+            heartbeat = -1;
+        }
+        if (sweeper != -1) {
+            vertx.cancelTimer(sweeper);
+            sweeper = -1;
+        }
+        close();
+    }
+
+    /**
+     * Publishes an unnamed event.
+     *
+     * @param channel the name of the channel
+     * @param data    the data
+     * @return the identifier of the event
+     */
+    @Override
+    public long publish(String channel, String data) {
+        return publish(channel, null, data);
+    }
+
+    /**
+     * Publishes an event.
+     *
+     * @param channel the name of the channel
+     * @param event   the name of the event, may be {@literal null}
+     * @param data    the data
+     * @return the identifier of the event
+     */
+    @Override
+    public long publish(String channel, String event, String data) {
+        String content = data == null ? "" : data;
+        long id;
+        do {
+            // Retry if the channel has been evicted concurrently.
+            id = channel(channel).publish(event, content);
+        } while (id == -1);
+        return id;
+    }
+
+    /**
+     * @param channel the name of the channel
+     * @return the number of subscribers of the channel
+     */
+    @Override
+    public int subscribers(String channel) {
+        Channel c = channels.get(channel);
+        return c == null ? 0 : c.subscribers.size();
+    }
+
+    /**
+     * @return the number of subscribers disconnected because they did not read the events fast enough.
+     */
+    long getDisconnectedCount() {
+        return disconnected.sum();
+    }
+
+    /**
+     * @return the number of channels currently managed.
+     */
+    int getChannelCount() {
+        return channels.size();
+    }
+
+    /**
+     * Subscribes the given response to a channel. This method must be called from the context of the response. The
+     * events published after the given event id and still retained are written first.
+     *
+     * @param channel     the channel
+     * @param response    the response, already opened
+     * @param context     the context of the response
+     * @param lastEventId the id of the last event received by the client, {@literal -1} if none
+     * @return the subscription, to close when the response is closed
+     */
+    Subscription subscribe(String channel, HttpServerResponse response, Context context, long lastEventId) {
+        Subscription subscription;
+        do {
+            // Retry if the channel has been evicted concurrently.
+            subscription = new Subscription(channel(channel), response, context);
+        } while (!subscription.channel.subscribe(subscription, lastEventId));
+        return subscription;
+    }
+
+    /**
+     * Evicts the channels without subscribers and without activity since the retention delay.
+     *
+     * @param now the current time, in nanoseconds
+     */
+    void evict(long now) {
+        for (String name : channels.keySet()) {
+            channels.computeIfPresent(name, (key, channel) -> channel.evict(now) ? null : channel);
+        }
+    }
+
+    /**
+     * Sends a heartbeat to all the subscribers.
+     */
+    void heartbeat() {
+        for (Channel channel : channels.values()) {
+            broadcast(channel.subscribers, HEARTBEAT);
+        }
+    }
+
+    /**
+     * Closes all the subscriptions.
+     */
+    void close() {
+        for (Channel channel : channels.values()) {
+            for (Subscription subscription : channel.subscribers) {
+                subscription.onContext(subscription::close);
+            }
+        }
+        channels.clear();
+    }
+
+    private Channel channel(String name) {
+        return channels.computeIfAbsent(name, Channel::new);
+    }
+
+    /**
+     * Encodes an event.
+     *
+     * @param id    the id
+     * @param event the name of the event, may be {@literal null}
+     * @param data  the data
+     * @return the buffer
+     */
+    static Buffer encode(long id, String event, String data) {
+        StringBuilder builder = new StringBuilder(data.length() + 32);
+        builder.append("id: ").append(id).append('\n');
+        if (event != null) {
+            builder.append("event: ").append(event).append('\n');
+        }
+        for (String line : LINES.split(data, -1)) {
+            builder.append("data: ").append(line).append('\n');
+        }
+        builder.append('\n');
+        return Buffer.buffer(builder.toString(), "UTF-8");
+    }
+
+    /**
+     * Writes the chunk to the subscribers, grouped by event loop.
+     */
+    private static void broadcast(Collection<Subscription> subscribers, Buffer chunk) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        Map<Context, List<Subscription>> byContext = new IdentityHashMap<>();
+        for (Subscription subscription : subscribers) {
+            byContext.computeIfAbsent(subscription.context, c -> new ArrayList<>()).add(subscription);
+        }
+        Context current = Vertx.currentContext();
+        for (Map.Entry<Context, List<Subscription>> entry : byContext.entrySet()) {
+            final List<Subscription> group = entry.getValue();
+            if (entry.getKey() == null || entry.getKey() == current) {
+                write(group, chunk);
+            } else {
+                entry.getKey().runOnContext(v -> write(group, chunk));
+            }
+        }
+    }
+
+    private static void write(List<Subscription> subscriptions, Buffer chunk) {
+        for (Subscription subscription : subscriptions) {
+            subscription.write(chunk);
+        }
+    }
+
+    /**
+     * A channel, with its subscribers and its last events.
+     */
+    private final class Channel {
+
+        private final String name;
+        private final Set<Subscription> subscribers = ConcurrentHashMap.newKeySet();
+
+        /**
+         * The last events, guarded by the channel monitor. The event having the id {@code i} is stored in the slot
+         * {@code i % history}.
+         */
+        private final Buffer[] events = new Buffer[history];
+        private final long[] ids = new long[history];
+        private long last;
+
+        /**
+         * Whether the channel has been evicted, guarded by the channel monitor. Evicted channels are not used
+         * anymore, the callers retry with a new channel.
+         */
+        private boolean evicted;
+
+        /**
+         * The time of the last activity: creation, publication, or departure of a subscriber.
+         */
+        private volatile long active = System.nanoTime();
+
+        private Channel(String name) {
+            this.name = name;
+        }
+
+        private synchronized boolean evict(long now) {
+            if (!subscribers.isEmpty() || now - active < retention) {
+                return false;
+            }
+            evicted = true;
+            return true;
+        }
+
+        /**
+         * Publishes an event. The id assignment and the broadcast happen under the channel lock, so all the
+         * subscribers receive the events in the id order.
+         *
+         * @return the id of the event, {@literal -1} if the channel has been evicted
+         */
+        private synchronized long publish(String event, String data) {
+            if (evicted) {
+                return -1;
+            }
+            active = System.nanoTime();
+            long id = ++last;
+            Buffer chunk = encode(id, event, data);
+            int slot = (int) (id % history);
+            events[slot] = chunk;
+            ids[slot] = id;
+            broadcast(subscribers, chunk);
+            return id;
+        }
+
+        /**
+         * @return {@literal false} if the channel has been evicted, the subscription is not registered
+         */
+        private boolean subscribe(Subscription subscription, long lastEventId) {
+            List<Buffer> missed = new ArrayList<>();
+            synchronized (this) {
+                if (evicted) {
+                    return false;
+                }
+                if (lastEventId >= 0) {
+                    for (long id = Math.max(lastEventId + 1, last - history + 1); id <= last; id++) {
+                        int slot = (int) (id % history);
+                        if (ids[slot] == id) {
+                            missed.add(events[slot]);
+                        }
+                    }
+                }
+                subscribers.add(subscription);
+            }
+            // Called from the context of the subscriber, so the events published from now on are written after.
+            for (Buffer chunk : missed) {
+                subscription.write(chunk);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * The subscription of a HTTP response to a channel.
+     */
+    final class Subscription {
+
+        private final Channel channel;
+        private final HttpServerResponse response;
+        private final Context context;
+        private boolean closed;
+
+        private Subscription(Channel channel, HttpServerResponse response, Context context) {
+            this.channel = channel;
+            this.response = response;
+            this.context = context;
+        }
+
+        /**
+         * Writes a chunk. Must be called from the context of the response.
+         */
+        private void write(Buffer chunk) {
+            if (closed) {
+                return;
+            }
+            if (response.writeQueueFull()) {
+                LOGGER.debug("Disconnecting a slow subscriber of the event channel {}", channel.name);
+                disconnected.increment();
+                close();
+                return;
+            }
+            try {
+                response.write(chunk);
+            } catch (IllegalStateException e) { //NOSONAR the response is closed
+                cancel();
+            }
+        }
+
+        private void onContext(Runnable action) {
+            if (context == null || context == Vertx.currentContext()) {
+                action.run();
+            } else {
+                context.runOnContext(v -> action.run());
+            }
+        }
+
+        /**
+         * Removes the subscription from its channel, called when the response is closed.
+         */
+        void cancel() {
+            closed = true;
+            // Record the activity first, so the channel is not evicted as soon as the last subscriber leaves.
+            channel.active = System.nanoTime();
+            channel.subscribers.remove(this);
+        }
+
+        private void close() {
+            cancel();
+            try {
+                response.close();
+            } catch (IllegalStateException e) { //NOSONAR already closed
+                // Ignore it.
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.framework.vertx;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.WebSocketFrame;
+import io.vertx.core.http.impl.FrameType;
+import io.vertx.core.http.impl.ws.WebSocketFrameImpl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.function.Supplier;
+
+/**
+ * Creates the web socket frames of a message sent to several sockets. A frame cannot be written to several sockets,
+ * but the frames share the encoded payload: the message is encoded once, and each frame reads a duplicate of the
+ * same (unreleasable) buffer.
+ * <p>
+ * The public Vert.x API can only create text frames from a {@link String}, re-encoded for each frame. Text frames
+ * sharing their payload are created with the Vert.x frame implementation, and if it is not available, the public
+ * API is used instead.
+ */
+final class Frames {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Frames.class);
+
+    private static final boolean SHARED_TEXT_FRAMES = isSharedTextSupported();
+
+    private Frames() {
+        // Avoid direct instantiation.
+    }
+
+    /**
+     * Creates the text frames of the given message.
+     *
+     * @param message the message
+     * @return the supplier creating the frames, sharing the encoded message
+     */
+    static Supplier<WebSocketFrame> text(String message) {
+        if (!SHARED_TEXT_FRAMES) {
+            return () -> WebSocketFrame.textFrame(message, true);
+        }
+        final Buffer payload = Buffer.buffer(message.getBytes(StandardCharsets.UTF_8));
+        return () -> sharedText(payload);
+    }
+
+    /**
+     * Creates the binary frames of the given message.
+     *
+     * @param payload the message
+     * @return the supplier creating the frames, sharing the payload
+     */
+    static Supplier<WebSocketFrame> binary(Buffer payload) {
+        return () -> WebSocketFrame.binaryFrame(payload, true);
+    }
+
+    private static WebSocketFrame sharedText(Buffer payload) {
+        // getByteBuf returns a duplicate, the frame does not change the shared buffer.
+        return new WebSocketFrameImpl(FrameType.TEXT, payload.getByteBuf(), true);
+    }
+
+    private static boolean isSharedTextSupported() {
+        try {
+            sharedText(Buffer.buffer());
+            return true;
+        } catch (LinkageError e) { //NOSONAR
+            LOGGER.warn("Cannot share the payload of text frames, messages are encoded for each web socket", e);
+            return false;
+        }
+    }
+}
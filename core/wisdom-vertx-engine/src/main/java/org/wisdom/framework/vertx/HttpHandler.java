@@ -21,6 +21,7 @@ package org.wisdom.framework.vertx;
 
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.MoreExecutors;
 import io.netty.handler.codec.http.cookie.ServerCookieEncoder;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
@@ -28,10 +29,12 @@ import io.vertx.core.buffer.Buffer;
 import io.vertx.core.http.HttpServerRequest;
 import io.vertx.core.http.HttpServerResponse;
 import io.vertx.core.streams.Pump;
+import io.vertx.core.streams.ReadStream;
 import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wisdom.api.bodies.NoHttpBody;
+import org.wisdom.api.concurrent.ManagedExecutorService;
 import org.wisdom.api.concurrent.ManagedFutureTask;
 import org.wisdom.api.exceptions.ExceptionMapper;
 import org.wisdom.api.exceptions.HttpException;
@@ -45,6 +48,10 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
@@ -196,6 +203,11 @@ public class HttpHandler implements Handler<HttpServerRequest> {
                 handleAsyncResult(context, request, (AsyncResult) result);
                 return;
             }
+            if (result instanceof CompletionStageResult) {
+                // Non-blocking operation in progress, no thread is waiting for it.
+                handleCompletionStageResult(context, request, (CompletionStageResult) result);
+                return;
+            }
         }
 
         // Synchronous processing or not found.
@@ -234,44 +246,152 @@ public class HttpHandler implements Handler<HttpServerRequest> {
             final RequestFromVertx request,
             final AsyncResult asyncResult) {
 
-        ManagedFutureTask<Result> future = accessor.getExecutor().submit(asyncResult.callable());
+        final ManagedExecutorService executor = accessor.getExecutor(asyncResult.executor());
+        final ManagedFutureTask<Result> future;
+        try {
+            future = executor.submit(asyncResult.callable());
+        } catch (RejectedExecutionException e) {
+            // The executor is saturated, reject the request early instead of queueing it.
+            LOGGER.debug("Call on {} rejected by the executor {}", request.uri(), executor.name(), e);
+            writeResponse(context, request, overloaded(executor), false, false);
+            return;
+        }
+
+        // The timeout is handled by a Vert.x timer, no thread waits for the result.
+        final AtomicBoolean timedOut = new AtomicBoolean();
+        final long timeout = asyncResult.timeout(TimeUnit.MILLISECONDS);
+        final long timer = timeout > 0 ? vertx.setTimer(timeout, id -> {
+            if (!future.isDone()) {
+                timedOut.set(true);
+                // Interrupt the computation if supported.
+                future.cancel(true);
+            }
+        }) : -1;
+
+        // The response is written from the thread having completed (or cancelled) the computation, there is no
+        // need to dispatch it to another thread.
         Futures.addCallback(future, new FutureCallback<Result>() {
             @Override
             public void onSuccess(Result result) {
+                if (timer != -1) {
+                    vertx.cancelTimer(timer);
+                }
                 // We got a result, write it here.
                 // Merge the headers of the initial result and the async results.
-                final Map<String, String> headers = result.getHeaders();
-                for (Map.Entry<String, String> header : asyncResult.getHeaders().entrySet()) {
-                    if (!headers.containsKey(header.getKey())) {
-                        headers.put(header.getKey(), header.getValue());
-                    }
+                mergeHeaders(asyncResult, result);
+                if (result instanceof CompletionStageResult) {
+                    handleCompletionStageResult(context, request, (CompletionStageResult) result);
+                } else {
+                    writeResponse(context, request, result, true, false);
                 }
-                writeResponse(context, request, result, true, false);
             }
 
             @Override
             public void onFailure(Throwable t) {
+                if (timer != -1) {
+                    vertx.cancelTimer(timer);
+                }
                 //We got a failure, handle it here
-
-                // Check whether it's a HTTPException
-                if (t instanceof HttpException) {
-                    writeResponse(context, request, ((HttpException) t).toResult(), false, false);
+                if (t instanceof CancellationException && timedOut.get()) {
+                    LOGGER.debug("Call on {} was cancelled because it took more than {} ms", request.uri(), timeout);
+                    writeResponse(context, request,
+                            new HttpException(Result.GATEWAY_TIMEOUT, "Request timeout").toResult(), false, false);
                     return;
                 }
 
-                // Check if we have a mapper
-                if (t instanceof Exception) {
-                    ExceptionMapper mapper = accessor.getExceptionMapper((Exception) t);
-                    if (mapper != null) {
-                        writeResponse(context, request, mapper.toResult((Exception) t), false, false);
-                        return;
-                    }
+                writeFailure(context, request, t);
+            }
+        }, MoreExecutors.sameThreadExecutor());
+    }
+
+    /**
+     * Builds the {@literal 503 - Service Unavailable} result returned when an executor rejects a computation. The
+     * {@literal Retry-After} header is set to the median execution time of the executor, so clients do not come
+     * back before a slot is likely to be available.
+     *
+     * @param executor the executor
+     * @return the result
+     */
+    private static Result overloaded(ManagedExecutorService executor) {
+        long median = executor.getExecutionTimeStatistics().getPercentileExecutionTime(0.5);
+        long retry = Math.max(1, TimeUnit.MILLISECONDS.toSeconds(median + 999));
+        return new HttpException(Status.SERVICE_UNAVAILABLE, "Service overloaded").toResult()
+                .with(HeaderNames.RETRY_AFTER, Long.toString(retry));
+    }
+
+    /**
+     * Writes the response once the stage completes. The response is written from the Vert.x context having
+     * received the request, so no thread is parked while waiting for the result.
+     *
+     * @param context the context
+     * @param request the request
+     * @param wrapper the result wrapping the stage
+     */
+    private void handleCompletionStageResult(
+            final ContextFromVertx context,
+            final RequestFromVertx request,
+            final CompletionStageResult wrapper) {
+        wrapper.stage().whenComplete((result, failure) -> context.vertxContext().runOnContext(v -> {
+            Context.CONTEXT.set(context);
+            if (failure != null) {
+                writeFailure(context, request,
+                        failure instanceof CompletionException && failure.getCause() != null ?
+                                failure.getCause() : failure);
+            } else if (result == null) {
+                writeFailure(context, request,
+                        new HttpException(Result.INTERNAL_SERVER_ERROR, "Computation error"));
+            } else {
+                mergeHeaders(wrapper, result);
+                if (result instanceof AsyncResult) {
+                    handleAsyncResult(context, request, (AsyncResult) result);
+                } else if (result instanceof CompletionStageResult) {
+                    handleCompletionStageResult(context, request, (CompletionStageResult) result);
+                } else {
+                    writeResponse(context, request, result, true, false);
                 }
+            }
+        }));
+    }
 
-                writeResponse(context, request, Results.internalServerError(t), false, false);
+    /**
+     * Merges the headers of the initial result (async or completion stage result) into the computed result.
+     *
+     * @param initial the initial result
+     * @param result  the computed result
+     */
+    private static void mergeHeaders(Result initial, Result result) {
+        final Map<String, String> headers = result.getHeaders();
+        for (Map.Entry<String, String> header : initial.getHeaders().entrySet()) {
+            if (!headers.containsKey(header.getKey())) {
+                headers.put(header.getKey(), header.getValue());
+            }
+        }
+    }
+
+    /**
+     * Writes the response for a failed asynchronous computation.
+     *
+     * @param context the context
+     * @param request the request
+     * @param t       the failure
+     */
+    private void writeFailure(ContextFromVertx context, RequestFromVertx request, Throwable t) {
+        // Check whether it's a HTTPException
+        if (t instanceof HttpException) {
+            writeResponse(context, request, ((HttpException) t).toResult(), false, false);
+            return;
+        }
+
+        // Check if we have a mapper
+        if (t instanceof Exception) {
+            ExceptionMapper mapper = accessor.getExceptionMapper((Exception) t);
+            if (mapper != null) {
+                writeResponse(context, request, mapper.toResult((Exception) t), false, false);
+                return;
             }
-        }/*, MoreExecutors.directExecutor()*/);
-        //TODO Which executor should we use here ?
+        }
+
+        writeResponse(context, request, Results.internalServerError(t), false, false);
     }
 
     private void writeResponse(
@@ -280,17 +400,25 @@ public class HttpHandler implements Handler<HttpServerRequest> {
             Result result,
             boolean handleFlashAndSessionCookie,
             boolean closeConnection) {
+        if (result instanceof EventStreamResult) {
+            openEventStream(context, request, (EventStreamResult) result);
+            return;
+        }
+
         //Retrieve the renderable object.
         Renderable<?> renderable = result.getRenderable();
         if (renderable == null) {
             renderable = NoHttpBody.INSTANCE;
         }
 
-        InputStream stream;
+        InputStream stream = null;
         boolean success = true;
         try {
-            // Process the result, and apply serialization if required.
-            stream = HttpUtils.processResult(accessor, context, renderable, result);
+            // Process the result, and apply serialization if required. Streaming renderable objects and Vert.x
+            // streams are written directly to the response when it is sent.
+            if (!isStreamed(renderable) && !isPumped(renderable)) {
+                stream = HttpUtils.processResult(accessor, context, renderable, result);
+            }
         } catch (Exception e) {
             LOGGER.error("Cannot render the response to " + request.uri(), e);
             stream = new ByteArrayInputStream(NoHttpBody.empty());
@@ -316,6 +444,63 @@ public class HttpHandler implements Handler<HttpServerRequest> {
                 result, stream, success, handleFlashAndSessionCookie, closeConnection);
     }
 
+    /**
+     * Opens a Server-Sent Events stream: the response headers are sent, and the response is subscribed to the
+     * channel. The response stays open until the client disconnects. This method must be called in a Vert.X
+     * context.
+     *
+     * @param context the HTTP context
+     * @param request the request
+     * @param result  the event stream result
+     */
+    private void openEventStream(ContextFromVertx context, RequestFromVertx request, EventStreamResult result) {
+        EventStreams streams = accessor.getDispatcher() == null ? null : accessor.getDispatcher().getEventStreams();
+        if (streams == null) {
+            writeResponse(context, request, new Result(Status.SERVICE_UNAVAILABLE), false, false);
+            return;
+        }
+
+        final HttpServerResponse response = request.getVertxRequest().response();
+        for (Map.Entry<String, String> header : result.getHeaders().entrySet()) {
+            response.putHeader(header.getKey(), header.getValue());
+        }
+        if (!result.getHeaders().containsKey(HeaderNames.SERVER)) {
+            response.putHeader(HeaderNames.SERVER, SERVER_NAME);
+        }
+        response.putHeader(HeaderNames.CONTENT_TYPE, MimeTypes.EVENT_STREAM);
+        response.putHeader(HeaderNames.CACHE_CONTROL, HeaderNames.NOCACHE_VALUE);
+        response.setStatusCode(Status.OK);
+        response.setChunked(true);
+        // Send the headers, and the reconnection delay if set.
+        response.write(result.retry() >= 0 ? "retry: " + result.retry() + "\n\n" : ":\n\n");
+
+        final EventStreams.Subscription subscription = streams.subscribe(result.channel(), response,
+                context.vertxContext(), lastEventId(request));
+        response.closeHandler(v -> {
+            LOGGER.debug("Event stream closed for {}", request.uri());
+            subscription.cancel();
+            cleanup(context);
+        });
+    }
+
+    /**
+     * Gets the id of the last event received by the client from the {@literal Last-Event-ID} header.
+     *
+     * @param request the request
+     * @return the id, {@literal -1} if not set or invalid
+     */
+    private static long lastEventId(RequestFromVertx request) {
+        String value = request.getHeader(HeaderNames.LAST_EVENT_ID);
+        if (value != null) {
+            try {
+                return Long.parseLong(value.trim());
+            } catch (NumberFormatException e) { //NOSONAR
+                LOGGER.debug("Ignoring invalid Last-Event-ID {}", value);
+            }
+        }
+        return -1;
+    }
+
     /**
      * This method must be called in a Vert.X context. It finalizes the response and send it to the client.
      *
@@ -380,6 +565,16 @@ public class HttpHandler implements Handler<HttpServerRequest> {
             response.headers().add(HeaderNames.SET_COOKIE, encoded);
         }
         response.setStatusCode(HttpUtils.getStatusFromResult(result, success));
+        if (stream == null && isPumped(renderable)) {
+            writePumpedResponse(context, request, renderable, keepAlive && !closeConnection);
+            return;
+        }
+        if (stream == null && isStreamed(renderable)) {
+            writeStreamedResponse(context, request, result, (StreamingRenderable<?>) renderable,
+                    keepAlive && !closeConnection);
+            return;
+        }
+
         if (renderable.mustBeChunked()) {
             LOGGER.debug("Building the chunked response for {} {} ({})", request.method(), request.uri(), context);
             if (renderable.length() > 0 && !response.headers().contains(HeaderNames.CONTENT_LENGTH)) {
@@ -394,8 +589,9 @@ public class HttpHandler implements Handler<HttpServerRequest> {
             // Can't determine the size, so switch to chunked.
             response.setChunked(true);
             response.putHeader(HeaderNames.TRANSFER_ENCODING, "chunked");
-            // In addition, we can't keep the connection open.
-            response.putHeader(HeaderNames.CONNECTION, "close");
+            // Chunked encoding delimits the content, so the connection can be kept open.
+            final boolean keep = keepAlive && !closeConnection;
+            response.putHeader(HeaderNames.CONNECTION, keep ? "keep-alive" : "close");
 
             final AsyncInputStream s = new AsyncInputStream(vertx, accessor.getExecutor(), stream);
             s.setContext(context.vertxContext());
@@ -403,7 +599,9 @@ public class HttpHandler implements Handler<HttpServerRequest> {
             s.endHandler(event -> context.vertxContext().runOnContext(event1 -> {
                         LOGGER.debug("Ending chunked response for {}", request.uri());
                         response.end();
-                        response.close();
+                        if (!keep) {
+                            response.close();
+                        }
                         cleanup(context);
                     })
             );
@@ -445,6 +643,141 @@ public class HttpHandler implements Handler<HttpServerRequest> {
         }
     }
 
+    /**
+     * Checks whether the given renderable object is written directly to the response. It requires the system
+     * executor, as the content is produced on another thread.
+     *
+     * @param renderable the renderable object
+     * @return {@literal true} if the renderable object is a {@link StreamingRenderable} and an executor is available
+     */
+    private boolean isStreamed(Renderable<?> renderable) {
+        return renderable instanceof StreamingRenderable && accessor.getExecutor() != null;
+    }
+
+    /**
+     * Checks whether the content of the given renderable object is a Vert.x stream, pumped to the response without
+     * leaving the event loop.
+     *
+     * @param renderable the renderable object
+     * @return {@literal true} if the content of the renderable object is a {@link ReadStream}
+     */
+    private static boolean isPumped(Renderable<?> renderable) {
+        return !(renderable instanceof StreamingRenderable) && renderable.content() instanceof ReadStream;
+    }
+
+    /**
+     * Pumps the content of a renderable object wrapping a Vert.x stream to the response. The stream is paused when
+     * the response write queue is full, and resumed when it drains. Unlike other chunked responses, the connection
+     * is kept alive: the length is sent when known, and chunked encoding delimits the content otherwise. This method
+     * must be called in a Vert.X context, once the headers are set.
+     *
+     * @param context    the HTTP context
+     * @param request    the Vert.x request
+     * @param renderable the renderable object, its content is a {@link ReadStream}
+     * @param keepAlive  whether or not the connection is kept open once the response is sent
+     */
+    private void writePumpedResponse(final ContextFromVertx context, final HttpServerRequest request,
+                                     final Renderable<?> renderable, final boolean keepAlive) {
+        final HttpServerResponse response = request.response();
+        @SuppressWarnings("unchecked")
+        final ReadStream<Buffer> content = (ReadStream<Buffer>) renderable.content();
+        if (renderable.length() >= 0) {
+            response.putHeader(HeaderNames.CONTENT_LENGTH, Long.toString(renderable.length()));
+        } else {
+            response.setChunked(true);
+        }
+        response.putHeader(HeaderNames.CONNECTION, keepAlive ? "keep-alive" : "close");
+
+        final Pump pump = Pump.pump(content, response);
+        final AtomicBoolean done = new AtomicBoolean();
+        content.endHandler(v -> context.vertxContext().runOnContext(x -> {
+            if (done.compareAndSet(false, true)) {
+                LOGGER.debug("Ending pumped response for {}", request.uri());
+                response.end();
+                if (!keepAlive) {
+                    response.close();
+                }
+                cleanup(context);
+            }
+        }));
+        content.exceptionHandler(t -> context.vertxContext().runOnContext(x -> {
+            if (done.compareAndSet(false, true)) {
+                // The headers have been sent, so the response can only be aborted.
+                LOGGER.error("Cannot read the content sent to {}", request.uri(), t);
+                response.close();
+                cleanup(context);
+            }
+        }));
+        response.closeHandler(v -> {
+            if (done.compareAndSet(false, true)) {
+                // The client has gone, discard the remaining content so the source can be released.
+                LOGGER.debug("Connection closed while sending the response to {}", request.uri());
+                pump.stop();
+                content.handler(buffer -> {
+                });
+                content.resume();
+                cleanup(context);
+            }
+        });
+        pump.start();
+        // The source may have been paused until the response was ready.
+        content.resume();
+    }
+
+    /**
+     * Writes the content of a streaming renderable object to the response. The content is produced on the system
+     * executor and sent by chunks, as it is written. As chunked encoding delimits the content, the connection is
+     * kept alive unless the request asks to close it. This method must be called in a Vert.X context, once the
+     * status is set.
+     *
+     * @param context    the HTTP context
+     * @param request    the Vert.x request
+     * @param result     the result
+     * @param renderable the renderable object
+     * @param keepAlive  whether or not the connection is kept open once the response is sent
+     */
+    private void writeStreamedResponse(final ContextFromVertx context, final HttpServerRequest request,
+                                       final Result result, final StreamingRenderable<?> renderable,
+                                       final boolean keepAlive) {
+        final HttpServerResponse response = request.response();
+        LOGGER.debug("Building the streamed response for {} {} ({})", request.method(), request.uri(), context);
+        if (!response.headers().contains(HeaderNames.CONTENT_TYPE)) {
+            // No content is not legal, set default to binary.
+            response.putHeader(HeaderNames.CONTENT_TYPE, MimeTypes.BINARY);
+        }
+        response.setChunked(true);
+        response.putHeader(HeaderNames.CONNECTION, keepAlive ? "keep-alive" : "close");
+        final ResponseOutputStream out = new ResponseOutputStream(response, context.vertxContext(),
+                AsyncInputStream.DEFAULT_CHUNK_SIZE);
+        try {
+            accessor.getExecutor().submit(() -> {
+                try {
+                    renderable.writeTo(context, result, out);
+                    out.close();
+                    context.vertxContext().runOnContext(v -> {
+                        LOGGER.debug("Ending streamed response for {}", request.uri());
+                        response.end();
+                        if (!keepAlive) {
+                            response.close();
+                        }
+                        cleanup(context);
+                    });
+                } catch (Exception e) {
+                    // The headers may have been sent, so the response can only be aborted.
+                    LOGGER.error("Cannot write the response to {}", request.uri(), e);
+                    context.vertxContext().runOnContext(v -> {
+                        response.close();
+                        cleanup(context);
+                    });
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            LOGGER.error("Cannot write the response to {}, the executor rejected the task", request.uri(), e);
+            response.close();
+            cleanup(context);
+        }
+    }
+
     private boolean shouldEncodingBeDisabledForResponse(long length, Result result) {
         return server.hasCompressionEnabled()
                 && (
@@ -0,0 +1,173 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2015 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.framework.vertx;
+
+import io.vertx.core.Context;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServerResponse;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+
+/**
+ * An output stream writing to a HTTP response by chunks, from a thread that is not the response's event loop.
+ * <p>
+ * The written bytes are accumulated until a chunk is full (or the stream is flushed), and the chunk is then written
+ * from the context of the response. The writing thread is blocked while the response write queue is full, so at
+ * most a few chunks are held in memory, whatever the size of the content.
+ */
+class ResponseOutputStream extends OutputStream {
+
+    /**
+     * The maximum number of chunks submitted to the context and not yet written to the response.
+     */
+    private static final int MAX_PENDING_CHUNKS = 4;
+
+    /**
+     * The time after which a client that does not read the response is considered as gone, in milliseconds.
+     */
+    private static final long STALL_TIMEOUT = 30000;
+
+    private final HttpServerResponse response;
+    private final Context context;
+    private final byte[] chunk;
+    private int count;
+
+    /**
+     * Guards the pending count and the full and closed flags, notified when a chunk is written or the response
+     * drained. The response methods are never called while holding this lock: Vert.x calls the drain and close
+     * handlers while holding its connection lock.
+     */
+    private final Object lock = new Object();
+    private int pending;
+    private boolean full;
+    private boolean closed;
+
+    /**
+     * Creates the stream. Must be called from the context of the response.
+     *
+     * @param response  the response, already configured to be chunked
+     * @param context   the context of the response
+     * @param chunkSize the size of the chunks
+     */
+    ResponseOutputStream(HttpServerResponse response, Context context, int chunkSize) {
+        this.response = response;
+        this.context = context;
+        this.chunk = new byte[chunkSize];
+        response.drainHandler(v -> {
+            synchronized (lock) {
+                full = false;
+                lock.notifyAll();
+            }
+        });
+        response.closeHandler(v -> {
+            synchronized (lock) {
+                closed = true;
+                lock.notifyAll();
+            }
+        });
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (count == chunk.length) {
+            flush();
+        }
+        chunk[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        int off = offset;
+        int remaining = length;
+        while (remaining > 0) {
+            if (count == chunk.length) {
+                flush();
+            }
+            int copied = Math.min(remaining, chunk.length - count);
+            System.arraycopy(bytes, off, chunk, count, copied);
+            count += copied;
+            off += copied;
+            remaining -= copied;
+        }
+    }
+
+    /**
+     * Sends the current chunk to the client. Blocks while the response cannot accept more data.
+     *
+     * @throws IOException if the connection was closed
+     */
+    @Override
+    public void flush() throws IOException {
+        if (count == 0) {
+            return;
+        }
+        final Buffer buffer = Buffer.buffer(count).appendBytes(chunk, 0, count);
+        count = 0;
+        synchronized (lock) {
+            long deadline = System.currentTimeMillis() + STALL_TIMEOUT;
+            while (!closed && (pending >= MAX_PENDING_CHUNKS || full)) {
+                if (System.currentTimeMillis() > deadline) {
+                    throw new IOException("The client has not read the response for " + STALL_TIMEOUT + " ms");
+                }
+                try {
+                    // Notified when a chunk is written or the response drained, the timeout covers the drain
+                    // notifications happening before the wait.
+                    lock.wait(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting for the response to be written");
+                }
+            }
+            if (closed) {
+                throw new IOException("The connection has been closed by the client");
+            }
+            pending++;
+        }
+        context.runOnContext(v -> {
+            boolean queueFull = false;
+            boolean failed = false;
+            try {
+                response.write(buffer);
+                queueFull = response.writeQueueFull();
+            } catch (IllegalStateException e) { //NOSONAR the response is closed
+                failed = true;
+            }
+            synchronized (lock) {
+                pending--;
+                // The drain handler is called on this context, so it cannot have run since the check.
+                full = queueFull;
+                closed = closed || failed;
+                lock.notifyAll();
+            }
+        });
+    }
+
+    /**
+     * Flushes the last chunk. The response is not ended, the caller ends it from the context of the response.
+     *
+     * @throws IOException if the connection was closed
+     */
+    @Override
+    public void close() throws IOException {
+        flush();
+    }
+}
@@ -19,6 +19,8 @@
  */
 package org.wisdom.framework.vertx;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.wisdom.api.concurrent.ManagedExecutorService;
 import org.wisdom.api.configuration.ApplicationConfiguration;
 import org.wisdom.api.content.ContentEngine;
@@ -33,6 +35,8 @@ import java.util.Collection;
  */
 public class ServiceAccessor {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(ServiceAccessor.class);
+
     private final Crypto crypto;
     private final ApplicationConfiguration configuration;
     private final Router router;
@@ -73,6 +77,24 @@ public class ServiceAccessor {
         return executor;
     }
 
+    /**
+     * Gets the executor having the given name.
+     *
+     * @param name the name, {@code null} for the system executor
+     * @return the executor, the system executor if there are no executor with the given name
+     */
+    public ManagedExecutorService getExecutor(String name) {
+        if (name == null || dispatcher == null || ManagedExecutorService.SYSTEM.equals(name)) {
+            return executor;
+        }
+        ManagedExecutorService svc = dispatcher.getExecutor(name);
+        if (svc == null) {
+            LOGGER.warn("No executor named {}, using the system executor", name);
+            return executor;
+        }
+        return svc;
+    }
+
     public WisdomVertxServer getDispatcher() {
         return dispatcher;
     }
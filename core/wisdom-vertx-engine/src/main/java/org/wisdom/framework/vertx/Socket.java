@@ -20,9 +20,10 @@
 package org.wisdom.framework.vertx;
 
 
-import io.vertx.core.buffer.Buffer;
-import io.vertx.core.eventbus.EventBus;
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
 import io.vertx.core.http.ServerWebSocket;
+import io.vertx.core.http.WebSocketFrame;
 
 /**
  * A class abstracting the differences between the WebSocket API and the SockJs API.
@@ -35,23 +36,32 @@ public class Socket {
      */
     private final ServerWebSocket delegate;
 
+    /**
+     * The context (event loop) handling the socket, {@code null} if the socket was not created from a Vert.x
+     * thread.
+     */
+    private final Context context;
+
     /**
      * Creates an instance of {@link org.wisdom.framework.vertx.Socket} delegating to
-     * a {@link ServerWebSocket} instance.
+     * a {@link ServerWebSocket} instance. The socket is bound to the current Vert.x context.
      *
      * @param delegate the delegate
      */
     public Socket(ServerWebSocket delegate) {
-        this.delegate = delegate;
+        this(delegate, Vertx.currentContext());
     }
 
-
-    private String getWriteHandlerId() {
-        return delegate.textHandlerID();
-    }
-
-    private String getBinaryWriteHandlerId() {
-        return delegate.binaryHandlerID();
+    /**
+     * Creates an instance of {@link org.wisdom.framework.vertx.Socket} delegating to
+     * a {@link ServerWebSocket} instance.
+     *
+     * @param delegate the delegate
+     * @param context  the context handling the socket
+     */
+    public Socket(ServerWebSocket delegate, Context context) {
+        this.delegate = delegate;
+        this.context = context;
     }
 
     @Override
@@ -77,22 +87,54 @@ public class Socket {
     }
 
     /**
-     * Sends a text frame on the socket.
-     *
-     * @param message the message
-     * @param bus     the Vert.x event bus.
+     * @return the context (event loop) handling the socket, {@code null} if unknown.
      */
-    public void publish(String message, EventBus bus) {
-        bus.publish(getWriteHandlerId(), message);
+    public Context context() {
+        return context;
     }
 
     /**
-     * Sends a binary frame on the socket.
+     * Writes a frame on the socket. This method must be called from the context of the socket. When
+     * {@code dropIfFull} is set and the write queue of the socket is full (the client does not read fast enough),
+     * the frame is dropped instead of being queued.
      *
-     * @param message the message
-     * @param bus     the Vert.x event bus.
+     * @param frame      the frame, not shared with other sockets
+     * @param dropIfFull whether the frame is dropped when the write queue is full
+     * @return {@code true} if the frame was written, {@code false} if it was dropped (or if the socket is closed).
+     */
+    public boolean write(WebSocketFrame frame, boolean dropIfFull) {
+        if (dropIfFull && delegate.writeQueueFull()) {
+            return false;
+        }
+        try {
+            delegate.writeFrame(frame);
+            return true;
+        } catch (IllegalStateException e) { //NOSONAR the socket is closed
+            return false;
+        }
+    }
+
+    /**
+     * Stops reading data from the socket. This method can be called from any thread, the socket is paused from its
+     * context.
      */
-    public void publish(byte[] message, EventBus bus) {
-        bus.publish(getBinaryWriteHandlerId(), Buffer.buffer(message));
+    public void pause() {
+        onContext(delegate::pause);
+    }
+
+    /**
+     * Restarts reading data from the socket. This method can be called from any thread, the socket is resumed from
+     * its context.
+     */
+    public void resume() {
+        onContext(delegate::resume);
+    }
+
+    private void onContext(Runnable action) {
+        if (context == null || context == Vertx.currentContext()) {
+            action.run();
+        } else {
+            context.runOnContext(v -> action.run());
+        }
     }
 }
@@ -19,7 +19,13 @@
  */
 package org.wisdom.framework.vertx;
 
+import io.vertx.core.Context;
 import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.eventbus.Message;
+import io.vertx.core.eventbus.MessageConsumer;
+import io.vertx.core.http.WebSocketFrame;
 import io.vertx.core.spi.VerticleFactory;
 import org.apache.felix.ipojo.annotations.*;
 import org.slf4j.Logger;
@@ -31,12 +37,18 @@ import org.wisdom.api.content.ContentEngine;
 import org.wisdom.api.crypto.Crypto;
 import org.wisdom.api.engine.WisdomEngine;
 import org.wisdom.api.exceptions.ExceptionMapper;
+import org.wisdom.api.http.sse.EventChannel;
 import org.wisdom.api.http.websockets.WebSocketDispatcher;
 import org.wisdom.api.http.websockets.WebSocketListener;
 import org.wisdom.api.router.Router;
 
 import java.net.InetAddress;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
 
 
 /**
@@ -52,15 +64,36 @@ public class WisdomVertxServer implements WebSocketDispatcher, WisdomEngine {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(WisdomVertxServer.class);
 
+    /**
+     * The event bus address used to forward the published messages to the other nodes of the cluster.
+     */
+    static final String CLUSTER_ADDRESS = "wisdom.websocket.publish";
+
     /**
      * The set of Web Socket Listeners used to dispatch data received on web sockets.
      */
-    private List<WebSocketListener> listeners = new ArrayList<>();
+    private final List<WebSocketListener> listeners = new CopyOnWriteArrayList<>();
 
     /**
-     * The map of uri / list of channel context keeping a reference on all opened web sockets.
+     * The map of uri / set of sockets keeping a reference on all opened web sockets. Reads do not take any lock,
+     * so publishing does not contend with the other publications or with the socket registrations.
      */
-    private Map<String, List<Socket>> socketsByUri = new HashMap<>();
+    private final ConcurrentMap<String, Set<Socket>> socketsByUri = new ConcurrentHashMap<>();
+
+    /**
+     * The number of frames dropped because the write queue of the socket was full.
+     */
+    private final LongAdder dropped = new LongAdder();
+
+    /**
+     * Identifies this server in the cluster, to ignore its own publications.
+     */
+    private final String node = UUID.randomUUID().toString();
+
+    /**
+     * Receives the messages published by the other nodes of the cluster, {@code null} if Vert.x is not clustered.
+     */
+    private MessageConsumer<Object> clusterConsumer;
 
     /**
      * The vertx singleton.
@@ -98,12 +131,24 @@ public class WisdomVertxServer implements WebSocketDispatcher, WisdomEngine {
     @Requires(filter = "(name=" + ManagedExecutorService.SYSTEM + ")")
     private ManagedExecutorService executor;
 
+    /**
+     * The executors, used by the actions naming the executor computing their result.
+     */
+    @Requires(specification = ManagedExecutorService.class, optional = true)
+    List<ManagedExecutorService> executors;
+
     /**
      * The exception mappers.
      */
     @Requires(specification = ExceptionMapper.class, optional = true)
     private Collection<ExceptionMapper> mappers;
 
+    /**
+     * The Server-Sent Events channels.
+     */
+    @Requires(optional = true, nullable = false, proxy = false)
+    EventChannel eventChannel;
+
     /**
      * The accessor to get all the services.
      */
@@ -115,6 +160,32 @@ public class WisdomVertxServer implements WebSocketDispatcher, WisdomEngine {
     protected List<Server> servers = new ArrayList<>(2);
     private String deploymentId;
 
+    /**
+     * Gets the executor having the given name.
+     *
+     * @param name the name
+     * @return the executor, {@code null} if there are no executor with this name
+     */
+    ManagedExecutorService getExecutor(String name) {
+        List<ManagedExecutorService> list = executors;
+        if (list != null) {
+            for (ManagedExecutorService svc : list) {
+                if (name.equals(svc.name())) {
+                    return svc;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the Server-Sent Events channels, {@code null} if not available.
+     */
+    EventStreams getEventStreams() {
+        EventChannel channel = eventChannel;
+        return channel instanceof EventStreams ? (EventStreams) channel : null;
+    }
+
     /**
      * Starts the servers (HTTP and HTTPS).
      * The actual start is asynchronous.
@@ -167,6 +238,10 @@ public class WisdomVertxServer implements WebSocketDispatcher, WisdomEngine {
             vertx.registerVerticleFactory(new WisdomInternalVerticleFactory(accessor, this.servers));
         }
 
+        if (vertx.isClustered()) {
+            clusterConsumer = vertx.eventBus().consumer(CLUSTER_ADDRESS, this::receivedFromCluster);
+        }
+
         vertx.runOnContext(v -> vertx.deployVerticle("wisdom-internal:wisdom", ar -> {
             LOGGER.info("Wisdom verticle deployed : " + ar.result());
             deploymentId = ar.result();
@@ -196,6 +271,10 @@ public class WisdomVertxServer implements WebSocketDispatcher, WisdomEngine {
     public void stop() {
         listeners.clear();
         LOGGER.info("Stopping the vert.x server");
+        if (clusterConsumer != null) {
+            clusterConsumer.unregister();
+            clusterConsumer = null;
+        }
 
         vertx.runOnContext(v -> {
             if (deploymentId != null) {
@@ -245,49 +324,112 @@ public class WisdomVertxServer implements WebSocketDispatcher, WisdomEngine {
     /**
      * Publishes the given message to all clients subscribed to the socket (either a web socket of a SockJS socket)
      * specified using its url. For SockJS, it must match one of the configured prefix.
+     * <p>
+     * The message is encoded once, and its frames are written directly to the local sockets, from their event
+     * loop. Slow clients (whose write queue is full) miss the message. If Vert.x is clustered, the message is also
+     * forwarded to the other nodes using the event bus.
      *
      * @param url  the url of the web socket, must not be {@literal null}
      * @param data the data, must not be {@literal null}
      */
     @Override
     public void publish(String url, String data) {
-        List<Socket> sockets;
-        synchronized (this) {
-            List<Socket> ch = this.socketsByUri.get(url);
-            if (ch != null) {
-                sockets = new ArrayList<>(ch);
-            } else {
-                sockets = Collections.emptyList();
-            }
-        }
-        for (Socket socket : sockets) {
-            socket.publish(data, vertx.eventBus());
+        broadcast(socketsByUri.get(url), Frames.text(data), true);
+        if (clusterConsumer != null) {
+            vertx.eventBus().publish(CLUSTER_ADDRESS, data, clusterHeaders(url));
         }
     }
 
     /**
      * Publishes the given message to all clients subscribed to the socket ((either a web socket of a SockJS socket))
      * specified using its url. For SockJS, it must match one of the configured prefix.
+     * <p>
+     * The payload is shared (not copied) by the frames written directly to the local sockets, from their event loop.
+     * Slow clients (whose write queue is full) miss the message. If Vert.x is clustered, the message is also
+     * forwarded to the other nodes using the event bus.
      *
      * @param url  the url of the socket, must not be {@literal null}
      * @param data the data, must not be {@literal null}
      */
     @Override
-    public synchronized void publish(String url, byte[] data) {
-        List<Socket> sockets;
-        synchronized (this) {
-            List<Socket> ch = this.socketsByUri.get(url);
-            if (ch != null) {
-                sockets = new ArrayList<>(ch);
+    public void publish(String url, byte[] data) {
+        Buffer payload = Buffer.buffer(data);
+        broadcast(socketsByUri.get(url), Frames.binary(payload), true);
+        if (clusterConsumer != null) {
+            vertx.eventBus().publish(CLUSTER_ADDRESS, payload, clusterHeaders(url));
+        }
+    }
+
+    private DeliveryOptions clusterHeaders(String url) {
+        return new DeliveryOptions().addHeader("url", url).addHeader("origin", node);
+    }
+
+    /**
+     * Delivers a message published by another node to the local sockets.
+     *
+     * @param message the message
+     */
+    private void receivedFromCluster(Message<Object> message) {
+        if (node.equals(message.headers().get("origin"))) {
+            // Already delivered locally.
+            return;
+        }
+        String url = message.headers().get("url");
+        Object body = message.body();
+        if (body instanceof String) {
+            broadcast(socketsByUri.get(url), Frames.text((String) body), true);
+        } else if (body instanceof Buffer) {
+            broadcast(socketsByUri.get(url), Frames.binary((Buffer) body), true);
+        }
+    }
+
+    /**
+     * Writes a frame to each of the given sockets. The sockets are grouped by event loop, and each group is written
+     * from its event loop, so a single task is submitted per event loop.
+     *
+     * @param sockets    the sockets, may be {@literal null}
+     * @param frames     creates the frame written to a socket, frames cannot be shared
+     * @param dropIfFull whether the frame is dropped for the sockets whose write queue is full (for publications)
+     */
+    private void broadcast(Collection<Socket> sockets, Supplier<WebSocketFrame> frames, boolean dropIfFull) {
+        if (sockets == null || sockets.isEmpty()) {
+            return;
+        }
+        Map<Context, List<Socket>> byContext = new IdentityHashMap<>();
+        for (Socket socket : sockets) {
+            byContext.computeIfAbsent(socket.context(), c -> new ArrayList<>()).add(socket);
+        }
+        Context current = Vertx.currentContext();
+        for (Map.Entry<Context, List<Socket>> entry : byContext.entrySet()) {
+            final Context context = entry.getKey();
+            final List<Socket> group = entry.getValue();
+            if (context == null || context == current) {
+                write(group, frames, dropIfFull);
             } else {
-                sockets = Collections.emptyList();
+                context.runOnContext(v -> write(group, frames, dropIfFull));
             }
         }
+    }
+
+    private void write(List<Socket> sockets, Supplier<WebSocketFrame> frames, boolean dropIfFull) {
         for (Socket socket : sockets) {
-            socket.publish(data, vertx.eventBus());
+            if (!socket.write(frames.get(), dropIfFull)) {
+                dropped.increment();
+                LOGGER.debug("Frame dropped for web socket {} (write queue full or socket closed)", socket);
+            }
         }
     }
 
+    /**
+     * Gets the number of frames that have not been written, because the client was too slow when the message was
+     * published, or because the socket was closed.
+     *
+     * @return the number of dropped frames
+     */
+    public long getDroppedFrameCount() {
+        return dropped.sum();
+    }
+
     /**
      * A client subscribed to a socket (either a web socket of a SockJS socket).
      *
@@ -296,18 +438,13 @@ public class WisdomVertxServer implements WebSocketDispatcher, WisdomEngine {
      */
     public void addSocket(String url, Socket socket) {
         LOGGER.info("Adding web socket on {} bound to {}", url, socket);
-        List<WebSocketListener> webSocketListeners;
-        synchronized (this) {
-            List<Socket> channels = socketsByUri.get(url);
-            if (channels == null) {
-                channels = new ArrayList<>();
-            }
-            channels.add(socket);
-            socketsByUri.put(url, channels);
-            webSocketListeners = new ArrayList<>(this.listeners);
-        }
+        socketsByUri.compute(url, (key, set) -> {
+            Set<Socket> sockets = set == null ? ConcurrentHashMap.newKeySet() : set;
+            sockets.add(socket);
+            return sockets;
+        });
 
-        for (WebSocketListener listener : webSocketListeners) {
+        for (WebSocketListener listener : listeners) {
             listener.opened(url, id(socket));
         }
     }
@@ -320,19 +457,12 @@ public class WisdomVertxServer implements WebSocketDispatcher, WisdomEngine {
      */
     public void removeSocket(String url, Socket socket) {
         LOGGER.info("Removing web socket on {} bound to {}", url, socket.path());
-        List<WebSocketListener> webSocketListeners;
-        synchronized (this) {
-            List<Socket> channels = socketsByUri.get(url);
-            if (channels != null) {
-                channels.remove(socket);
-                if (channels.isEmpty()) {
-                    socketsByUri.remove(url);
-                }
-            }
-            webSocketListeners = new ArrayList<>(this.listeners);
-        }
+        socketsByUri.computeIfPresent(url, (key, set) -> {
+            set.remove(socket);
+            return set.isEmpty() ? null : set;
+        });
 
-        for (WebSocketListener listener : webSocketListeners) {
+        for (WebSocketListener listener : listeners) {
             listener.closed(url, id(socket));
         }
     }
@@ -345,14 +475,10 @@ public class WisdomVertxServer implements WebSocketDispatcher, WisdomEngine {
      */
     @Override
     public void register(WebSocketListener listener) {
-        Map<String, List<Socket>> copy;
-        synchronized (this) {
-            listeners.add(listener);
-            copy = new HashMap<>(socketsByUri);
-        }
+        listeners.add(listener);
 
         // Call open on each opened web socket
-        for (Map.Entry<String, List<Socket>> entry : copy.entrySet()) {
+        for (Map.Entry<String, Set<Socket>> entry : socketsByUri.entrySet()) {
             for (Socket client : entry.getValue()) {
                 listener.opened(entry.getKey(), id(client));
             }
@@ -366,9 +492,7 @@ public class WisdomVertxServer implements WebSocketDispatcher, WisdomEngine {
      */
     @Override
     public void unregister(WebSocketListener listener) {
-        synchronized (this) {
-            listeners.remove(listener);
-        }
+        listeners.remove(listener);
     }
 
     /**
@@ -381,20 +505,23 @@ public class WisdomVertxServer implements WebSocketDispatcher, WisdomEngine {
      */
     @Override
     public void send(String uri, String client, String message) {
-        List<Socket> sockets;
-        synchronized (this) {
-            List<Socket> ch = this.socketsByUri.get(uri);
-            if (ch != null) {
-                sockets = new ArrayList<>(ch);
-            } else {
-                sockets = Collections.emptyList();
-            }
+        Socket socket = find(uri, client);
+        if (socket != null) {
+            // Messages sent to a specific client are queued, even if the client is slow.
+            broadcast(Collections.singletonList(socket), Frames.text(message), false);
         }
-        for (Socket socket : sockets) {
-            if (client.equals(id(socket))) {
-                socket.publish(message, vertx.eventBus());
+    }
+
+    private Socket find(String uri, String client) {
+        Set<Socket> sockets = socketsByUri.get(uri);
+        if (sockets != null) {
+            for (Socket socket : sockets) {
+                if (client.equals(id(socket))) {
+                    return socket;
+                }
             }
         }
+        return null;
     }
 
     /**
@@ -417,19 +544,40 @@ public class WisdomVertxServer implements WebSocketDispatcher, WisdomEngine {
      */
     @Override
     public void send(String uri, String client, byte[] message) {
-        List<Socket> sockets;
-        synchronized (this) {
-            List<Socket> ch = this.socketsByUri.get(uri);
-            if (ch != null) {
-                sockets = new ArrayList<>(ch);
-            } else {
-                sockets = Collections.emptyList();
-            }
+        Socket socket = find(uri, client);
+        if (socket != null) {
+            // Messages sent to a specific client are queued, even if the client is slow.
+            broadcast(Collections.singletonList(socket), Frames.binary(Buffer.buffer(message)), false);
         }
-        for (Socket socket : sockets) {
-            if (client.equals(id(socket))) {
-                socket.publish(message, vertx.eventBus());
-            }
+    }
+
+    /**
+     * Stops reading the messages sent by the client identified by its id and listening to the websocket having the
+     * given url.
+     *
+     * @param uri    the web socket url
+     * @param client the client id
+     */
+    @Override
+    public void pause(String uri, String client) {
+        Socket socket = find(uri, client);
+        if (socket != null) {
+            socket.pause();
+        }
+    }
+
+    /**
+     * Resumes the reading of the messages sent by the client identified by its id and listening to the websocket
+     * having the given url.
+     *
+     * @param uri    the web socket url
+     * @param client the client id
+     */
+    @Override
+    public void resume(String uri, String client) {
+        Socket socket = find(uri, client);
+        if (socket != null) {
+            socket.resume();
         }
     }
 
@@ -441,12 +589,7 @@ public class WisdomVertxServer implements WebSocketDispatcher, WisdomEngine {
      * @param socket  the client channel
      */
     public void received(String uri, byte[] content, Socket socket) {
-        List<WebSocketListener> localListeners;
-        synchronized (this) {
-            localListeners = new ArrayList<>(this.listeners);
-        }
-
-        for (WebSocketListener listener : localListeners) {
+        for (WebSocketListener listener : listeners) {
             listener.received(uri, id(socket), content);
         }
     }
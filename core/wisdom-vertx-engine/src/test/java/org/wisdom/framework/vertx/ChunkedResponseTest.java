@@ -21,7 +21,10 @@ package org.wisdom.framework.vertx;
 
 import io.vertx.core.Handler;
 import io.vertx.core.buffer.Buffer;
+import io.vertx.core.file.AsyncFile;
+import io.vertx.core.file.OpenOptions;
 import io.vertx.core.http.HttpClientOptions;
+import io.vertx.core.streams.ReadStream;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.junit.After;
@@ -31,7 +34,9 @@ import org.wisdom.api.DefaultController;
 import org.wisdom.api.configuration.ApplicationConfiguration;
 import org.wisdom.api.content.ContentEngine;
 import org.wisdom.api.exceptions.ExceptionMapper;
+import org.wisdom.api.http.Context;
 import org.wisdom.api.http.HttpMethod;
+import org.wisdom.api.http.Renderable;
 import org.wisdom.api.http.Request;
 import org.wisdom.api.http.Result;
 import org.wisdom.api.router.Route;
@@ -393,6 +398,120 @@ public class ChunkedResponseTest extends VertxBaseTest {
         assertThat(success).hasSize(NUMBER_OF_CLIENTS);
     }
 
+    @Test
+    public void testPumpedStreamDownload() throws InterruptedException, IOException {
+
+        // Prepare the configuration
+        ApplicationConfiguration configuration = mock(ApplicationConfiguration.class);
+        when(configuration.getIntegerWithDefault(eq("vertx.http.port"), anyInt())).thenReturn(0);
+        when(configuration.getIntegerWithDefault(eq("vertx.https.port"), anyInt())).thenReturn(-1);
+        when(configuration.getIntegerWithDefault("vertx.acceptBacklog", -1)).thenReturn(-1);
+        when(configuration.getIntegerWithDefault("vertx.receiveBufferSize", -1)).thenReturn(-1);
+        when(configuration.getIntegerWithDefault("vertx.sendBufferSize", -1)).thenReturn(-1);
+        when(configuration.getStringArray("wisdom.websocket.subprotocols")).thenReturn(new String[0]);
+        when(configuration.getStringArray("vertx.websocket-subprotocols")).thenReturn(new String[0]);
+
+        // Prepare the router with a controller returning the content of a Vert.x stream, with and without length.
+        Controller controller = new DefaultController() {
+            @SuppressWarnings("unused")
+            public Result index() throws IOException {
+                File file = new File("src/test/resources/owl.png");
+                AsyncFile stream = vertx.fileSystem().openBlocking(file.getAbsolutePath(),
+                        new OpenOptions().setRead(true));
+                long length = context().path().equals("/2") ? -1 : file.length();
+                return ok().render(new ReadStreamRenderable(stream, length));
+            }
+        };
+
+        Router router = mock(Router.class);
+        final Route route = new RouteBuilder().route(HttpMethod.GET)
+                .on("/")
+                .to(controller, "index");
+        doAnswer(invocationOnMock -> route).when(router).getRouteFor(anyString(), anyString(), any(Request.class));
+
+
+        // Configure the server.
+        server = new WisdomVertxServer();
+        server.configuration = configuration;
+        server.accessor = new ServiceAccessor(
+                null,
+                configuration,
+                router,
+                getMockContentEngine(),
+                executor,
+                null,
+                Collections.<ExceptionMapper>emptyList()
+        );
+        server.vertx = vertx;
+
+        server.start();
+
+        VertxHttpServerTest.waitForStart(server);
+
+        // Now start bunch of clients
+        CountDownLatch startSignal = new CountDownLatch(1);
+        CountDownLatch doneSignal = new CountDownLatch(NUMBER_OF_CLIENTS);
+
+        int port = server.httpPort();
+
+        for (int i = 0; i < NUMBER_OF_CLIENTS; ++i) {
+            // create and start threads
+            clients.execute(new DownloadClient(startSignal, doneSignal, port, i));
+        }
+
+        startSignal.countDown();      // let all threads proceed
+
+        assertThat(doneSignal.await(60, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(failure).isEmpty();
+        assertThat(success).hasSize(NUMBER_OF_CLIENTS);
+    }
+
+    private static class ReadStreamRenderable implements Renderable<ReadStream<Buffer>> {
+        private final ReadStream<Buffer> stream;
+        private final long length;
+
+        ReadStreamRenderable(ReadStream<Buffer> stream, long length) {
+            this.stream = stream;
+            this.length = length;
+        }
+
+        @Override
+        public InputStream render(Context context, Result result) {
+            throw new UnsupportedOperationException("Pumped by the engine");
+        }
+
+        @Override
+        public long length() {
+            return length;
+        }
+
+        @Override
+        public String mimetype() {
+            return "image/png";
+        }
+
+        @Override
+        public ReadStream<Buffer> content() {
+            return stream;
+        }
+
+        @Override
+        public boolean requireSerializer() {
+            return false;
+        }
+
+        @Override
+        public void setSerializedForm(String serialized) {
+            // Not supported.
+        }
+
+        @Override
+        public boolean mustBeChunked() {
+            return true;
+        }
+    }
+
     private class DownloadClient implements Runnable {
         private final CountDownLatch startSignal;
         private final CountDownLatch doneSignal;
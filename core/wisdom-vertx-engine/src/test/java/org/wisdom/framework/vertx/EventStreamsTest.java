@@ -0,0 +1,142 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.framework.vertx;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServerResponse;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Checks the Server-Sent Events channels.
+ */
+public class EventStreamsTest {
+
+    @Test
+    public void testEncoding() {
+        assertThat(EventStreams.encode(1, null, "hello").toString()).isEqualTo("id: 1\ndata: hello\n\n");
+        assertThat(EventStreams.encode(2, "update", "a\r\nb\nc").toString())
+                .isEqualTo("id: 2\nevent: update\ndata: a\ndata: b\ndata: c\n\n");
+        assertThat(EventStreams.encode(3, null, "").toString()).isEqualTo("id: 3\ndata: \n\n");
+    }
+
+    @Test
+    public void testEventsAreEncodedOnceAndReplayed() {
+        EventStreams streams = new EventStreams(3);
+        HttpServerResponse first = mock(HttpServerResponse.class);
+        streams.subscribe("news", first, null, -1);
+
+        for (int i = 1; i <= 5; i++) {
+            assertThat(streams.publish("news", "event-" + i)).isEqualTo(i);
+        }
+        List<Buffer> written = written(first, 5);
+        assertThat(written.get(4).toString()).isEqualTo("id: 5\ndata: event-5\n\n");
+
+        // Reconnection after the event 3, only 4 and 5 are replayed.
+        HttpServerResponse second = mock(HttpServerResponse.class);
+        streams.subscribe("news", second, null, 3);
+        List<Buffer> replayed = written(second, 2);
+        assertThat(replayed.get(0).toString()).startsWith("id: 4\n");
+        // The encoded chunks are shared.
+        assertThat(replayed.get(1)).isSameAs(written.get(4));
+
+        // Reconnection after an event no more retained, the retained events are replayed.
+        HttpServerResponse third = mock(HttpServerResponse.class);
+        streams.subscribe("news", third, null, 0);
+        replayed = written(third, 3);
+        assertThat(replayed.get(0).toString()).startsWith("id: 3\n");
+
+        assertThat(streams.subscribers("news")).isEqualTo(3);
+        assertThat(streams.subscribers("missing")).isEqualTo(0);
+    }
+
+    @Test
+    public void testSlowSubscribersAreDisconnected() {
+        EventStreams streams = new EventStreams(10);
+        HttpServerResponse fast = mock(HttpServerResponse.class);
+        HttpServerResponse slow = mock(HttpServerResponse.class);
+        when(slow.writeQueueFull()).thenReturn(true);
+        streams.subscribe("news", fast, null, -1);
+        streams.subscribe("news", slow, null, -1);
+
+        streams.publish("news", "hello");
+
+        verify(fast).write(any(Buffer.class));
+        verify(slow, never()).write(any(Buffer.class));
+        verify(slow).close();
+        assertThat(streams.getDisconnectedCount()).isEqualTo(1);
+        assertThat(streams.subscribers("news")).isEqualTo(1);
+    }
+
+    @Test
+    public void testCancellation() {
+        EventStreams streams = new EventStreams(10);
+        HttpServerResponse response = mock(HttpServerResponse.class);
+        EventStreams.Subscription subscription = streams.subscribe("news", response, null, -1);
+        subscription.cancel();
+        streams.publish("news", "hello");
+        verify(response, never()).write(any(Buffer.class));
+        assertThat(streams.subscribers("news")).isEqualTo(0);
+    }
+
+    @Test
+    public void testIdleChannelsAreEvicted() {
+        EventStreams streams = new EventStreams(10);
+        HttpServerResponse response = mock(HttpServerResponse.class);
+        EventStreams.Subscription subscription = streams.subscribe("news", response, null, -1);
+        streams.publish("news", "hello");
+        streams.publish("news", "world");
+        long later = System.nanoTime() + TimeUnit.HOURS.toNanos(1);
+
+        // Channels having subscribers are kept.
+        streams.evict(later);
+        assertThat(streams.getChannelCount()).isEqualTo(1);
+
+        // Recently active channels are kept.
+        subscription.cancel();
+        streams.evict(System.nanoTime());
+        assertThat(streams.getChannelCount()).isEqualTo(1);
+
+        streams.evict(later);
+        assertThat(streams.getChannelCount()).isEqualTo(0);
+        assertThat(streams.subscribers("news")).isEqualTo(0);
+
+        // The channel is created again, without history.
+        HttpServerResponse other = mock(HttpServerResponse.class);
+        streams.subscribe("news", other, null, 0);
+        verify(other, never()).write(any(Buffer.class));
+        assertThat(streams.publish("news", "again")).isEqualTo(1);
+        verify(other).write(any(Buffer.class));
+        assertThat(streams.getChannelCount()).isEqualTo(1);
+    }
+
+    private static List<Buffer> written(HttpServerResponse response, int count) {
+        ArgumentCaptor<Buffer> captor = ArgumentCaptor.forClass(Buffer.class);
+        verify(response, times(count)).write(captor.capture());
+        return new ArrayList<>(captor.getAllValues());
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.framework.vertx;
+
+import io.netty.buffer.ByteBuf;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.WebSocketFrame;
+import io.vertx.core.http.impl.ws.WebSocketFrameImpl;
+import org.junit.Test;
+
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks the creation of the frames sent to several sockets.
+ */
+public class FramesTest {
+
+    @Test
+    public void testTextFramesShareTheEncodedMessage() {
+        Supplier<WebSocketFrame> frames = Frames.text("héllo");
+        WebSocketFrame first = frames.get();
+        WebSocketFrame second = frames.get();
+        assertThat(first).isNotSameAs(second);
+        assertThat(first.isText()).isTrue();
+        assertThat(first.isFinal()).isTrue();
+        assertThat(first.textData()).isEqualTo("héllo");
+        assertThat(second.textData()).isEqualTo("héllo");
+
+        ByteBuf a = ((WebSocketFrameImpl) first).getBinaryData();
+        ByteBuf b = ((WebSocketFrameImpl) second).getBinaryData();
+        assertThat(a).isNotSameAs(b);
+        assertThat(a.array()).isSameAs(b.array());
+
+        // Writing a frame releases its buffer, the other frames are not impacted.
+        a.release();
+        assertThat(frames.get().textData()).isEqualTo("héllo");
+        assertThat(second.textData()).isEqualTo("héllo");
+    }
+
+    @Test
+    public void testBinaryFramesShareThePayload() {
+        Supplier<WebSocketFrame> frames = Frames.binary(Buffer.buffer(new byte[]{1, 2, 3}));
+        WebSocketFrame first = frames.get();
+        WebSocketFrame second = frames.get();
+        assertThat(first.isBinary()).isTrue();
+        assertThat(first.binaryData().getBytes()).containsExactly(new byte[]{1, 2, 3});
+        assertThat(((WebSocketFrameImpl) first).getBinaryData().array())
+                .isSameAs(((WebSocketFrameImpl) second).getBinaryData().array());
+    }
+}
@@ -22,6 +22,7 @@ package org.wisdom.framework.vertx;
 import com.google.common.base.Charsets;
 import io.vertx.core.Vertx;
 import io.vertx.core.http.ServerWebSocket;
+import io.vertx.core.http.WebSocketFrame;
 import org.apache.commons.io.FileUtils;
 import org.junit.After;
 import org.junit.Test;
@@ -268,6 +269,40 @@ public class VertxDispatcherTest extends VertxBaseTest {
 
     }
 
+    @Test
+    public void testPublicationSkipsSlowClients() throws InterruptedException, IOException {
+        prepareServer();
+
+        final ServerWebSocket fast = mock(ServerWebSocket.class);
+        final ServerWebSocket slow = mock(ServerWebSocket.class);
+        when(slow.writeQueueFull()).thenReturn(true);
+        server.addSocket("/hello", new Socket(fast));
+        server.addSocket("/hello", new Socket(slow));
+
+        server.publish("/hello", "yep !");
+        server.publish("/hello", "yep !".getBytes(Charsets.UTF_8));
+
+        verify(fast, times(2)).writeFrame(any(WebSocketFrame.class));
+        verify(slow, never()).writeFrame(any(WebSocketFrame.class));
+        assertThat(server.getDroppedFrameCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void testTargetedMessagesAreQueuedForSlowClients() throws InterruptedException, IOException {
+        prepareServer();
+
+        final ServerWebSocket slow = mock(ServerWebSocket.class);
+        when(slow.writeQueueFull()).thenReturn(true);
+        final Socket sock = new Socket(slow);
+        server.addSocket("/hello", sock);
+
+        server.send("/hello", WisdomVertxServer.id(sock), "yep !");
+        server.send("/hello", WisdomVertxServer.id(sock), "yep !".getBytes(Charsets.UTF_8));
+
+        verify(slow, times(2)).writeFrame(any(WebSocketFrame.class));
+        assertThat(server.getDroppedFrameCount()).isEqualTo(0);
+    }
+
     private void prepareServer() throws IOException, InterruptedException {
         ApplicationConfiguration configuration = mock(ApplicationConfiguration.class);
         when(configuration.getIntegerWithDefault(eq("vertx.http.port"), anyInt())).thenReturn(0);
@@ -25,18 +25,31 @@ import org.junit.After;
 import org.junit.Test;
 import org.wisdom.api.Controller;
 import org.wisdom.api.DefaultController;
+import org.wisdom.api.concurrent.ExecutionContextService;
+import org.wisdom.api.concurrent.ManagedExecutorService;
 import org.wisdom.api.configuration.ApplicationConfiguration;
 import org.wisdom.api.exceptions.ExceptionMapper;
 import org.wisdom.api.http.*;
 import org.wisdom.api.router.Route;
 import org.wisdom.api.router.RouteBuilder;
 import org.wisdom.api.router.Router;
+import org.wisdom.executors.AdaptiveConcurrencyLimiter;
+import org.wisdom.executors.ManagedExecutorServiceImpl;
 import org.wisdom.framework.vertx.ssl.SSLServerContext;
+import org.wisdom.test.parents.FakeConfiguration;
 
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
@@ -204,6 +217,305 @@ public class VertxHttpServerTest extends VertxBaseTest {
     }
 
 
+    @Test
+    public void testCompletionStageWithPlentyOfClients() throws InterruptedException, IOException {
+        Router router = prepareServer();
+
+        // Prepare the router with a controller completing the result from a Vert.x timer. No executor is
+        // available, so no thread can wait for the results.
+        Controller controller = new DefaultController() {
+            @SuppressWarnings("unused")
+            public CompletionStage<Result> index() {
+                String id = context().parameter("id");
+                CompletableFuture<Result> future = new CompletableFuture<>();
+                vertx.setTimer(50, l -> future.complete(ok(String.valueOf(id))));
+                return future;
+            }
+        };
+        Route route = new RouteBuilder().route(HttpMethod.GET)
+                .on("/")
+                .to(controller, "index");
+        when(router.getRouteFor(anyString(), anyString(), any(Request.class))).thenReturn(route);
+
+        server.start();
+
+        waitForStart(server);
+
+        // Now start bunch of clients
+        int num = NUMBER_OF_CLIENTS;
+        CountDownLatch startSignal = new CountDownLatch(1);
+        CountDownLatch doneSignal = new CountDownLatch(num);
+
+        int port = server.httpPort();
+
+        for (int i = 0; i < num; ++i) {// create and start threads
+            executor.submit(new Client(startSignal, doneSignal, port, i));
+        }
+
+        startSignal.countDown();      // let all threads proceed
+        doneSignal.await(30, TimeUnit.SECONDS);           // wait for all to finish
+
+        assertThat(failure).isEmpty();
+        assertThat(success).hasSize(num);
+    }
+
+    @Test
+    public void testFailedCompletionStage() throws InterruptedException, IOException {
+        Router router = prepareServer();
+
+        Controller controller = new DefaultController() {
+            @SuppressWarnings("unused")
+            public CompletionStage<Result> index() {
+                CompletableFuture<Result> future = new CompletableFuture<>();
+                vertx.setTimer(10, l -> future.completeExceptionally(new IOException("My bad")));
+                return future;
+            }
+        };
+        Route route = new RouteBuilder().route(HttpMethod.GET)
+                .on("/")
+                .to(controller, "index");
+        when(router.getRouteFor(anyString(), anyString(), any(Request.class))).thenReturn(route);
+
+        server.start();
+
+        waitForStart(server);
+        int port = server.httpPort();
+        URL url = new URL("http://localhost:" + port + "/");
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        assertThat(connection.getResponseCode()).isEqualTo(500);
+    }
+
+    @Test
+    public void testAsyncResultRejectedBySaturatedExecutor() throws Exception {
+        Router router = prepareServer();
+        ManagedExecutorServiceImpl reports = new ManagedExecutorServiceImpl("reports",
+                new FakeConfiguration(Collections.<String, Object>emptyMap()),
+                Collections.<ExecutionContextService>emptyList());
+        reports.setConcurrencyLimiter(new AdaptiveConcurrencyLimiter(1, 1, 1, 0.2, 2.0));
+        server.executors = Collections.<ManagedExecutorService>singletonList(reports);
+        server.accessor = new ServiceAccessor(null, server.configuration, router, getMockContentEngine(),
+                executor, server, Collections.<ExceptionMapper>emptyList());
+
+        Controller controller = new DefaultController() {
+            @SuppressWarnings("unused")
+            public Result index() {
+                return new AsyncResult(() -> ok("done"), 0, TimeUnit.SECONDS, "reports");
+            }
+        };
+        Route route = new RouteBuilder().route(HttpMethod.GET)
+                .on("/")
+                .to(controller, "index");
+        when(router.getRouteFor(anyString(), anyString(), any(Request.class))).thenReturn(route);
+
+        server.start();
+        waitForStart(server);
+        waitUntilIdle(reports);
+
+        // Saturate the executor.
+        CountDownLatch latch = new CountDownLatch(1);
+        reports.submit(() -> {
+            latch.await();
+            return null;
+        });
+
+        URL url = new URL("http://localhost:" + server.httpPort() + "/");
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        assertThat(connection.getResponseCode()).isEqualTo(503);
+        assertThat(connection.getHeaderField(HeaderNames.RETRY_AFTER)).isEqualTo("1");
+        assertThat(reports.getRejectedTaskCount()).isEqualTo(1);
+
+        latch.countDown();
+        waitUntilIdle(reports);
+        connection = (HttpURLConnection) url.openConnection();
+        assertThat(connection.getResponseCode()).isEqualTo(200);
+        reports.shutdownNow();
+    }
+
+    @Test
+    public void testEventStreamWithReplay() throws Exception {
+        Router router = prepareServer();
+        EventStreams streams = new EventStreams(16);
+        server.eventChannel = streams;
+        server.accessor = new ServiceAccessor(null, server.configuration, router, getMockContentEngine(),
+                null, server, Collections.<ExceptionMapper>emptyList());
+
+        Controller controller = new DefaultController() {
+            @SuppressWarnings("unused")
+            public Result index() {
+                return Results.eventStream("news").retry(1000);
+            }
+        };
+        Route route = new RouteBuilder().route(HttpMethod.GET)
+                .on("/")
+                .to(controller, "index");
+        // The route is not returned for the ping requests checking whether the server is started.
+        when(router.getRouteFor(anyString(), eq("/"), any(Request.class))).thenReturn(route);
+
+        server.start();
+        waitForStart(server);
+
+        // Published before the client connection.
+        streams.publish("news", "first");
+
+        URL url = new URL("http://localhost:" + server.httpPort() + "/");
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestProperty(HeaderNames.LAST_EVENT_ID, "0");
+        connection.setReadTimeout(5000);
+        assertThat(connection.getResponseCode()).isEqualTo(200);
+        assertThat(connection.getContentType()).isEqualTo(MimeTypes.EVENT_STREAM);
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream(),
+                StandardCharsets.UTF_8));
+        assertThat(reader.readLine()).isEqualTo("retry: 1000");
+        assertThat(reader.readLine()).isEmpty();
+        // Replayed.
+        assertThat(reader.readLine()).isEqualTo("id: 1");
+        assertThat(reader.readLine()).isEqualTo("data: first");
+        assertThat(reader.readLine()).isEmpty();
+
+        assertThat(streams.subscribers("news")).isEqualTo(1);
+        streams.publish("news", "update", "a\nb");
+        assertThat(reader.readLine()).isEqualTo("id: 2");
+        assertThat(reader.readLine()).isEqualTo("event: update");
+        assertThat(reader.readLine()).isEqualTo("data: a");
+        assertThat(reader.readLine()).isEqualTo("data: b");
+        assertThat(reader.readLine()).isEmpty();
+
+        connection.disconnect();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (streams.subscribers("news") > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(streams.subscribers("news")).isEqualTo(0);
+    }
+
+    @Test
+    public void testStreamingRenderable() throws Exception {
+        Router router = prepareServer();
+        server.accessor = new ServiceAccessor(null, server.configuration, router, getMockContentEngine(),
+                executor, server, Collections.<ExceptionMapper>emptyList());
+
+        // Written in many chunks, from the executor.
+        final StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            expected.append("line ").append(i).append('\n');
+        }
+        final StreamingRenderable<String> renderable = new StreamingRenderable<String>() {
+            @Override
+            public void writeTo(Context context, Result result, OutputStream out) throws IOException {
+                for (int i = 0; i < 10000; i++) {
+                    out.write(("line " + i + "\n").getBytes(StandardCharsets.UTF_8));
+                }
+            }
+
+            @Override
+            public InputStream render(Context context, Result result) throws RenderableException {
+                throw new RenderableException("Must be streamed");
+            }
+
+            @Override
+            public long length() {
+                return -1;
+            }
+
+            @Override
+            public String mimetype() {
+                return MimeTypes.TEXT;
+            }
+
+            @Override
+            public String content() {
+                return expected.toString();
+            }
+
+            @Override
+            public boolean requireSerializer() {
+                return false;
+            }
+
+            @Override
+            public void setSerializedForm(String serialized) {
+                // Not serialized.
+            }
+
+            @Override
+            public boolean mustBeChunked() {
+                return true;
+            }
+        };
+
+        Controller controller = new DefaultController() {
+            @SuppressWarnings("unused")
+            public Result index() {
+                return ok(renderable);
+            }
+        };
+        Route route = new RouteBuilder().route(HttpMethod.GET)
+                .on("/")
+                .to(controller, "index");
+        // The route is not returned for the ping requests checking whether the server is started.
+        when(router.getRouteFor(anyString(), eq("/"), any(Request.class))).thenReturn(route);
+
+        server.start();
+        waitForStart(server);
+
+        URL url = new URL("http://localhost:" + server.httpPort() + "/");
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setReadTimeout(5000);
+        assertThat(connection.getResponseCode()).isEqualTo(200);
+        assertThat(connection.getHeaderField(HeaderNames.TRANSFER_ENCODING)).isEqualTo("chunked");
+        // Chunked encoding delimits the content, the connection is kept alive.
+        assertThat(connection.getHeaderField(HeaderNames.CONNECTION)).isEqualTo("keep-alive");
+        assertThat(IOUtils.toString(connection.getInputStream(), StandardCharsets.UTF_8))
+                .isEqualTo(expected.toString());
+    }
+
+    @Test
+    public void testChunkedResponsesKeepTheConnectionAlive() throws Exception {
+        Router router = prepareServer();
+        server.accessor = new ServiceAccessor(null, server.configuration, router, getMockContentEngine(),
+                executor, server, Collections.<ExceptionMapper>emptyList());
+
+        final byte[] content = new byte[100000];
+        Controller controller = new DefaultController() {
+            @SuppressWarnings("unused")
+            public Result index() {
+                // Input streams are sent using chunked encoding.
+                return ok(new ByteArrayInputStream(content));
+            }
+        };
+        Route route = new RouteBuilder().route(HttpMethod.GET)
+                .on("/")
+                .to(controller, "index");
+        when(router.getRouteFor(anyString(), eq("/"), any(Request.class))).thenReturn(route);
+
+        server.start();
+        waitForStart(server);
+
+        URL url = new URL("http://localhost:" + server.httpPort() + "/");
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setReadTimeout(5000);
+        assertThat(connection.getResponseCode()).isEqualTo(200);
+        assertThat(connection.getHeaderField(HeaderNames.TRANSFER_ENCODING)).isEqualTo("chunked");
+        assertThat(connection.getHeaderField(HeaderNames.CONNECTION)).isEqualTo("keep-alive");
+        assertThat(IOUtils.toByteArray(connection.getInputStream())).hasSize(content.length);
+
+        // Unless the client asks to close it.
+        connection = (HttpURLConnection) url.openConnection();
+        connection.setReadTimeout(5000);
+        connection.setRequestProperty(HeaderNames.CONNECTION, "close");
+        assertThat(connection.getResponseCode()).isEqualTo(200);
+        assertThat(connection.getHeaderField(HeaderNames.CONNECTION)).isEqualTo("close");
+        assertThat(IOUtils.toByteArray(connection.getInputStream())).hasSize(content.length);
+    }
+
+    private void waitUntilIdle(ManagedExecutorServiceImpl executor) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (executor.getConcurrencyLimiter().getInFlight() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+    }
+
     @Test
     public void testOkWithPlentyOfClientsReadingJsonContent() throws InterruptedException, IOException {
         Router router = prepareServer();
@@ -36,6 +36,8 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.Random;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
 
 @Controller
 public class AsyncExample extends DefaultController {
@@ -61,6 +63,27 @@ public class AsyncExample extends DefaultController {
     }
     // end::async2[]
 
+    // tag::completion-stage[]
+    /**
+     * A service using a non-blocking client, such as the Vert.x HTTP client.
+     */
+    public interface WeatherService {
+        CompletionStage<String> forecast(String city);
+    }
+
+    WeatherService weather;
+
+    @Route(method = HttpMethod.GET, uri = "/weather")
+    public CompletionStage<Result> forecast() {
+        return weather.forecast("Grenoble").thenApply(new Function<String, Result>() {
+            @Override
+            public Result apply(String forecast) {
+                return ok(forecast);
+            }
+        });
+    }
+    // end::completion-stage[]
+
 
     // tag::hello[]
     public Result hello() {
@@ -28,9 +28,9 @@ import org.wisdom.api.interception.RequestContext;
 import org.wisdom.api.router.Route;
 import org.wisdom.api.router.Router;
 
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.regex.Pattern;
 
 import static org.wisdom.api.http.HeaderNames.*;
@@ -40,11 +40,27 @@ import static org.wisdom.api.http.HeaderNames.*;
  * Wisdom provides a configuration based implementation, but you can extend this class directly to cusotmize the CORS
  * support.
  * CORS is defined by the W3C as a recommendation : http://www.w3.org/TR/cors/
+ * <p>
+ * Preflight requests are answered from an index of the routes (url pattern to allowed methods), rebuilt when the
+ * routes of the router change. The preflight responses are computed once per set of allowed methods, and the
+ * lookups of the recent paths are cached. Subclasses returning different values from {@link #getAllowedHosts()},
+ * {@link #getExposedHeaders()}, {@link #getAllowCredentials()} or {@link #getMaxAge()} must call {@link
+ * #clearPreflightCache()}.
  */
 public abstract class AbstractCorsFilter implements Filter {
 
+    /**
+     * The maximum number of paths whose preflight is cached.
+     */
+    private static final int MAX_CACHED_PATHS = 1024;
+
     private final Router router;
 
+    /**
+     * The preflight index, {@literal null} until the first preflight request, or after a reset.
+     */
+    private volatile PreflightIndex index;
+
     /**
      * Creates an {@link org.wisdom.framework.filters.AbstractCorsFilter} instance.
      *
@@ -84,17 +100,9 @@ public abstract class AbstractCorsFilter implements Filter {
 
         // Try "Preflight"
 
-        // Find existing methods for other routes
-        Collection<Route> routes = router.getRoutes();
-        List<String> methods = new ArrayList<>(4); // expect POST PUT GET DELETE
-        for (Route r : routes) {
-            if (r.matches(r.getHttpMethod(), route.getUrl())) {
-                methods.add(r.getHttpMethod().name());
-            }
-        }
-
-        // If there's none, proceed to 404
-        if (methods.isEmpty()) {
+        // Find existing methods for other routes. If there's none, proceed to 404
+        Preflight preflight = getPreflightIndex().get(route.getUrl());
+        if (preflight == null) {
             return context.proceed();
         }
 
@@ -105,31 +113,167 @@ public abstract class AbstractCorsFilter implements Filter {
             return context.proceed();
         }
 
-        Result res = Results.ok(); // setup result
+        return preflight.toResult(originHeader, requestMethod);
+    }
 
-        if (!methods.contains(requestMethod.toUpperCase())) {
-            res = Results.unauthorized("No such method for this route");
-        }
+    /**
+     * Drops the preflight index and the cached preflight responses. They are recomputed on the next preflight
+     * request. This method must be called when the CORS settings change.
+     */
+    protected void clearPreflightCache() {
+        index = null;
+    }
 
-        Integer maxAge = getMaxAge();
-        if (maxAge != null) {
-            res = res.with(ACCESS_CONTROL_MAX_AGE, String.valueOf(maxAge));
+    /**
+     * Gets the current preflight index, and rebuilds it if the routes have changed since it was built. Routers not
+     * tracking their changes get a new index for each request.
+     */
+    private PreflightIndex getPreflightIndex() {
+        long version = router.getRoutesVersion();
+        PreflightIndex current = index;
+        if (current == null || version < 0 || current.version != version) {
+            current = new PreflightIndex(version, router.getRoutes());
+            index = current;
         }
+        return current;
+    }
+
+    /**
+     * The routes grouped by url pattern, with the preflight responses computed from them.
+     */
+    private final class PreflightIndex {
+
+        private final long version;
+        /**
+         * One route per url pattern (used to match the paths), associated with the methods of all the routes using
+         * this pattern.
+         */
+        private final Map<Route, Set<String>> patterns = new LinkedHashMap<>();
+        /**
+         * The preflight of the recently requested paths. Paths not matching any route are associated with {@link
+         * Preflight#NONE}.
+         */
+        private final ConcurrentMap<String, Preflight> paths = new ConcurrentHashMap<>();
+        /**
+         * The preflight responses, one per set of allowed methods.
+         */
+        private final ConcurrentMap<String, Preflight> responses = new ConcurrentHashMap<>();
+
+        private final String allowedHosts;
+        private final boolean echoOrigin;
+        private final Map<String, String> headers = new LinkedHashMap<>();
+
+        private PreflightIndex(long version, Collection<Route> routes) {
+            this.version = version;
+            Map<String, Route> byUrl = new HashMap<>();
+            for (Route route : routes) {
+                Route pattern = byUrl.get(route.getUrl());
+                if (pattern == null) {
+                    pattern = route;
+                    byUrl.put(route.getUrl(), route);
+                    patterns.put(route, new LinkedHashSet<String>(4)); // expect POST PUT GET DELETE
+                }
+                patterns.get(pattern).add(route.getHttpMethod().name());
+            }
 
-        // Otherwise we should be return OK with the appropriate headers.
+            // The headers do not depend on the request, except the allowed origin when the wildcard is used with
+            // credentials.
+            echoOrigin = getAllowCredentials() && getAllowedHosts().contains("*");
+            allowedHosts = Joiner.on(", ").join(getAllowedHosts());
+            Integer maxAge = getMaxAge();
+            if (maxAge != null) {
+                headers.put(ACCESS_CONTROL_MAX_AGE, String.valueOf(maxAge));
+            }
+            headers.put(ACCESS_CONTROL_ALLOW_HEADERS, getExposedHeadersHeader());
+            if (getAllowCredentials()) {
+                headers.put(ACCESS_CONTROL_ALLOW_CREDENTIALS, "true");
+            }
+        }
 
-        String exposedHeaders = getExposedHeadersHeader();
-        String allowedHosts = getAllowedHostsHeader(originHeader);
+        /**
+         * Gets the preflight of the given path.
+         *
+         * @param path the path
+         * @return the preflight, {@literal null} if no route matches the path
+         */
+        private Preflight get(String path) {
+            Preflight preflight = paths.get(path);
+            if (preflight == null) {
+                preflight = lookup(path);
+                if (paths.size() >= MAX_CACHED_PATHS) {
+                    paths.clear();
+                }
+                paths.put(path, preflight);
+            }
+            return preflight == Preflight.NONE ? null : preflight;
+        }
 
-        String allowedMethods = Joiner.on(", ").join(methods);
+        private Preflight lookup(String path) {
+            Set<String> methods = new LinkedHashSet<>(4);
+            for (Map.Entry<Route, Set<String>> entry : patterns.entrySet()) {
+                Route pattern = entry.getKey();
+                if (pattern.matches(pattern.getHttpMethod(), path)) {
+                    methods.addAll(entry.getValue());
+                }
+            }
+            if (methods.isEmpty()) {
+                return Preflight.NONE;
+            }
+            String allowedMethods = Joiner.on(", ").join(methods);
+            Preflight preflight = responses.get(allowedMethods);
+            if (preflight == null) {
+                Map<String, String> h = new LinkedHashMap<>(headers);
+                h.put(ACCESS_CONTROL_ALLOW_METHODS, allowedMethods);
+                preflight = new Preflight(methods, allowedHosts, echoOrigin, h);
+                Preflight previous = responses.putIfAbsent(allowedMethods, preflight);
+                if (previous != null) {
+                    preflight = previous;
+                }
+            }
+            return preflight;
+        }
+    }
 
-        Result result = res.with(ACCESS_CONTROL_ALLOW_ORIGIN, allowedHosts)
-                .with(ACCESS_CONTROL_ALLOW_METHODS, allowedMethods).with(ACCESS_CONTROL_ALLOW_HEADERS, exposedHeaders);
-        if (getAllowCredentials()) {
-            result = result.with(ACCESS_CONTROL_ALLOW_CREDENTIALS, "true");
+    /**
+     * A preflight response, built for a set of allowed methods.
+     */
+    private static final class Preflight {
+
+        /**
+         * Marker of the paths without routes.
+         */
+        private static final Preflight NONE = new Preflight(Collections.<String>emptySet(), null, false,
+                Collections.<String, String>emptyMap());
+
+        private final Set<String> methods;
+        private final String allowedHosts;
+        private final boolean echoOrigin;
+        private final Map<String, String> headers;
+
+        private Preflight(Set<String> methods, String allowedHosts, boolean echoOrigin, Map<String, String> headers) {
+            this.methods = methods;
+            this.allowedHosts = allowedHosts;
+            this.echoOrigin = echoOrigin;
+            this.headers = headers;
         }
 
-        return result;
+        /**
+         * Creates the result answering the preflight request. A new result is created for each request, as results
+         * are modified by the filters and interceptors.
+         */
+        private Result toResult(String origin, String requestMethod) {
+            Result result;
+            if (methods.contains(requestMethod.toUpperCase(Locale.ENGLISH))) {
+                result = Results.ok();
+            } else {
+                result = Results.unauthorized("No such method for this route");
+            }
+            result.with(ACCESS_CONTROL_ALLOW_ORIGIN, echoOrigin ? origin : allowedHosts);
+            for (Map.Entry<String, String> header : headers.entrySet()) {
+                result.with(header.getKey(), header.getValue());
+            }
+            return result;
+        }
     }
 
     protected Result retrieveAndReturnResult(RequestContext context, String originHeader) throws Exception {
@@ -22,9 +22,11 @@ package org.wisdom.framework.filters;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Multimap;
 import org.wisdom.api.configuration.Configuration;
+import org.wisdom.api.http.CompletionStageResult;
 import org.wisdom.api.http.HeaderNames;
 import org.wisdom.api.http.Request;
 import org.wisdom.api.http.Result;
+import org.wisdom.api.interception.BalancerStatistics;
 import org.wisdom.api.interception.Filter;
 import org.wisdom.api.interception.RequestContext;
 import org.wisdom.api.router.Route;
@@ -32,7 +34,6 @@ import org.wisdom.api.router.Route;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.*;
-import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * A filter acting as a load balancer between {@link org.wisdom.framework.filters
@@ -41,11 +42,22 @@ import java.util.concurrent.atomic.AtomicLong;
  * However sticky session is limited by dynamism, and may not be enforced if the targeted member has
  * left. If no members are bound to the balancer, the request is just delegated to the next filter.
  * <p>
+ * The member receiving a request is chosen by a {@link BalancerStrategy} (round robin by default). The balancer
+ * tracks the outstanding requests, the latency and the errors of each member: a member failing too often (or too
+ * slow) is ejected for a while, and a member failing several times in a row has its circuit opened - it does not
+ * receive requests until a probe request succeeds. These statistics are published through the {@link
+ * BalancerStatistics} interface.
+ * <p>
  * To create an instance of {@link org.wisdom.framework.filters.BalancerFilter}, you need to override this class and
  * declare it as a {@link org.wisdom.api.annotations.Service}. You can override most of its behavior. You have to
  * manage the binding and unbinding of {@link org.wisdom.framework.filters.BalancerMember}.
  */
-public class BalancerFilter extends ProxyFilter implements Filter {
+public class BalancerFilter extends ProxyFilter implements Filter, BalancerStatistics {
+
+    /**
+     * The key of the member selected for a request, in the request scope.
+     */
+    private static final String SELECTION = BalancerFilter.class.getName() + ".selection";
 
     /**
      * The set of headers for reverse proxy management.
@@ -59,7 +71,7 @@ public class BalancerFilter extends ProxyFilter implements Filter {
     /**
      * List of members.
      */
-    private final List<BalancerMember> members = new ArrayList<>();
+    private final List<BalancerMemberStatistics> members = new ArrayList<>();
     /**
      * The name of the balancer.
      */
@@ -74,9 +86,13 @@ public class BalancerFilter extends ProxyFilter implements Filter {
     private final boolean proxyPassReverse;
 
     /**
-     * Counter to return unique id.
+     * The strategy selecting the members.
+     */
+    private final BalancerStrategy strategy;
+    /**
+     * The policy deciding when members are ejected, and when their circuit is opened.
      */
-    private final AtomicLong counter = new AtomicLong();
+    private final HealthPolicy policy;
 
     /**
      * Creates a {@link org.wisdom.framework.filters.BalancerFilter} instance. This instance requires that the {@link
@@ -86,6 +102,8 @@ public class BalancerFilter extends ProxyFilter implements Filter {
         this.name = getName();
         this.stickySession = getStickySession();
         this.proxyPassReverse = getProxyPassReverse();
+        this.strategy = getStrategy();
+        this.policy = getHealthPolicy();
     }
 
     /**
@@ -100,6 +118,8 @@ public class BalancerFilter extends ProxyFilter implements Filter {
         this.prefix = getPrefix();
         this.stickySession = getStickySession();
         this.proxyPassReverse = getProxyPassReverse();
+        this.strategy = getStrategy();
+        this.policy = getHealthPolicy();
     }
 
     /**
@@ -115,8 +135,10 @@ public class BalancerFilter extends ProxyFilter implements Filter {
 
     /**
      * Methods called on incoming request. If there are no members attached to this balancer, the request is
-     * processed using {@link org.wisdom.api.interception.RequestContext#proceed()}. Otherwise, a member is selected
-     * and the request is delegated.
+     * processed using {@link org.wisdom.api.interception.RequestContext#proceed()}. Otherwise, the destination is
+     * computed by {@link #rewriteURI(RequestContext)} (which selects the member using {@link
+     * #selectBalancerMember(RequestContext)}), and the request is delegated. The outcome of the request is recorded
+     * in the statistics of the member.
      *
      * @param route   the route
      * @param context the filter context
@@ -127,31 +149,83 @@ public class BalancerFilter extends ProxyFilter implements Filter {
     public Result call(Route route, RequestContext context) throws Exception {
         if (getMembers().isEmpty()) {
             return context.proceed();
+        }
+        URI uri = rewriteURI(context);
+        final Selection selection = (Selection) context.request().data().remove(SELECTION);
+        if (uri == null) {
+            if (selection != null) {
+                selection.cancel();
+            }
+            return onRewriteFailed(context);
+        }
+        if (selection == null) {
+            // The member was selected by an overridden method, and is not tracked.
+            return proxy(context, uri);
+        }
+
+        final long start = System.nanoTime();
+        Result result;
+        try {
+            result = proxy(context, uri);
+        } catch (RuntimeException e) {
+            selection.end(start, true);
+            throw e;
+        }
+        if (result instanceof CompletionStageResult) {
+            ((CompletionStageResult) result).stage().whenComplete((r, failure) ->
+                    selection.end(start, failure != null || r == null || isFailure(r)));
         } else {
-            return super.call(route, context);
+            selection.end(start, result == null || isFailure(result));
         }
+        return result;
+    }
+
+    /**
+     * Checks whether the result sent by a member denotes a failure of this member. Failures are taken into account
+     * to eject the member, or to open its circuit. By default, server errors (5xx) are failures.
+     *
+     * @param result the result
+     * @return {@code true} if the result is a failure, {@code false} otherwise
+     */
+    protected boolean isFailure(Result result) {
+        return result.getStatusCode() >= 500;
     }
 
     private synchronized List<BalancerMember> getMembers() {
-        return new ArrayList<>(members);
+        List<BalancerMember> list = new ArrayList<>(members.size());
+        for (BalancerMemberStatistics member : members) {
+            list.add(member.getMember());
+        }
+        return list;
     }
 
     /**
      * Compute the destination URI. It picks a member (enforcing the sticky session if enabled), and computes the URI.
      *
      * @param rc the request content
-     * @return the new URI
+     * @return the new URI, {@literal null} if there are no members, or if the path does not match the prefix
      * @throws URISyntaxException if the URI cannot be computed
      */
     @Override
     public URI rewriteURI(RequestContext rc) throws URISyntaxException {
         Request request = rc.request();
-        BalancerMember member = selectBalancerMember(rc);
-        logger.debug("Selected {}", member.getName());
         String path = request.path();
         if (!path.startsWith(prefix)) {
             return null;
         }
+        BalancerMember member = selectBalancerMember(rc);
+        if (member == null) {
+            return null;
+        }
+        Selection selection = (Selection) request.data().get(SELECTION);
+        if (selection == null || selection.statistics.getMember() != member) {
+            // The member was not chosen by the default selection, track it anyway.
+            if (selection != null) {
+                selection.cancel();
+            }
+            track(rc, member);
+        }
+        logger.debug("Selected {}", member.getName());
 
         return computeDestinationURI(
                 request,
@@ -161,34 +235,105 @@ public class BalancerFilter extends ProxyFilter implements Filter {
         );
     }
 
+    /**
+     * Selects the member receiving the given request. The sticky member is selected if it is still around and
+     * available. Otherwise the strategy chooses among the available members, or among all members when none are
+     * available (so requests still reach the members and can probe them).
+     *
+     * @param request the request context
+     * @return the selected member, {@literal null} if there are no members
+     */
     protected BalancerMember selectBalancerMember(RequestContext request) {
-        BalancerMember member;
+        long now = System.nanoTime();
+        String balancer = null;
         if (stickySession) {
-            String balancer = request.context().session().get("_balancer");
+            balancer = request.context().session().get("_balancer");
             if (balancer == null) {
                 // URL lookup (query string).
                 balancer = request.request().parameter("_balancer");
             }
+        }
 
-            // A balancer hint was given.
-            if (balancer != null) {
-                member = getBalancerMember(balancer);
-                if (member != null) {
-                    // Member still around.
-                    return member;
+        List<BalancerMemberStatistics> all = getMemberStatistics();
+        if (all.isEmpty()) {
+            return null;
+        }
+        // A balancer hint was given.
+        if (balancer != null) {
+            for (BalancerMemberStatistics member : all) {
+                if (member.getName().equals(balancer)) {
+                    BalancerMemberStatistics.Permit permit = member.tryAcquire(now);
+                    if (permit != null) {
+                        // Member still around.
+                        return select(request, member, permit, false);
+                    }
                 }
             }
-            // The member left, we can't ensure the sticky session.
-            logger.warn("Cannot enforce sticky session policy for {} - the member ({}) has left", request.request().uri(), balancer);
+            // The member left or is unhealthy, we can't ensure the sticky session.
+            logger.warn("Cannot enforce sticky session policy for {} - the member ({}) is not available",
+                    request.request().uri(), balancer);
+        }
+
+        List<BalancerMemberStatistics> candidates = new ArrayList<>(all.size());
+        for (BalancerMemberStatistics member : all) {
+            if (member.isAvailable(now)) {
+                candidates.add(member);
+            }
+        }
+        // The availability may change before the permit is acquired, the member is then removed from the
+        // candidates.
+        while (!candidates.isEmpty()) {
+            BalancerMemberStatistics member = strategy.select(candidates, now);
+            BalancerMemberStatistics.Permit permit = member.tryAcquire(now);
+            if (permit != null) {
+                return select(request, member, permit, stickySession);
+            }
+            candidates.remove(member);
+        }
+        logger.warn("All the members of the balancer '{}' are unhealthy", name);
+        BalancerMemberStatistics member = strategy.select(all, now);
+        return select(request, member, member.acquire(now), stickySession);
+    }
+
+    private BalancerMember select(RequestContext request, BalancerMemberStatistics member,
+                                  BalancerMemberStatistics.Permit permit, boolean stick) {
+        request.request().data().put(SELECTION, new Selection(member, permit));
+        if (stick) {
+            request.context().session().put("_balancer", member.getName());
         }
+        return member.getMember();
+    }
 
-        synchronized (this) {
-            int index = (int) (counter.getAndIncrement() % members.size());
-            member = members.get(index);
-            if (stickySession) {
-                request.context().session().put("_balancer", member.getName());
+    private void track(RequestContext request, BalancerMember member) {
+        for (BalancerMemberStatistics statistics : getMemberStatistics()) {
+            if (statistics.getMember() == member) {
+                request.request().data().put(SELECTION,
+                        new Selection(statistics, statistics.acquire(System.nanoTime())));
+                return;
             }
-            return member;
+        }
+        request.request().data().remove(SELECTION);
+    }
+
+    /**
+     * The member selected for a request, and the permit acquired to send it the request.
+     */
+    private static final class Selection {
+        private final BalancerMemberStatistics statistics;
+        private final BalancerMemberStatistics.Permit permit;
+
+        private Selection(BalancerMemberStatistics statistics, BalancerMemberStatistics.Permit permit) {
+            this.statistics = statistics;
+            this.permit = permit;
+        }
+
+        private void end(long start, boolean failure) {
+            long now = System.nanoTime();
+            statistics.end(now, now - start, failure, permit);
+        }
+
+        private void cancel() {
+            statistics.release(permit);
         }
     }
 
@@ -236,15 +381,6 @@ public class BalancerFilter extends ProxyFilter implements Filter {
         return false;
     }
 
-    private BalancerMember getBalancerMember(String balancer) {
-        for (BalancerMember member : getMembers()) {
-            if (member.getName().equals(balancer)) {
-                return member;
-            }
-        }
-        return null;
-    }
-
     /**
      * Gets the balancer name.
      *
@@ -272,6 +408,45 @@ public class BalancerFilter extends ProxyFilter implements Filter {
         }
     }
 
+    /**
+     * Gets the strategy selecting the members. By default, it is read from the {@code strategy} configuration key
+     * ({@code round-robin}, {@code least-outstanding}, {@code peak-ewma} or {@code p2c}), and defaults to round
+     * robin.
+     *
+     * @return the strategy, a new instance for each balancer
+     */
+    protected BalancerStrategy getStrategy() {
+        if (configuration == null) {
+            return BalancerStrategies.roundRobin();
+        }
+        String strategy = configuration.get("strategy");
+        if (strategy == null) {
+            return BalancerStrategies.roundRobin();
+        }
+        return BalancerStrategies.fromName(strategy);
+    }
+
+    /**
+     * Gets the policy deciding when members are ejected, and when their circuit is opened. By default, it is read
+     * from the configuration (see {@link HealthPolicy#fromConfiguration(Configuration)}).
+     *
+     * @return the policy
+     */
+    protected HealthPolicy getHealthPolicy() {
+        if (configuration == null) {
+            return new HealthPolicy();
+        }
+        return HealthPolicy.fromConfiguration(configuration);
+    }
+
+    /**
+     * @return a copy of the statistics of the members.
+     */
+    @Override
+    public synchronized List<BalancerMemberStatistics> getMemberStatistics() {
+        return new ArrayList<>(members);
+    }
+
     /**
      * Checks whether or not the reverse routing support is enabled (false by default).
      *
@@ -293,7 +468,7 @@ public class BalancerFilter extends ProxyFilter implements Filter {
     public synchronized void addMember(BalancerMember member) {
         if (member.getBalancerName().equals(name)) {
             logger.info("Adding balancer member '{}' to balancer '{}'", member.getName(), name);
-            members.add(member);
+            members.add(new BalancerMemberStatistics(member, policy));
         }
     }
 
@@ -303,8 +478,12 @@ public class BalancerFilter extends ProxyFilter implements Filter {
      * @param member the member.
      */
     public synchronized void removeMember(BalancerMember member) {
-        if (members.remove(member)) {
-            logger.info("Removing balancer member '{}' from balancer '{}'", member.getName(), name);
+        for (Iterator<BalancerMemberStatistics> iterator = members.iterator(); iterator.hasNext(); ) {
+            if (iterator.next().getMember().equals(member)) {
+                iterator.remove();
+                logger.info("Removing balancer member '{}' from balancer '{}'", member.getName(), name);
+                return;
+            }
         }
     }
 }
@@ -0,0 +1,304 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.framework.filters;
+
+import org.wisdom.api.interception.BalancerStatistics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tracks the load and the health of a {@link BalancerMember}: the number of outstanding requests, the peak
+ * weighted moving average of the latency (past latencies decay exponentially, but a slower response is taken
+ * immediately into account), the error rate, and the state of its circuit breaker.
+ * <p>
+ * Times are given in nanoseconds, as returned by {@link System#nanoTime()}.
+ * <p>
+ * A request is sent to the member once a {@link Permit} is acquired, and the permit is given back when the request
+ * completes (or is cancelled). When the circuit is half-open, a single request gets the {@link Permit#PROBE}
+ * permit, and only its outcome closes or re-opens the circuit.
+ */
+public class BalancerMemberStatistics implements BalancerStatistics.Member {
+
+    /**
+     * The permit given to a request sent to the member.
+     */
+    public enum Permit {
+        /**
+         * A regular request.
+         */
+        REQUEST,
+        /**
+         * The single request probing a half-open circuit.
+         */
+        PROBE
+    }
+
+    private enum Circuit {
+        CLOSED("closed"), OPEN("open"), HALF_OPEN("half-open");
+
+        private final String name;
+
+        Circuit(String name) {
+            this.name = name;
+        }
+    }
+
+    private final BalancerMember member;
+    private final HealthPolicy policy;
+    private final AtomicInteger outstanding = new AtomicInteger();
+
+    // All the following fields are guarded by this.
+    private long requests;
+    private long errors;
+    private double latency;
+    private boolean observed;
+    private long latencyStamp;
+    private long windowStart;
+    private int windowRequests;
+    private int windowErrors;
+    private boolean ejected;
+    private long ejectedUntil;
+    private Circuit circuit = Circuit.CLOSED;
+    private int consecutiveFailures;
+    private long openUntil;
+    private boolean probing;
+
+    /**
+     * Creates the statistics of a member.
+     *
+     * @param member the member
+     * @param policy the health policy
+     */
+    public BalancerMemberStatistics(BalancerMember member, HealthPolicy policy) {
+        this.member = member;
+        this.policy = policy;
+    }
+
+    /**
+     * @return the member.
+     */
+    public BalancerMember getMember() {
+        return member;
+    }
+
+    /**
+     * Checks whether the member can receive a request. It's not the case when the member is ejected, its circuit
+     * is open, or its circuit is half-open and a probe request is in progress.
+     *
+     * @param now the current time
+     * @return {@literal true} if the member can receive a request
+     */
+    public synchronized boolean isAvailable(long now) {
+        if (isEjected(now)) {
+            return false;
+        }
+        switch (circuit) {
+            case OPEN:
+                return now - openUntil >= 0;
+            case HALF_OPEN:
+                return !probing;
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * Atomically checks whether the member is available, and acquires a permit to send it a request. When the
+     * circuit is open and its open duration has elapsed, the circuit becomes half-open and the request gets the
+     * probe permit.
+     *
+     * @param now the current time
+     * @return the permit, {@literal null} if the member is not available
+     */
+    public synchronized Permit tryAcquire(long now) {
+        if (!isAvailable(now)) {
+            return null;
+        }
+        Permit permit = Permit.REQUEST;
+        if (circuit != Circuit.CLOSED) {
+            // Either an open circuit whose open duration has elapsed, or a half-open circuit without probe.
+            circuit = Circuit.HALF_OPEN;
+            probing = true;
+            permit = Permit.PROBE;
+        }
+        requests++;
+        outstanding.incrementAndGet();
+        return permit;
+    }
+
+    /**
+     * Acquires a permit to send a request to the member, whether it is available or not. It is used when no
+     * member is available, or when the member is selected by another policy. The request is never a probe.
+     *
+     * @param now the current time
+     * @return the permit
+     */
+    public synchronized Permit acquire(long now) {
+        requests++;
+        outstanding.incrementAndGet();
+        return Permit.REQUEST;
+    }
+
+    /**
+     * Gives back a permit whose request has not been sent. The outcome is not recorded.
+     *
+     * @param permit the permit
+     */
+    public synchronized void release(Permit permit) {
+        requests--;
+        outstanding.decrementAndGet();
+        if (permit == Permit.PROBE) {
+            probing = false;
+        }
+    }
+
+    /**
+     * Notifies that a request sent to the member has completed. The circuit is closed or re-opened by the outcome
+     * of the probe. Otherwise, the failures of the requests sent while the circuit is closed open it once they
+     * reach the threshold; the outcome of the other requests (sent before the circuit opened, or while no member
+     * is available) does not change the circuit.
+     *
+     * @param now      the current time
+     * @param duration the time between the emission of the request and the reception of the response
+     * @param failure  whether or not the request has failed
+     * @param permit   the permit of the request
+     */
+    public synchronized void end(long now, long duration, boolean failure, Permit permit) {
+        outstanding.decrementAndGet();
+        observeLatency(now, duration);
+
+        if (now - windowStart >= TimeUnit.MILLISECONDS.toNanos(policy.getWindow())) {
+            windowStart = now;
+            windowRequests = 0;
+            windowErrors = 0;
+        }
+        windowRequests++;
+        if (failure) {
+            errors++;
+            windowErrors++;
+        }
+
+        if (permit == Permit.PROBE) {
+            probing = false;
+            if (failure) {
+                open(now);
+            } else {
+                circuit = Circuit.CLOSED;
+                consecutiveFailures = 0;
+            }
+        } else if (circuit == Circuit.CLOSED) {
+            if (!failure) {
+                consecutiveFailures = 0;
+            } else if (++consecutiveFailures >= policy.getFailureThreshold()) {
+                open(now);
+            }
+        }
+
+        boolean tooManyErrors = windowRequests >= policy.getMinRequests()
+                && windowErrors >= policy.getMaxErrorRate() * windowRequests;
+        boolean tooSlow = policy.getMaxLatency() > 0
+                && latency > TimeUnit.MILLISECONDS.toNanos(policy.getMaxLatency());
+        if (tooManyErrors || tooSlow) {
+            ejected = true;
+            ejectedUntil = now + TimeUnit.MILLISECONDS.toNanos(policy.getEjectionDuration());
+            windowStart = now;
+            windowRequests = 0;
+            windowErrors = 0;
+        }
+    }
+
+    private void open(long now) {
+        circuit = Circuit.OPEN;
+        consecutiveFailures = 0;
+        openUntil = now + TimeUnit.MILLISECONDS.toNanos(policy.getOpenDuration());
+    }
+
+    private void observeLatency(long now, long duration) {
+        // Peak-EWMA: a slower response is taken immediately, faster ones are averaged.
+        double current = latency(now);
+        if (duration > current) {
+            latency = duration;
+        } else {
+            double weight = Math.exp(-(double) (now - latencyStamp) / TimeUnit.MILLISECONDS.toNanos(policy.getDecay()));
+            latency = current * weight + duration * (1 - weight);
+        }
+        latencyStamp = now;
+        observed = true;
+    }
+
+    private double latency(long now) {
+        if (!observed) {
+            return 0;
+        }
+        // The average decays while no response is received.
+        return latency * Math.exp(-(double) (now - latencyStamp) / TimeUnit.MILLISECONDS.toNanos(policy.getDecay()));
+    }
+
+    /**
+     * Computes the cost of sending a request to the member: its latency weighted by its number of outstanding
+     * requests. Members without known latency are compared on their outstanding requests.
+     *
+     * @param now the current time
+     * @return the cost
+     */
+    public synchronized double getCost(long now) {
+        return (latency(now) + 1) * (outstanding.get() + 1);
+    }
+
+    @Override
+    public String getName() {
+        return member.getName();
+    }
+
+    @Override
+    public int getOutstandingRequests() {
+        return outstanding.get();
+    }
+
+    @Override
+    public synchronized double getLatency() {
+        return latency(System.nanoTime()) / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    @Override
+    public synchronized long getRequestCount() {
+        return requests;
+    }
+
+    @Override
+    public synchronized long getErrorCount() {
+        return errors;
+    }
+
+    @Override
+    public synchronized boolean isEjected() {
+        return isEjected(System.nanoTime());
+    }
+
+    private boolean isEjected(long now) {
+        return ejected && now - ejectedUntil < 0;
+    }
+
+    @Override
+    public synchronized String getCircuitState() {
+        return circuit.name;
+    }
+}
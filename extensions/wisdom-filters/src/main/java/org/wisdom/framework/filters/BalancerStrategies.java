@@ -0,0 +1,162 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.framework.filters;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The {@link BalancerStrategy} implementations. Strategies are stateful, a new instance must be created for each
+ * balancer.
+ */
+public final class BalancerStrategies {
+
+    /**
+     * The name of the round-robin strategy.
+     */
+    public static final String ROUND_ROBIN = "round-robin";
+
+    /**
+     * The name of the least-outstanding-requests strategy.
+     */
+    public static final String LEAST_OUTSTANDING_REQUESTS = "least-outstanding";
+
+    /**
+     * The name of the peak-EWMA strategy.
+     */
+    public static final String PEAK_EWMA = "peak-ewma";
+
+    /**
+     * The name of the power-of-two-choices strategy.
+     */
+    public static final String POWER_OF_TWO_CHOICES = "p2c";
+
+    private BalancerStrategies() {
+        // Avoid direct instantiation.
+    }
+
+    /**
+     * Creates the strategy having the given name.
+     *
+     * @param name the name, one of {@link #ROUND_ROBIN}, {@link #LEAST_OUTSTANDING_REQUESTS}, {@link #PEAK_EWMA} and
+     *             {@link #POWER_OF_TWO_CHOICES}
+     * @return the strategy
+     * @throws IllegalArgumentException if the name is unknown
+     */
+    public static BalancerStrategy fromName(String name) {
+        switch (name.trim().toLowerCase(Locale.ENGLISH)) {
+            case ROUND_ROBIN:
+                return roundRobin();
+            case LEAST_OUTSTANDING_REQUESTS:
+                return leastOutstandingRequests();
+            case PEAK_EWMA:
+                return peakEwma();
+            case POWER_OF_TWO_CHOICES:
+                return powerOfTwoChoices();
+            default:
+                throw new IllegalArgumentException("Unknown balancer strategy: " + name);
+        }
+    }
+
+    /**
+     * Creates a strategy selecting the members in turn.
+     *
+     * @return the strategy
+     */
+    public static BalancerStrategy roundRobin() {
+        final AtomicLong counter = new AtomicLong();
+        return (candidates, now) -> candidates.get(index(counter, candidates));
+    }
+
+    /**
+     * Creates a strategy selecting the member with the fewest outstanding requests. Ties are broken in turn.
+     *
+     * @return the strategy
+     */
+    public static BalancerStrategy leastOutstandingRequests() {
+        final AtomicLong counter = new AtomicLong();
+        return (candidates, now) -> {
+            int start = index(counter, candidates);
+            BalancerMemberStatistics best = null;
+            for (int i = 0; i < candidates.size(); i++) {
+                BalancerMemberStatistics member = candidates.get((start + i) % candidates.size());
+                if (best == null || member.getOutstandingRequests() < best.getOutstandingRequests()) {
+                    best = member;
+                }
+            }
+            return best;
+        };
+    }
+
+    /**
+     * Creates a strategy selecting the member with the lowest cost, i.e. the peak weighted moving average of its
+     * latency multiplied by its number of outstanding requests. Ties are broken in turn.
+     *
+     * @return the strategy
+     */
+    public static BalancerStrategy peakEwma() {
+        final AtomicLong counter = new AtomicLong();
+        return (candidates, now) -> {
+            int start = index(counter, candidates);
+            BalancerMemberStatistics best = null;
+            double cost = Double.MAX_VALUE;
+            for (int i = 0; i < candidates.size(); i++) {
+                BalancerMemberStatistics member = candidates.get((start + i) % candidates.size());
+                double c = member.getCost(now);
+                if (c < cost) {
+                    best = member;
+                    cost = c;
+                }
+            }
+            return best;
+        };
+    }
+
+    /**
+     * Creates a strategy picking two members at random, and selecting the one with the lowest cost (see {@link
+     * #peakEwma()}). It avoids the slow members without sending all the requests to the fastest one, and does not
+     * scan all the members.
+     *
+     * @return the strategy
+     */
+    public static BalancerStrategy powerOfTwoChoices() {
+        return (candidates, now) -> {
+            int size = candidates.size();
+            if (size == 1) {
+                return candidates.get(0);
+            }
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int first = random.nextInt(size);
+            int second = random.nextInt(size - 1);
+            if (second >= first) {
+                second++;
+            }
+            BalancerMemberStatistics a = candidates.get(first);
+            BalancerMemberStatistics b = candidates.get(second);
+            return a.getCost(now) <= b.getCost(now) ? a : b;
+        };
+    }
+
+    private static int index(AtomicLong counter, List<BalancerMemberStatistics> candidates) {
+        return (int) Math.floorMod(counter.getAndIncrement(), (long) candidates.size());
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.framework.filters;
+
+import java.util.List;
+
+/**
+ * Selects the member receiving a request among the available members of a {@link BalancerFilter}. Implementations
+ * are provided by {@link BalancerStrategies}.
+ */
+public interface BalancerStrategy {
+
+    /**
+     * Selects a member.
+     *
+     * @param candidates the available members, never empty
+     * @param now        the current time, as returned by {@link System#nanoTime()}
+     * @return the selected member
+     */
+    BalancerMemberStatistics select(List<BalancerMemberStatistics> candidates, long now);
+}
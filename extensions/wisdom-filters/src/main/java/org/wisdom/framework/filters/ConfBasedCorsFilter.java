@@ -83,6 +83,7 @@ public class ConfBasedCorsFilter extends AbstractCorsFilter {
         if (configuration.has("cors.max-age")) {
             preflightMaxAge = configuration.getIntegerWithDefault(CORS_FILTER_MAX_AGE, 3600);
         }
+        clearPreflightCache();
 
     }
 
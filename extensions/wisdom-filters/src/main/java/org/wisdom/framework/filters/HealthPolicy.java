@@ -0,0 +1,183 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.framework.filters;
+
+import org.wisdom.api.configuration.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The settings of the passive health tracking of the members of a {@link BalancerFilter}. Members are temporarily
+ * ejected when their error rate (or latency) is too high, and each member has a circuit breaker opened after a
+ * number of consecutive failures. Once the circuit has been open for a while, a probe request is let through
+ * (half-open state): the circuit is closed if it succeeds, and opened again otherwise.
+ * <p>
+ * Durations are in milliseconds.
+ */
+public class HealthPolicy {
+
+    private double maxErrorRate = 0.5;
+    private int minRequests = 10;
+    private long window = 10000;
+    private long ejectionDuration = 30000;
+    private long maxLatency;
+    private int failureThreshold = 5;
+    private long openDuration = 10000;
+    private long decay = 10000;
+
+    /**
+     * Creates a policy from the given configuration. The supported keys are {@literal health.errorRate}, {@literal
+     * health.minRequests}, {@literal health.window}, {@literal health.ejection}, {@literal health.maxLatency},
+     * {@literal circuit.failures}, {@literal circuit.open} and {@literal latency.decay}. Durations are given using
+     * the duration syntax ({@literal 10s}, {@literal 500ms}...).
+     *
+     * @param configuration the configuration, may be {@literal null}
+     * @return the policy, using the default values for the keys not set
+     */
+    public static HealthPolicy fromConfiguration(Configuration configuration) {
+        HealthPolicy policy = new HealthPolicy();
+        if (configuration == null) {
+            return policy;
+        }
+        Double rate = configuration.getDoubleWithDefault("health.errorRate", policy.maxErrorRate);
+        Integer requests = configuration.getIntegerWithDefault("health.minRequests", policy.minRequests);
+        Integer failures = configuration.getIntegerWithDefault("circuit.failures", policy.failureThreshold);
+        if (rate != null && rate > 0) {
+            policy.maxErrorRate = rate;
+        }
+        if (requests != null && requests > 0) {
+            policy.minRequests = requests;
+        }
+        if (failures != null && failures > 0) {
+            policy.failureThreshold = failures;
+        }
+        policy.window = duration(configuration, "health.window", policy.window);
+        policy.ejectionDuration = duration(configuration, "health.ejection", policy.ejectionDuration);
+        policy.maxLatency = duration(configuration, "health.maxLatency", policy.maxLatency);
+        policy.openDuration = duration(configuration, "circuit.open", policy.openDuration);
+        policy.decay = duration(configuration, "latency.decay", policy.decay);
+        return policy;
+    }
+
+    private static long duration(Configuration configuration, String key, long defaultValue) {
+        Long value = configuration.getDuration(key, TimeUnit.MILLISECONDS, defaultValue);
+        return value == null || value <= 0 ? defaultValue : value;
+    }
+
+    /**
+     * @return the error rate (between 0 and 1) above which a member is ejected, {@literal 0.5} by default.
+     */
+    public double getMaxErrorRate() {
+        return maxErrorRate;
+    }
+
+    public HealthPolicy setMaxErrorRate(double maxErrorRate) {
+        this.maxErrorRate = maxErrorRate;
+        return this;
+    }
+
+    /**
+     * @return the number of requests a member must have received during the window before its error rate is
+     * checked, {@literal 10} by default.
+     */
+    public int getMinRequests() {
+        return minRequests;
+    }
+
+    public HealthPolicy setMinRequests(int minRequests) {
+        this.minRequests = minRequests;
+        return this;
+    }
+
+    /**
+     * @return the duration of the window on which the error rate is computed, {@literal 10} seconds by default.
+     */
+    public long getWindow() {
+        return window;
+    }
+
+    public HealthPolicy setWindow(long window) {
+        this.window = window;
+        return this;
+    }
+
+    /**
+     * @return the time during which an unhealthy member does not receive requests, {@literal 30} seconds by
+     * default.
+     */
+    public long getEjectionDuration() {
+        return ejectionDuration;
+    }
+
+    public HealthPolicy setEjectionDuration(long ejectionDuration) {
+        this.ejectionDuration = ejectionDuration;
+        return this;
+    }
+
+    /**
+     * @return the latency above which a member is ejected, {@literal 0} (disabled) by default.
+     */
+    public long getMaxLatency() {
+        return maxLatency;
+    }
+
+    public HealthPolicy setMaxLatency(long maxLatency) {
+        this.maxLatency = maxLatency;
+        return this;
+    }
+
+    /**
+     * @return the number of consecutive failures opening the circuit of a member, {@literal 5} by default.
+     */
+    public int getFailureThreshold() {
+        return failureThreshold;
+    }
+
+    public HealthPolicy setFailureThreshold(int failureThreshold) {
+        this.failureThreshold = failureThreshold;
+        return this;
+    }
+
+    /**
+     * @return the time during which the circuit stays open before a probe request is let through, {@literal 10}
+     * seconds by default.
+     */
+    public long getOpenDuration() {
+        return openDuration;
+    }
+
+    public HealthPolicy setOpenDuration(long openDuration) {
+        this.openDuration = openDuration;
+        return this;
+    }
+
+    /**
+     * @return the decay time of the latency average: past latencies weight less than {@literal 1/e} after this
+     * delay, {@literal 10} seconds by default.
+     */
+    public long getDecay() {
+        return decay;
+    }
+
+    public HealthPolicy setDecay(long decay) {
+        this.decay = decay;
+        return this;
+    }
+}
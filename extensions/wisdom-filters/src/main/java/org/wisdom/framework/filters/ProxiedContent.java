@@ -0,0 +1,210 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.framework.filters;
+
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.streams.ReadStream;
+import org.wisdom.api.http.Context;
+import org.wisdom.api.http.Renderable;
+import org.wisdom.api.http.RenderableException;
+import org.wisdom.api.http.Result;
+
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A renderable object wrapping the content of a response received from a proxied server. The content is not read
+ * here: the Vert.x engine pumps it to the client, pausing the proxied server when the client does not read fast
+ * enough. The stream is paused until the engine starts pumping it.
+ * <p>
+ * The stream is claimed by the first consumer setting a handler on it. When the result wrapping this object is
+ * dropped (replaced by an interceptor, or arriving after a timeout), nobody claims it, and the connection to the
+ * proxied server would stay paused. Such content is discarded: the stream is resumed and its content drained, so the
+ * connection goes back to the pool.
+ */
+class ProxiedContent implements Renderable<ReadStream<Buffer>> {
+
+    private final ReadStream<Buffer> source;
+    private final ReadStream<Buffer> stream;
+    private final long length;
+    private final AtomicBoolean claimed = new AtomicBoolean();
+    private volatile Vertx vertx;
+    private volatile long timer = -1;
+
+    /**
+     * Creates a new renderable object.
+     *
+     * @param source the content, paused
+     * @param length the length of the content, {@literal -1} if unknown
+     */
+    ProxiedContent(ReadStream<Buffer> source, long length) {
+        this.source = source;
+        this.stream = new ClaimedStream();
+        this.length = length;
+    }
+
+    /**
+     * Discards the content if it is not claimed within the given delay.
+     *
+     * @param vertx the Vert.x instance used to schedule the check, the current context is used
+     * @param delay the delay in milliseconds
+     */
+    void discardIfUnclaimed(Vertx vertx, long delay) {
+        this.vertx = vertx;
+        this.timer = vertx.setTimer(delay, id -> discard());
+    }
+
+    /**
+     * Discards the content if it is not claimed yet: the source is resumed, and its content ignored.
+     *
+     * @return {@literal true} if the content has been discarded, {@literal false} if it was already claimed
+     */
+    boolean discard() {
+        if (!claimed.compareAndSet(false, true)) {
+            return false;
+        }
+        source.handler(buffer -> {
+            // Ignored.
+        });
+        source.resume();
+        return true;
+    }
+
+    private void claim() {
+        if (claimed.compareAndSet(false, true)) {
+            long id = timer;
+            if (id != -1) {
+                vertx.cancelTimer(id);
+            }
+        }
+    }
+
+    /**
+     * The content can only be pumped by the Vert.x engine.
+     *
+     * @param context the HTTP context
+     * @param result  the result having built this renderable object
+     * @return nothing
+     * @throws RenderableException always
+     */
+    @Override
+    public InputStream render(Context context, Result result) throws RenderableException {
+        throw new RenderableException("The content of proxied responses can only be sent by the Vert.x engine");
+    }
+
+    /**
+     * @return the length given by the proxied server, {@literal -1} if unknown.
+     */
+    @Override
+    public long length() {
+        return length;
+    }
+
+    /**
+     * @return {@literal null}, the {@literal Content-Type} header of the proxied server is copied to the result.
+     */
+    @Override
+    public String mimetype() {
+        return null;
+    }
+
+    /**
+     * Gets the stream emitting the content.
+     *
+     * @return the stream
+     */
+    @Override
+    public ReadStream<Buffer> content() {
+        return stream;
+    }
+
+    /**
+     * The content is already serialized.
+     *
+     * @return {@literal false}
+     */
+    @Override
+    public boolean requireSerializer() {
+        return false;
+    }
+
+    /**
+     * As the content is already serialized, this method should not be used.
+     *
+     * @param serialized the serialized form
+     */
+    @Override
+    public void setSerializedForm(String serialized) {
+        // Nothing because serialization is not supported for this renderable class.
+    }
+
+    /**
+     * @return {@literal true}, the content is sent as it is received.
+     */
+    @Override
+    public boolean mustBeChunked() {
+        return true;
+    }
+
+    /**
+     * The stream returned to the consumers, claiming the content when a handler is set.
+     */
+    private class ClaimedStream implements ReadStream<Buffer> {
+
+        @Override
+        public ReadStream<Buffer> exceptionHandler(Handler<Throwable> handler) {
+            source.exceptionHandler(handler);
+            return this;
+        }
+
+        @Override
+        public ReadStream<Buffer> handler(Handler<Buffer> handler) {
+            if (handler != null) {
+                claim();
+            }
+            source.handler(handler);
+            return this;
+        }
+
+        @Override
+        public ReadStream<Buffer> pause() {
+            source.pause();
+            return this;
+        }
+
+        @Override
+        public ReadStream<Buffer> resume() {
+            claim();
+            source.resume();
+            return this;
+        }
+
+        @Override
+        public ReadStream<Buffer> endHandler(Handler<Void> handler) {
+            if (handler != null) {
+                claim();
+            }
+            source.endHandler(handler);
+            return this;
+        }
+    }
+}
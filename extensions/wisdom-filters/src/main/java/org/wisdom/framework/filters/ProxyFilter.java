@@ -22,39 +22,53 @@ package org.wisdom.framework.filters;
 import com.google.common.base.Splitter;
 import com.google.common.base.Strings;
 import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Multimap;
-import org.apache.http.Header;
-import org.apache.http.HttpEntity;
-import org.apache.http.HttpHost;
-import org.apache.http.HttpResponse;
-import org.apache.http.client.HttpClient;
-import org.apache.http.cookie.Cookie;
-import org.apache.http.entity.ByteArrayEntity;
-import org.apache.http.entity.ContentType;
-import org.apache.http.impl.client.BasicCookieStore;
-import org.apache.http.impl.client.DefaultRedirectStrategy;
-import org.apache.http.impl.client.HttpClients;
-import org.apache.http.message.BasicHttpEntityEnclosingRequest;
+import io.vertx.core.MultiMap;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpClientOptions;
+import io.vertx.core.http.HttpClientRequest;
+import io.vertx.core.http.HttpClientResponse;
+import io.vertx.core.http.HttpMethod;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.wisdom.api.bodies.RenderableStream;
 import org.wisdom.api.configuration.Configuration;
-import org.wisdom.api.http.*;
+import org.wisdom.api.http.CompletionStageResult;
+import org.wisdom.api.http.HeaderNames;
+import org.wisdom.api.http.Renderable;
+import org.wisdom.api.http.Request;
+import org.wisdom.api.http.Result;
+import org.wisdom.api.http.Results;
+import org.wisdom.api.http.Status;
 import org.wisdom.api.interception.Filter;
 import org.wisdom.api.interception.RequestContext;
 import org.wisdom.api.router.Route;
 
-import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.*;
-import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.regex.Pattern;
 
 /**
  * A filter implementation to extend to create a transparent proxy to a specific location.
+ * <p>
+ * Requests are re-emitted using the Vert.x HTTP client, without blocking any thread. The connections to the
+ * proxied servers are kept alive and pooled (per destination), and the content of the responses is pumped to the
+ * client as it is received: the proxied server is paused when the client does not read fast enough. A client (and
+ * so a set of pools) is created per Vert.x context, so the connections of a request are handled by the event loop
+ * having received it.
+ * <p>
+ * The filter is {@link AutoCloseable}: the router closes it when its service goes away, so the HTTP clients (and their
+ * connections) of invalidated or reconfigured instances are released.
  */
-public class ProxyFilter implements Filter {
+public class ProxyFilter implements Filter, AutoCloseable {
 
 
     private static final Set<String> HOP_HEADERS = new HashSet<>();
@@ -71,10 +85,27 @@ public class ProxyFilter implements Filter {
         HOP_HEADERS.add("upgrade");
     }
 
+    /**
+     * The status of the redirections that may be followed.
+     */
+    private static final Set<Integer> REDIRECTIONS = ImmutableSet.of(301, 302, 303, 307, 308);
+
+    /**
+     * The maximum number of redirections followed for a request.
+     */
+    private static final int MAX_REDIRECTIONS = 10;
+
+    /**
+     * The time (in milliseconds) after which the content of a response not pumped by the engine is discarded. It
+     * happens when the result is dropped, for example when it is replaced by an interceptor.
+     */
+    private static final long UNCLAIMED_CONTENT_TIMEOUT = 10000L;
+
     protected final Configuration configuration;
 
     protected Logger logger;
-    private HttpClient client;
+    private final ConcurrentMap<Object, HttpClient> clients = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Object, HttpClient> secureClients = new ConcurrentHashMap<>();
     private String proxyTo;
     protected String prefix;
 
@@ -93,7 +124,6 @@ public class ProxyFilter implements Filter {
     public ProxyFilter(Configuration conf) {
         configuration = conf;
         logger = createLogger();
-        client = newHttpClient();
         proxyTo = getProxyTo();
         prefix = getPrefix();
 
@@ -107,36 +137,84 @@ public class ProxyFilter implements Filter {
     }
 
     /**
-     * Retrieves the HTTP Client instance used by this filter.
+     * Retrieves the HTTP Client instance used by this filter to reach the given destination from the current
+     * Vert.x context. Clients are created on demand, one per Vert.x context (and per scheme).
      *
+     * @param destination the destination
      * @return the HTTP Client instance
      */
-    public HttpClient getClient() {
+    public HttpClient getClient(URI destination) {
+        boolean ssl = "https".equalsIgnoreCase(destination.getScheme());
+        ConcurrentMap<Object, HttpClient> map = ssl ? secureClients : clients;
+        io.vertx.core.Context context = Vertx.currentContext();
+        Object key = context == null ? this : context;
+        HttpClient client = map.get(key);
+        if (client == null) {
+            client = newHttpClient(ssl);
+            HttpClient previous = map.putIfAbsent(key, client);
+            if (previous != null) {
+                client.close();
+                client = previous;
+            }
+        }
         return client;
     }
 
     /**
-     * Allows you do override the HTTP Client used to execute the requests.
-     * By default, it used a custom client without cookies.
+     * Allows you do override the HTTP Client used to execute the requests. By default, it creates a client using
+     * the options returned by {@link #getClientOptions()}.
      *
+     * @param ssl whether or not the client is used to reach {@literal https} destinations
      * @return the HTTP Client instance
      */
-    protected HttpClient newHttpClient() {
-        return HttpClients.custom()
-                // Do not manage redirection.
-                .setRedirectStrategy(new DefaultRedirectStrategy() {
-                    @Override
-                    protected boolean isRedirectable(String method) {
-                        return followRedirect(method);
-                    }
-                })
-                .setDefaultCookieStore(new BasicCookieStore() {
-                    @Override
-                    public synchronized List<Cookie> getCookies() {
-                        return Collections.emptyList();
-                    }
-                })
-                .build();
+    protected HttpClient newHttpClient(boolean ssl) {
+        return vertx().createHttpClient(getClientOptions().setSsl(ssl));
+    }
+
+    /**
+     * Gets the options of the HTTP clients. Connections are kept alive, and pooled per destination. The pool size,
+     * and the connect and idle timeouts are read from the configuration.
+     *
+     * @return the options
+     */
+    protected HttpClientOptions getClientOptions() {
+        return new HttpClientOptions()
+                .setKeepAlive(true)
+                .setMaxPoolSize(getMaxPoolSize())
+                .setConnectTimeout((int) getConnectTimeout())
+                .setIdleTimeout((int) getIdleTimeout());
+    }
+
+    /**
+     * Gets the Vert.x instance used to create the HTTP clients. By default, it returns the instance owning the
+     * current Vert.x context, as filters are called from the event loop having received the request.
+     *
+     * @return the Vert.x instance
+     * @throws IllegalStateException if the current thread is not a Vert.x thread
+     */
+    protected Vertx vertx() {
+        io.vertx.core.Context context = Vertx.currentContext();
+        if (context == null) {
+            throw new IllegalStateException("The proxy must be called from a Vert.x thread");
+        }
+        return context.owner();
+    }
+
+    /**
+     * Closes the HTTP clients, and so the connections opened to the proxied servers. It is called by the router when
+     * the filter is unbound (because the instance is invalidated or reconfigured). Clients are created again if the
+     * filter is used afterwards.
+     */
+    @Override
+    public void close() {
+        for (HttpClient client : clients.values()) {
+            client.close();
+        }
+        clients.clear();
+        for (HttpClient client : secureClients.values()) {
+            client.close();
+        }
+        secureClients.clear();
     }
 
     /**
@@ -161,8 +239,12 @@ public class ProxyFilter implements Filter {
 
     /**
      * The interception method. Re-emit the request to the target folder and forward the response. This method
-     * returns an {@link org.wisdom.api.http.AsyncResult} as the proxy need to be run in another thread. It also
-     * invokes a couple of callbacks letting developers to customize the request and result.
+     * returns a {@link org.wisdom.api.http.CompletionStageResult} completed when the response headers are received,
+     * no thread waits for the proxied server. It also invokes a couple of callbacks letting developers to customize
+     * the request and result.
+     * <p>
+     * The content of the request is read by the engine before this method is called, and sent at once. The content
+     * of the response is streamed.
      *
      * @param route   the route
      * @param context the filter context
@@ -171,86 +253,234 @@ public class ProxyFilter implements Filter {
      */
     @Override
     public Result call(final Route route, final RequestContext context) throws Exception {
-        return new AsyncResult(new Callable<Result>() {
-            @Override
-            public Result call() throws Exception {
-                URI rewrittenURI = rewriteURI(context);
-                logger.debug("Proxy request - rewriting {} to {}", context.request().uri(), rewrittenURI);
-                if (rewrittenURI == null) {
-                    return onRewriteFailed(context);
-                }
+        URI rewrittenURI = rewriteURI(context);
+        logger.debug("Proxy request - rewriting {} to {}", context.request().uri(), rewrittenURI);
+        if (rewrittenURI == null) {
+            return onRewriteFailed(context);
+        }
+        return proxy(context, rewrittenURI);
+    }
 
-                BasicHttpEntityEnclosingRequest request
-                        = new BasicHttpEntityEnclosingRequest(context.request().method(), rewrittenURI.toString());
-                // Any header listed by the Connection header must be removed:
-                // http://tools.ietf.org/html/rfc7230#section-6.1.
-                Set<String> hopHeaders = new HashSet<>();
-                List<String> connectionHeaders = context.request().headers().get(HeaderNames.CONNECTION);
-                for (String s : connectionHeaders) {
-                    for (String entry : Splitter.on(",").omitEmptyStrings().trimResults().splitToList(s)) {
-                        hopHeaders.add(entry.toLowerCase(Locale.ENGLISH));
-                    }
-                }
+    /**
+     * Emits the request to the given destination, and returns a {@link org.wisdom.api.http.CompletionStageResult}
+     * completed when the response headers are received (or when the request fails).
+     *
+     * @param context      the filter context
+     * @param rewrittenURI the URI of the proxied resource
+     * @return the result
+     */
+    protected Result proxy(final RequestContext context, final URI rewrittenURI) {
+        HttpMethod method;
+        try {
+            method = HttpMethod.valueOf(context.request().method().toUpperCase(Locale.ENGLISH));
+        } catch (IllegalArgumentException e) { //NOSONAR
+            return Results.status(Status.NOT_IMPLEMENTED);
+        }
 
-                boolean hasContent = context.request().contentType() != null;
-                final String host = getHost();
-                Multimap<String, String> headers = ArrayListMultimap.create();
-                for (Map.Entry<String, List<String>> entry : context.request().headers().entrySet()) {
-                    String name = entry.getKey();
-                    if (HeaderNames.TRANSFER_ENCODING.equalsIgnoreCase(name)) {
-                        hasContent = true;
-                    }
-                    if (host != null && HeaderNames.HOST.equalsIgnoreCase(name)) {
-                        continue;
-                    }
-                    // Remove hop-by-hop headers.
-                    String lower = name.toLowerCase(Locale.ENGLISH);
-                    if (HOP_HEADERS.contains(lower) || hopHeaders.contains(lower)) {
-                        continue;
-                    }
-
-                    for (String v : entry.getValue()) {
-                        headers.put(name, v);
-                    }
-                }
+        // Any header listed by the Connection header must be removed:
+        // http://tools.ietf.org/html/rfc7230#section-6.1.
+        Set<String> hopHeaders = getConnectionHeaders(context.request().headers().get(HeaderNames.CONNECTION));
+
+        boolean hasContent = context.request().contentType() != null;
+        final String host = getHost();
+        Multimap<String, String> headers = ArrayListMultimap.create();
+        for (Map.Entry<String, List<String>> entry : context.request().headers().entrySet()) {
+            String name = entry.getKey();
+            if (HeaderNames.TRANSFER_ENCODING.equalsIgnoreCase(name)) {
+                hasContent = true;
+            }
+            if (host != null && HeaderNames.HOST.equalsIgnoreCase(name)) {
+                continue;
+            }
+            // Remove hop-by-hop headers.
+            String lower = name.toLowerCase(Locale.ENGLISH);
+            if (HOP_HEADERS.contains(lower) || hopHeaders.contains(lower)) {
+                continue;
+            }
 
-                // Force the Host header if configured
-                headers.removeAll(HeaderNames.HOST);
-                if (host != null) {
-                    headers.put(HeaderNames.HOST, host);
-                    headers.put("X-Forwarded-Server", host);
-                } else {
-                    // Set of the URI one
-                    headers.put("X-Forwarded-Server", rewrittenURI.getHost());
-                }
+            for (String v : entry.getValue()) {
+                headers.put(name, v);
+            }
+        }
 
-                // Add proxy headers
-                if (getVia() != null) {
-                    headers.put(HeaderNames.VIA, "http/1.1 " + getVia());
-                }
-                headers.put("X-Forwarded-For", context.request().remoteAddress());
-                if (host != null) {
-                    headers.put("X-Forwarded-Host", host);
-                }
+        // Force the Host header if configured
+        headers.removeAll(HeaderNames.HOST);
+        if (host != null) {
+            headers.put(HeaderNames.HOST, host);
+            headers.put("X-Forwarded-Server", host);
+        } else {
+            // Set of the URI one
+            headers.put("X-Forwarded-Server", rewrittenURI.getHost());
+        }
 
-                updateHeaders(context, headers);
-                for (Map.Entry<String, String> s : headers.entries()) {
-                    request.addHeader(s.getKey(), s.getValue());
-                }
-                // Remove content-length as it is computed by the HTTP client.
-                request.removeHeaders(HeaderNames.CONTENT_LENGTH);
+        // Add proxy headers
+        if (getVia() != null) {
+            headers.put(HeaderNames.VIA, "http/1.1 " + getVia());
+        }
+        headers.put("X-Forwarded-For", context.request().remoteAddress());
+        if (host != null) {
+            headers.put("X-Forwarded-Host", host);
+        }
 
-                if (hasContent) {
-                    ByteArrayEntity entity = new ByteArrayEntity(context.context().raw(),
-                            ContentType.create(context.request().contentMimeType(), context.request().contentCharset()));
-                    request.setEntity(entity);
-                }
+        updateHeaders(context, headers);
+        // Remove content-length as it is computed from the sent content.
+        for (String name : new ArrayList<>(headers.keySet())) {
+            if (HeaderNames.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                headers.removeAll(name);
+            }
+        }
+
+        byte[] content = null;
+        if (hasContent) {
+            content = context.context().raw();
+        }
+
+        CompletableFuture<Result> future = new CompletableFuture<>();
+        send(context, method, rewrittenURI, headers, content, MAX_REDIRECTIONS, future);
+        return new CompletionStageResult(future);
+    }
 
-                HttpResponse response = client.execute(new HttpHost(rewrittenURI.getHost(), rewrittenURI.getPort()), request);
-                return onResult(toResult(response));
+    /**
+     * Emits the request to the proxied server. The future is completed when the response headers are received, or
+     * when the request fails.
+     *
+     * @param context      the request context
+     * @param method       the method
+     * @param destination  the URI of the proxied resource
+     * @param headers      the headers
+     * @param content      the content, {@literal null} if none
+     * @param redirections the number of redirections that can still be followed
+     * @param future       the future completed with the result
+     */
+    private void send(final RequestContext context, final HttpMethod method, final URI destination,
+                      final Multimap<String, String> headers, final byte[] content, final int redirections,
+                      final CompletableFuture<Result> future) {
+        String path = Strings.isNullOrEmpty(destination.getRawPath()) ? "/" : destination.getRawPath();
+        if (destination.getRawQuery() != null) {
+            path = path + "?" + destination.getRawQuery();
+        }
+
+        final HttpClientRequest request;
+        try {
+            request = getClient(destination).request(method, getPort(destination), destination.getHost(), path,
+                    response -> {
+                        String location = response.headers().get(HeaderNames.LOCATION);
+                        if (redirections > 0 && location != null && REDIRECTIONS.contains(response.statusCode())
+                                && followRedirect(method.name())) {
+                            // The content of the redirection is discarded.
+                            redirect(context, method, destination.resolve(location), headers, content,
+                                    response.statusCode(), redirections - 1, future);
+                            return;
+                        }
+                        // Wait until the engine pumps the content.
+                        response.pause();
+                        Result result;
+                        try {
+                            result = toResult(method, response);
+                        } catch (RuntimeException e) {
+                            response.resume();
+                            future.completeExceptionally(e);
+                            return;
+                        }
+                        complete(result, future);
+                    });
+        } catch (RuntimeException e) {
+            future.complete(onProxyFailed(context, e));
+            return;
+        }
+
+        request.exceptionHandler(t -> {
+            if (!future.isDone()) {
+                future.complete(onProxyFailed(context, t));
             }
         });
+        long timeout = getRequestTimeout();
+        if (timeout > 0) {
+            request.setTimeout(timeout);
+        }
+        for (Map.Entry<String, String> header : headers.entries()) {
+            if (header.getValue() != null) {
+                request.headers().add(header.getKey(), header.getValue());
+            }
+        }
+        if (content != null) {
+            request.putHeader(HeaderNames.CONTENT_LENGTH, Integer.toString(content.length));
+            request.end(Buffer.buffer(content));
+        } else {
+            request.end();
+        }
+    }
+
+    /**
+     * Completes the future with the result returned by {@link #onResult(Result)}. The content received from the
+     * proxied server is discarded if this callback drops it, or if it is not pumped in time (because the result has
+     * been dropped later).
+     *
+     * @param result the result built from the response of the proxied server
+     * @param future the future to complete
+     */
+    private void complete(Result result, CompletableFuture<Result> future) {
+        Renderable<?> renderable = result.getRenderable();
+        ProxiedContent content = renderable instanceof ProxiedContent ? (ProxiedContent) renderable : null;
+        Result updated;
+        try {
+            updated = onResult(result);
+        } catch (RuntimeException e) {
+            if (content != null) {
+                content.discard();
+            }
+            future.completeExceptionally(e);
+            return;
+        }
+        if (content != null) {
+            if (updated == null || updated.getRenderable() != content) {
+                content.discard();
+            } else {
+                content.discardIfUnclaimed(vertx(), UNCLAIMED_CONTENT_TIMEOUT);
+            }
+        }
+        future.complete(updated);
+    }
+
+    /**
+     * Follows a redirection. The method and content are kept for the {@literal 307} and {@literal 308} status. For
+     * the other status, the redirection is followed using a {@literal GET} request (or {@literal HEAD} for {@literal
+     * HEAD} requests) without content.
+     */
+    private void redirect(RequestContext context, HttpMethod method, URI location, Multimap<String, String> headers,
+                          byte[] content, int status, int redirections, CompletableFuture<Result> future) {
+        logger.debug("Following the redirection to {}", location);
+        if (status == 307 || status == 308) {
+            send(context, method, location, headers, content, redirections, future);
+        } else {
+            Multimap<String, String> copy = ArrayListMultimap.create(headers);
+            for (String name : headers.keySet()) {
+                if (HeaderNames.CONTENT_TYPE.equalsIgnoreCase(name)) {
+                    copy.removeAll(name);
+                }
+            }
+            send(context, method == HttpMethod.HEAD ? HttpMethod.HEAD : HttpMethod.GET, location, copy, null,
+                    redirections, future);
+        }
+    }
 
+    private static int getPort(URI destination) {
+        if (destination.getPort() != -1) {
+            return destination.getPort();
+        }
+        return "https".equalsIgnoreCase(destination.getScheme()) ? 443 : 80;
+    }
+
+    private static Set<String> getConnectionHeaders(List<String> values) {
+        Set<String> names = new HashSet<>();
+        if (values != null) {
+            for (String s : values) {
+                for (String entry : Splitter.on(",").omitEmptyStrings().trimResults().splitToList(s)) {
+                    names.add(entry.toLowerCase(Locale.ENGLISH));
+                }
+            }
+        }
+        return names;
     }
 
     /**
@@ -263,20 +493,33 @@ public class ProxyFilter implements Filter {
         // Do nothing by default.
     }
 
-    private Result toResult(HttpResponse response) throws IOException {
-        Result result = new Result(response.getStatusLine().getStatusCode());
-        // Copy headers
-        for (Header h : response.getAllHeaders()) {
-            result.with(h.getName(), h.getValue());
+    private Result toResult(HttpMethod method, HttpClientResponse response) {
+        Result result = new Result(response.statusCode());
+        MultiMap headers = response.headers();
+        Set<String> hopHeaders = getConnectionHeaders(headers.getAll(HeaderNames.CONNECTION));
+        // Copy headers, except hop-by-hop headers and the length, the engine computes the framing of the response.
+        for (Map.Entry<String, String> h : headers) {
+            String lower = h.getKey().toLowerCase(Locale.ENGLISH);
+            if (HOP_HEADERS.contains(lower) || hopHeaders.contains(lower)
+                    || HeaderNames.CONTENT_LENGTH.equalsIgnoreCase(lower)) {
+                continue;
+            }
+            result.with(h.getKey(), h.getValue());
         }
 
-        // Copy content
-        HttpEntity entity = response.getEntity();
-        if (entity != null) {
-            result.render(new RenderableStream(entity.getContent()));
-
+        String length = headers.get(HeaderNames.CONTENT_LENGTH);
+        int status = response.statusCode();
+        if (method == HttpMethod.HEAD || status < 200 || status == Status.NO_CONTENT
+                || status == Status.NOT_MODIFIED) {
+            // No content, but the length is kept for HEAD requests.
+            if (length != null) {
+                result.with(HeaderNames.CONTENT_LENGTH, length);
+            }
+            response.resume();
+        } else {
+            // Copy content
+            result.render(new ProxiedContent(response, length == null ? -1 : Long.parseLong(length.trim())));
         }
-
         return result;
     }
 
@@ -290,6 +533,24 @@ public class ProxyFilter implements Filter {
         return Results.internalServerError("Cannot proxy request - failed to compute destination");
     }
 
+    /**
+     * Callback invoked when the proxied server cannot be reached, or does not respond in time. By default, it
+     * returns a {@literal 504 - Gateway Timeout} result on timeout, and a {@literal 502 - Bad Gateway} result
+     * otherwise.
+     *
+     * @param context the request context
+     * @param failure the failure
+     * @return the result in case of failure
+     */
+    protected Result onProxyFailed(RequestContext context, Throwable failure) {
+        logger.error("Cannot proxy request {}", context.request().uri(), failure);
+        if (failure instanceof TimeoutException) {
+            return Results.status(Status.GATEWAY_TIMEOUT)
+                    .render("Cannot proxy request - the destination did not respond in time");
+        }
+        return Results.status(Status.BAD_GATEWAY).render("Cannot proxy request - the destination cannot be reached");
+    }
+
     /**
      * The callback letting you override the result received from the target server.
      *
@@ -421,4 +682,58 @@ public class ProxyFilter implements Filter {
             return configuration.get("via");
         }
     }
+
+    /**
+     * Gets the maximum number of connections kept per destination (and per Vert.x context). By default, it returns
+     * the 'maxPoolSize' entry of the configuration object, {@literal 20} if not set.
+     *
+     * @return the size of the connection pools
+     */
+    protected int getMaxPoolSize() {
+        if (configuration == null) {
+            return 20;
+        } else {
+            Integer size = configuration.getIntegerWithDefault("maxPoolSize", 20);
+            return size == null || size <= 0 ? 20 : size;
+        }
+    }
+
+    /**
+     * Gets the connect timeout in milliseconds. By default, it returns the 'connectTimeout' entry of the
+     * configuration object (a duration such as {@literal 5s}), {@literal 10} seconds if not set.
+     *
+     * @return the connect timeout in milliseconds
+     */
+    protected long getConnectTimeout() {
+        return getDuration("connectTimeout", TimeUnit.MILLISECONDS, 10000L);
+    }
+
+    /**
+     * Gets the time after which idle connections are closed, in seconds. By default, it returns the 'idleTimeout'
+     * entry of the configuration object (a duration such as {@literal 1m}), {@literal 60} seconds if not set.
+     *
+     * @return the idle timeout in seconds, {@literal 0} to keep idle connections open
+     */
+    protected long getIdleTimeout() {
+        return getDuration("idleTimeout", TimeUnit.SECONDS, 60L);
+    }
+
+    /**
+     * Gets the time to wait for the response of the proxied server, in milliseconds. By default, it returns the
+     * 'requestTimeout' entry of the configuration object (a duration such as {@literal 30s}), {@literal 0} (no
+     * timeout) if not set.
+     *
+     * @return the request timeout in milliseconds, {@literal 0} to wait forever
+     */
+    protected long getRequestTimeout() {
+        return getDuration("requestTimeout", TimeUnit.MILLISECONDS, 0L);
+    }
+
+    private long getDuration(String key, TimeUnit unit, long defaultValue) {
+        if (configuration == null) {
+            return defaultValue;
+        }
+        Long value = configuration.getDuration(key, unit, defaultValue);
+        return value == null ? defaultValue : value;
+    }
 }
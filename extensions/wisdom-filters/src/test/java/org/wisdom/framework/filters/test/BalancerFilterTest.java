@@ -22,6 +22,9 @@ package org.wisdom.framework.filters.test;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.Multimap;
 import com.google.common.net.HttpHeaders;
+import io.vertx.core.Vertx;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
 import org.junit.Test;
 import org.wisdom.api.configuration.Configuration;
 import org.wisdom.api.http.*;
@@ -29,22 +32,43 @@ import org.wisdom.api.interception.RequestContext;
 import org.wisdom.api.router.Route;
 import org.wisdom.framework.filters.BalancerFilter;
 import org.wisdom.framework.filters.BalancerMember;
+import org.wisdom.framework.filters.BalancerMemberStatistics;
 import org.wisdom.framework.filters.DefaultBalancerMember;
+import org.wisdom.framework.filters.HealthPolicy;
 import org.wisdom.test.parents.FakeContext;
 import org.wisdom.test.parents.FakeRequest;
 import org.wisdom.test.parents.WisdomUnitTest;
 
+import java.net.ServerSocket;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 public class BalancerFilterTest extends WisdomUnitTest {
 
+    private static Vertx vertx;
+    private static Upstream perdu;
+    private static Upstream perdus;
+
+    @BeforeClass
+    public static void startMembers() throws Exception {
+        vertx = Vertx.vertx();
+        perdu = new Upstream(vertx, "Vous Etes Perdu ?");
+        perdus = new Upstream(vertx, "Perdus sur Internet ?");
+    }
+
+    @AfterClass
+    public static void stopMembers() {
+        perdu.close();
+        perdus.close();
+        vertx.close();
+    }
 
     @Test
     public void testRoundRobin() throws Exception {
-        BalancerMember member1 = new DefaultBalancerMember("member-1", "http://perdu.com", "balancer");
-        BalancerMember member2 = new DefaultBalancerMember("member-2", "http://perdus.com", "balancer");
+        BalancerMember member1 = new DefaultBalancerMember("member-1", perdu.url(), "balancer");
+        BalancerMember member2 = new DefaultBalancerMember("member-2", perdus.url(), "balancer");
 
         BalancerFilter balancer = new BalancerFilter() {
 
@@ -57,6 +81,11 @@ public class BalancerFilterTest extends WisdomUnitTest {
             protected boolean followRedirect(String method) {
                 return true;
             }
+
+            @Override
+            protected Vertx vertx() {
+                return vertx;
+            }
         };
 
         balancer.addMember(member1);
@@ -71,47 +100,47 @@ public class BalancerFilterTest extends WisdomUnitTest {
 
         when(rc.context()).thenReturn(context);
         when(rc.request()).thenReturn(request);
-        Result result = ((AsyncResult) balancer.call(route, rc)).callable().call();
+        Result result = Upstream.await(balancer.call(route, rc));
 
         assertThat(result).isNotNull();
         assertThat(result.getStatusCode()).isEqualTo(Status.OK);
-        assertThat(streamToString(result)).contains("Vous Etes Perdu");
+        assertThat(Upstream.content(vertx, result).toString()).contains("Vous Etes Perdu");
 
         request = new FakeRequest(context).method(HttpMethod.GET).uri("/");
 
         when(rc.context()).thenReturn(context);
         when(rc.request()).thenReturn(request);
-        result = ((AsyncResult) balancer.call(route, rc)).callable().call();
+        result = Upstream.await(balancer.call(route, rc));
 
         assertThat(result).isNotNull();
         assertThat(result.getStatusCode()).isEqualTo(Status.OK);
-        assertThat(streamToString(result)).contains("Perdus sur Internet");
+        assertThat(Upstream.content(vertx, result).toString()).contains("Perdus sur Internet");
 
         request = new FakeRequest(context).method(HttpMethod.GET).uri("/");
 
         when(rc.context()).thenReturn(context);
         when(rc.request()).thenReturn(request);
-        result = ((AsyncResult) balancer.call(route, rc)).callable().call();
+        result = Upstream.await(balancer.call(route, rc));
 
         assertThat(result).isNotNull();
         assertThat(result.getStatusCode()).isEqualTo(Status.OK);
-        assertThat(streamToString(result)).contains("Vous Etes Perdu");
+        assertThat(Upstream.content(vertx, result).toString()).contains("Vous Etes Perdu");
 
         request = new FakeRequest(context).method(HttpMethod.GET).uri("/");
 
         when(rc.context()).thenReturn(context);
         when(rc.request()).thenReturn(request);
-        result = ((AsyncResult) balancer.call(route, rc)).callable().call();
+        result = Upstream.await(balancer.call(route, rc));
 
         assertThat(result).isNotNull();
         assertThat(result.getStatusCode()).isEqualTo(Status.OK);
-        assertThat(streamToString(result)).contains("Perdus sur Internet");
+        assertThat(Upstream.content(vertx, result).toString()).contains("Perdus sur Internet");
     }
 
     @Test
     public void testMemberDynamism() throws Exception {
-        BalancerMember member1 = new DefaultBalancerMember("member-1", "http://perdu.com", "balancer");
-        BalancerMember member2 = new DefaultBalancerMember("member-2", "http://perdus.com", "balancer");
+        BalancerMember member1 = new DefaultBalancerMember("member-1", perdu.url(), "balancer");
+        BalancerMember member2 = new DefaultBalancerMember("member-2", perdus.url(), "balancer");
 
         BalancerFilter balancer = new BalancerFilter() {
 
@@ -124,6 +153,11 @@ public class BalancerFilterTest extends WisdomUnitTest {
             protected boolean followRedirect(String method) {
                 return true;
             }
+
+            @Override
+            protected Vertx vertx() {
+                return vertx;
+            }
         };
 
         balancer.addMember(member1);
@@ -138,21 +172,21 @@ public class BalancerFilterTest extends WisdomUnitTest {
 
         when(rc.context()).thenReturn(context);
         when(rc.request()).thenReturn(request);
-        Result result = ((AsyncResult) balancer.call(route, rc)).callable().call();
+        Result result = Upstream.await(balancer.call(route, rc));
 
         assertThat(result).isNotNull();
         assertThat(result.getStatusCode()).isEqualTo(Status.OK);
-        assertThat(streamToString(result)).contains("Vous Etes Perdu");
+        assertThat(Upstream.content(vertx, result).toString()).contains("Vous Etes Perdu");
 
         request = new FakeRequest(context).method(HttpMethod.GET).uri("/");
 
         when(rc.context()).thenReturn(context);
         when(rc.request()).thenReturn(request);
-        result = ((AsyncResult) balancer.call(route, rc)).callable().call();
+        result = Upstream.await(balancer.call(route, rc));
 
         assertThat(result).isNotNull();
         assertThat(result.getStatusCode()).isEqualTo(Status.OK);
-        assertThat(streamToString(result)).contains("Perdus sur Internet");
+        assertThat(Upstream.content(vertx, result).toString()).contains("Perdus sur Internet");
 
         // Remove member1
         balancer.removeMember(member1);
@@ -161,11 +195,11 @@ public class BalancerFilterTest extends WisdomUnitTest {
 
         when(rc.context()).thenReturn(context);
         when(rc.request()).thenReturn(request);
-        result = ((AsyncResult) balancer.call(route, rc)).callable().call();
+        result = Upstream.await(balancer.call(route, rc));
 
         assertThat(result).isNotNull();
         assertThat(result.getStatusCode()).isEqualTo(Status.OK);
-        assertThat(streamToString(result)).contains("Perdus sur Internet");
+        assertThat(Upstream.content(vertx, result).toString()).contains("Perdus sur Internet");
 
         //Re-add member 1
         balancer.addMember(member1);
@@ -174,18 +208,18 @@ public class BalancerFilterTest extends WisdomUnitTest {
 
         when(rc.context()).thenReturn(context);
         when(rc.request()).thenReturn(request);
-        result = ((AsyncResult) balancer.call(route, rc)).callable().call();
+        result = Upstream.await(balancer.call(route, rc));
 
         assertThat(result).isNotNull();
         assertThat(result.getStatusCode()).isEqualTo(Status.OK);
-        assertThat(streamToString(result)).contains("Vous Etes Perdu");
+        assertThat(Upstream.content(vertx, result).toString()).contains("Vous Etes Perdu");
 
     }
 
     @Test
     public void testStickySession() throws Exception {
-        BalancerMember member1 = new DefaultBalancerMember("member-1", "http://perdu.com", "balancer");
-        BalancerMember member2 = new DefaultBalancerMember("member-2", "http://perdus.com", "balancer");
+        BalancerMember member1 = new DefaultBalancerMember("member-1", perdu.url(), "balancer");
+        BalancerMember member2 = new DefaultBalancerMember("member-2", perdus.url(), "balancer");
 
         BalancerFilter balancer = new BalancerFilter() {
 
@@ -203,6 +237,11 @@ public class BalancerFilterTest extends WisdomUnitTest {
             protected boolean followRedirect(String method) {
                 return true;
             }
+
+            @Override
+            protected Vertx vertx() {
+                return vertx;
+            }
         };
 
         balancer.addMember(member1);
@@ -219,28 +258,28 @@ public class BalancerFilterTest extends WisdomUnitTest {
 
         when(rc.context()).thenReturn(context);
         when(rc.request()).thenReturn(request);
-        Result result = ((AsyncResult) balancer.call(route, rc)).callable().call();
+        Result result = Upstream.await(balancer.call(route, rc));
 
         assertThat(result).isNotNull();
         assertThat(result.getStatusCode()).isEqualTo(Status.OK);
-        assertThat(streamToString(result)).contains("Perdus sur Internet");
+        assertThat(Upstream.content(vertx, result).toString()).contains("Perdus sur Internet");
 
         context.setParameter("_balancer", "member-1");
         request = new FakeRequest(context).method(HttpMethod.GET).uri("/");
 
         when(rc.context()).thenReturn(context);
         when(rc.request()).thenReturn(request);
-        result = ((AsyncResult) balancer.call(route, rc)).callable().call();
+        result = Upstream.await(balancer.call(route, rc));
 
         assertThat(result).isNotNull();
         assertThat(result.getStatusCode()).isEqualTo(Status.OK);
-        assertThat(streamToString(result)).contains("Vous Etes Perdu");
+        assertThat(Upstream.content(vertx, result).toString()).contains("Vous Etes Perdu");
     }
 
     @Test
     public void testFallbackOnStickySession() throws Exception {
-        BalancerMember member1 = new DefaultBalancerMember("member-1", "http://perdu.com", "balancer");
-        BalancerMember member2 = new DefaultBalancerMember("member-2", "http://perdus.com", "balancer");
+        BalancerMember member1 = new DefaultBalancerMember("member-1", perdu.url(), "balancer");
+        BalancerMember member2 = new DefaultBalancerMember("member-2", perdus.url(), "balancer");
 
         BalancerFilter balancer = new BalancerFilter() {
 
@@ -258,6 +297,11 @@ public class BalancerFilterTest extends WisdomUnitTest {
             protected boolean followRedirect(String method) {
                 return true;
             }
+
+            @Override
+            protected Vertx vertx() {
+                return vertx;
+            }
         };
 
         balancer.addMember(member1);
@@ -274,22 +318,22 @@ public class BalancerFilterTest extends WisdomUnitTest {
 
         when(rc.context()).thenReturn(context);
         when(rc.request()).thenReturn(request);
-        Result result = ((AsyncResult) balancer.call(route, rc)).callable().call();
+        Result result = Upstream.await(balancer.call(route, rc));
 
         assertThat(result).isNotNull();
         assertThat(result.getStatusCode()).isEqualTo(Status.OK);
-        assertThat(streamToString(result)).contains("Perdus sur Internet");
+        assertThat(Upstream.content(vertx, result).toString()).contains("Perdus sur Internet");
 
         context.setParameter("_balancer", "member-1");
         request = new FakeRequest(context).method(HttpMethod.GET).uri("/");
 
         when(rc.context()).thenReturn(context);
         when(rc.request()).thenReturn(request);
-        result = ((AsyncResult) balancer.call(route, rc)).callable().call();
+        result = Upstream.await(balancer.call(route, rc));
 
         assertThat(result).isNotNull();
         assertThat(result.getStatusCode()).isEqualTo(Status.OK);
-        assertThat(streamToString(result)).contains("Vous Etes Perdu");
+        assertThat(Upstream.content(vertx, result).toString()).contains("Vous Etes Perdu");
 
         // remove member - 2
         balancer.removeMember(member2);
@@ -304,13 +348,130 @@ public class BalancerFilterTest extends WisdomUnitTest {
 
         when(rc.context()).thenReturn(context);
         when(rc.request()).thenReturn(request);
-        result = ((AsyncResult) balancer.call(route, rc)).callable().call();
+        result = Upstream.await(balancer.call(route, rc));
 
         // Fallback to member-1
         assertThat(result).isNotNull();
         assertThat(result.getStatusCode()).isEqualTo(Status.OK);
-        assertThat(streamToString(result)).contains("Vous Etes Perdu");
+        assertThat(Upstream.content(vertx, result).toString()).contains("Vous Etes Perdu");
+
+    }
+
+    @Test
+    public void testFailingMemberIsAvoided() throws Exception {
+        final int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        BalancerMember member1 = new DefaultBalancerMember("member-1", "http://localhost:" + port, "balancer");
+        BalancerMember member2 = new DefaultBalancerMember("member-2", perdus.url(), "balancer");
+
+        BalancerFilter balancer = new BalancerFilter() {
+
+            @Override
+            public String getName() {
+                return "balancer";
+            }
+
+            @Override
+            protected HealthPolicy getHealthPolicy() {
+                return new HealthPolicy().setFailureThreshold(1).setOpenDuration(60000);
+            }
+
+            @Override
+            protected Vertx vertx() {
+                return vertx;
+            }
+        };
+
+        balancer.addMember(member1);
+        balancer.addMember(member2);
+
+        Route route = mock(Route.class);
+        RequestContext rc = mock(RequestContext.class);
+        FakeContext context = new FakeContext();
+        context.setPath("/");
+
+        FakeRequest request = new FakeRequest(context).method(HttpMethod.GET).uri("/");
+        when(rc.context()).thenReturn(context);
+        when(rc.request()).thenReturn(request);
+        Result result = Upstream.await(balancer.call(route, rc));
+        assertThat(result.getStatusCode()).isEqualTo(Status.BAD_GATEWAY);
+        waitForCompletion(balancer);
+
+        BalancerMemberStatistics stats = balancer.getMemberStatistics().get(0);
+        assertThat(stats.getName()).isEqualTo("member-1");
+        assertThat(stats.getErrorCount()).isEqualTo(1);
+        assertThat(stats.getCircuitState()).isEqualTo("open");
+
+        // The circuit of member-1 is open, all requests go to member-2.
+        for (int i = 0; i < 3; i++) {
+            request = new FakeRequest(context).method(HttpMethod.GET).uri("/");
+            when(rc.request()).thenReturn(request);
+            result = Upstream.await(balancer.call(route, rc));
+            assertThat(result.getStatusCode()).isEqualTo(Status.OK);
+            assertThat(Upstream.content(vertx, result).toString()).contains("Perdus sur Internet");
+        }
+        waitForCompletion(balancer);
+        assertThat(balancer.getMemberStatistics().get(1).getRequestCount()).isEqualTo(3);
+        assertThat(balancer.getMemberStatistics().get(1).getErrorCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void testOverriddenSelection() throws Exception {
+        final BalancerMember member1 = new DefaultBalancerMember("member-1", perdu.url(), "balancer");
+        final BalancerMember member2 = new DefaultBalancerMember("member-2", perdus.url(), "balancer");
+
+        BalancerFilter balancer = new BalancerFilter() {
+
+            @Override
+            public String getName() {
+                return "balancer";
+            }
 
+            @Override
+            protected BalancerMember selectBalancerMember(RequestContext request) {
+                return member2;
+            }
+
+            @Override
+            protected Vertx vertx() {
+                return vertx;
+            }
+        };
+
+        balancer.addMember(member1);
+        balancer.addMember(member2);
+
+        Route route = mock(Route.class);
+        RequestContext rc = mock(RequestContext.class);
+        FakeContext context = new FakeContext();
+        context.setPath("/");
+        when(rc.context()).thenReturn(context);
+        for (int i = 0; i < 2; i++) {
+            FakeRequest request = new FakeRequest(context).method(HttpMethod.GET).uri("/");
+            when(rc.request()).thenReturn(request);
+            Result result = Upstream.await(balancer.call(route, rc));
+            assertThat(Upstream.content(vertx, result).toString()).contains("Perdus sur Internet");
+        }
+        waitForCompletion(balancer);
+        // The requests are still tracked.
+        assertThat(balancer.getMemberStatistics().get(0).getRequestCount()).isEqualTo(0);
+        assertThat(balancer.getMemberStatistics().get(1).getRequestCount()).isEqualTo(2);
+    }
+
+    private static void waitForCompletion(BalancerFilter balancer) throws InterruptedException {
+        // The statistics are updated when the response headers are received, concurrently with the test thread.
+        for (int i = 0; i < 100; i++) {
+            boolean done = true;
+            for (BalancerMemberStatistics member : balancer.getMemberStatistics()) {
+                done = done && member.getOutstandingRequests() == 0;
+            }
+            if (done) {
+                return;
+            }
+            Thread.sleep(10);
+        }
     }
 
     @Test
@@ -0,0 +1,210 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.framework.filters.test;
+
+import org.junit.Test;
+import org.wisdom.framework.filters.BalancerMemberStatistics;
+import org.wisdom.framework.filters.BalancerMemberStatistics.Permit;
+import org.wisdom.framework.filters.DefaultBalancerMember;
+import org.wisdom.framework.filters.HealthPolicy;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.data.Offset.offset;
+
+/**
+ * Checks the health tracking of the balancer members.
+ */
+public class BalancerMemberStatisticsTest {
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final HealthPolicy policy = new HealthPolicy()
+            .setMinRequests(4)
+            .setMaxErrorRate(0.5)
+            .setWindow(1000)
+            .setEjectionDuration(5000)
+            .setFailureThreshold(3)
+            .setOpenDuration(2000)
+            .setDecay(1000);
+
+    private BalancerMemberStatistics member() {
+        return new BalancerMemberStatistics(new DefaultBalancerMember("member", "http://localhost", "balancer"),
+                policy);
+    }
+
+    private static void request(BalancerMemberStatistics member, long now, long duration, boolean failure) {
+        Permit permit = member.tryAcquire(now);
+        assertThat(permit).isNotNull();
+        member.end(now + duration, duration, failure, permit);
+    }
+
+    @Test
+    public void testCounters() {
+        BalancerMemberStatistics member = member();
+        Permit first = member.tryAcquire(0);
+        Permit second = member.tryAcquire(0);
+        assertThat(first).isEqualTo(Permit.REQUEST);
+        assertThat(second).isEqualTo(Permit.REQUEST);
+        assertThat(member.getOutstandingRequests()).isEqualTo(2);
+        member.end(10 * MS, 10 * MS, false, first);
+        member.end(10 * MS, 10 * MS, true, second);
+        assertThat(member.getOutstandingRequests()).isEqualTo(0);
+        assertThat(member.getRequestCount()).isEqualTo(2);
+        assertThat(member.getErrorCount()).isEqualTo(1);
+        assertThat(member.getCircuitState()).isEqualTo("closed");
+    }
+
+    @Test
+    public void testEjectionOnErrorRate() {
+        BalancerMemberStatistics member = member();
+        request(member, 0, MS, false);
+        request(member, 10 * MS, MS, true);
+        request(member, 20 * MS, MS, false);
+        assertThat(member.isAvailable(30 * MS)).isTrue();
+        // 2 errors out of 4 requests.
+        request(member, 30 * MS, MS, true);
+        assertThat(member.isAvailable(40 * MS)).isFalse();
+        assertThat(member.getCircuitState()).isEqualTo("closed");
+        // Back after the ejection duration.
+        assertThat(member.isAvailable(5040 * MS)).isTrue();
+    }
+
+    @Test
+    public void testErrorsOutsideOfTheWindowAreForgotten() {
+        BalancerMemberStatistics member = member();
+        request(member, 0, MS, true);
+        request(member, 10 * MS, MS, true);
+        // The window has elapsed.
+        request(member, 2000 * MS, MS, false);
+        request(member, 2010 * MS, MS, false);
+        request(member, 2020 * MS, MS, false);
+        request(member, 2030 * MS, MS, false);
+        assertThat(member.isAvailable(2040 * MS)).isTrue();
+    }
+
+    @Test
+    public void testEjectionOnLatency() {
+        policy.setMaxLatency(100);
+        BalancerMemberStatistics member = member();
+        request(member, 0, 50 * MS, false);
+        assertThat(member.isAvailable(60 * MS)).isTrue();
+        request(member, 100 * MS, 200 * MS, false);
+        assertThat(member.isAvailable(400 * MS)).isFalse();
+    }
+
+    @Test
+    public void testCircuitBreaker() {
+        BalancerMemberStatistics member = member();
+        request(member, 0, MS, true);
+        request(member, 0, MS, true);
+        assertThat(member.getCircuitState()).isEqualTo("closed");
+        request(member, 0, MS, true);
+        assertThat(member.getCircuitState()).isEqualTo("open");
+        assertThat(member.isAvailable(MS)).isFalse();
+
+        // Half-open: a single probe is let through.
+        assertThat(member.isAvailable(2001 * MS)).isTrue();
+        Permit probe = member.tryAcquire(2001 * MS);
+        assertThat(probe).isEqualTo(Permit.PROBE);
+        assertThat(member.getCircuitState()).isEqualTo("half-open");
+        assertThat(member.isAvailable(2002 * MS)).isFalse();
+        assertThat(member.tryAcquire(2002 * MS)).isNull();
+
+        // The probe fails, the circuit is opened again.
+        member.end(2010 * MS, 9 * MS, true, probe);
+        assertThat(member.getCircuitState()).isEqualTo("open");
+        assertThat(member.isAvailable(3000 * MS)).isFalse();
+
+        // The next probe succeeds, the circuit is closed.
+        probe = member.tryAcquire(4010 * MS);
+        assertThat(probe).isEqualTo(Permit.PROBE);
+        assertThat(member.getCircuitState()).isEqualTo("half-open");
+        member.end(4020 * MS, 10 * MS, false, probe);
+        assertThat(member.getCircuitState()).isEqualTo("closed");
+        assertThat(member.isAvailable(4030 * MS)).isTrue();
+    }
+
+    @Test
+    public void testSingleProbe() {
+        BalancerMemberStatistics member = member();
+        // A request sent before the circuit opens.
+        Permit late = member.tryAcquire(0);
+        request(member, 0, MS, true);
+        request(member, 0, MS, true);
+        request(member, 0, MS, true);
+        assertThat(member.getCircuitState()).isEqualTo("open");
+
+        // Concurrent requests see the expired circuit, only one of them is the probe.
+        assertThat(member.isAvailable(2001 * MS)).isTrue();
+        assertThat(member.tryAcquire(2001 * MS)).isEqualTo(Permit.PROBE);
+        assertThat(member.tryAcquire(2001 * MS)).isNull();
+
+        // The late request succeeds, it does not close the circuit, nor release the probe.
+        member.end(2002 * MS, 2002 * MS, false, late);
+        assertThat(member.getCircuitState()).isEqualTo("half-open");
+        assertThat(member.tryAcquire(2003 * MS)).isNull();
+
+        // Requests sent whatever the state are not probes.
+        Permit forced = member.acquire(2004 * MS);
+        assertThat(forced).isEqualTo(Permit.REQUEST);
+        member.end(2005 * MS, MS, true, forced);
+        assertThat(member.getCircuitState()).isEqualTo("half-open");
+    }
+
+    @Test
+    public void testReleasedProbe() {
+        BalancerMemberStatistics member = member();
+        request(member, 0, MS, true);
+        request(member, 0, MS, true);
+        request(member, 0, MS, true);
+        Permit probe = member.tryAcquire(2001 * MS);
+        assertThat(probe).isEqualTo(Permit.PROBE);
+        member.release(probe);
+        assertThat(member.getOutstandingRequests()).isEqualTo(0);
+        assertThat(member.getRequestCount()).isEqualTo(3);
+        // Another request can probe the circuit.
+        assertThat(member.tryAcquire(2002 * MS)).isEqualTo(Permit.PROBE);
+    }
+
+    @Test
+    public void testPeakEwmaCost() {
+        BalancerMemberStatistics member = member();
+        assertThat(member.getCost(0)).isEqualTo(1.0);
+
+        // A slow response is taken into account immediately.
+        request(member, 0, 100 * MS, false);
+        double peak = member.getCost(100 * MS);
+        assertThat(peak).isGreaterThan(99 * MS);
+
+        // Faster responses are averaged.
+        request(member, 100 * MS, 10 * MS, false);
+        double averaged = member.getCost(110 * MS);
+        assertThat(averaged).isLessThan(peak).isGreaterThan(10 * MS);
+
+        // Outstanding requests increase the cost.
+        member.tryAcquire(110 * MS);
+        assertThat(member.getCost(110 * MS)).isEqualTo(averaged * 2, offset(1.0));
+
+        // The latency decays while no response is received.
+        assertThat(member.getCost(10000 * MS)).isLessThan(2 * MS);
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.framework.filters.test;
+
+import org.junit.Test;
+import org.wisdom.framework.filters.BalancerMemberStatistics;
+import org.wisdom.framework.filters.BalancerStrategies;
+import org.wisdom.framework.filters.BalancerStrategy;
+import org.wisdom.framework.filters.DefaultBalancerMember;
+import org.wisdom.framework.filters.HealthPolicy;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+/**
+ * Checks the balancer strategies.
+ */
+public class BalancerStrategiesTest {
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final BalancerMemberStatistics a = member("a");
+    private final BalancerMemberStatistics b = member("b");
+    private final BalancerMemberStatistics c = member("c");
+    private final List<BalancerMemberStatistics> members = Arrays.asList(a, b, c);
+
+    private static BalancerMemberStatistics member(String name) {
+        return new BalancerMemberStatistics(new DefaultBalancerMember(name, "http://localhost", "balancer"),
+                new HealthPolicy());
+    }
+
+    @Test
+    public void testRoundRobin() {
+        BalancerStrategy strategy = BalancerStrategies.roundRobin();
+        assertThat(strategy.select(members, 0)).isSameAs(a);
+        assertThat(strategy.select(members, 0)).isSameAs(b);
+        assertThat(strategy.select(members, 0)).isSameAs(c);
+        assertThat(strategy.select(members, 0)).isSameAs(a);
+    }
+
+    @Test
+    public void testLeastOutstandingRequests() {
+        BalancerStrategy strategy = BalancerStrategies.leastOutstandingRequests();
+        a.tryAcquire(0);
+        a.tryAcquire(0);
+        c.tryAcquire(0);
+        assertThat(strategy.select(members, 0)).isSameAs(b);
+        b.tryAcquire(0);
+        b.tryAcquire(0);
+        assertThat(strategy.select(members, 0)).isSameAs(c);
+    }
+
+    @Test
+    public void testPeakEwma() {
+        BalancerStrategy strategy = BalancerStrategies.peakEwma();
+        latency(a, 100);
+        latency(b, 10);
+        latency(c, 50);
+        assertThat(strategy.select(members, 100 * MS)).isSameAs(b);
+        // The fast member is loaded.
+        for (int i = 0; i < 10; i++) {
+            b.tryAcquire(100 * MS);
+        }
+        assertThat(strategy.select(members, 100 * MS)).isSameAs(c);
+    }
+
+    @Test
+    public void testPowerOfTwoChoices() {
+        BalancerStrategy strategy = BalancerStrategies.powerOfTwoChoices();
+        latency(a, 100);
+        latency(b, 10);
+        latency(c, 50);
+        Map<BalancerMemberStatistics, Integer> selections = new HashMap<>();
+        for (int i = 0; i < 300; i++) {
+            BalancerMemberStatistics selected = strategy.select(members, 100 * MS);
+            selections.merge(selected, 1, Integer::sum);
+        }
+        // The slowest member is never selected, it always loses against the other one.
+        assertThat(selections).doesNotContainKey(a);
+        assertThat(selections.get(b)).isGreaterThan(selections.get(c));
+
+        assertThat(strategy.select(Arrays.asList(a), 0)).isSameAs(a);
+    }
+
+    @Test
+    public void testFromName() {
+        assertThat(BalancerStrategies.fromName("round-robin")).isNotNull();
+        assertThat(BalancerStrategies.fromName("least-outstanding")).isNotNull();
+        assertThat(BalancerStrategies.fromName("Peak-EWMA")).isNotNull();
+        assertThat(BalancerStrategies.fromName("p2c")).isNotNull();
+        try {
+            BalancerStrategies.fromName("random");
+            fail("Unknown strategy accepted");
+        } catch (IllegalArgumentException e) {
+            // Expected.
+        }
+    }
+
+    private static void latency(BalancerMemberStatistics member, long latency) {
+        member.end(latency * MS, latency * MS, false, member.tryAcquire(0));
+    }
+}
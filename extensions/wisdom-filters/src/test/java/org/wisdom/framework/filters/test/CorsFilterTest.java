@@ -0,0 +1,185 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.framework.filters.test;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Before;
+import org.junit.Test;
+import org.wisdom.api.http.HeaderNames;
+import org.wisdom.api.http.HttpMethod;
+import org.wisdom.api.http.Result;
+import org.wisdom.api.http.Results;
+import org.wisdom.api.http.Status;
+import org.wisdom.api.interception.RequestContext;
+import org.wisdom.api.router.Route;
+import org.wisdom.api.router.Router;
+import org.wisdom.framework.filters.AbstractCorsFilter;
+import org.wisdom.test.parents.FakeContext;
+import org.wisdom.test.parents.FakeRequest;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Checks the preflight requests handled by the CORS filter.
+ */
+public class CorsFilterTest {
+
+    private Router router;
+    private AbstractCorsFilter filter;
+    private Result proceeded;
+
+    @Before
+    public void setUp() {
+        router = mock(Router.class);
+        when(router.getRoutesVersion()).thenReturn(1L);
+        List<Route> routes = ImmutableList.of(
+                route(HttpMethod.GET, "/items/{id}", "/items/[^/]+"),
+                route(HttpMethod.PUT, "/items/{id}", "/items/[^/]+"),
+                route(HttpMethod.DELETE, "/items/special", "/items/special"),
+                route(HttpMethod.POST, "/items", "/items"));
+        when(router.getRoutes()).thenReturn(routes);
+        filter = new AbstractCorsFilter(router) {
+            @Override
+            public List<String> getExposedHeaders() {
+                return ImmutableList.of("X-Custom-Header", "X-Other");
+            }
+
+            @Override
+            public List<String> getAllowedHosts() {
+                return ImmutableList.of("*");
+            }
+
+            @Override
+            public boolean getAllowCredentials() {
+                return true;
+            }
+
+            @Override
+            public Integer getMaxAge() {
+                return 3600;
+            }
+        };
+        proceeded = Results.notFound();
+    }
+
+    private static Route route(HttpMethod method, String url, final String regex) {
+        Route route = mock(Route.class);
+        when(route.getHttpMethod()).thenReturn(method);
+        when(route.getUrl()).thenReturn(url);
+        when(route.matches(any(HttpMethod.class), anyString())).thenAnswer(invocation ->
+                ((String) invocation.getArguments()[1]).matches(regex));
+        return route;
+    }
+
+    private Result preflight(String path, String origin, String method) throws Exception {
+        Route route = mock(Route.class);
+        when(route.getHttpMethod()).thenReturn(HttpMethod.OPTIONS);
+        when(route.isUnbound()).thenReturn(true);
+        when(route.getUrl()).thenReturn(path);
+
+        FakeContext context = new FakeContext();
+        if (origin != null) {
+            context.setHeader(HeaderNames.ORIGIN, origin);
+        }
+        if (method != null) {
+            context.setHeader(HeaderNames.ACCESS_CONTROL_REQUEST_METHOD, method);
+        }
+        FakeRequest request = new FakeRequest(context).method(HttpMethod.OPTIONS).uri(path);
+        RequestContext rc = mock(RequestContext.class);
+        when(rc.context()).thenReturn(context);
+        when(rc.request()).thenReturn(request);
+        when(rc.proceed()).thenReturn(proceeded);
+        return filter.call(route, rc);
+    }
+
+    @Test
+    public void testPreflight() throws Exception {
+        Result result = preflight("/items/1", "http://Example.com", "put");
+        assertThat(result.getStatusCode()).isEqualTo(Status.OK);
+        assertThat(result.getHeaders().get(HeaderNames.ACCESS_CONTROL_ALLOW_METHODS)).isEqualTo("GET, PUT");
+        // Wildcard with credentials, the origin is returned.
+        assertThat(result.getHeaders().get(HeaderNames.ACCESS_CONTROL_ALLOW_ORIGIN)).isEqualTo("http://example.com");
+        assertThat(result.getHeaders().get(HeaderNames.ACCESS_CONTROL_ALLOW_HEADERS))
+                .isEqualTo("X-Custom-Header, X-Other");
+        assertThat(result.getHeaders().get(HeaderNames.ACCESS_CONTROL_ALLOW_CREDENTIALS)).isEqualTo("true");
+        assertThat(result.getHeaders().get(HeaderNames.ACCESS_CONTROL_MAX_AGE)).isEqualTo("3600");
+
+        // Several patterns matching the path.
+        result = preflight("/items/special", "http://example.com", "DELETE");
+        assertThat(result.getStatusCode()).isEqualTo(Status.OK);
+        assertThat(result.getHeaders().get(HeaderNames.ACCESS_CONTROL_ALLOW_METHODS)).isEqualTo("GET, PUT, DELETE");
+    }
+
+    @Test
+    public void testPreflightWithUnsupportedMethod() throws Exception {
+        Result result = preflight("/items", "http://example.com", "GET");
+        assertThat(result.getStatusCode()).isEqualTo(Status.UNAUTHORIZED);
+        assertThat(result.getHeaders().get(HeaderNames.ACCESS_CONTROL_ALLOW_METHODS)).isEqualTo("POST");
+    }
+
+    @Test
+    public void testNotAPreflight() throws Exception {
+        // No route.
+        assertThat(preflight("/missing", "http://example.com", "GET")).isSameAs(proceeded);
+        // Not a CORS request.
+        assertThat(preflight("/items", null, "POST")).isSameAs(proceeded);
+        assertThat(preflight("/items", "http://example.com", null)).isSameAs(proceeded);
+    }
+
+    @Test
+    public void testRoutesAreIndexedOnce() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            assertThat(preflight("/items/" + i, "http://example.com", "GET").getStatusCode()).isEqualTo(Status.OK);
+            assertThat(preflight("/items/" + i, "http://example.com", "GET").getStatusCode()).isEqualTo(Status.OK);
+        }
+        verify(router, times(1)).getRoutes();
+
+        // The results are not shared.
+        Result first = preflight("/items/1", "http://a.com", "GET");
+        Result second = preflight("/items/1", "http://b.com", "GET");
+        assertThat(first).isNotSameAs(second);
+        assertThat(first.getHeaders().get(HeaderNames.ACCESS_CONTROL_ALLOW_ORIGIN)).isEqualTo("http://a.com");
+        assertThat(second.getHeaders().get(HeaderNames.ACCESS_CONTROL_ALLOW_ORIGIN)).isEqualTo("http://b.com");
+    }
+
+    @Test
+    public void testIndexIsRebuiltWhenRoutesChange() throws Exception {
+        assertThat(preflight("/items", "http://example.com", "POST").getStatusCode()).isEqualTo(Status.OK);
+
+        when(router.getRoutesVersion()).thenReturn(2L);
+        when(router.getRoutes()).thenReturn(Collections.<Route>emptyList());
+        assertThat(preflight("/items", "http://example.com", "POST")).isSameAs(proceeded);
+        verify(router, times(2)).getRoutes();
+    }
+
+    @Test
+    public void testRouterNotTrackingChanges() throws Exception {
+        when(router.getRoutesVersion()).thenReturn(-1L);
+        preflight("/items", "http://example.com", "POST");
+        preflight("/items", "http://example.com", "POST");
+        verify(router, times(2)).getRoutes();
+    }
+}
@@ -23,6 +23,9 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.Multimap;
 import com.google.common.net.HttpHeaders;
+import io.vertx.core.Vertx;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
 import org.junit.Test;
 import org.wisdom.api.configuration.Configuration;
 import org.wisdom.api.http.*;
@@ -33,42 +36,71 @@ import org.wisdom.test.parents.FakeContext;
 import org.wisdom.test.parents.FakeRequest;
 import org.wisdom.test.parents.WisdomUnitTest;
 
+import java.net.ServerSocket;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 public class ProxyFilterTest extends WisdomUnitTest {
 
+    private static Vertx vertx;
+    private static Upstream upstream;
+
     ObjectMapper mapper = new ObjectMapper();
 
+    @BeforeClass
+    public static void startUpstream() throws Exception {
+        vertx = Vertx.vertx();
+        upstream = new Upstream(vertx, "Pas de panique");
+    }
+
+    @AfterClass
+    public static void stopUpstream() {
+        upstream.close();
+        vertx.close();
+    }
+
+    private Result call(ProxyFilter filter, HttpMethod method, String uri, FakeContext context) throws Exception {
+        Route route = mock(Route.class);
+        RequestContext rc = mock(RequestContext.class);
+        FakeRequest request = new FakeRequest(context).method(method).uri(uri);
+        when(rc.context()).thenReturn(context);
+        when(rc.request()).thenReturn(request);
+        return Upstream.await(filter.call(route, rc));
+    }
 
     @Test
-    public void testProxyOnPerdu() throws Exception {
+    public void testProxy() throws Exception {
         ProxyFilter filter = new ProxyFilter() {
 
             @Override
             protected String getProxyTo() {
-                return "http://perdu.com";
+                return upstream.url();
+            }
+
+            @Override
+            protected Vertx vertx() {
+                return vertx;
             }
         };
 
-        Route route = mock(Route.class);
-        RequestContext rc = mock(RequestContext.class);
         FakeContext context = new FakeContext();
         context.setPath("/").setHeader(HttpHeaders.CONNECTION, "keep-alive");
 
-        FakeRequest request = new FakeRequest(context).method(HttpMethod.GET).uri("/");
-
-        when(rc.context()).thenReturn(context);
-        when(rc.request()).thenReturn(request);
-        Result result = ((AsyncResult) filter.call(route, rc)).callable().call();
+        Result result = call(filter, HttpMethod.GET, "/", context);
         assertThat(result).isNotNull();
         assertThat(result.getStatusCode()).isEqualTo(Status.OK);
-        assertThat(streamToString(result)).contains("Pas de panique");
+        assertThat(Upstream.content(vertx, result).toString()).contains("Pas de panique");
         assertThat(result.getHeaders().get(HeaderNames.CONTENT_TYPE)).isEqualTo(MimeTypes.HTML);
+        // The length is given by the renderable object.
+        assertThat(result.getHeaders()).doesNotContainKey(HeaderNames.CONTENT_LENGTH);
+        assertThat(result.getRenderable().length()).isGreaterThan(0);
     }
 
     @Test
@@ -77,32 +109,33 @@ public class ProxyFilterTest extends WisdomUnitTest {
 
             @Override
             protected String getProxyTo() {
-                return "http://httpbin.org/get";
+                return upstream.url() + "/get";
             }
 
             @Override
             protected String getPrefix() {
                 return "/proxy";
             }
+
+            @Override
+            protected Vertx vertx() {
+                return vertx;
+            }
         };
 
-        Route route = mock(Route.class);
-        RequestContext rc = mock(RequestContext.class);
         FakeContext context = new FakeContext();
         context.setPath("/proxy").setHeader(HttpHeaders.CONNECTION, "close");
 
-        FakeRequest request = new FakeRequest(context).method(HttpMethod.GET).uri("/proxy?foo=bar&count=1&count=2");
-
-        when(rc.context()).thenReturn(context);
-        when(rc.request()).thenReturn(request);
-        Result result = ((AsyncResult) filter.call(route, rc)).callable().call();
+        Result result = call(filter, HttpMethod.GET, "/proxy?foo=bar&count=1&count=2", context);
         assertThat(result).isNotNull();
         assertThat(result.getStatusCode()).isEqualTo(Status.OK);
 
-        JsonNode node = mapper.readTree(streamToString(result));
+        JsonNode node = mapper.readTree(Upstream.content(vertx, result).toString());
         assertThat(node.get("args").get("count").get(0).asText()).isEqualTo("1");
         assertThat(node.get("args").get("count").get(1).asText()).isEqualTo("2");
         assertThat(node.get("args").get("foo").asText()).isEqualTo("bar");
+        // Hop-by-hop headers are not forwarded.
+        assertThat(node.get("headers").get(HeaderNames.CONNECTION)).isNull();
 
         assertThat(result.getHeaders().get(HeaderNames.CONTENT_TYPE)).isEqualTo(MimeTypes.JSON);
     }
@@ -113,31 +146,30 @@ public class ProxyFilterTest extends WisdomUnitTest {
 
             @Override
             protected String getProxyTo() {
-                return "http://httpbin.org/post";
+                return upstream.url() + "/post";
             }
 
             @Override
             protected String getPrefix() {
                 return "/proxy";
             }
+
+            @Override
+            protected Vertx vertx() {
+                return vertx;
+            }
         };
 
-        Route route = mock(Route.class);
-        RequestContext rc = mock(RequestContext.class);
         FakeContext context = new FakeContext().setBody("Hello");
         context.setPath("/proxy")
                 .setHeader(HttpHeaders.CONNECTION, "close")
                 .setHeader(HttpHeaders.CONTENT_TYPE, MimeTypes.TEXT);
 
-        FakeRequest request = new FakeRequest(context).method(HttpMethod.POST).uri("/proxy");
-
-        when(rc.context()).thenReturn(context);
-        when(rc.request()).thenReturn(request);
-        Result result = ((AsyncResult) filter.call(route, rc)).callable().call();
+        Result result = call(filter, HttpMethod.POST, "/proxy", context);
         assertThat(result).isNotNull();
         assertThat(result.getStatusCode()).isEqualTo(Status.OK);
 
-        JsonNode node = mapper.readTree(streamToString(result));
+        JsonNode node = mapper.readTree(Upstream.content(vertx, result).toString());
         assertThat(node.get("data").asText()).isEqualTo("Hello");
         assertThat(node.get("headers").get(HeaderNames.CONTENT_LENGTH).asInt()).isEqualTo(5);
 
@@ -171,18 +203,12 @@ public class ProxyFilterTest extends WisdomUnitTest {
             }
         };
 
-        Route route = mock(Route.class);
-        RequestContext rc = mock(RequestContext.class);
         FakeContext context = new FakeContext().setBody("Hello");
         context.setPath("/proxy")
                 .setHeader(HttpHeaders.CONNECTION, "close")
                 .setHeader(HttpHeaders.CONTENT_TYPE, MimeTypes.TEXT);
 
-        FakeRequest request = new FakeRequest(context).method(HttpMethod.POST).uri("/proxy");
-
-        when(rc.context()).thenReturn(context);
-        when(rc.request()).thenReturn(request);
-        Result result = ((AsyncResult) filter.call(route, rc)).callable().call();
+        Result result = call(filter, HttpMethod.POST, "/proxy", context);
         assertThat(result).isNotNull();
         assertThat(result.getStatusCode()).isEqualTo(Status.BAD_REQUEST);
     }
@@ -193,7 +219,7 @@ public class ProxyFilterTest extends WisdomUnitTest {
 
             @Override
             protected String getProxyTo() {
-                return "http://httpbin.org/get";
+                return upstream.url() + "/get";
             }
 
             @Override
@@ -211,21 +237,20 @@ public class ProxyFilterTest extends WisdomUnitTest {
                 return "/proxy";
             }
 
+            @Override
+            protected Vertx vertx() {
+                return vertx;
+            }
+
         };
 
-        Route route = mock(Route.class);
-        RequestContext rc = mock(RequestContext.class);
         FakeContext context = new FakeContext();
         context.setPath("/proxy").setHeader(HttpHeaders.CONNECTION, "keep-alive");
 
-        FakeRequest request = new FakeRequest(context).method(HttpMethod.GET).uri("/proxy");
-
-        when(rc.context()).thenReturn(context);
-        when(rc.request()).thenReturn(request);
-        Result result = ((AsyncResult) filter.call(route, rc)).callable().call();
+        Result result = call(filter, HttpMethod.GET, "/proxy", context);
         assertThat(result).isNotNull();
         assertThat(result.getStatusCode()).isEqualTo(Status.OK);
-        JsonNode node = mapper.readTree(streamToString(result));
+        JsonNode node = mapper.readTree(Upstream.content(vertx, result).toString());
         assertThat(node.get("headers").get("X-Test").asText()).isEqualTo("Test");
         assertThat(node.get("headers").get("Via").asText()).contains("wisdom");
     }
@@ -235,26 +260,275 @@ public class ProxyFilterTest extends WisdomUnitTest {
         Configuration configuration = mock(Configuration.class);
         when(configuration.get("prefix")).thenReturn("/proxy");
         when(configuration.get("via")).thenReturn("wisdom");
-        when(configuration.get("proxyTo")).thenReturn("http://httpbin.org/get");
+        when(configuration.get("proxyTo")).thenReturn(upstream.url() + "/get");
+        when(configuration.getIntegerWithDefault("maxPoolSize", 20)).thenReturn(5);
+        when(configuration.getDuration(eq("connectTimeout"), eq(TimeUnit.MILLISECONDS), anyLong())).thenReturn(1000L);
+        when(configuration.getDuration(eq("idleTimeout"), eq(TimeUnit.SECONDS), anyLong())).thenReturn(30L);
 
-        ProxyFilter filter = new ProxyFilter(configuration);
+        ProxyFilter filter = new ProxyFilter(configuration) {
+            @Override
+            protected Vertx vertx() {
+                return vertx;
+            }
+        };
 
-        Route route = mock(Route.class);
-        RequestContext rc = mock(RequestContext.class);
         FakeContext context = new FakeContext();
         context.setPath("/proxy").setHeader(HttpHeaders.CONNECTION, "keep-alive");
 
-        FakeRequest request = new FakeRequest(context).method(HttpMethod.GET).uri("/proxy");
-
-        when(rc.context()).thenReturn(context);
-        when(rc.request()).thenReturn(request);
-        Result result = ((AsyncResult) filter.call(route, rc)).callable().call();
+        Result result = call(filter, HttpMethod.GET, "/proxy", context);
         assertThat(result).isNotNull();
         assertThat(result.getStatusCode()).isEqualTo(Status.OK);
-        JsonNode node = mapper.readTree(streamToString(result));
+        JsonNode node = mapper.readTree(Upstream.content(vertx, result).toString());
         assertThat(node.get("headers").get("Via").asText()).contains("wisdom");
     }
 
+    @Test
+    public void testConnectionsAreReused() throws Exception {
+        final Upstream server = new Upstream(vertx, "pool");
+        try {
+            ProxyFilter filter = new ProxyFilter() {
+
+                @Override
+                protected String getProxyTo() {
+                    return server.url();
+                }
+
+                @Override
+                protected Vertx vertx() {
+                    return vertx;
+                }
+            };
+
+            for (int i = 0; i < 10; i++) {
+                FakeContext context = new FakeContext();
+                context.setPath("/" + i);
+                Result result = call(filter, HttpMethod.GET, "/" + i, context);
+                assertThat(result.getStatusCode()).isEqualTo(Status.OK);
+                assertThat(Upstream.content(vertx, result).toString()).contains("/" + i);
+            }
+            // Sequential requests reuse the keep-alive connections. A second connection may be opened when a
+            // request is emitted before the previous connection is released.
+            assertThat(server.connections()).isLessThanOrEqualTo(2);
+            filter.close();
+        } finally {
+            server.close();
+        }
+    }
+
+    @Test
+    public void testDroppedContentIsDiscarded() throws Exception {
+        ProxyFilter filter = new ProxyFilter() {
+
+            @Override
+            protected String getProxyTo() {
+                return upstream.url();
+            }
+
+            @Override
+            protected int getMaxPoolSize() {
+                return 1;
+            }
+
+            @Override
+            protected Result onResult(Result result) {
+                if (result.getHeaders().get(HeaderNames.CONTENT_TYPE).contains("octet-stream")) {
+                    return Results.ok("replaced");
+                }
+                return result;
+            }
+
+            @Override
+            protected Vertx vertx() {
+                return vertx;
+            }
+        };
+
+        FakeContext context = new FakeContext();
+        context.setPath("/bytes");
+        Result result = call(filter, HttpMethod.GET, "/bytes?n=1000000", context);
+        assertThat(result.getRenderable().content()).isEqualTo("replaced");
+
+        // The content of the dropped result is drained, so the only connection of the pool is released.
+        context = new FakeContext();
+        context.setPath("/");
+        result = call(filter, HttpMethod.GET, "/", context);
+        assertThat(Upstream.content(vertx, result).toString()).contains("Pas de panique");
+        filter.close();
+    }
+
+    @Test
+    public void testClientsAreCreatedAgainAfterClose() throws Exception {
+        ProxyFilter filter = new ProxyFilter() {
+
+            @Override
+            protected String getProxyTo() {
+                return upstream.url();
+            }
+
+            @Override
+            protected Vertx vertx() {
+                return vertx;
+            }
+        };
+
+        FakeContext context = new FakeContext();
+        context.setPath("/");
+        Result result = call(filter, HttpMethod.GET, "/", context);
+        assertThat(Upstream.content(vertx, result).toString()).contains("Pas de panique");
+
+        filter.close();
+        result = call(filter, HttpMethod.GET, "/", context);
+        assertThat(Upstream.content(vertx, result).toString()).contains("Pas de panique");
+        filter.close();
+    }
+
+    @Test
+    public void testStreamedContent() throws Exception {
+        ProxyFilter filter = new ProxyFilter() {
+
+            @Override
+            protected String getProxyTo() {
+                return upstream.url() + "/bytes";
+            }
+
+            @Override
+            protected Vertx vertx() {
+                return vertx;
+            }
+        };
+
+        FakeContext context = new FakeContext();
+        context.setPath("/");
+
+        Result result = call(filter, HttpMethod.GET, "/?n=1000000", context);
+        assertThat(result.getStatusCode()).isEqualTo(Status.OK);
+        // Chunked content, the length is unknown.
+        assertThat(result.getRenderable().length()).isEqualTo(-1);
+        assertThat(result.getRenderable().mustBeChunked()).isTrue();
+        assertThat(result.getHeaders()).doesNotContainKey(HeaderNames.TRANSFER_ENCODING);
+        assertThat(Upstream.content(vertx, result).length()).isEqualTo(1000000);
+    }
+
+    @Test
+    public void testHeadRequest() throws Exception {
+        ProxyFilter filter = new ProxyFilter() {
+
+            @Override
+            protected String getProxyTo() {
+                return upstream.url();
+            }
+
+            @Override
+            protected Vertx vertx() {
+                return vertx;
+            }
+        };
+
+        FakeContext context = new FakeContext();
+        context.setPath("/");
+
+        Result result = call(filter, HttpMethod.HEAD, "/", context);
+        assertThat(result.getStatusCode()).isEqualTo(Status.OK);
+        assertThat(result.getRenderable()).isNull();
+        assertThat(result.getHeaders().get(HeaderNames.CONTENT_LENGTH)).isNotNull();
+    }
+
+    @Test
+    public void testRedirection() throws Exception {
+        final String location = upstream.url() + "/redirect-to?url=" + upstream.url() + "/target";
+        ProxyFilter filter = new ProxyFilter() {
+
+            @Override
+            protected String getProxyTo() {
+                return location;
+            }
+
+            @Override
+            protected Vertx vertx() {
+                return vertx;
+            }
+        };
+
+        FakeContext context = new FakeContext();
+        context.setPath("/");
+        Result result = call(filter, HttpMethod.GET, "/", context);
+        // Redirections are not followed by default.
+        assertThat(result.getStatusCode()).isEqualTo(Status.FOUND);
+        assertThat(result.getHeaders().get(HeaderNames.LOCATION)).startsWith(upstream.url() + "/target");
+
+        filter = new ProxyFilter() {
+
+            @Override
+            protected String getProxyTo() {
+                return location;
+            }
+
+            @Override
+            protected boolean followRedirect(String method) {
+                return true;
+            }
+
+            @Override
+            protected Vertx vertx() {
+                return vertx;
+            }
+        };
+        result = call(filter, HttpMethod.GET, "/", context);
+        assertThat(result.getStatusCode()).isEqualTo(Status.OK);
+        assertThat(Upstream.content(vertx, result).toString()).contains("/target");
+    }
+
+    @Test
+    public void testUnreachableDestination() throws Exception {
+        final int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        ProxyFilter filter = new ProxyFilter() {
+
+            @Override
+            protected String getProxyTo() {
+                return "http://localhost:" + port;
+            }
+
+            @Override
+            protected Vertx vertx() {
+                return vertx;
+            }
+        };
+
+        FakeContext context = new FakeContext();
+        context.setPath("/");
+        Result result = call(filter, HttpMethod.GET, "/", context);
+        assertThat(result.getStatusCode()).isEqualTo(Status.BAD_GATEWAY);
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+        ProxyFilter filter = new ProxyFilter() {
+
+            @Override
+            protected String getProxyTo() {
+                return upstream.url() + "/slow";
+            }
+
+            @Override
+            protected long getRequestTimeout() {
+                return 200;
+            }
+
+            @Override
+            protected Vertx vertx() {
+                return vertx;
+            }
+        };
+
+        FakeContext context = new FakeContext();
+        context.setPath("/");
+        Result result = call(filter, HttpMethod.GET, "/", context);
+        assertThat(result.getStatusCode()).isEqualTo(Status.GATEWAY_TIMEOUT);
+    }
+
     @Test
     public void testPathComputation() throws Exception {
         ProxyFilter filter = new ProxyFilter() {
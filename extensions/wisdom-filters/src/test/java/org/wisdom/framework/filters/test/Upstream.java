@@ -0,0 +1,187 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.framework.filters.test;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServer;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.streams.ReadStream;
+import org.wisdom.api.http.CompletionStageResult;
+import org.wisdom.api.http.Result;
+
+import java.net.ServerSocket;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+
+/**
+ * A local HTTP server used as destination of the proxy filters. It answers like httpbin.org:
+ * <ul>
+ * <li>{@literal /get} returns the query parameters and headers as JSON</li>
+ * <li>{@literal /post} returns the content and headers as JSON</li>
+ * <li>{@literal /redirect-to?url=...} redirects to the given URL</li>
+ * <li>{@literal /bytes?n=...} streams the given number of bytes, without length</li>
+ * <li>{@literal /slow} never responds</li>
+ * <li>any other path returns an HTML page containing the name of the server</li>
+ * </ul>
+ */
+public class Upstream {
+
+    private final String name;
+    private final int port;
+    private final HttpServer server;
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Starts a server on a free port.
+     *
+     * @param vertx the Vert.x instance
+     * @param name  the name of the server, contained in the HTML pages
+     */
+    public Upstream(Vertx vertx, String name) throws Exception {
+        this.name = name;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            this.port = socket.getLocalPort();
+        }
+        this.server = vertx.createHttpServer().requestHandler(this::handle);
+        CompletableFuture<Void> started = new CompletableFuture<>();
+        server.listen(port, "localhost", ar -> {
+            if (ar.succeeded()) {
+                started.complete(null);
+            } else {
+                started.completeExceptionally(ar.cause());
+            }
+        });
+        started.get(10, TimeUnit.SECONDS);
+    }
+
+    public String url() {
+        return "http://localhost:" + port;
+    }
+
+    /**
+     * @return the number of connections opened by the clients (identified by their port)
+     */
+    public int connections() {
+        return clientPorts.size();
+    }
+
+    public void close() {
+        server.close();
+    }
+
+    private void handle(HttpServerRequest request) {
+        clientPorts.add(request.remoteAddress().port());
+        // The proxy may append a trailing slash to the destination.
+        String path = request.path().length() > 1 && request.path().endsWith("/")
+                ? request.path().substring(0, request.path().length() - 1) : request.path();
+        switch (path) {
+            case "/get":
+                request.response().putHeader("Content-Type", "application/json")
+                        .end(new JsonObject().put("args", args(request)).put("headers", headers(request)).encode());
+                break;
+            case "/post":
+                request.bodyHandler(body -> request.response().putHeader("Content-Type", "application/json")
+                        .end(new JsonObject().put("data", body.toString()).put("headers", headers(request))
+                                .encode()));
+                break;
+            case "/redirect-to":
+                request.response().setStatusCode(302).putHeader("Location", request.getParam("url")).end();
+                break;
+            case "/bytes":
+                int count = Integer.parseInt(request.getParam("n"));
+                request.response().setChunked(true).putHeader("Content-Type", "application/octet-stream");
+                for (int i = 0; i < count; i += 1024) {
+                    request.response().write(Buffer.buffer(new byte[Math.min(1024, count - i)]));
+                }
+                request.response().end();
+                break;
+            case "/slow":
+                // Never respond.
+                break;
+            default:
+                request.response().putHeader("Content-Type", "text/html")
+                        .end("<html><head><title>" + name + "</title></head><body>" + request.path()
+                                + "</body></html>");
+        }
+    }
+
+    private static JsonObject args(HttpServerRequest request) {
+        JsonObject args = new JsonObject();
+        for (String key : request.params().names()) {
+            List<String> values = request.params().getAll(key);
+            if (values.size() == 1) {
+                args.put(key, values.get(0));
+            } else {
+                args.put(key, new JsonArray(values));
+            }
+        }
+        return args;
+    }
+
+    private static JsonObject headers(HttpServerRequest request) {
+        JsonObject headers = new JsonObject();
+        for (Map.Entry<String, String> header : request.headers()) {
+            headers.put(header.getKey(), header.getValue());
+        }
+        return headers;
+    }
+
+    /**
+     * Waits for the result computed by the proxy.
+     *
+     * @param result the result returned by the proxy
+     * @return the completed result
+     */
+    public static Result await(Result result) throws Exception {
+        if (result instanceof CompletionStageResult) {
+            return ((CompletionStageResult) result).stage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+        }
+        return result;
+    }
+
+    /**
+     * Reads the content of a result computed by the proxy. The stream is resumed from a Vert.x context, like the
+     * engine does: the chunks received while it was paused are then delivered in order.
+     *
+     * @param vertx  the Vert.x instance
+     * @param result the completed result
+     * @return the content
+     */
+    @SuppressWarnings("unchecked")
+    public static Buffer content(Vertx vertx, Result result) throws Exception {
+        ReadStream<Buffer> stream = (ReadStream<Buffer>) result.getRenderable().content();
+        Buffer content = Buffer.buffer();
+        CountDownLatch done = new CountDownLatch(1);
+        vertx.runOnContext(x -> {
+            stream.handler(content::appendBuffer);
+            stream.endHandler(v -> done.countDown());
+            stream.resume();
+        });
+        if (!done.await(10, TimeUnit.SECONDS)) {
+            throw new TimeoutException("Content not received");
+        }
+        return content;
+    }
+}
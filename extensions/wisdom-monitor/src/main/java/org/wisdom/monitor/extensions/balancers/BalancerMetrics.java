@@ -0,0 +1,123 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.monitor.extensions.balancers;
+
+import com.codahale.metrics.*;
+import com.google.common.collect.ImmutableMap;
+import org.apache.felix.ipojo.annotations.*;
+import org.wisdom.api.interception.BalancerStatistics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Registers the statistics of the load balancers into the metric registry. The metrics of each balancer are
+ * registered under {@literal balancers.<balancer name>}: the number of members, the number of ejected members, the
+ * number of members whose circuit is not closed, and the statistics of each member.
+ */
+@Component
+@Instantiate
+public class BalancerMetrics {
+
+    /**
+     * The prefix of the metrics registered by this component.
+     */
+    public static final String PREFIX = "balancers";
+
+    @Requires
+    MetricRegistry metrics;
+
+    /**
+     * A balancer has arrived, registers its metrics.
+     *
+     * @param statistics the statistics of the balancer
+     */
+    @Bind(specification = BalancerStatistics.class, aggregate = true, optional = true)
+    public void bindStatistics(final BalancerStatistics statistics) {
+        metrics.register(MetricRegistry.name(PREFIX, statistics.getName()), new MetricSet() {
+            @Override
+            public Map<String, Metric> getMetrics() {
+                return ImmutableMap.<String, Metric>of(
+                        "members", new Gauge<Map<String, Map<String, Object>>>() {
+                            @Override
+                            public Map<String, Map<String, Object>> getValue() {
+                                Map<String, Map<String, Object>> members = new LinkedHashMap<>();
+                                for (BalancerStatistics.Member member : statistics.getMemberStatistics()) {
+                                    members.put(member.getName(), toMap(member));
+                                }
+                                return members;
+                            }
+                        },
+                        "ejected", new Gauge<Integer>() {
+                            @Override
+                            public Integer getValue() {
+                                int count = 0;
+                                for (BalancerStatistics.Member member : statistics.getMemberStatistics()) {
+                                    if (member.isEjected()) {
+                                        count++;
+                                    }
+                                }
+                                return count;
+                            }
+                        },
+                        "tripped", new Gauge<Integer>() {
+                            @Override
+                            public Integer getValue() {
+                                int count = 0;
+                                for (BalancerStatistics.Member member : statistics.getMemberStatistics()) {
+                                    if (!"closed".equals(member.getCircuitState())) {
+                                        count++;
+                                    }
+                                }
+                                return count;
+                            }
+                        }
+                );
+            }
+        });
+    }
+
+    private static Map<String, Object> toMap(BalancerStatistics.Member member) {
+        return ImmutableMap.<String, Object>builder()
+                .put("outstanding", member.getOutstandingRequests())
+                .put("latency", member.getLatency())
+                .put("requests", member.getRequestCount())
+                .put("errors", member.getErrorCount())
+                .put("ejected", member.isEjected())
+                .put("circuit", member.getCircuitState())
+                .build();
+    }
+
+    /**
+     * A balancer has left, removes its metrics.
+     *
+     * @param statistics the statistics of the balancer
+     */
+    @Unbind
+    public void unbindStatistics(BalancerStatistics statistics) {
+        final String prefix = MetricRegistry.name(PREFIX, statistics.getName()) + ".";
+        metrics.removeMatching(new MetricFilter() {
+            @Override
+            public boolean matches(String name, Metric metric) {
+                return name.startsWith(prefix);
+            }
+        });
+    }
+}
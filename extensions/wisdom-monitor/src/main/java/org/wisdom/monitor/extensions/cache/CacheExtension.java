@@ -0,0 +1,316 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.monitor.extensions.cache;
+
+import com.codahale.metrics.*;
+import com.google.common.collect.ImmutableMap;
+import org.apache.felix.ipojo.annotations.Invalidate;
+import org.apache.felix.ipojo.annotations.Requires;
+import org.apache.felix.ipojo.annotations.Validate;
+import org.wisdom.api.DefaultController;
+import org.wisdom.api.annotations.Controller;
+import org.wisdom.api.annotations.Route;
+import org.wisdom.api.annotations.View;
+import org.wisdom.api.cache.CacheStatistics;
+import org.wisdom.api.cache.CacheStatisticsProvider;
+import org.wisdom.api.concurrent.ManagedScheduledExecutorService;
+import org.wisdom.api.http.HttpMethod;
+import org.wisdom.api.http.Result;
+import org.wisdom.api.security.Authenticated;
+import org.wisdom.api.templates.Template;
+import org.wisdom.monitor.service.MonitorExtension;
+
+import java.util.*;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Monitor extension for the caches. It collects the statistics of the cache regions and of the cached actions, and
+ * registers them into the metric registry.
+ */
+@Controller
+@Authenticated("Monitor-Authenticator")
+public class CacheExtension extends DefaultController implements MonitorExtension {
+
+    /**
+     * The prefix of the metrics registered by this extension.
+     */
+    public static final String PREFIX = "caches";
+
+    @Requires(specification = CacheStatisticsProvider.class, optional = true)
+    List<CacheStatisticsProvider> providers;
+
+    @Requires
+    MetricRegistry metrics;
+
+    @Requires(filter = "(name=" + ManagedScheduledExecutorService.SYSTEM + ")", proxy = false)
+    ScheduledExecutorService scheduler;
+
+    @View("monitor/caches")
+    Template template;
+
+    private static final Pattern INVALID_CHARACTERS = Pattern.compile("[^A-Za-z0-9_-]");
+
+    /**
+     * The sanitized names of the caches having their metrics registered. Accessed under the instance lock.
+     */
+    private final Set<String> registered = new HashSet<>();
+
+    private ScheduledFuture task;
+
+    /**
+     * Starts the extension. It registers the global metrics, and periodically updates the metrics of the cache regions
+     * and cached actions.
+     */
+    @Validate
+    public void start() {
+        metrics.register(PREFIX, new MetricSet() {
+            @Override
+            public Map<String, Metric> getMetrics() {
+                return ImmutableMap.<String, Metric>of(
+                        "count", new Gauge<Integer>() {
+                            @Override
+                            public Integer getValue() {
+                                return getStatistics().size();
+                            }
+                        },
+                        "hits", new Gauge<Long>() {
+                            @Override
+                            public Long getValue() {
+                                long count = 0;
+                                for (CacheStatistics stats : getStatistics()) {
+                                    count += stats.getHitCount();
+                                }
+                                return count;
+                            }
+                        },
+                        "misses", new Gauge<Long>() {
+                            @Override
+                            public Long getValue() {
+                                long count = 0;
+                                for (CacheStatistics stats : getStatistics()) {
+                                    count += stats.getMissCount();
+                                }
+                                return count;
+                            }
+                        }
+                );
+            }
+        });
+
+        task = scheduler.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                updateStatistics();
+            }
+        }, 0, 10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stops the extension, and removes all the metrics it has registered.
+     */
+    @Invalidate
+    public void stop() {
+        if (task != null) {
+            task.cancel(true);
+            task = null;
+        }
+        synchronized (this) {
+            metrics.removeMatching(new MetricFilter() {
+                @Override
+                public boolean matches(String name, Metric metric) {
+                    return name.startsWith(PREFIX + ".");
+                }
+            });
+            registered.clear();
+        }
+    }
+
+    /**
+     * Synchronizes the metric registry with the current cache regions and cached actions: the metrics of the new ones
+     * are registered, while the metrics of the ones that have disappeared are removed.
+     */
+    synchronized void updateStatistics() {
+        Set<String> names = new HashSet<>();
+        for (CacheStatistics stats : getStatistics()) {
+            String name = sanitize(stats.getName());
+            if (names.add(name) && registered.add(name)) {
+                metrics.register(MetricRegistry.name(PREFIX, name), metricsForCache(stats));
+            }
+        }
+        for (Iterator<String> iterator = registered.iterator(); iterator.hasNext(); ) {
+            final String name = iterator.next();
+            if (!names.contains(name)) {
+                iterator.remove();
+                metrics.removeMatching(new MetricFilter() {
+                    @Override
+                    public boolean matches(String metric, Metric m) {
+                        return metric.startsWith(MetricRegistry.name(PREFIX, name) + ".");
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Computes the name component of the metrics of a cache region or cached action. Cache and route names can
+     * contain any character, so everything except letters, digits, '_' and '-' is replaced by '_'. Dots are
+     * replaced too, so the metrics of a cache never share the prefix of another one.
+     *
+     * @param name the cache name
+     * @return the sanitized name
+     */
+    static String sanitize(String name) {
+        if (name == null || name.isEmpty()) {
+            return "_";
+        }
+        return INVALID_CHARACTERS.matcher(name).replaceAll("_");
+    }
+
+    private MetricSet metricsForCache(final CacheStatistics stats) {
+        return new MetricSet() {
+            @Override
+            public Map<String, Metric> getMetrics() {
+                return ImmutableMap.<String, Metric>builder()
+                        .put("hits", new Gauge<Long>() {
+                            @Override
+                            public Long getValue() {
+                                return stats.getHitCount();
+                            }
+                        })
+                        .put("misses", new Gauge<Long>() {
+                            @Override
+                            public Long getValue() {
+                                return stats.getMissCount();
+                            }
+                        })
+                        .put("ratio", new Gauge<Double>() {
+                            @Override
+                            public Double getValue() {
+                                return stats.getHitRatio();
+                            }
+                        })
+                        .put("evictions", new Gauge<Long>() {
+                            @Override
+                            public Long getValue() {
+                                return stats.getEvictionCount();
+                            }
+                        })
+                        .put("size", new Gauge<Long>() {
+                            @Override
+                            public Long getValue() {
+                                return stats.getSize();
+                            }
+                        })
+                        .put("load_avg", new Gauge<Double>() {
+                            @Override
+                            public Double getValue() {
+                                return stats.getAverageLoadTime(TimeUnit.MILLISECONDS);
+                            }
+                        })
+                        .put("load_p99", new Gauge<Double>() {
+                            @Override
+                            public Double getValue() {
+                                return toMillis(stats.getLoadTimes().getPercentile(0.99));
+                            }
+                        })
+                        .build();
+            }
+        };
+    }
+
+    private List<CacheStatistics> getStatistics() {
+        List<CacheStatistics> list = new ArrayList<>();
+        for (CacheStatisticsProvider provider : providers) {
+            list.addAll(provider.getCacheStatistics());
+        }
+        return list;
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1000000.0d;
+    }
+
+    /**
+     * Gets the extension main view.
+     *
+     * @return the caches page.
+     */
+    @Route(method = HttpMethod.GET, uri = "/monitor/caches")
+    public Result index() {
+        return ok(render(template));
+    }
+
+    /**
+     * Retrieves the statistics of all the caches. This method is intended to be used to handled an AJAX call.
+     *
+     * @return the statistics as JSON.
+     */
+    @Route(method = HttpMethod.GET, uri = "/monitor/caches.json")
+    public Result data() {
+        updateStatistics();
+        List<Map<String, Object>> list = new ArrayList<>();
+        for (CacheStatistics stats : getStatistics()) {
+            list.add(ImmutableMap.<String, Object>builder()
+                    .put("name", stats.getName())
+                    .put("hits", stats.getHitCount())
+                    .put("misses", stats.getMissCount())
+                    .put("ratio", stats.getHitRatio())
+                    .put("puts", stats.getPutCount())
+                    .put("removals", stats.getRemovalCount())
+                    .put("evictions", stats.getEvictionCount())
+                    .put("expirations", stats.getExpirationCount())
+                    .put("size", stats.getSize())
+                    .put("loads", stats.getLoadTimes().getCount())
+                    .put("load_avg", stats.getAverageLoadTime(TimeUnit.MILLISECONDS))
+                    .put("load_p50", toMillis(stats.getLoadTimes().getPercentile(0.5)))
+                    .put("load_p99", toMillis(stats.getLoadTimes().getPercentile(0.99)))
+                    .put("load_p999", toMillis(stats.getLoadTimes().getPercentile(0.999)))
+                    .build());
+        }
+        return ok(ImmutableMap.of("caches", list));
+    }
+
+    /**
+     * @return the label displayed in the menu.
+     */
+    @Override
+    public String label() {
+        return "Caches";
+    }
+
+    /**
+     * @return the url of the extension page.
+     */
+    @Override
+    public String url() {
+        return "/monitor/caches";
+    }
+
+    /**
+     * @return the category of the extension such as "root", "wisdom" or "OSGi".
+     */
+    @Override
+    public String category() {
+        return "wisdom";
+    }
+}
@@ -26,12 +26,16 @@ import org.apache.felix.ipojo.annotations.Requires;
 import org.apache.felix.ipojo.annotations.Validate;
 import org.wisdom.api.DefaultController;
 import org.wisdom.api.annotations.Controller;
+import org.wisdom.api.annotations.Parameter;
 import org.wisdom.api.annotations.Route;
 import org.wisdom.api.annotations.View;
+import org.wisdom.api.concurrent.ExecutorDiagnostics;
 import org.wisdom.api.concurrent.ManagedExecutorService;
 import org.wisdom.api.concurrent.ManagedScheduledExecutorService;
 import org.wisdom.api.http.HttpMethod;
 import org.wisdom.api.http.Result;
+import org.wisdom.api.scheduler.ScheduledJob;
+import org.wisdom.api.scheduler.ScheduledJobRegistry;
 import org.wisdom.api.security.Authenticated;
 import org.wisdom.api.templates.Template;
 import org.wisdom.monitor.service.MonitorExtension;
@@ -54,6 +58,12 @@ public class ExecutorExtension extends DefaultController implements MonitorExten
     @Requires
     MetricRegistry metrics;
 
+    @Requires(optional = true, nullable = false)
+    ExecutorDiagnostics diagnostics;
+
+    @Requires(optional = true, nullable = false)
+    ScheduledJobRegistry registry;
+
     @View("monitor/executors")
     Template template;
 
@@ -114,7 +124,7 @@ public class ExecutorExtension extends DefaultController implements MonitorExten
                         .put("queue", new Gauge<Integer>() {
                             @Override
                             public Integer getValue() {
-                                return executor.getQueue().size();
+                                return executor.getQueueSize();
                             }
                         })
                         .put("completed", new Counter() {
@@ -123,6 +133,12 @@ public class ExecutorExtension extends DefaultController implements MonitorExten
                                 return executor.getCompletedTaskCount();
                             }
                         })
+                        .put("rejected", new Counter() {
+                            @Override
+                            public long getCount() {
+                                return executor.getRejectedTaskCount();
+                            }
+                        })
                         .put("hung", new Gauge<Integer>() {
                             @Override
                             public Integer getValue() {
@@ -171,6 +187,24 @@ public class ExecutorExtension extends DefaultController implements MonitorExten
                                 return executor.getExecutionTimeStatistics().getAverageExecutionTime();
                             }
                         })
+                        .put("p50", new Gauge<Long>() {
+                            @Override
+                            public Long getValue() {
+                                return executor.getExecutionTimeStatistics().getPercentileExecutionTime(0.5);
+                            }
+                        })
+                        .put("p99", new Gauge<Long>() {
+                            @Override
+                            public Long getValue() {
+                                return executor.getExecutionTimeStatistics().getPercentileExecutionTime(0.99);
+                            }
+                        })
+                        .put("p999", new Gauge<Long>() {
+                            @Override
+                            public Long getValue() {
+                                return executor.getExecutionTimeStatistics().getPercentileExecutionTime(0.999);
+                            }
+                        })
                         .build();
             }
         };
@@ -206,10 +240,31 @@ public class ExecutorExtension extends DefaultController implements MonitorExten
                         .put("schedulers", getExecutorsAsMap(schedulers))
                         .put("hung", getHungTasks())
                         .put("completed", getCompletedTasks())
+                        .put("jobs", getJobs())
                         .build()
         );
     }
 
+    /**
+     * Retrieves the history of an executor (or scheduler) recorded by the {@link ExecutorDiagnostics} service: the
+     * periodic samples and the hung tasks reports. This method is intended to be used to handled an AJAX call.
+     *
+     * @param name the executor name
+     * @return the history as JSON, empty if the diagnostics service is not available.
+     */
+    @Route(method = HttpMethod.GET, uri = "/monitor/executors/{name}/history.json")
+    public Result history(@Parameter("name") String name) {
+        ExecutorDiagnostics svc = diagnostics;
+        if (svc == null) {
+            return ok(ImmutableMap.of(
+                    "samples", Collections.emptyList(),
+                    "hung", Collections.emptyList()));
+        }
+        return ok(ImmutableMap.of(
+                "samples", svc.getSamples(name),
+                "hung", svc.getHungTasks(name)));
+    }
+
     private Map<String, ManagedExecutorService> getExecutorsAsMap(ManagedExecutorService[] exec) {
         Map<String, ManagedExecutorService> map = new LinkedHashMap<>();
         for (ManagedExecutorService svc : exec) {
@@ -218,6 +273,14 @@ public class ExecutorExtension extends DefaultController implements MonitorExten
         return map;
     }
 
+    private List<ScheduledJob> getJobs() {
+        ScheduledJobRegistry svc = registry;
+        if (svc == null) {
+            return Collections.emptyList();
+        }
+        return svc.getJobs();
+    }
+
     private int getHungTasks() {
         int count = 0;
         for (ManagedExecutorService svc : executors) {
@@ -46,9 +46,10 @@ public class ManagedExecutorModule extends SimpleModule {
                 jsonGenerator.writeNumberField("largest", executor.getLargestPoolSize());
                 jsonGenerator.writeNumberField("size", executor.getPoolSize());
                 jsonGenerator.writeNumberField("active", executor.getActiveCount());
-                jsonGenerator.writeNumberField("queue", executor.getQueue().size());
+                jsonGenerator.writeNumberField("queue", executor.getQueueSize());
                 jsonGenerator.writeNumberField("hung", executor.getHungTasks().size());
                 jsonGenerator.writeNumberField("completed", executor.getCompletedTaskCount());
+                jsonGenerator.writeNumberField("rejected", executor.getRejectedTaskCount());
                 final ManagedExecutorService.ExecutionStatistics statistics = executor.getExecutionTimeStatistics();
                 jsonGenerator.writeNumberField("avg", statistics.getAverageExecutionTime());
                 jsonGenerator.writeNumberField("max_exec", statistics.getMaximumExecutionTime());
@@ -0,0 +1,94 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.monitor.extensions.templates;
+
+import com.codahale.metrics.*;
+import com.google.common.collect.ImmutableMap;
+import org.apache.felix.ipojo.annotations.*;
+import org.wisdom.api.templates.TemplateWarmUpStatistics;
+
+import java.util.Map;
+
+/**
+ * Registers the statistics of the template warm-ups into the metric registry. The metrics of each template engine
+ * are registered under {@literal templates.<engine name>.warmup}.
+ */
+@Component
+@Instantiate
+public class TemplateMetrics {
+
+    /**
+     * The prefix of the metrics registered by this component.
+     */
+    public static final String PREFIX = "templates";
+
+    @Requires
+    MetricRegistry metrics;
+
+    /**
+     * A template engine warming up its templates has arrived, registers its metrics.
+     *
+     * @param statistics the statistics of the engine
+     */
+    @Bind(specification = TemplateWarmUpStatistics.class, aggregate = true, optional = true)
+    public void bindStatistics(final TemplateWarmUpStatistics statistics) {
+        metrics.register(MetricRegistry.name(PREFIX, statistics.engine(), "warmup"), new MetricSet() {
+            @Override
+            public Map<String, Metric> getMetrics() {
+                return ImmutableMap.<String, Metric>of(
+                        "duration", new Gauge<Long>() {
+                            @Override
+                            public Long getValue() {
+                                return statistics.getLastWarmUpDuration();
+                            }
+                        },
+                        "templates", new Gauge<Long>() {
+                            @Override
+                            public Long getValue() {
+                                return statistics.getWarmedUpTemplateCount();
+                            }
+                        },
+                        "errors", new Gauge<Long>() {
+                            @Override
+                            public Long getValue() {
+                                return statistics.getWarmUpErrorCount();
+                            }
+                        }
+                );
+            }
+        });
+    }
+
+    /**
+     * A template engine has left, removes its metrics.
+     *
+     * @param statistics the statistics of the engine
+     */
+    @Unbind
+    public void unbindStatistics(TemplateWarmUpStatistics statistics) {
+        final String prefix = MetricRegistry.name(PREFIX, statistics.engine(), "warmup") + ".";
+        metrics.removeMatching(new MetricFilter() {
+            @Override
+            public boolean matches(String name, Metric metric) {
+                return name.startsWith(prefix);
+            }
+        });
+    }
+}
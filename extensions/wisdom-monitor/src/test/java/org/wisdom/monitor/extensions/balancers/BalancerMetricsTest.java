@@ -0,0 +1,72 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.monitor.extensions.balancers;
+
+import com.codahale.metrics.MetricRegistry;
+import org.junit.Test;
+import org.wisdom.api.interception.BalancerStatistics;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class BalancerMetricsTest {
+
+    @Test
+    public void testMetricsRegistration() {
+        BalancerMetrics component = new BalancerMetrics();
+        component.metrics = new MetricRegistry();
+        BalancerStatistics.Member member1 = mock(BalancerStatistics.Member.class);
+        when(member1.getName()).thenReturn("member-1");
+        when(member1.getRequestCount()).thenReturn(10L);
+        when(member1.getErrorCount()).thenReturn(6L);
+        when(member1.isEjected()).thenReturn(true);
+        when(member1.getCircuitState()).thenReturn("open");
+        BalancerStatistics.Member member2 = mock(BalancerStatistics.Member.class);
+        when(member2.getName()).thenReturn("member-2");
+        when(member2.getOutstandingRequests()).thenReturn(2);
+        when(member2.getLatency()).thenReturn(12.5);
+        when(member2.getCircuitState()).thenReturn("closed");
+        BalancerStatistics statistics = mock(BalancerStatistics.class);
+        when(statistics.getName()).thenReturn("balancer");
+        doReturn(Arrays.asList(member1, member2)).when(statistics).getMemberStatistics();
+
+        component.bindStatistics(statistics);
+        assertThat(component.metrics.getGauges().get("balancers.balancer.ejected").getValue()).isEqualTo(1);
+        assertThat(component.metrics.getGauges().get("balancers.balancer.tripped").getValue()).isEqualTo(1);
+        Map<?, ?> members = (Map<?, ?>) component.metrics.getGauges().get("balancers.balancer.members").getValue();
+        assertThat(members).hasSize(2);
+        assertThat(((Map<?, ?>) members.get("member-1")).get("errors")).isEqualTo(6L);
+        assertThat(((Map<?, ?>) members.get("member-2")).get("latency")).isEqualTo(12.5);
+        assertThat(((Map<?, ?>) members.get("member-2")).get("outstanding")).isEqualTo(2);
+
+        // The gauges follow the members.
+        doReturn(Collections.emptyList()).when(statistics).getMemberStatistics();
+        assertThat(component.metrics.getGauges().get("balancers.balancer.ejected").getValue()).isEqualTo(0);
+
+        component.unbindStatistics(statistics);
+        assertThat(component.metrics.getGauges()).isEmpty();
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.monitor.extensions.cache;
+
+import com.codahale.metrics.MetricRegistry;
+import org.junit.Test;
+import org.wisdom.api.cache.CacheStatistics;
+import org.wisdom.api.cache.CacheStatisticsProvider;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CacheExtensionTest {
+
+    @Test
+    public void testMetricsRegistration() throws Exception {
+        final List<CacheStatistics> statistics = new ArrayList<>();
+        CacheExtension extension = new CacheExtension();
+        extension.metrics = new MetricRegistry();
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        extension.scheduler = scheduler;
+        extension.providers = Collections.<CacheStatisticsProvider>singletonList(new CacheStatisticsProvider() {
+            @Override
+            public Collection<CacheStatistics> getCacheStatistics() {
+                return statistics;
+            }
+        });
+        extension.start();
+
+        CacheStatistics region = new CacheStatistics("region");
+        region.hit();
+        region.miss();
+        region.loaded(2000000);
+        statistics.add(region);
+        extension.updateStatistics();
+
+        assertThat(extension.metrics.getGauges()).containsKeys("caches.count", "caches.hits",
+                "caches.region.hits", "caches.region.ratio", "caches.region.load_p99");
+        assertThat(extension.metrics.getGauges().get("caches.region.ratio").getValue()).isEqualTo(0.5);
+        assertThat((Double) extension.metrics.getGauges().get("caches.region.load_avg").getValue()).isEqualTo(2.0);
+        assertThat(extension.metrics.getGauges().get("caches.hits").getValue()).isEqualTo(1L);
+
+        // Registering twice does not fail.
+        extension.updateStatistics();
+
+        extension.stop();
+        assertThat(extension.metrics.getGauges()).isEmpty();
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void testMetricsOfRemovedCachesAreUnregistered() {
+        final List<CacheStatistics> statistics = new ArrayList<>();
+        CacheExtension extension = new CacheExtension();
+        extension.metrics = new MetricRegistry();
+        extension.providers = Collections.<CacheStatisticsProvider>singletonList(new CacheStatisticsProvider() {
+            @Override
+            public Collection<CacheStatistics> getCacheStatistics() {
+                return statistics;
+            }
+        });
+
+        CacheStatistics action = new CacheStatistics("GET /users/{id}");
+        CacheStatistics region = new CacheStatistics("my.region");
+        statistics.add(action);
+        statistics.add(region);
+        extension.updateStatistics();
+        assertThat(extension.metrics.getGauges()).containsKeys("caches.GET__users__id_.hits",
+                "caches.my_region.hits");
+
+        statistics.remove(action);
+        extension.updateStatistics();
+        assertThat(extension.metrics.getGauges()).doesNotContainKey("caches.GET__users__id_.hits")
+                .containsKey("caches.my_region.hits");
+
+        // Registered again when it comes back.
+        statistics.add(action);
+        extension.updateStatistics();
+        assertThat(extension.metrics.getGauges()).containsKey("caches.GET__users__id_.hits");
+    }
+
+    @Test
+    public void testSanitize() {
+        assertThat(CacheExtension.sanitize("region")).isEqualTo("region");
+        assertThat(CacheExtension.sanitize("my-region_1")).isEqualTo("my-region_1");
+        assertThat(CacheExtension.sanitize("GET /a b.c")).isEqualTo("GET__a_b_c");
+        assertThat(CacheExtension.sanitize("")).isEqualTo("_");
+        assertThat(CacheExtension.sanitize(null)).isEqualTo("_");
+    }
+
+    @Test
+    public void testExtensionDescription() {
+        CacheExtension extension = new CacheExtension();
+        assertThat(extension.label()).isEqualTo("Caches");
+        assertThat(extension.url()).isEqualTo("/monitor/caches");
+        assertThat(extension.category()).isEqualTo("wisdom");
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.monitor.extensions.templates;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import org.junit.Test;
+import org.wisdom.api.templates.TemplateWarmUpStatistics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TemplateMetricsTest {
+
+    @Test
+    public void testMetricsRegistration() {
+        TemplateMetrics component = new TemplateMetrics();
+        component.metrics = new MetricRegistry();
+        TemplateWarmUpStatistics statistics = mock(TemplateWarmUpStatistics.class);
+        when(statistics.engine()).thenReturn("thymeleaf");
+        when(statistics.getLastWarmUpDuration()).thenReturn(42L);
+        when(statistics.getWarmedUpTemplateCount()).thenReturn(10L);
+        when(statistics.getWarmUpErrorCount()).thenReturn(1L);
+
+        component.bindStatistics(statistics);
+        assertThat(component.metrics.getGauges().get("templates.thymeleaf.warmup.duration").getValue())
+                .isEqualTo(42L);
+        assertThat(component.metrics.getGauges().get("templates.thymeleaf.warmup.templates").getValue())
+                .isEqualTo(10L);
+        Gauge errors = component.metrics.getGauges().get("templates.thymeleaf.warmup.errors");
+        assertThat(errors.getValue()).isEqualTo(1L);
+
+        component.unbindStatistics(statistics);
+        assertThat(component.metrics.getGauges()).isEmpty();
+    }
+}
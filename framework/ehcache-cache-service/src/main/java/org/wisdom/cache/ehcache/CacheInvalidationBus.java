@@ -0,0 +1,231 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.cache.ehcache;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.Message;
+import io.vertx.core.eventbus.MessageConsumer;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Propagates cache invalidations between the nodes of a Vert.x cluster.
+ * <p>
+ * Local modifications are not sent immediately. They are accumulated and published as a single message on every
+ * tick. Three kinds of modifications are propagated:
+ * <ul>
+ * <li>key invalidations - the entry is removed on the remote nodes</li>
+ * <li>prefix invalidations - all the entries whose key starts with the prefix are removed on the remote nodes</li>
+ * <li>versioned updates - the remote nodes drop their entry if it is older than the published version</li>
+ * </ul>
+ * Values are never sent on the bus, remote nodes reload them on their next miss.
+ */
+public class CacheInvalidationBus {
+
+    /**
+     * The default event bus address used to exchange the invalidation messages.
+     */
+    public static final String DEFAULT_ADDRESS = "wisdom.cache.invalidation";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CacheInvalidationBus.class);
+
+    private static final String NODE = "node";
+    private static final String KEYS = "keys";
+    private static final String PREFIXES = "prefixes";
+    private static final String UPDATES = "updates";
+
+    /**
+     * The receiver of the invalidations emitted by the other nodes.
+     */
+    public interface Target {
+
+        /**
+         * Removes the entry stored with the given key.
+         *
+         * @param key the key
+         */
+        void invalidate(String key);
+
+        /**
+         * Removes all the entries whose key starts with the given prefix.
+         *
+         * @param prefix the prefix
+         */
+        void invalidatePrefix(String prefix);
+
+        /**
+         * The entry stored with the given key has been updated on another node. Removes the local entry if it is
+         * older than the given version.
+         *
+         * @param key     the key
+         * @param version the version of the remote entry
+         */
+        void updated(String key, long version);
+    }
+
+    private final Vertx vertx;
+    private final String address;
+    private final long tick;
+    private final Target target;
+    private final String node = UUID.randomUUID().toString();
+
+    private final Queue<String> keys = new ConcurrentLinkedQueue<>();
+    private final Queue<String> prefixes = new ConcurrentLinkedQueue<>();
+    private final Map<String, Long> updates = new ConcurrentHashMap<>();
+
+    private MessageConsumer<JsonObject> consumer;
+    private long timer = -1;
+
+    /**
+     * Creates a new invalidation bus.
+     *
+     * @param vertx   the Vert.x instance, clustered to reach the other nodes
+     * @param address the event bus address
+     * @param tick    the batching period in milliseconds
+     * @param target  the local cache receiving the remote invalidations
+     */
+    public CacheInvalidationBus(Vertx vertx, String address, long tick, Target target) {
+        this.vertx = vertx;
+        this.address = address;
+        this.tick = tick;
+        this.target = target;
+    }
+
+    /**
+     * @return the identifier of this node, used to ignore the messages we have sent.
+     */
+    public String node() {
+        return node;
+    }
+
+    /**
+     * Starts listening for the remote invalidations and publishing the local ones.
+     */
+    public synchronized void start() {
+        consumer = vertx.eventBus().consumer(address, this::receive);
+        timer = vertx.setPeriodic(tick, id -> flush());
+        LOGGER.info("Cache invalidation bus started on {} (node: {}, tick: {} ms)", address, node, tick);
+    }
+
+    /**
+     * Publishes the pending invalidations and stops the bus.
+     */
+    public synchronized void stop() {
+        if (timer != -1) {
+            vertx.cancelTimer(timer);
+            timer = -1;
+        }
+        flush();
+        if (consumer != null) {
+            consumer.unregister();
+            consumer = null;
+        }
+    }
+
+    /**
+     * Schedules the invalidation of the given key on the other nodes.
+     *
+     * @param key the key
+     */
+    public void invalidate(String key) {
+        keys.add(key);
+    }
+
+    /**
+     * Schedules the invalidation of all the keys starting with the given prefix on the other nodes.
+     *
+     * @param prefix the prefix
+     */
+    public void invalidatePrefix(String prefix) {
+        prefixes.add(prefix);
+    }
+
+    /**
+     * Schedules the notification of an update on the other nodes. If the same key is updated several times during
+     * the same tick, only the latest version is published.
+     *
+     * @param key     the key
+     * @param version the version of the new entry
+     */
+    public void updated(String key, long version) {
+        updates.merge(key, version, Math::max);
+    }
+
+    /**
+     * Publishes all the pending invalidations as a single message. Does nothing if there are none.
+     */
+    void flush() {
+        JsonArray k = drain(keys);
+        JsonArray p = drain(prefixes);
+        JsonObject u = new JsonObject();
+        for (String key : updates.keySet()) {
+            Long version = updates.remove(key);
+            if (version != null) {
+                u.put(key, version);
+            }
+        }
+
+        if (k.isEmpty() && p.isEmpty() && u.isEmpty()) {
+            return;
+        }
+
+        vertx.eventBus().publish(address, new JsonObject()
+                .put(NODE, node)
+                .put(KEYS, k)
+                .put(PREFIXES, p)
+                .put(UPDATES, u));
+    }
+
+    private static JsonArray drain(Queue<String> queue) {
+        JsonArray array = new JsonArray();
+        String value;
+        while ((value = queue.poll()) != null) {
+            array.add(value);
+        }
+        return array;
+    }
+
+    private void receive(Message<JsonObject> message) {
+        JsonObject body = message.body();
+        if (node.equals(body.getString(NODE))) {
+            // Our own message.
+            return;
+        }
+
+        for (Object prefix : body.getJsonArray(PREFIXES)) {
+            target.invalidatePrefix((String) prefix);
+        }
+        for (Object key : body.getJsonArray(KEYS)) {
+            target.invalidate((String) key);
+        }
+        JsonObject u = body.getJsonObject(UPDATES);
+        for (String key : u.fieldNames()) {
+            target.updated(key, u.getLong(key));
+        }
+    }
+}
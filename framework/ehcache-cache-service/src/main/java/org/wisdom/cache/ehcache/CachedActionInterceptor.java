@@ -28,23 +28,35 @@ import org.joda.time.Duration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wisdom.api.cache.Cache;
+import org.wisdom.api.cache.CacheStatistics;
+import org.wisdom.api.cache.CacheStatisticsProvider;
 import org.wisdom.api.cache.Cached;
+import org.wisdom.api.http.CompletionStageResult;
 import org.wisdom.api.http.HeaderNames;
 import org.wisdom.api.http.Result;
 import org.wisdom.api.interception.Interceptor;
 import org.wisdom.api.interception.RequestContext;
+import org.wisdom.api.router.Route;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * An action interceptor caching the result of an action and returning the cached result if it was cached already.
+ * It also collects hit, miss and load time statistics for each cached action.
  */
 @Component
-@Provides(specifications = Interceptor.class)
+@Provides(specifications = {Interceptor.class, CacheStatisticsProvider.class})
 @Instantiate
-public class CachedActionInterceptor extends Interceptor<Cached> {
+public class CachedActionInterceptor extends Interceptor<Cached> implements CacheStatisticsProvider {
 
     @Requires
     protected Cache cache;
 
+    private final ConcurrentMap<String, CacheStatistics> statistics = new ConcurrentHashMap<>();
 
     private static final Logger LOGGER = LoggerFactory.getLogger(CachedActionInterceptor.class);
 
@@ -54,7 +66,8 @@ public class CachedActionInterceptor extends Interceptor<Cached> {
      * In this case, the interception chain is cut.
      * <p>
      * If the result is not yet cached, the interception chain continues, and the result is cached to be used during
-     * the next invocation.
+     * the next invocation. When the action returns a {@link CompletionStageResult}, the completed result is cached
+     * once the stage completes (successfully), not the wrapper.
      *
      * @param configuration the interception configuration
      * @param context       the interception context
@@ -74,20 +87,24 @@ public class CachedActionInterceptor extends Interceptor<Cached> {
             key = configuration.key();
         }
 
+        final CacheStatistics stats = getStatistics(context.route(), key);
         Result result = null;
         if (!nocache) {
             result = (Result) cache.get(key);
         }
 
-        if (result == null) {
-            result = context.proceed();
-        } else {
+        if (result != null) {
+            stats.hit();
             LOGGER.info("Returning cached result for {} (key:{})",
                     context.request().uri(), key);
             return result;
         }
 
-        Duration duration;
+        stats.miss();
+        final long begin = System.nanoTime();
+        result = context.proceed();
+
+        final Duration duration;
         if (configuration.duration() == 0) {
             // Eternity == 1 year.
             duration = Duration.standardDays(365);
@@ -95,12 +112,53 @@ public class CachedActionInterceptor extends Interceptor<Cached> {
             duration = Duration.standardSeconds(configuration.duration());
         }
 
+        final String uri = context.request().uri();
+        if (result instanceof CompletionStageResult) {
+            // The result is not yet computed, cache it when the stage completes.
+            final CompletionStageResult wrapper = (CompletionStageResult) result;
+            return new CompletionStageResult(wrapper.stage().thenApply(completed -> {
+                if (completed != null) {
+                    // Keep the headers set on the wrapper by the rest of the chain.
+                    for (Map.Entry<String, String> header : wrapper.getHeaders().entrySet()) {
+                        completed.getHeaders().putIfAbsent(header.getKey(), header.getValue());
+                    }
+                    store(key, completed, duration, stats, begin, uri);
+                }
+                return completed;
+            }));
+        }
+
+        store(key, result, duration, stats, begin, uri);
+        return result;
+    }
 
+    private void store(String key, Result result, Duration duration, CacheStatistics stats, long begin,
+                       String uri) {
+        stats.loaded(System.nanoTime() - begin);
         cache.set(key, result, duration);
-        LoggerFactory.getLogger(this.getClass()).info("Caching result of {} for {} seconds (key:{})",
-                context.request().uri(), configuration.duration(), key);
+        stats.put();
+        LOGGER.info("Caching result of {} for {} seconds (key:{})", uri, duration.getStandardSeconds(), key);
+    }
 
-        return result;
+    private CacheStatistics getStatistics(Route route, String key) {
+        String name = route == null ? key : route.getHttpMethod() + " " + route.getUrl();
+        CacheStatistics stats = statistics.get(name);
+        if (stats == null) {
+            CacheStatistics created = new CacheStatistics(name);
+            stats = statistics.putIfAbsent(name, created);
+            if (stats == null) {
+                stats = created;
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * @return the statistics of each cached action that has been invoked at least once.
+     */
+    @Override
+    public Collection<CacheStatistics> getCacheStatistics() {
+        return Collections.unmodifiableCollection(statistics.values());
     }
 
     /**
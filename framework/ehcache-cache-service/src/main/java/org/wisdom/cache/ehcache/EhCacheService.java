@@ -19,25 +19,37 @@
  */
 package org.wisdom.cache.ehcache;
 
+import io.vertx.core.Vertx;
 import net.sf.ehcache.CacheManager;
+import net.sf.ehcache.Ehcache;
 import net.sf.ehcache.Element;
+import net.sf.ehcache.event.CacheEventListenerAdapter;
 import org.apache.felix.ipojo.annotations.*;
 import org.joda.time.Duration;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.ServiceRegistration;
 import org.wisdom.api.cache.Cache;
+import org.wisdom.api.cache.CacheStatistics;
+import org.wisdom.api.cache.CacheStatisticsProvider;
 import org.wisdom.api.configuration.ApplicationConfiguration;
 
 import java.io.File;
 import java.net.URL;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Hashtable;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * An implementation of the cache service based on EhCache.
+ * <p>
+ * When a Vert.x instance is available (and clustered, unless configured otherwise), the local modifications are
+ * propagated to the other nodes of the cluster using a {@link CacheInvalidationBus}, so remote nodes do not serve
+ * stale entries until their expiration.
  */
 @Component(immediate = true)
 @Instantiate
-public class EhCacheService implements Cache {
+public class EhCacheService implements Cache, CacheStatisticsProvider {
 
     private static final String WISDOM_KEY = "wisdom";
 
@@ -61,14 +73,24 @@ public class EhCacheService implements Cache {
 
     @Context
     BundleContext context;
-    ServiceRegistration<Cache> registration;
+    ServiceRegistration<?> registration;
 
+    CacheStatistics statistics;
+
+    Vertx vertx;
+    CacheInvalidationBus bus;
+
+    /**
+     * Generates the version of the entries. Versions are based on the current time, and are always greater than the
+     * versions received from the other nodes.
+     */
+    private final AtomicLong clock = new AtomicLong();
 
     /**
      * Creates the EhCache-based implementation of the Cache Service.
      */
     @Validate
-    public void start() {
+    public synchronized void start() {
         Boolean enabled = configuration.getBooleanWithDefault("ehcache.enabled", true);
         if (!enabled) {
             return;
@@ -92,12 +114,94 @@ public class EhCacheService implements Cache {
             manager.addCache(WISDOM_KEY);
             cache = manager.getCache(WISDOM_KEY);
 
-            registration = context.registerService(Cache.class, this, new Hashtable<String, Object>());
+            final net.sf.ehcache.Cache region = cache;
+            statistics = new CacheStatistics(WISDOM_KEY) {
+                @Override
+                public long getSize() {
+                    return region.getSize();
+                }
+            };
+            cache.getCacheEventNotificationService().registerListener(new CacheEventListenerAdapter() {
+                @Override
+                public void notifyElementExpired(Ehcache c, Element element) {
+                    statistics.expired();
+                }
+
+                @Override
+                public void notifyElementEvicted(Ehcache c, Element element) {
+                    statistics.evicted();
+                }
+            });
+
+            registration = context.registerService(new String[]{Cache.class.getName(),
+                    CacheStatisticsProvider.class.getName()}, this, new Hashtable<String, Object>());
         } finally {
             Thread.currentThread().setContextClassLoader(original);
         }
 
+        startInvalidationBus();
+    }
 
+    /**
+     * A Vert.x instance is available, starts the propagation of the invalidations if the cache is started.
+     *
+     * @param vertx the Vert.x instance
+     */
+    @Bind(optional = true)
+    public synchronized void bindVertx(Vertx vertx) {
+        this.vertx = vertx;
+        startInvalidationBus();
+    }
+
+    /**
+     * The Vert.x instance is leaving, stops the propagation of the invalidations.
+     *
+     * @param vertx the Vert.x instance
+     */
+    @Unbind
+    public synchronized void unbindVertx(Vertx vertx) {
+        stopInvalidationBus();
+        this.vertx = null;
+    }
+
+    private void startInvalidationBus() {
+        if (cache == null || vertx == null || bus != null) {
+            return;
+        }
+        if (!configuration.getBooleanWithDefault("ehcache.cluster.invalidation", vertx.isClustered())) {
+            return;
+        }
+        bus = new CacheInvalidationBus(vertx,
+                configuration.getWithDefault("ehcache.cluster.address", CacheInvalidationBus.DEFAULT_ADDRESS),
+                configuration.getIntegerWithDefault("ehcache.cluster.tick", 100),
+                new CacheInvalidationBus.Target() {
+                    @Override
+                    public void invalidate(String key) {
+                        cache.remove(key);
+                    }
+
+                    @Override
+                    public void invalidatePrefix(String prefix) {
+                        removeLocally(prefix);
+                    }
+
+                    @Override
+                    public void updated(String key, long version) {
+                        clock.accumulateAndGet(version, Math::max);
+                        Element element = cache.getQuiet(key);
+                        if (element != null && element.getVersion() < version) {
+                            cache.remove(key);
+                        }
+                    }
+                });
+        bus.start();
+    }
+
+    private void stopInvalidationBus() {
+        if (bus != null) {
+            bus.stop();
+            bus = null;
+        }
     }
 
 
@@ -105,7 +209,8 @@ public class EhCacheService implements Cache {
      * Cleans up everything.
      */
     @Invalidate
-    public void stop() {
+    public synchronized void stop() {
+        stopInvalidationBus();
         if (registration != null) {
             registration.unregister();
             registration = null;
@@ -113,6 +218,7 @@ public class EhCacheService implements Cache {
         if (manager != null) {
             manager.removeCache(WISDOM_KEY);
         }
+        cache = null;
     }
 
     /**
@@ -124,12 +230,14 @@ public class EhCacheService implements Cache {
      */
     @Override
     public void set(String key, Object value, int expiration) {
-        Element element = new Element(key, value);
+        Element element = new Element(key, value, nextVersion());
         if (expiration == 0) {
             element.setEternal(true);
         }
         element.setTimeToLive(expiration);
         cache.put(element);
+        statistics.put();
+        published(element);
     }
 
     /**
@@ -141,13 +249,15 @@ public class EhCacheService implements Cache {
      */
     @Override
     public void set(String key, Object value, Duration expiration) {
-        Element element = new Element(key, value);
+        Element element = new Element(key, value, nextVersion());
         if (expiration == null) {
             element.setEternal(true);
         } else {
             element.setTimeToLive((int) expiration.getStandardSeconds());
         }
         cache.put(element);
+        statistics.put();
+        published(element);
     }
 
     /**
@@ -160,8 +270,10 @@ public class EhCacheService implements Cache {
     public Object get(String key) {
         Element element = cache.get(key);
         if (element != null) {
+            statistics.hit();
             return element.getObjectValue();
         }
+        statistics.miss();
         return null;
     }
 
@@ -173,6 +285,65 @@ public class EhCacheService implements Cache {
      */
     @Override
     public boolean remove(String key) {
-        return cache.remove(key);
+        CacheInvalidationBus b = bus;
+        if (b != null) {
+            b.invalidate(key);
+        }
+        if (cache.remove(key)) {
+            statistics.removed();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Removes all the objects whose key starts with the given prefix. When the invalidation propagation is enabled,
+     * the matching objects are also removed from the other nodes.
+     *
+     * @param prefix the prefix
+     * @return the number of removed objects
+     */
+    @Override
+    public int removeByPrefix(String prefix) {
+        CacheInvalidationBus b = bus;
+        if (b != null) {
+            b.invalidatePrefix(prefix);
+        }
+        return removeLocally(prefix);
+    }
+
+    private int removeLocally(String prefix) {
+        int count = 0;
+        for (Object key : cache.getKeys()) {
+            if (key instanceof String && ((String) key).startsWith(prefix) && cache.remove(key)) {
+                statistics.removed();
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return the statistics of the cache region, empty if the cache is not started.
+     */
+    @Override
+    public Collection<CacheStatistics> getCacheStatistics() {
+        CacheStatistics s = statistics;
+        if (s == null || cache == null) {
+            return Collections.emptyList();
+        }
+        return Collections.singletonList(s);
+    }
+
+    private long nextVersion() {
+        final long now = System.currentTimeMillis();
+        return clock.accumulateAndGet(now, (last, time) -> Math.max(last + 1, time));
+    }
+
+    private void published(Element element) {
+        CacheInvalidationBus b = bus;
+        if (b != null) {
+            b.updated((String) element.getObjectKey(), element.getVersion());
+        }
     }
 }
@@ -0,0 +1,214 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.cache.ehcache;
+
+import com.hazelcast.config.Config;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Handler;
+import io.vertx.core.ServiceHelper;
+import io.vertx.core.Vertx;
+import io.vertx.core.VertxOptions;
+import io.vertx.core.spi.VertxFactory;
+import io.vertx.spi.cluster.hazelcast.HazelcastClusterManager;
+import org.joda.time.Duration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.osgi.framework.BundleContext;
+import org.wisdom.api.configuration.ApplicationConfiguration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks the propagation of the invalidations between several clustered Vert.x instances running in the same JVM.
+ */
+public class CacheInvalidationBusTest {
+
+    private static final String ADDRESS = "test.cache.invalidation";
+
+    private final List<Vertx> nodes = new ArrayList<>();
+
+    @Before
+    public void setUp() throws Exception {
+        String group = "wisdom-cache-" + System.nanoTime();
+        for (int i = 0; i < 2; i++) {
+            nodes.add(clustered(group));
+        }
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(nodes.size());
+        for (Vertx vertx : nodes) {
+            vertx.close(new Handler<AsyncResult<Void>>() {
+                @Override
+                public void handle(AsyncResult<Void> ar) {
+                    latch.countDown();
+                }
+            });
+        }
+        latch.await(30, TimeUnit.SECONDS);
+        nodes.clear();
+    }
+
+    @Test
+    public void testBatchedInvalidations() throws Exception {
+        RecordingTarget t1 = new RecordingTarget();
+        RecordingTarget t2 = new RecordingTarget();
+        CacheInvalidationBus b1 = new CacheInvalidationBus(nodes.get(0), ADDRESS, 50, t1);
+        CacheInvalidationBus b2 = new CacheInvalidationBus(nodes.get(1), ADDRESS, 50, t2);
+        b1.start();
+        b2.start();
+        // Let the consumer registrations reach the cluster.
+        Thread.sleep(500);
+
+        b1.invalidate("a");
+        b1.invalidate("b");
+        b1.invalidatePrefix("/users/");
+        b1.updated("c", 1);
+        b1.updated("c", 3);
+        b1.updated("c", 2);
+
+        assertThat(t2.messages.poll(10, TimeUnit.SECONDS)).isEqualTo("prefix:/users/");
+        assertThat(t2.messages.poll(10, TimeUnit.SECONDS)).isEqualTo("key:a");
+        assertThat(t2.messages.poll(10, TimeUnit.SECONDS)).isEqualTo("key:b");
+        // Only the latest version is sent.
+        assertThat(t2.messages.poll(10, TimeUnit.SECONDS)).isEqualTo("update:c:3");
+        assertThat(t2.messages.poll(500, TimeUnit.MILLISECONDS)).isNull();
+
+        // The emitter ignores its own messages.
+        assertThat(t1.messages).isEmpty();
+
+        b1.stop();
+        b2.stop();
+    }
+
+    @Test
+    public void testRemoteNodesDropStaleEntries() throws Exception {
+        EhCacheService service = new EhCacheService();
+        ApplicationConfiguration configuration = mock(ApplicationConfiguration.class);
+        when(configuration.getBooleanWithDefault("ehcache.enabled", true)).thenReturn(true);
+        when(configuration.getBooleanWithDefault("ehcache.cluster.invalidation", true)).thenReturn(true);
+        when(configuration.getWithDefault(anyString(), anyString())).thenReturn(ADDRESS);
+        when(configuration.getIntegerWithDefault("ehcache.cluster.tick", 100)).thenReturn(50);
+        service.configuration = configuration;
+        service.context = mock(BundleContext.class);
+        service.bindVertx(nodes.get(0));
+        service.start();
+        assertThat(service.bus).isNotNull();
+
+        RecordingTarget remote = new RecordingTarget();
+        CacheInvalidationBus other = new CacheInvalidationBus(nodes.get(1), ADDRESS, 50, remote);
+        other.start();
+        Thread.sleep(500);
+
+        service.set("key", "value", Duration.standardHours(1));
+        service.set("/users/1", "user 1", Duration.standardHours(1));
+        service.set("/users/2", "user 2", Duration.standardHours(1));
+        assertThat(remote.messages.poll(10, TimeUnit.SECONDS)).startsWith("update:");
+
+        // Updated on the other node with a newer version.
+        other.updated("key", Long.MAX_VALUE);
+        waitUntilRemoved(service, "key");
+        assertThat((String) service.get("key")).isNull();
+
+        // Updated on the other node with an older version, the local entry is kept.
+        service.set("key", "value", Duration.standardHours(1));
+        other.updated("key", 0);
+        other.invalidatePrefix("/users/");
+        waitUntilRemoved(service, "/users/1");
+        assertThat((String) service.get("/users/2")).isNull();
+        assertThat((String) service.get("key")).isEqualTo("value");
+
+        other.invalidate("key");
+        waitUntilRemoved(service, "key");
+
+        // Local removals are propagated.
+        remote.messages.clear();
+        service.remove("missing");
+        service.removeByPrefix("/orders/");
+        assertThat(remote.messages.poll(10, TimeUnit.SECONDS)).isEqualTo("prefix:/orders/");
+        assertThat(remote.messages.poll(10, TimeUnit.SECONDS)).isEqualTo("key:missing");
+
+        other.stop();
+        service.stop();
+        assertThat(service.bus).isNull();
+    }
+
+    private static void waitUntilRemoved(EhCacheService service, String key) throws InterruptedException {
+        for (int i = 0; i < 100 && service.get(key) != null; i++) {
+            Thread.sleep(100);
+        }
+        assertThat((Object) service.get(key)).isNull();
+    }
+
+    private static Vertx clustered(String group) throws Exception {
+        Config config = new Config();
+        config.getGroupConfig().setName(group);
+        config.getNetworkConfig().getJoin().getMulticastConfig().setEnabled(false);
+        config.getNetworkConfig().getJoin().getTcpIpConfig().setEnabled(true).addMember("127.0.0.1");
+        config.getNetworkConfig().getInterfaces().setEnabled(true).addInterface("127.0.0.1");
+
+        VertxOptions options = new VertxOptions()
+                .setClustered(true)
+                .setClusterHost("127.0.0.1")
+                .setClusterManager(new HazelcastClusterManager(config));
+        final CompletableFuture<Vertx> future = new CompletableFuture<>();
+        // Vertx.clusteredVertx is a static interface method, not usable with the test source level.
+        ServiceHelper.loadFactory(VertxFactory.class).clusteredVertx(options, new Handler<AsyncResult<Vertx>>() {
+            @Override
+            public void handle(AsyncResult<Vertx> ar) {
+                if (ar.succeeded()) {
+                    future.complete(ar.result());
+                } else {
+                    future.completeExceptionally(ar.cause());
+                }
+            }
+        });
+        return future.get(60, TimeUnit.SECONDS);
+    }
+
+    private static class RecordingTarget implements CacheInvalidationBus.Target {
+
+        final BlockingQueue<String> messages = new LinkedBlockingQueue<>();
+
+        @Override
+        public void invalidate(String key) {
+            messages.add("key:" + key);
+        }
+
+        @Override
+        public void invalidatePrefix(String prefix) {
+            messages.add("prefix:" + prefix);
+        }
+
+        @Override
+        public void updated(String key, long version) {
+            messages.add("update:" + key + ":" + version);
+        }
+    }
+}
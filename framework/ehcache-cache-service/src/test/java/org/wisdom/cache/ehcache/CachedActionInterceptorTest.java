@@ -23,12 +23,14 @@ import org.joda.time.Duration;
 import org.junit.Ignore;
 import org.junit.Test;
 import org.wisdom.api.cache.Cache;
+import org.wisdom.api.cache.CacheStatistics;
 import org.wisdom.api.cache.Cached;
 import org.wisdom.api.configuration.ApplicationConfiguration;
 import org.wisdom.api.http.*;
 import org.wisdom.api.interception.RequestContext;
 
 import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -71,6 +73,55 @@ public class CachedActionInterceptorTest {
         assertThat(result).isEqualTo(r);
 
         verify(interceptor.cache, times(2)).get("key");
+
+        // Without route, the statistics use the key.
+        assertThat(interceptor.getCacheStatistics()).hasSize(1);
+        CacheStatistics statistics = interceptor.getCacheStatistics().iterator().next();
+        assertThat(statistics.getName()).isEqualTo("key");
+        assertThat(statistics.getHitCount()).isEqualTo(1);
+        assertThat(statistics.getMissCount()).isEqualTo(1);
+        assertThat(statistics.getPutCount()).isEqualTo(1);
+        assertThat(statistics.getHitRatio()).isEqualTo(0.5);
+        assertThat(statistics.getLoadTimes().getCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testCachingOfCompletionStageResults() throws Exception {
+        CachedActionInterceptor interceptor = new CachedActionInterceptor();
+        interceptor.cache = mock(Cache.class);
+        Cached cached = mock(Cached.class);
+        when(cached.duration()).thenReturn(10);
+        when(cached.key()).thenReturn("key");
+
+        RequestContext context = mock(RequestContext.class);
+        when(context.request()).thenReturn(mock(Request.class));
+        Context ctx = mock(Context.class);
+        when(context.context()).thenReturn(ctx);
+        when(context.context().header(anyString())).thenReturn(null);
+        CompletableFuture<Result> future = new CompletableFuture<>();
+        when(context.proceed()).thenReturn(new CompletionStageResult(future).with("X-Chain", "true"));
+
+        Result result = interceptor.call(cached, context);
+        assertThat(result).isInstanceOf(CompletionStageResult.class);
+        // Not computed yet, nothing is cached.
+        verify(interceptor.cache, never()).set(anyString(), any(), any(Duration.class));
+
+        final Result r = Results.ok("Result");
+        future.complete(r);
+        assertThat(((CompletionStageResult) result).stage().toCompletableFuture().get()).isSameAs(r);
+        // The completed result is cached, with the headers of the wrapper.
+        verify(interceptor.cache, times(1)).set("key", r, Duration.standardSeconds(10));
+        assertThat(r.getHeaders()).containsEntry("X-Chain", "true");
+        assertThat(interceptor.getCacheStatistics().iterator().next().getPutCount()).isEqualTo(1);
+
+        // Failures are not cached.
+        future = new CompletableFuture<>();
+        when(context.proceed()).thenReturn(new CompletionStageResult(future));
+        result = interceptor.call(cached, context);
+        future.completeExceptionally(new IllegalStateException("expected"));
+        assertThat(((CompletionStageResult) result).stage().toCompletableFuture().isCompletedExceptionally())
+                .isTrue();
+        verify(interceptor.cache, times(1)).set(anyString(), any(), any(Duration.class));
     }
 
     @Test
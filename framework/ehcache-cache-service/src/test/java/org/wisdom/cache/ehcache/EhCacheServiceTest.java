@@ -24,6 +24,7 @@ import org.junit.Ignore;
 import org.junit.Test;
 import org.osgi.framework.BundleContext;
 import org.wisdom.api.cache.Cache;
+import org.wisdom.api.cache.CacheStatistics;
 import org.wisdom.api.configuration.ApplicationConfiguration;
 
 import java.util.concurrent.CountDownLatch;
@@ -66,6 +67,36 @@ public class EhCacheServiceTest {
         svc.stop();
     }
 
+    @Test
+    public void testStatistics() {
+        ApplicationConfiguration configuration = mock(ApplicationConfiguration.class);
+        when(configuration.getBooleanWithDefault("ehcache.enabled", true)).thenReturn(true);
+        EhCacheService svc = new EhCacheService();
+        svc.configuration = configuration;
+        svc.context = mock(BundleContext.class);
+        svc.start();
+
+        assertThat(svc.getCacheStatistics()).hasSize(1);
+        CacheStatistics statistics = svc.getCacheStatistics().iterator().next();
+        assertThat(statistics.getName()).isEqualTo("wisdom");
+
+        svc.get("key");
+        svc.set("key", "value", 0);
+        svc.get("key");
+        svc.get("key");
+        assertThat(statistics.getSize()).isEqualTo(1);
+        svc.remove("key");
+
+        assertThat(statistics.getHitCount()).isEqualTo(2);
+        assertThat(statistics.getMissCount()).isEqualTo(1);
+        assertThat(statistics.getPutCount()).isEqualTo(1);
+        assertThat(statistics.getRemovalCount()).isEqualTo(1);
+        assertThat(statistics.getSize()).isEqualTo(0);
+
+        svc.stop();
+        assertThat(svc.getCacheStatistics()).isEmpty();
+    }
+
     @Test
     public void testDisabled() {
         ApplicationConfiguration configuration = mock(ApplicationConfiguration.class);
@@ -133,6 +164,56 @@ public class EhCacheServiceTest {
         impl.stop();
     }
 
+    @Test
+    public void testRemoveByPrefix() {
+        ApplicationConfiguration configuration = mock(ApplicationConfiguration.class);
+        when(configuration.getBooleanWithDefault("ehcache.enabled", true)).thenReturn(true);
+        EhCacheService impl = new EhCacheService();
+        impl.configuration = configuration;
+        impl.context = mock(BundleContext.class);
+        impl.start();
+
+        Cache svc = impl;
+        svc.set("/users/1", "user 1", 0);
+        svc.set("/users/2", "user 2", 0);
+        svc.set("/orders/1", "order 1", 0);
+
+        assertThat(svc.removeByPrefix("/users/")).isEqualTo(2);
+        assertThat(svc.<String>get("/users/1")).isNull();
+        assertThat(svc.<String>get("/users/2")).isNull();
+        assertThat(svc.<String>get("/orders/1")).isEqualTo("order 1");
+        assertThat(svc.removeByPrefix("/users/")).isEqualTo(0);
+        assertThat(impl.getCacheStatistics().iterator().next().getRemovalCount()).isEqualTo(2);
+
+        impl.stop();
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testRemoveByPrefixIsNotSupportedByDefault() {
+        Cache svc = new Cache() {
+            @Override
+            public <T> void set(String key, T value, int expiration) {
+                // Nothing to do.
+            }
+
+            @Override
+            public <T> void set(String key, T value, Duration expiration) {
+                // Nothing to do.
+            }
+
+            @Override
+            public <T> T get(String key) {
+                return null;
+            }
+
+            @Override
+            public boolean remove(String key) {
+                return false;
+            }
+        };
+        svc.removeByPrefix("/users/");
+    }
+
     private static class User {
         String name;
 
@@ -187,6 +268,7 @@ public class EhCacheServiceTest {
         assertThat(svc.get("key")).isNull();
         assertThat(svc.remove("missing")).isFalse();
 
+        svc.stop();
     }
 
     @Test
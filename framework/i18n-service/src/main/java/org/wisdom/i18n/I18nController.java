@@ -30,6 +30,8 @@ import org.wisdom.api.http.*;
 import org.wisdom.api.i18n.InternationalizationService;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * A controller allowing clients to retrieve the internationalized messages.
@@ -43,6 +45,18 @@ public class I18nController extends DefaultController {
     @Requires
     Json json;
 
+    /**
+     * The maximum number of payloads kept. The locale sets come from the requests, so the number of combinations is
+     * not bounded.
+     */
+    static final int MAX_PAYLOADS = 128;
+
+    /**
+     * The serialized messages, per format and set of locales. Payloads are rebuilt when the etag of one of their
+     * locales changes, i.e. when resource bundles providing these locales arrive or leave.
+     */
+    private final ConcurrentMap<String, I18nPayload> payloads = new ConcurrentHashMap<>();
+
     /**
      * Gets the internationalized message as a Java resource bundle (property file).
      *
@@ -65,27 +79,28 @@ public class I18nController extends DefaultController {
             locale = Locale.forLanguageTag(file.substring(file.indexOf('_') + 1).replace("_", "-"));
         }
 
-        // Check if we have received a etag
-        String etag = service.etag(locale);
-        if (ifNoneMatch != null && ifNoneMatch.equals(etag)) {
-            return new Result(Status.NOT_MODIFIED);
-        }
-
-        Collection<ResourceBundle> bundles = service.bundles(locale);
+        String key = "properties:" + locale.toLanguageTag();
+        String version = service.etag(locale);
+        I18nPayload payload = payloads.get(key);
+        if (payload == null || !payload.isVersion(version)) {
+            Collection<ResourceBundle> bundles = service.bundles(locale);
 
-        // Do we have this locale
-        if (bundles.isEmpty()) {
-            // No, return not found
-            return notFound().as(MimeTypes.TEXT);
-        } else {
+            // Do we have this locale
+            if (bundles.isEmpty()) {
+                // No, return not found
+                return notFound().as(MimeTypes.TEXT);
+            }
             StringBuilder builder = new StringBuilder();
             for (ResourceBundle bundle : bundles) {
-                for (String key : bundle.keySet()) {
-                    builder.append(key).append("=").append(bundle.getString(key)).append("\n");
+                for (String k : bundle.keySet()) {
+                    builder.append(k).append("=").append(bundle.getString(k)).append("\n");
                 }
             }
-            return ok(builder.toString()).as(MimeTypes.TEXT).with(HeaderNames.ETAG, etag);
+            String content = builder.toString();
+            payload = store(key, new I18nPayload(version, content, content, MimeTypes.TEXT));
         }
+
+        return respond(payload, ifNoneMatch);
     }
 
     /**
@@ -112,17 +127,38 @@ public class I18nController extends DefaultController {
             }
         }
 
-        String etag;
-        StringBuilder builder = new StringBuilder();
+        StringBuilder key = new StringBuilder("json:");
+        StringBuilder version = new StringBuilder();
         for (Locale locale : locales) {
-            builder.append(service.etag(locale));
+            key.append(locale.toLanguageTag()).append(' ');
+            version.append(service.etag(locale)).append(' ');
         }
-        etag = builder.toString();
 
-        if (ifNoneMatch != null && ifNoneMatch.equals(etag)) {
+        I18nPayload payload = payloads.get(key.toString());
+        if (payload == null || !payload.isVersion(version.toString())) {
+            ObjectNode result = buildI18NextDocument(locales);
+            payload = store(key.toString(), new I18nPayload(version.toString(), result, json.stringify(result),
+                    MimeTypes.JSON));
+        }
+        return respond(payload, ifNoneMatch);
+    }
+
+    private I18nPayload store(String key, I18nPayload payload) {
+        if (payloads.size() >= MAX_PAYLOADS) {
+            payloads.clear();
+        }
+        payloads.put(key, payload);
+        return payload;
+    }
+
+    private Result respond(I18nPayload payload, String ifNoneMatch) {
+        if (payload.matches(ifNoneMatch)) {
             return new Result(Status.NOT_MODIFIED);
         }
+        return payload.toResult(context().request().encoding());
+    }
 
+    private ObjectNode buildI18NextDocument(List<Locale> locales) {
         // i18next use a specific Json Format
         ObjectNode result = json.newObject();
         for (Locale locale : locales) {
@@ -141,7 +177,7 @@ public class I18nController extends DefaultController {
             }
             result.set(langName, lang);
         }
-        return ok(result).with(HeaderNames.ETAG, etag);
+        return result;
     }
 
     private void populateJsonResourceBundle(ObjectNode node, String key, String value) {
@@ -0,0 +1,209 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.i18n;
+
+import com.google.common.hash.Hashing;
+import org.wisdom.api.http.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A serialized set of messages, computed once and sent as it is until the messages change. The payload keeps a
+ * gzipped variant sent to the clients accepting it, and its ETag is a hash of the content, so it stays the same
+ * while the messages do not change (even after a restart). The gzipped variant has its own ETag (suffixed with
+ * {@code -gzip}), as its representation differs.
+ */
+final class I18nPayload {
+
+    private static final String GZIP = "gzip";
+
+    private static final String GZIP_ETAG_SUFFIX = "-" + GZIP;
+
+    private final String version;
+    private final Object content;
+    private final String mimeType;
+    private final byte[] bytes;
+    private final byte[] gzipped;
+    private final String etag;
+
+    /**
+     * Creates the payload.
+     *
+     * @param version    identifies the version of the messages used to build the payload
+     * @param content    the content, as given to the Wisdom serializers (a String or a JSON node)
+     * @param serialized the serialized form of the content
+     * @param mimeType   the mime type of the content
+     */
+    I18nPayload(String version, Object content, String serialized, String mimeType) {
+        this.version = version;
+        this.content = content;
+        this.mimeType = mimeType;
+        this.bytes = serialized.getBytes(StandardCharsets.UTF_8);
+        this.etag = Hashing.murmur3_128().hashBytes(bytes).toString();
+        byte[] compressed = gzip(bytes);
+        // Don't keep the compressed form if it does not save anything.
+        this.gzipped = compressed.length < bytes.length ? compressed : null;
+    }
+
+    private static byte[] gzip(byte[] content) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(content.length / 4 + 32);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(content);
+        } catch (IOException e) {
+            // Cannot happen, we are writing in memory.
+            throw new IllegalStateException("Cannot compress the i18n payload", e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Checks whether the payload has been built from the given version of the messages.
+     *
+     * @param version the version
+     * @return {@literal true} if the payload is up to date
+     */
+    boolean isVersion(String version) {
+        return this.version.equals(version);
+    }
+
+    /**
+     * Checks whether the given {@code If-None-Match} value designates one of the variants of this payload.
+     *
+     * @param ifNoneMatch the value of the {@code If-None-Match} header, may be {@literal null}
+     * @return {@literal true} if the client already has the payload
+     */
+    boolean matches(String ifNoneMatch) {
+        return ifNoneMatch != null
+                && (ifNoneMatch.equals(etag) || gzipped != null && ifNoneMatch.equals(etag + GZIP_ETAG_SUFFIX));
+    }
+
+    /**
+     * Creates the result sending the payload. The gzipped form is sent if the client accepts it.
+     *
+     * @param acceptEncoding the value of the {@code Accept-Encoding} header, may be {@literal null}
+     * @return the result
+     */
+    Result toResult(String acceptEncoding) {
+        Result result = Results.ok().with(HeaderNames.VARY, HeaderNames.ACCEPT_ENCODING);
+        if (gzipped != null && acceptsGzip(acceptEncoding)) {
+            // As the content encoding is set, the server does not compress it again.
+            return result.render(new PayloadRenderable(gzipped)).with(HeaderNames.CONTENT_ENCODING, GZIP)
+                    .with(HeaderNames.ETAG, etag + GZIP_ETAG_SUFFIX).as(mimeType);
+        }
+        return result.render(new PayloadRenderable(bytes)).with(HeaderNames.ETAG, etag).as(mimeType);
+    }
+
+    /**
+     * Checks whether the given {@code Accept-Encoding} value accepts gzip, i.e. whether gzip (or {@code *} when gzip
+     * is not listed) has a non-zero quality value, such as in {@code gzip, deflate} or {@code *;q=0.5}, but not in
+     * {@code gzip;q=0}.
+     *
+     * @param acceptEncoding the value of the {@code Accept-Encoding} header, may be {@literal null}
+     * @return {@literal true} if the gzipped form can be sent
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        double gzip = -1;
+        double any = -1;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] segments = coding.split(";");
+            String name = segments[0].trim().toLowerCase(Locale.ENGLISH);
+            if (GZIP.equals(name)) {
+                gzip = quality(segments);
+            } else if ("*".equals(name)) {
+                any = quality(segments);
+            }
+        }
+        return gzip > 0 || gzip < 0 && any > 0;
+    }
+
+    private static double quality(String[] segments) {
+        for (int i = 1; i < segments.length; i++) {
+            String parameter = segments[i].trim();
+            if (parameter.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2).trim());
+                } catch (NumberFormatException e) { //NOSONAR
+                    // Invalid quality, the coding is not acceptable.
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    /**
+     * Sends one of the serialized forms in a single write.
+     */
+    private final class PayloadRenderable implements Renderable<Object> {
+
+        private final byte[] data;
+
+        private PayloadRenderable(byte[] data) {
+            this.data = data;
+        }
+
+        @Override
+        public InputStream render(Context context, Result result) {
+            return new ByteArrayInputStream(data);
+        }
+
+        @Override
+        public long length() {
+            return data.length;
+        }
+
+        @Override
+        public String mimetype() {
+            return mimeType;
+        }
+
+        /**
+         * @return the unserialized content.
+         */
+        @Override
+        public Object content() {
+            return content;
+        }
+
+        @Override
+        public boolean requireSerializer() {
+            return false;
+        }
+
+        @Override
+        public void setSerializedForm(String serialized) {
+            // Already serialized.
+        }
+
+        @Override
+        public boolean mustBeChunked() {
+            return false;
+        }
+    }
+}
@@ -61,6 +61,11 @@ public class InternationalizationServiceSingleton implements Internationalizatio
 
     private Map<Locale, String> etags = new HashMap<>();
 
+    /**
+     * The index of the messages provided by the extensions, rebuilt when the extensions change.
+     */
+    private volatile MessageIndex index;
+
     public InternationalizationServiceSingleton(BundleContext context) {
         this.context = context;
         // configuration is null in unit tests (on purpose).
@@ -69,6 +74,7 @@ public class InternationalizationServiceSingleton implements Internationalizatio
         } else {
             this.defaultLocale = null;
         }
+        this.index = new MessageIndex(extensions, defaultLocale);
     }
 
     protected String getDefaultLocale() {
@@ -88,6 +94,7 @@ public class InternationalizationServiceSingleton implements Internationalizatio
             tracker.close();
         }
         extensions.clear();
+        index = new MessageIndex(extensions, defaultLocale);
     }
 
     /**
@@ -147,18 +154,10 @@ public class InternationalizationServiceSingleton implements Internationalizatio
      * @return the formatted internationalized message
      */
     public String get(Locale[] locales, String key, Object... args) {
-        for (Locale locale : locales) {
-            I18nExtension extension = getExtension(locale, key);
-            if (extension != null) {
-                return extension.get(key, args);
-            }
-        }
-        // Use default.
-        I18nExtension extension = getExtension(InternationalizationService.DEFAULT_LOCALE, key);
-        if (extension != null) {
-            return extension.get(key, args);
+        MessageIndex.Message message = index.get(locales, key);
+        if (message != null) {
+            return message.format(args);
         }
-
         return null;
     }
 
@@ -174,16 +173,7 @@ public class InternationalizationServiceSingleton implements Internationalizatio
      */
     @Override
     public String get(Locale locale, String key, Object... args) {
-        I18nExtension extension = getExtension(locale, key);
-        if (extension != null) {
-            return extension.get(key, args);
-        }
-        extension = getExtension(InternationalizationService.DEFAULT_LOCALE, key);
-        if (extension != null) {
-            return extension.get(key, args);
-        }
-
-        return null;
+        return get(new Locale[]{locale}, key, args);
     }
 
     /**
@@ -200,27 +190,15 @@ public class InternationalizationServiceSingleton implements Internationalizatio
     /**
      * Gets all the messages defined in the given locales AND default locale (for messages not defined in the given
      * any locale). The message are added to the map only if they are not provided in the previous locale,
-     * meaning that the order is important. The returned map is composed pair of key:message.
+     * meaning that the order is important. The returned map is composed pair of key:message. It is immutable, and
+     * shared by the calls using the same locales.
      *
      * @param locales the ordered set of locales
      * @return the set of defined messages.
      */
     @Override
     public Map<String, String> getAllMessages(Locale... locales) {
-        Map<String, String> messages = new HashMap<>();
-        List<I18nExtension> extensionForLocale;
-        for (Locale locale : locales) {
-            extensionForLocale = getExtension(locale);
-            for (I18nExtension extension : extensionForLocale) {
-                merge(messages, extension.map());
-            }
-        }
-        // Now add the messages for the default locale
-        extensionForLocale = getExtension(DEFAULT_LOCALE);
-        for (I18nExtension extension : extensionForLocale) {
-            merge(messages, extension.map());
-        }
-        return messages;
+        return index.getAll(locales);
     }
 
     /**
@@ -244,42 +222,6 @@ public class InternationalizationServiceSingleton implements Internationalizatio
         }
     }
 
-    private void merge(Map<String, String> map1, Map<String, String> map2) {
-        for (Map.Entry<String, String> entry : map2.entrySet()) {
-            if (!map1.containsKey(entry.getKey())) {
-                map1.put(entry.getKey(), entry.getValue());
-            }
-        }
-    }
-
-    private List<I18nExtension> getExtension(Locale locale) {
-        if (locale.equals(defaultLocale)) {
-            locale = InternationalizationService.DEFAULT_LOCALE;
-        }
-        List<I18nExtension> list = new ArrayList<>();
-        for (I18nExtension extension : extensions) {
-            if (extension.locale().equals(locale)) {
-                list.add(extension);
-            } else if (locale.equals(defaultLocale)  && extension.locale().equals(DEFAULT_LOCALE)) {
-                list.add(extension);
-            }
-        }
-        return list;
-    }
-
-    private I18nExtension getExtension(Locale locale, String key) {
-        if (locale.equals(defaultLocale)) {
-            locale = InternationalizationService.DEFAULT_LOCALE;
-        }
-        for (I18nExtension extension : extensions) {
-            if (extension.locale().equals(locale)
-                    && extension.keys().contains(key)) {
-                return extension;
-            }
-        }
-        return null;
-    }
-
     /**
      * A bundle is being added to the {@code BundleTracker}.
      * <p/>
@@ -301,7 +243,7 @@ public class InternationalizationServiceSingleton implements Internationalizatio
      * object should not be tracked.
      */
     @Override
-    public List<I18nExtension> addingBundle(Bundle bundle, BundleEvent event) {
+    public synchronized List<I18nExtension> addingBundle(Bundle bundle, BundleEvent event) {
         List<I18nExtension> list = ExtenderUtils.analyze("/i18n/", bundle);
         if (list.isEmpty()) {
             return null;
@@ -313,6 +255,7 @@ public class InternationalizationServiceSingleton implements Internationalizatio
             extensions.add(extension);
             etags.put(extension.locale(), current);
         }
+        index = new MessageIndex(extensions, defaultLocale);
         return list;
     }
 
@@ -349,14 +292,13 @@ public class InternationalizationServiceSingleton implements Internationalizatio
      * @param list   The tracked object for the specified bundle.
      */
     @Override
-    public void removedBundle(Bundle bundle, BundleEvent event, List<I18nExtension> list) {
+    public synchronized void removedBundle(Bundle bundle, BundleEvent event, List<I18nExtension> list) {
         String current = Long.toString(System.currentTimeMillis());
         for (I18nExtension extension : list) {
-            synchronized (this) {
-                extensions.remove(extension);
-                etags.put(extension.locale(), current);
-            }
+            extensions.remove(extension);
+            etags.put(extension.locale(), current);
         }
+        index = new MessageIndex(extensions, defaultLocale);
         LOGGER.info("Bundle {} ({}) does not offer the {} resource bundle(s) anymore",
                 bundle.getSymbolicName(), bundle.getBundleId(), list.size());
     }
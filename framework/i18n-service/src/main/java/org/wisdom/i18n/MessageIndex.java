@@ -0,0 +1,194 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.i18n;
+
+import org.wisdom.api.i18n.InternationalizationService;
+
+import java.text.MessageFormat;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * An immutable index of the messages provided by a set of {@link I18nExtension}. It is built when the set of
+ * extensions changes, so retrieving a message does not walk the extensions and resource bundles anymore.
+ * <p>
+ * The messages of each locale chain (the requested locales followed by the default locale) are merged on first
+ * use and kept, so the next requests for the same chain only do a single lookup.
+ */
+final class MessageIndex {
+
+    /**
+     * The maximum number of merged chains kept. The chains come from the requests (the {@code Accept-Language}
+     * header), so the number of combinations is not bounded.
+     */
+    static final int MAX_CHAINS = 256;
+
+    /**
+     * The messages provided for each locale, without fallback.
+     */
+    private final Map<Locale, Map<String, Message>> locales;
+
+    /**
+     * The merged messages for each locale chain.
+     */
+    private final ConcurrentMap<List<Locale>, Chain> chains = new ConcurrentHashMap<>();
+
+    private final Locale defaultLocale;
+
+    /**
+     * Builds the index. When several extensions provide the same key for the same locale, the first one wins.
+     *
+     * @param extensions    the extensions, in order
+     * @param defaultLocale the default locale configured by the application, handled as
+     *                      {@link InternationalizationService#DEFAULT_LOCALE}, may be {@literal null}
+     */
+    MessageIndex(List<I18nExtension> extensions, Locale defaultLocale) {
+        this.defaultLocale = defaultLocale;
+        Map<Locale, Map<String, Message>> index = new HashMap<>();
+        for (I18nExtension extension : extensions) {
+            Map<String, Message> messages = index.get(extension.locale());
+            if (messages == null) {
+                messages = new HashMap<>();
+                index.put(extension.locale(), messages);
+            }
+            ResourceBundle bundle = extension.bundle();
+            for (String key : bundle.keySet()) {
+                if (!messages.containsKey(key)) {
+                    messages.put(key, new Message(bundle.getString(key)));
+                }
+            }
+        }
+        this.locales = index;
+    }
+
+    /**
+     * Gets the message identified by the given key for the first locale providing it, or the default locale.
+     *
+     * @param locales the ordered locales
+     * @param key     the key
+     * @return the message, {@literal null} if not provided
+     */
+    Message get(Locale[] locales, String key) {
+        return chain(locales).messages.get(key);
+    }
+
+    /**
+     * Gets all the messages provided by the given locales and the default locale.
+     *
+     * @param locales the ordered locales
+     * @return the immutable key:message map
+     */
+    Map<String, String> getAll(Locale[] locales) {
+        return chain(locales).patterns;
+    }
+
+    private Chain chain(Locale[] requested) {
+        List<Locale> key = Arrays.asList(requested);
+        Chain chain = chains.get(key);
+        if (chain == null) {
+            chain = new Chain(requested);
+            if (chains.size() >= MAX_CHAINS) {
+                chains.clear();
+            }
+            // Copy the key, as the array may be modified by the caller.
+            chains.putIfAbsent(new ArrayList<>(key), chain);
+        }
+        return chain;
+    }
+
+    private Map<String, Message> messages(Locale locale) {
+        if (locale.equals(defaultLocale)) {
+            locale = InternationalizationService.DEFAULT_LOCALE;
+        }
+        Map<String, Message> messages = locales.get(locale);
+        if (messages == null) {
+            return Collections.emptyMap();
+        }
+        return messages;
+    }
+
+    /**
+     * The merged messages of a locale chain.
+     */
+    private final class Chain {
+        private final Map<String, Message> messages;
+        private final Map<String, String> patterns;
+
+        private Chain(Locale[] requested) {
+            Map<String, Message> merged = new HashMap<>();
+            for (Locale locale : requested) {
+                merge(merged, messages(locale));
+            }
+            merge(merged, messages(InternationalizationService.DEFAULT_LOCALE));
+
+            Map<String, String> raw = new HashMap<>();
+            for (Map.Entry<String, Message> entry : merged.entrySet()) {
+                raw.put(entry.getKey(), entry.getValue().pattern);
+            }
+            this.messages = merged;
+            this.patterns = Collections.unmodifiableMap(raw);
+        }
+
+        private void merge(Map<String, Message> merged, Map<String, Message> messages) {
+            for (Map.Entry<String, Message> entry : messages.entrySet()) {
+                if (!merged.containsKey(entry.getKey())) {
+                    merged.put(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+    }
+
+    /**
+     * A message, keeping its parsed format once used with arguments.
+     */
+    static final class Message {
+        private final String pattern;
+
+        /**
+         * The parsed pattern. {@link MessageFormat} is not thread-safe, so formatting is synchronized on it.
+         */
+        private volatile MessageFormat format;
+
+        Message(String pattern) {
+            this.pattern = pattern;
+        }
+
+        /**
+         * Formats the message. Without arguments, the message is returned as it is.
+         *
+         * @param args the arguments, can be empty
+         * @return the formatted message
+         */
+        String format(Object... args) {
+            if (args.length == 0) {
+                return pattern;
+            }
+            MessageFormat parsed = format;
+            if (parsed == null) {
+                parsed = new MessageFormat(pattern);
+                format = parsed;
+            }
+            synchronized (parsed) {
+                return parsed.format(args);
+            }
+        }
+    }
+}
@@ -19,6 +19,7 @@
  */
 package org.wisdom.i18n;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.common.collect.ImmutableList;
 import org.junit.Before;
@@ -34,7 +35,10 @@ import org.wisdom.test.parents.FakeContext;
 import org.wisdom.test.parents.Invocation;
 import org.wisdom.test.parents.WisdomUnitTest;
 
+import java.io.InputStream;
+import java.util.List;
 import java.util.Locale;
+import java.util.zip.GZIPInputStream;
 
 import static org.wisdom.test.assertions.ActionResultAssert.assertThat;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -317,4 +321,104 @@ public class I18NControllerTest extends WisdomUnitTest {
     }
 
 
+    @Test
+    public void testPrecomputedPayloads() throws Exception {
+        Action.ActionResult result = Action.action(new Invocation() {
+            @Override
+            public Result invoke() throws Throwable {
+                return controller.getBundleResourceForI18Next("fr dev", null);
+            }
+        }).invoke();
+        final String etag = result.getResult().getHeaders().get(HeaderNames.ETAG);
+        assertThat(result.getResult().getRenderable().mustBeChunked()).isFalse();
+
+        // The clients accepting gzip get the compressed form, with its own ETag.
+        result = Action.action(new Invocation() {
+            @Override
+            public Result invoke() throws Throwable {
+                return controller.getBundleResourceForI18Next("fr dev", null);
+            }
+        }).header(HeaderNames.ACCEPT_ENCODING, "gzip, deflate").invoke();
+        assertThat(result).hasStatus(Status.OK);
+        final String gzipEtag = result.getResult().getHeaders().get(HeaderNames.ETAG);
+        assertThat(result.getResult().getHeaders()).containsEntry(HeaderNames.CONTENT_ENCODING, "gzip");
+        assertThat(gzipEtag).isEqualTo(etag + "-gzip");
+        InputStream stream = new GZIPInputStream(result.getResult().getRenderable().render(null, null));
+        ObjectNode node = (ObjectNode) new ObjectMapper().readTree(stream);
+        assertThat(node.get("fr").get("translation").get("welcome").asText()).isEqualTo("bonjour");
+
+        // gzip explicitly refused.
+        result = Action.action(new Invocation() {
+            @Override
+            public Result invoke() throws Throwable {
+                return controller.getBundleResourceForI18Next("fr dev", null);
+            }
+        }).header(HeaderNames.ACCEPT_ENCODING, "gzip;q=0, deflate").invoke();
+        assertThat(result.getResult().getHeaders()).doesNotContainKey(HeaderNames.CONTENT_ENCODING)
+                .containsEntry(HeaderNames.ETAG, etag);
+
+        for (final String tag : new String[]{etag, gzipEtag}) {
+            result = Action.action(new Invocation() {
+                @Override
+                public Result invoke() throws Throwable {
+                    return controller.getBundleResourceForI18Next("fr dev", tag);
+                }
+            }).invoke();
+            assertThat(result).hasStatus(Status.NOT_MODIFIED);
+        }
+    }
+
+    @Test
+    public void testAcceptEncodingQualities() {
+        assertThat(I18nPayload.acceptsGzip(null)).isFalse();
+        assertThat(I18nPayload.acceptsGzip("")).isFalse();
+        assertThat(I18nPayload.acceptsGzip("deflate")).isFalse();
+        assertThat(I18nPayload.acceptsGzip("gzip")).isTrue();
+        assertThat(I18nPayload.acceptsGzip("GZIP, deflate")).isTrue();
+        assertThat(I18nPayload.acceptsGzip("deflate, gzip;q=0.5")).isTrue();
+        assertThat(I18nPayload.acceptsGzip("gzip;q=0")).isFalse();
+        assertThat(I18nPayload.acceptsGzip("gzip ; q=0.0, *")).isFalse();
+        assertThat(I18nPayload.acceptsGzip("*")).isTrue();
+        assertThat(I18nPayload.acceptsGzip("*;q=0")).isFalse();
+        assertThat(I18nPayload.acceptsGzip("x-gzip")).isFalse();
+    }
+
+    @Test
+    public void testPayloadsAreRebuiltWhenBundlesChange() throws Exception {
+        InternationalizationServiceSingleton service = new InternationalizationServiceSingleton(null);
+        controller.service = service;
+        Bundle bundle = InternationalizationServiceSingletonTest.getMockBundle();
+        List<I18nExtension> extensions = service.addingBundle(bundle, null);
+
+        Action.ActionResult result = Action.action(new Invocation() {
+            @Override
+            public Result invoke() throws Throwable {
+                return controller.getBundleResource("Messages_fr", null);
+            }
+        }).invoke();
+        assertThat(toString(result)).contains("welcome=bonjour");
+        final String etag = result.getResult().getHeaders().get(HeaderNames.ETAG);
+
+        // The ETag only depends on the content.
+        controller = new I18nController();
+        controller.service = service;
+        result = Action.action(new Invocation() {
+            @Override
+            public Result invoke() throws Throwable {
+                return controller.getBundleResource("Messages_fr", null);
+            }
+        }).invoke();
+        assertThat(result.getResult().getHeaders()).containsEntry(HeaderNames.ETAG, etag);
+
+        // Wait one second to be sure timestamps are different.
+        Thread.sleep(1000);
+        service.removedBundle(bundle, null, extensions);
+        result = Action.action(new Invocation() {
+            @Override
+            public Result invoke() throws Throwable {
+                return controller.getBundleResource("Messages_fr", etag);
+            }
+        }).invoke();
+        assertThat(result).hasStatus(Status.NOT_FOUND);
+    }
 }
@@ -0,0 +1,129 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.i18n;
+
+import org.junit.Test;
+import org.wisdom.api.i18n.InternationalizationService;
+
+import java.text.MessageFormat;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+/**
+ * Checks the message index.
+ */
+public class MessageIndexTest {
+
+    private static I18nExtension load(String resource, Locale locale) throws Exception {
+        I18nExtension extension = new I18nExtension(MessageIndexTest.class.getClassLoader().getResource(resource),
+                locale, null);
+        extension.load();
+        return extension;
+    }
+
+    private static MessageIndex createIndex(Locale defaultLocale) throws Exception {
+        return new MessageIndex(Arrays.asList(
+                load("i18n/messages.properties", InternationalizationService.DEFAULT_LOCALE),
+                load("i18n/messages_fr.properties", Locale.FRENCH),
+                load("format/format.properties", InternationalizationService.DEFAULT_LOCALE)),
+                defaultLocale);
+    }
+
+    @Test
+    public void testFallbackChain() throws Exception {
+        MessageIndex index = createIndex(null);
+        assertThat(index.get(new Locale[]{Locale.FRENCH}, "welcome").format()).isEqualTo("bonjour");
+        assertThat(index.get(new Locale[]{Locale.FRENCH}, "extra").format()).isEqualTo("extra");
+        assertThat(index.get(new Locale[]{Locale.GERMAN, Locale.FRENCH}, "welcome").format()).isEqualTo("bonjour");
+        assertThat(index.get(new Locale[]{Locale.GERMAN}, "welcome").format()).isEqualTo("hello");
+        assertThat(index.get(new Locale[]{Locale.GERMAN}, "autre")).isNull();
+        assertThat(index.get(new Locale[]{Locale.FRENCH}, "missing")).isNull();
+    }
+
+    @Test
+    public void testConfiguredDefaultLocale() throws Exception {
+        // The configured default locale uses the messages of the default locale, not the French ones.
+        MessageIndex index = createIndex(Locale.FRENCH);
+        assertThat(index.get(new Locale[]{Locale.FRENCH}, "welcome").format()).isEqualTo("hello");
+        assertThat(index.get(new Locale[]{Locale.FRENCH}, "autre")).isNull();
+    }
+
+    @Test
+    public void testMergedMessagesAreShared() throws Exception {
+        MessageIndex index = createIndex(null);
+        Locale[] locales = {Locale.FRENCH};
+        Map<String, String> messages = index.getAll(locales);
+        assertThat(messages).containsEntry("welcome", "bonjour").containsEntry("extra", "extra")
+                .containsKey("greeting");
+        // The caller may reuse its array.
+        locales[0] = Locale.GERMAN;
+        assertThat(index.getAll(new Locale[]{Locale.FRENCH})).isSameAs(messages);
+        assertThat(index.getAll(new Locale[]{Locale.GERMAN})).containsEntry("welcome", "hello");
+        try {
+            messages.put("welcome", "salut");
+            fail("The map must be immutable");
+        } catch (UnsupportedOperationException e) {
+            // Expected.
+        }
+    }
+
+    @Test
+    public void testFormatting() throws Exception {
+        MessageIndex.Message message = createIndex(null).get(new Locale[]{Locale.ENGLISH}, "greeting");
+        assertThat(message.format()).isEqualTo("Hello {0}, you have {1,number,integer} messages");
+        assertThat(message.format("wisdom", 3)).isEqualTo(MessageFormat.format(
+                "Hello {0}, you have {1,number,integer} messages", "wisdom", 3));
+        assertThat(message.format("wisdom", 4)).isEqualTo("Hello wisdom, you have 4 messages");
+        assertThat(createIndex(null).get(new Locale[]{Locale.ENGLISH}, "quote").format("good"))
+                .isEqualTo(MessageFormat.format("it's {0}", "good"));
+    }
+
+    @Test
+    public void testConcurrentFormatting() throws Exception {
+        final MessageIndex.Message message = createIndex(null).get(new Locale[]{Locale.ENGLISH}, "greeting");
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                final int id = t;
+                futures.add(executor.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() {
+                        for (int i = 0; i < 1000; i++) {
+                            if (!message.format("user" + id, i).equals("Hello user" + id + ", you have " + i
+                                    + " messages")) {
+                                return false;
+                            }
+                        }
+                        return true;
+                    }
+                }));
+            }
+            for (Future<Boolean> future : futures) {
+                assertThat(future.get()).isTrue();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -26,14 +26,19 @@ import org.osgi.framework.BundleContext;
 import org.osgi.framework.ServiceRegistration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.thymeleaf.cache.ICache;
 import org.thymeleaf.dialect.IDialect;
 import org.thymeleaf.messageresolver.IMessageResolver;
 import org.thymeleaf.templateresolver.TemplateResolver;
 import org.wisdom.api.asset.Assets;
+import org.wisdom.api.cache.Cache;
+import org.wisdom.api.concurrent.ManagedExecutorService;
 import org.wisdom.api.configuration.ApplicationConfiguration;
 import org.wisdom.api.router.Router;
 import org.wisdom.api.templates.Template;
 import org.wisdom.api.templates.TemplateEngine;
+import org.wisdom.api.templates.TemplateWarmUpStatistics;
+import org.wisdom.template.thymeleaf.dialect.CompiledExpression;
 import org.wisdom.template.thymeleaf.impl.ThymeLeafTemplateImplementation;
 import org.wisdom.template.thymeleaf.impl.WisdomTemplateEngine;
 import org.wisdom.template.thymeleaf.impl.WisdomURLResourceResolver;
@@ -43,15 +48,16 @@ import java.lang.reflect.Field;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * The main component of the Thymeleaf template engine integration in Wisdom.
  */
 @Component(immediate = true)
-@Provides(specifications = {ThymeleafTemplateCollector.class, TemplateEngine.class})
+@Provides(specifications = {ThymeleafTemplateCollector.class, TemplateEngine.class, TemplateWarmUpStatistics.class})
 @Instantiate(name = "Thymeleaf template engine")
-public class ThymeleafTemplateCollector implements TemplateEngine {
+public class ThymeleafTemplateCollector implements TemplateEngine, TemplateWarmUpStatistics {
 
     /**
      * The extension of the template supported by this engine.
@@ -88,8 +94,41 @@ public class ThymeleafTemplateCollector implements TemplateEngine {
     @Requires(optional = true)
     private Assets assets;
 
+    /**
+     * The cache storing the fragments marked with {@code th:cache}, {@literal null} if none. Bound explicitly, as the
+     * engine is reconfigured when it arrives or leaves.
+     */
+    Cache cache;
+
+    /**
+     * The executor parsing the templates in parallel during the warm-up. The warm-up runs in the deploying thread
+     * if not available.
+     */
+    @Requires(filter = "(name=" + ManagedExecutorService.SYSTEM + ")", proxy = false, optional = true,
+            nullable = false)
+    ManagedExecutorService executor;
+
+    /**
+     * Whether or not the templates are parsed when they are deployed.
+     */
+    private volatile boolean warmUp;
+
+    private volatile long lastWarmUpDuration = -1;
+    private final LongAdder warmedUp = new LongAdder();
+    private final LongAdder warmUpErrors = new LongAdder();
+
     Set<IDialect> dialects = new HashSet<>();
 
+    /**
+     * The names under which each template has been resolved by Thymeleaf. The template cache is keyed by these names.
+     */
+    private final ConcurrentMap<Template, Set<String>> names = new ConcurrentHashMap<>();
+
+    /**
+     * For each template, the rendered templates having included it (as fragment or layout).
+     */
+    private final ConcurrentMap<Template, Set<Template>> dependents = new ConcurrentHashMap<>();
+
 
     /**
      * Creates the collector.
@@ -126,7 +165,7 @@ public class ThymeleafTemplateCollector implements TemplateEngine {
         ThymeLeafTemplateImplementation template = getTemplateByFile(templateFile);
         if (template != null) {
             LOGGER.debug("Thymeleaf template updated for {} ({})", templateFile.getAbsoluteFile(), template.fullName());
-            updatedTemplate();
+            updatedTemplate(template);
         } else {
             try {
                 addTemplate(bundle, templateFile.toURI().toURL());
@@ -204,6 +243,95 @@ public class ThymeleafTemplateCollector implements TemplateEngine {
         return template;
     }
 
+    /**
+     * Parses the given templates, and the expressions they contain, in parallel on the system executor. The parsed
+     * templates and expressions are cached, so the first renderings are as fast as the following ones. Parse errors
+     * are logged. Does nothing if the warm-up is disabled.
+     *
+     * @param templates the templates, generally the templates of a deployed bundle
+     * @return a future completed when all the templates have been parsed
+     */
+    public CompletableFuture<Void> warmUp(Collection<ThymeLeafTemplateImplementation> templates) {
+        if (!warmUp || templates.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        final WisdomTemplateEngine current;
+        synchronized (this) {
+            // Synchronized because of the access to engine.
+            current = engine;
+        }
+        final long begin = System.nanoTime();
+        List<CompletableFuture<Void>> tasks = new ArrayList<>(templates.size());
+        for (final ThymeLeafTemplateImplementation template : templates) {
+            CompletableFuture<Void> task = null;
+            if (executor != null) {
+                try {
+                    task = CompletableFuture.runAsync(() -> warmUp(current, template), executor);
+                } catch (RejectedExecutionException e) { //NOSONAR
+                    // Saturated, parse it in the current thread.
+                }
+            }
+            if (task == null) {
+                warmUp(current, template);
+                task = CompletableFuture.completedFuture(null);
+            }
+            tasks.add(task);
+        }
+        return CompletableFuture.allOf(tasks.toArray(new CompletableFuture[tasks.size()])).thenRun(() -> {
+            lastWarmUpDuration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+            LOGGER.info("{} Thymeleaf template(s) warmed up in {} ms", templates.size(), lastWarmUpDuration);
+        });
+    }
+
+    private void warmUp(WisdomTemplateEngine engine, ThymeLeafTemplateImplementation template) {
+        try {
+            List<String> errors = engine.warmUp(template);
+            if (errors.isEmpty()) {
+                warmedUp.increment();
+            } else {
+                warmUpErrors.add(errors.size());
+                for (String error : errors) {
+                    LOGGER.error("Invalid expression in the template {}: {}", template.fullName(), error);
+                }
+            }
+        } catch (RuntimeException e) {
+            warmUpErrors.increment();
+            LOGGER.error("Cannot parse the template {}: {}", template.fullName(), e.getMessage());
+        }
+    }
+
+    /**
+     * @return {@link #THYMELEAF_ENGINE_NAME}.
+     */
+    @Override
+    public String engine() {
+        return THYMELEAF_ENGINE_NAME;
+    }
+
+    /**
+     * @return the duration of the last warm-up in milliseconds, {@literal -1} if none has completed.
+     */
+    @Override
+    public long getLastWarmUpDuration() {
+        return lastWarmUpDuration;
+    }
+
+    /**
+     * @return the number of templates parsed without error by the warm-ups.
+     */
+    @Override
+    public long getWarmedUpTemplateCount() {
+        return warmedUp.sum();
+    }
+
+    /**
+     * @return the number of templates and expressions that could not be parsed by the warm-ups.
+     */
+    @Override
+    public long getWarmUpErrorCount() {
+        return warmUpErrors.sum();
+    }
+
     /**
      * Initializes the thymeleaf template engine.
      */
@@ -219,7 +347,21 @@ public class ThymeleafTemplateCollector implements TemplateEngine {
         }
 
 
-        LOGGER.debug("Thymeleaf configuration: mode={}, ttl={}", mode, ttl);
+        // Whether the pages are written to the response while being rendered, instead of being rendered in memory.
+        boolean streaming = configuration.getBooleanWithDefault("application.template.thymeleaf.streaming", false);
+
+        // Whether the templates are parsed when deployed instead of on their first rendering. Useless in dev mode,
+        // as the templates are reloaded continuously.
+        warmUp = !configuration.isDev()
+                && configuration.getBooleanWithDefault("application.template.thymeleaf.warmup", false);
+
+        // The number of evaluations of an expression before being compiled, 0 to disable the compilation.
+        int threshold = configuration.getIntegerWithDefault("application.template.thymeleaf.compilation.threshold",
+                16);
+        CompiledExpression.setCompilationThreshold(threshold);
+
+        LOGGER.debug("Thymeleaf configuration: mode={}, ttl={}, streaming={}, warm-up={}, compilation threshold={}",
+                mode, ttl, streaming, warmUp, threshold);
 
         // A TCCL switch is required here as the default Thymeleaf engine initialization triggers a class loading
         // from a class that may be present in the class path  (org/apache/xerces/xni/parser/XMLParserConfiguration).
@@ -230,7 +372,8 @@ public class ThymeleafTemplateCollector implements TemplateEngine {
         final ClassLoader orig = Thread.currentThread().getContextClassLoader();
         try {
             Thread.currentThread().setContextClassLoader(this.getClass().getClassLoader());
-            engine = new WisdomTemplateEngine(dialects);
+            // Fragments are not cached in dev mode, so changes are visible immediately.
+            engine = new WisdomTemplateEngine(dialects, configuration.isDev() ? null : cache);
         } finally {
             Thread.currentThread().setContextClassLoader(orig);
         }
@@ -243,6 +386,7 @@ public class ThymeleafTemplateCollector implements TemplateEngine {
         engine.setTemplateResolver(resolver);
 
         engine.setMessageResolver(messageResolver);
+        engine.setStreaming(streaming);
         engine.initialize();
     }
 
@@ -257,11 +401,7 @@ public class ThymeleafTemplateCollector implements TemplateEngine {
                 dialect.getProcessors());
         if (this.dialects.add(dialect)) {
             // We must reconfigure the engine
-            configure();
-            // Update all templates.
-            for (Template template : getTemplates()) {
-                ((ThymeLeafTemplateImplementation) template).updateEngine(engine);
-            }
+            reconfigure();
         }
     }
 
@@ -274,10 +414,41 @@ public class ThymeleafTemplateCollector implements TemplateEngine {
         LOGGER.debug("Binding a new dialect {}, processors: {}", dialect.getPrefix(),
                 dialect.getProcessors());
         if (this.dialects.remove(dialect)) {
-            configure();
-            for (Template template : getTemplates()) {
-                ((ThymeLeafTemplateImplementation) template).updateEngine(engine);
-            }
+            reconfigure();
+        }
+    }
+
+    /**
+     * A cache is now available, it stores the fragments marked with {@code th:cache}.
+     * @param cache the cache
+     */
+    @Bind(optional = true)
+    public synchronized void bindCache(Cache cache) {
+        LOGGER.debug("Binding the fragment cache {}", cache);
+        this.cache = cache;
+        reconfigure();
+    }
+
+    /**
+     * The cache has left, fragments are not cached anymore.
+     * @param cache the cache that has left
+     */
+    @Unbind
+    public synchronized void unbindCache(Cache cache) {
+        LOGGER.debug("Unbinding the fragment cache {}", cache);
+        if (this.cache == cache) {
+            this.cache = null;
+            reconfigure();
+        }
+    }
+
+    /**
+     * Reconfigures the engine, and updates all the templates to use the new one.
+     */
+    private void reconfigure() {
+        configure();
+        for (Template template : getTemplates()) {
+            ((ThymeLeafTemplateImplementation) template).updateEngine(engine);
         }
     }
 
@@ -328,7 +499,8 @@ public class ThymeleafTemplateCollector implements TemplateEngine {
     }
 
     /**
-     * Clears the cache when a template have been updated.
+     * Clears all the caches of the engine. Prefer {@link #updatedTemplate(Template)} that only invalidates the
+     * cache entries depending on the updated template.
      */
     public synchronized void updatedTemplate() {
         // Synchronized because of the access to engine.
@@ -336,7 +508,63 @@ public class ThymeleafTemplateCollector implements TemplateEngine {
     }
 
     /**
-     * Deletes the given template. The service is unregistered, and the cache is cleared.
+     * Records that Thymeleaf has resolved the given template under the given name, while rendering the given
+     * template. The rendered template depends on the resolved one, either because it is the same template, or
+     * because it includes it as a fragment or a layout.
+     *
+     * @param rendered     the template being rendered, may be {@literal null}
+     * @param resourceName the name used to resolve the template, it is the key of the template cache
+     * @param resolved     the resolved template
+     */
+    public void resolved(Template rendered, String resourceName, Template resolved) {
+        // Checked first, as it is called for each resolution and the names rarely change.
+        Set<String> keys = names.get(resolved);
+        if (keys == null) {
+            keys = names.computeIfAbsent(resolved, t -> ConcurrentHashMap.newKeySet());
+        }
+        keys.add(resourceName);
+
+        if (rendered != null && rendered != resolved) {
+            Set<Template> including = dependents.get(resolved);
+            if (including == null) {
+                including = dependents.computeIfAbsent(resolved, t -> ConcurrentHashMap.newKeySet());
+            }
+            including.add(rendered);
+        }
+    }
+
+    /**
+     * Invalidates the cache entries of the given template, and of the templates including it. Other templates and
+     * the expression caches are kept.
+     *
+     * @param template the updated template
+     */
+    public synchronized void updatedTemplate(Template template) {
+        // Synchronized because of the access to engine.
+        ICache<String, org.thymeleaf.Template> cache = engine.getCacheManager().getTemplateCache();
+        invalidate(cache, template);
+        Set<Template> including = dependents.get(template);
+        if (including != null) {
+            for (Template dependent : including) {
+                invalidate(cache, dependent);
+            }
+        }
+    }
+
+    private void invalidate(ICache<String, org.thymeleaf.Template> cache, Template template) {
+        // Always keyed by the full name when rendered directly.
+        cache.clearKey(template.fullName());
+        Set<String> keys = names.get(template);
+        if (keys != null) {
+            for (String key : keys) {
+                cache.clearKey(key);
+            }
+        }
+    }
+
+    /**
+     * Deletes the given template. The service is unregistered, and the cache entries depending on the template are
+     * invalidated.
      *
      * @param template the template
      */
@@ -351,10 +579,23 @@ public class ThymeleafTemplateCollector implements TemplateEngine {
             // May already have been unregistered during the shutdown sequence.
         }
 
-        // 2 - as templates can have dependencies, and expressions kept in memory, we clear all caches.
-        // Despite this may really impact performance, it should not happen too often on real systems.
+        // 2 - invalidate the cached template, and the templates including it.
+        updatedTemplate(template);
+        names.remove(template);
+        dependents.remove(template);
+        for (Set<Template> set : dependents.values()) {
+            set.remove(template);
+        }
+    }
+
+    /**
+     * Clears the caches referencing classes: the parsed expressions and the OGNL caches. It must be called when
+     * classes used by templates may have been replaced, for instance when a bundle is updated or uninstalled,
+     * otherwise the caches would keep the previous classes (and class loaders).
+     */
+    public void clearClassCaches() {
         synchronized (this) {
-            engine.getCacheManager().clearAllCaches();
+            engine.getCacheManager().getExpressionCache().clear();
         }
         OgnlRuntime.clearCache();
         // Unfortunately, the previous method do not clear the get and set method cache
@@ -0,0 +1,260 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.template.thymeleaf.dialect;
+
+import ognl.MapPropertyAccessor;
+import ognl.ObjectPropertyAccessor;
+import ognl.OgnlContext;
+import ognl.OgnlRuntime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * A parsed OGNL expression, kept in the expression cache. Expressions are evaluated by the OGNL interpreter. Once an
+ * expression has been evaluated enough times, and if it is a property chain (such as {@literal item.price}), it is
+ * compiled into a chain of accessors specialized to the classes observed during the evaluation: method handles
+ * calling the getters, or direct {@link Map#get(Object)} calls. Each accessor is guarded by the class of its
+ * receiver; when a guard fails (or a receiver is {@literal null}), the evaluation falls back to the interpreter.
+ * <p>
+ * Only the property accesses behaving exactly as in the interpreter are compiled: getters resolved by OGNL itself
+ * on objects handled by the default object accessor, and map entries other than the OGNL pseudo-properties
+ * ({@literal size}, {@literal keys}...).
+ */
+public final class CompiledExpression {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CompiledExpression.class);
+
+    /**
+     * Returned by {@link #evaluate(Object)} when the expression cannot be evaluated by the compiled accessors.
+     */
+    static final Object INTERPRET = new Object();
+
+    private static final Pattern PROPERTY_CHAIN =
+            Pattern.compile("\\s*[A-Za-z_$][A-Za-z0-9_$]*(\\.[A-Za-z_$][A-Za-z0-9_$]*)*\\s*");
+
+    /**
+     * The OGNL keywords and pseudo-variables, not interpreted as properties.
+     */
+    private static final Set<String> KEYWORDS = new HashSet<>(Arrays.asList("true", "false", "null", "this",
+            "root", "context", "new", "instanceof", "in", "not", "and", "or", "band", "bor", "xor", "eq", "neq",
+            "lt", "lte", "gt", "gte", "shl", "shr", "ushr"));
+
+    /**
+     * The names handled specifically by the OGNL map accessor.
+     */
+    private static final Set<String> MAP_PSEUDO_PROPERTIES = new HashSet<>(Arrays.asList("size", "keys",
+            "keySet", "values", "isEmpty"));
+
+    /**
+     * The accessor registered by Thymeleaf for its variable maps, a map accessor only handling {@code size}
+     * differently (not package-visible).
+     */
+    private static final String VARIABLES_MAP_ACCESSOR = "org.thymeleaf.context.OGNLVariablesMapPropertyAccessor";
+
+    private static final MethodType ACCESSOR_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private static final MethodHandle MAP_GET;
+
+    static {
+        try {
+            MAP_GET = MethodHandles.publicLookup().findVirtual(Map.class, "get",
+                    MethodType.methodType(Object.class, Object.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * The number of evaluations before compilation, {@literal 0} to disable the compilation.
+     */
+    private static volatile int threshold = 16;
+
+    private final Object tree;
+
+    /**
+     * The properties of the chain, {@literal null} if the expression is not a property chain, or cannot be
+     * compiled.
+     */
+    private volatile String[] properties;
+
+    /**
+     * The compiled accessors, {@literal null} until compiled.
+     */
+    private volatile Accessor[] accessors;
+
+    /**
+     * Number of evaluations by the interpreter. Updates are not atomic, it's only an approximation.
+     */
+    private volatile int evaluations;
+
+    /**
+     * Creates the expression.
+     *
+     * @param expression the text of the expression
+     * @param tree       the OGNL tree of the expression
+     */
+    public CompiledExpression(String expression, Object tree) {
+        this.tree = tree;
+        if (PROPERTY_CHAIN.matcher(expression).matches()) {
+            String[] chain = expression.trim().split("\\.");
+            for (String property : chain) {
+                if (KEYWORDS.contains(property)) {
+                    chain = null;
+                    break;
+                }
+            }
+            this.properties = chain;
+        }
+    }
+
+    /**
+     * Sets the number of evaluations of an expression by the interpreter before being compiled.
+     *
+     * @param evaluations the number of evaluations, {@literal 0} to disable the compilation
+     */
+    public static void setCompilationThreshold(int evaluations) {
+        threshold = evaluations;
+    }
+
+    /**
+     * @return the OGNL tree of the expression.
+     */
+    public Object getTree() {
+        return tree;
+    }
+
+    /**
+     * @return whether or not the expression has been compiled.
+     */
+    public boolean isCompiled() {
+        return accessors != null;
+    }
+
+    /**
+     * Evaluates the expression using the compiled accessors, compiling them if the expression is hot enough.
+     *
+     * @param root the evaluation root
+     * @return the result, {@link #INTERPRET} if the expression must be evaluated by the interpreter
+     * @throws Throwable the exception thrown by a getter
+     */
+    Object evaluate(Object root) throws Throwable {
+        Accessor[] chain = accessors;
+        if (chain == null) {
+            if (properties == null || threshold <= 0 || ++evaluations < threshold) {
+                return INTERPRET;
+            }
+            chain = compile(root);
+            if (chain == null) {
+                // Cannot be compiled, don't try again.
+                properties = null;
+                return INTERPRET;
+            }
+            accessors = chain;
+        }
+
+        Object current = root;
+        for (Accessor accessor : chain) {
+            if (current == null || current.getClass() != accessor.type) {
+                return INTERPRET;
+            }
+            current = accessor.handle.invokeExact(current);
+        }
+        return current;
+    }
+
+    /**
+     * Builds the accessors for the classes of the values traversed from the given root.
+     *
+     * @param root the evaluation root
+     * @return the accessors, {@literal null} if the chain cannot be compiled for these classes
+     */
+    private Accessor[] compile(Object root) {
+        String[] chain = properties;
+        Accessor[] result = new Accessor[chain.length];
+        Object current = root;
+        try {
+            for (int i = 0; i < chain.length; i++) {
+                if (current == null) {
+                    return null;
+                }
+                Class<?> type = current.getClass();
+                MethodHandle handle = getAccessor(type, chain[i]);
+                if (handle == null) {
+                    return null;
+                }
+                result[i] = new Accessor(type, handle);
+                if (i < chain.length - 1) {
+                    current = handle.invokeExact(current);
+                }
+            }
+        } catch (Throwable e) { //NOSONAR the interpreter reports the error.
+            LOGGER.debug("Cannot compile the OGNL expression {}", Arrays.toString(chain), e);
+            return null;
+        }
+        return result;
+    }
+
+    private static MethodHandle getAccessor(Class<?> type, String property) throws Exception {
+        Class<?> accessor = OgnlRuntime.getPropertyAccessor(type).getClass();
+        if (accessor == MapPropertyAccessor.class || accessor.getName().equals(VARIABLES_MAP_ACCESSOR)) {
+            if (MAP_PSEUDO_PROPERTIES.contains(property)) {
+                return null;
+            }
+            return MethodHandles.insertArguments(MAP_GET.asType(MethodType.methodType(Object.class, Object.class,
+                    Object.class)), 1, property);
+        }
+        if (accessor != ObjectPropertyAccessor.class) {
+            return null;
+        }
+        // The getter the interpreter would call.
+        Method getter = OgnlRuntime.getGetMethod(new OgnlContext(), type, property);
+        if (getter == null || !Modifier.isPublic(getter.getModifiers())) {
+            return null;
+        }
+        if (!Modifier.isPublic(getter.getDeclaringClass().getModifiers())) {
+            getter.setAccessible(true);
+        }
+        return MethodHandles.lookup().unreflect(getter).asType(ACCESSOR_TYPE);
+    }
+
+    /**
+     * An accessor retrieving a property from receivers of a specific class.
+     */
+    private static final class Accessor {
+        private final Class<?> type;
+        private final MethodHandle handle;
+
+        private Accessor(Class<?> type, MethodHandle handle) {
+            this.type = type;
+            this.handle = handle;
+        }
+    }
+}
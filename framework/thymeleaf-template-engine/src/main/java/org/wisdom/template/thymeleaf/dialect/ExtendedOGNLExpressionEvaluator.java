@@ -44,7 +44,11 @@ public class ExtendedOGNLExpressionEvaluator implements IStandardVariableExpress
 
     public static final ExtendedOGNLExpressionEvaluator INSTANCE = new ExtendedOGNLExpressionEvaluator();
     private static final Logger LOGGER = LoggerFactory.getLogger(OgnlVariableExpressionEvaluator.class);
-    private static final String OGNL_CACHE_PREFIX = "{ognl}";
+    /**
+     * The prefix of the keys of the parsed expressions in the expression cache. It must differ from the one used by
+     * the standard evaluator ({@literal {ognl}}), storing the raw OGNL trees in the same cache.
+     */
+    private static final String OGNL_CACHE_PREFIX = "{ognl-compiled}";
 
     public static final String BUNDLE_VAR_KEY = "__bundle__";
 
@@ -62,6 +66,29 @@ public class ExtendedOGNLExpressionEvaluator implements IStandardVariableExpress
         return var;
     }
 
+    /**
+     * Gets the parsed form of the given OGNL expression from the cache, parsing it if not cached yet.
+     *
+     * @param cache      the expression cache, may be {@literal null}
+     * @param expression the expression
+     * @return the parsed expression, compiled once hot
+     * @throws OgnlException if the expression is invalid
+     */
+    public static CompiledExpression parse(ICache<String, Object> cache, String expression) throws OgnlException {
+        CompiledExpression compiled = null;
+        if (cache != null) {
+            compiled = (CompiledExpression) cache.get(OGNL_CACHE_PREFIX + expression);
+        }
+
+        if (compiled == null) {
+            compiled = new CompiledExpression(expression, ognl.Ognl.parseExpression(expression));
+            if (cache != null) {
+                cache.put(OGNL_CACHE_PREFIX + expression, compiled);
+            }
+        }
+        return compiled;
+    }
+
     @Override
     public String toString() {
         return "OGNL extended by Wisdom";
@@ -77,7 +104,6 @@ public class ExtendedOGNLExpressionEvaluator implements IStandardVariableExpress
                 LOGGER.trace("OGNL expression: evaluating expression \"{}\" on target", expression);
             }
 
-            Object expressionTree = null;
             ICache<String, Object> cache = null;
 
             if (configuration != null) {
@@ -87,72 +113,19 @@ public class ExtendedOGNLExpressionEvaluator implements IStandardVariableExpress
                 }
             }
 
-            if (cache != null) {
-                expressionTree = cache.get(OGNL_CACHE_PREFIX + expression);
-            }
-
-
-            if (expressionTree == null) {
-                expressionTree = ognl.Ognl.parseExpression(expression);
-                if (cache != null && null != expressionTree) {
-                    cache.put(OGNL_CACHE_PREFIX + expression, expressionTree);
-                }
-            }
-
-            final OgnlContext ctxt = new OgnlContext();
-            ctxt.putAll(processingContext.getExpressionObjects());
-
-            final Map<String, Object> additionalContextVariables = computeAdditionalContextVariables(processingContext);
-            if (additionalContextVariables != null) {
-                ctxt.putAll(additionalContextVariables);
-            }
+            final CompiledExpression compiled = parse(cache, expression);
 
             final Object evaluationRoot =
                     (useSelectionAsRoot ?
                             processingContext.getExpressionSelectionEvaluationRoot() :
                             processingContext.getExpressionEvaluationRoot());
 
-            // If we have a bundle set, customize the class loading.
-            if ((ctxt.get("vars") instanceof Map) && ((Map) ctxt.get("vars")).containsKey(BUNDLE_VAR_KEY)) {
-                final Bundle bundle = (Bundle) ((Map) ctxt.get("vars")).get(BUNDLE_VAR_KEY);
-                Ognl.setClassResolver(ctxt, new ClassResolver() {
-                    /**
-                     * Loads a class. This method is called when the processing of a template requires a class. The
-                     * class loading defines in this method uses the {@link org.osgi.framework.Bundle} object passed
-                     * in the context. If the class cannot be found, it falls back to the system bundle.
-                     * @param className the class name
-                     * @param context the context.
-                     * @return the class object
-                     * @throws ClassNotFoundException if the class cannot be found
-                     */
-                    @Override
-                    public Class classForName(String className, Map context) throws ClassNotFoundException {
-                        try {
-                            return bundle.loadClass(className);
-                        } catch (ClassNotFoundException e) { //NOSONAR
-                            // Ignore it.
-                        }
-
-                        // Try with the system bundle, if the bundle is not the system bundle
-                        if (bundle.getBundleId() != 0) {
-                            try {
-                                return bundle.getBundleContext().getBundle(0).loadClass(className);
-                            } catch (ClassNotFoundException e) { //NOSONAR
-                                // Ignore it.
-                            }
-                        }
-                        // Nothing we can do.
-                        LOGGER.warn("A template tried to load the '" + className + "' class, " +
-                                "but this class is not available. Try to import it in the bundle containing the " +
-                                "template.");
-
-                        throw new ClassNotFoundException(className);
-                    }
-                });
+            // Hot property chains are evaluated without the interpreter, and so without building the OGNL context.
+            Object result = evaluateCompiled(compiled, evaluationRoot, expression);
+            if (result == CompiledExpression.INTERPRET) {
+                result = interpret(compiled.getTree(), processingContext, evaluationRoot);
             }
 
-            final Object result = Ognl.getValue(expressionTree, ctxt, evaluationRoot);
-
             if (!expContext.getPerformTypeConversion()) {
                 return result;
             }
@@ -169,4 +142,70 @@ public class ExtendedOGNLExpressionEvaluator implements IStandardVariableExpress
 
     }
 
+    private static Object evaluateCompiled(CompiledExpression compiled, Object root, String expression) {
+        try {
+            return compiled.evaluate(root);
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable e) { //NOSONAR thrown by a getter, reported as the interpreter does.
+            throw new TemplateProcessingException(
+                    "Exception evaluating OGNL expression: \"" + expression + "\"", e);
+        }
+    }
+
+    /**
+     * Evaluates the expression using the OGNL interpreter.
+     */
+    private Object interpret(Object expressionTree, IProcessingContext processingContext, Object evaluationRoot)
+            throws OgnlException {
+        final OgnlContext ctxt = new OgnlContext();
+        ctxt.putAll(processingContext.getExpressionObjects());
+
+        final Map<String, Object> additionalContextVariables = computeAdditionalContextVariables(processingContext);
+        if (additionalContextVariables != null) {
+            ctxt.putAll(additionalContextVariables);
+        }
+
+        // If we have a bundle set, customize the class loading.
+        if ((ctxt.get("vars") instanceof Map) && ((Map) ctxt.get("vars")).containsKey(BUNDLE_VAR_KEY)) {
+            final Bundle bundle = (Bundle) ((Map) ctxt.get("vars")).get(BUNDLE_VAR_KEY);
+            Ognl.setClassResolver(ctxt, new ClassResolver() {
+                /**
+                 * Loads a class. This method is called when the processing of a template requires a class. The
+                 * class loading defines in this method uses the {@link org.osgi.framework.Bundle} object passed
+                 * in the context. If the class cannot be found, it falls back to the system bundle.
+                 * @param className the class name
+                 * @param context the context.
+                 * @return the class object
+                 * @throws ClassNotFoundException if the class cannot be found
+                 */
+                @Override
+                public Class classForName(String className, Map context) throws ClassNotFoundException {
+                    try {
+                        return bundle.loadClass(className);
+                    } catch (ClassNotFoundException e) { //NOSONAR
+                        // Ignore it.
+                    }
+
+                    // Try with the system bundle, if the bundle is not the system bundle
+                    if (bundle.getBundleId() != 0) {
+                        try {
+                            return bundle.getBundleContext().getBundle(0).loadClass(className);
+                        } catch (ClassNotFoundException e) { //NOSONAR
+                            // Ignore it.
+                        }
+                    }
+                    // Nothing we can do.
+                    LOGGER.warn("A template tried to load the '" + className + "' class, " +
+                            "but this class is not available. Try to import it in the bundle containing the " +
+                            "template.");
+
+                    throw new ClassNotFoundException(className);
+                }
+            });
+        }
+
+        return Ognl.getValue(expressionTree, ctxt, evaluationRoot);
+    }
+
 }
@@ -0,0 +1,131 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.template.thymeleaf.dialect;
+
+import org.thymeleaf.Arguments;
+import org.thymeleaf.Configuration;
+import org.thymeleaf.dom.Element;
+import org.thymeleaf.dom.Macro;
+import org.thymeleaf.dom.NestableNode;
+import org.thymeleaf.exceptions.TemplateProcessingException;
+import org.thymeleaf.processor.ProcessorResult;
+import org.thymeleaf.processor.attr.AbstractAttrProcessor;
+import org.thymeleaf.standard.expression.StandardExpressions;
+import org.wisdom.api.cache.Cache;
+
+/**
+ * Processes the {@code th:cache} attribute, caching the markup of the element in the {@link Cache} service. The
+ * attribute value is an expression computing the cache key, the current locale is added automatically. The
+ * {@code th:cache-ttl} attribute sets the number of seconds the markup is kept (60 by default):
+ * <pre>
+ * {@code <nav th:cache="${'menu-' + user.role}" th:cache-ttl="300">...</nav>}
+ * </pre>
+ * When the markup is cached, the element is replaced by the cached markup, without evaluating its attributes
+ * and content. Otherwise, the element is processed as usual, and a {@link FragmentCacheStoreProcessor} marker is
+ * added as last child to store the markup once the content has been processed.
+ */
+public class FragmentCacheProcessor extends AbstractAttrProcessor {
+
+    /**
+     * The attribute name.
+     */
+    public static final String ATTR_NAME = "cache";
+
+    /**
+     * The suffix of the attribute setting the time to live.
+     */
+    public static final String TTL_SUFFIX = "-ttl";
+
+    /**
+     * The default time to live, in seconds.
+     */
+    public static final int DEFAULT_TTL = 60;
+
+    /**
+     * The prefix of the cache keys.
+     */
+    public static final String KEY_PREFIX = "thymeleaf:fragment:";
+
+    /**
+     * After {@code th:if}, {@code th:object} and {@code th:with}, so the key can use the variables they declare,
+     * but before the other attributes.
+     */
+    public static final int PRECEDENCE = 650;
+
+    private final Cache cache;
+
+    /**
+     * Creates the processor.
+     *
+     * @param cache the cache service, {@literal null} to disable the caching
+     */
+    public FragmentCacheProcessor(Cache cache) {
+        super(ATTR_NAME);
+        this.cache = cache;
+    }
+
+    @Override
+    public int getPrecedence() {
+        return PRECEDENCE;
+    }
+
+    @Override
+    protected ProcessorResult processAttribute(Arguments arguments, Element element, String attributeName) {
+        String ttlAttributeName = attributeName + TTL_SUFFIX;
+        String keyExpression = element.getAttributeValue(attributeName);
+        String ttlExpression = element.getAttributeValue(ttlAttributeName);
+        element.removeAttribute(attributeName);
+        element.removeAttribute(ttlAttributeName);
+
+        if (cache == null) {
+            return ProcessorResult.OK;
+        }
+
+        String key = KEY_PREFIX + evaluate(arguments, keyExpression) + ":" + arguments.getContext().getLocale();
+        String markup = cache.get(key);
+        if (markup != null) {
+            // Splice the cached markup, the element is not processed.
+            NestableNode parent = element.getParent();
+            parent.insertBefore(element, new Macro(markup));
+            parent.removeChild(element);
+            return ProcessorResult.OK;
+        }
+
+        int ttl = DEFAULT_TTL;
+        if (ttlExpression != null) {
+            Object value = evaluate(arguments, ttlExpression);
+            try {
+                ttl = Integer.parseInt(String.valueOf(value));
+            } catch (NumberFormatException e) { //NOSONAR reported below.
+                throw new TemplateProcessingException("Invalid fragment time to live: \"" + ttlExpression
+                        + "\", a number of seconds is expected");
+            }
+        }
+        element.addChild(FragmentCacheStoreProcessor.createMarker(cache, key, ttl));
+        return ProcessorResult.OK;
+    }
+
+    private static Object evaluate(Arguments arguments, String expression) {
+        Configuration configuration = arguments.getConfiguration();
+        return StandardExpressions.getExpressionParser(configuration)
+                .parseExpression(configuration, arguments, expression)
+                .execute(configuration, arguments);
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.template.thymeleaf.dialect;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.thymeleaf.Arguments;
+import org.thymeleaf.dom.Element;
+import org.thymeleaf.dom.NestableNode;
+import org.thymeleaf.processor.ProcessorResult;
+import org.thymeleaf.processor.element.AbstractElementProcessor;
+import org.thymeleaf.standard.StandardDialect;
+import org.thymeleaf.templatewriter.AbstractGeneralTemplateWriter;
+import org.thymeleaf.templatewriter.ITemplateWriter;
+import org.wisdom.api.cache.Cache;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+/**
+ * Processes the marker added by the {@link FragmentCacheProcessor} to the elements whose markup is not cached yet.
+ * The marker being the last child of the element, it is processed once the other children have been processed: it
+ * removes itself, writes the element, and stores the markup in the cache.
+ */
+public class FragmentCacheStoreProcessor extends AbstractElementProcessor {
+
+    /**
+     * The name of the marker element.
+     */
+    public static final String ELEMENT_NAME = "cache-store";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FragmentCacheStoreProcessor.class);
+
+    private static final String CACHE_PROPERTY = "wisdom.cache";
+    private static final String KEY_PROPERTY = "wisdom.cache.key";
+    private static final String TTL_PROPERTY = "wisdom.cache.ttl";
+
+    /**
+     * Creates the processor.
+     */
+    public FragmentCacheStoreProcessor() {
+        super(ELEMENT_NAME);
+    }
+
+    /**
+     * Creates the marker element.
+     *
+     * @param cache the cache
+     * @param key   the key
+     * @param ttl   the time to live, in seconds
+     * @return the marker
+     */
+    static Element createMarker(Cache cache, String key, int ttl) {
+        Element marker = new Element(StandardDialect.PREFIX + ":" + ELEMENT_NAME);
+        marker.setNodeProperty(CACHE_PROPERTY, cache);
+        marker.setNodeProperty(KEY_PROPERTY, key);
+        marker.setNodeProperty(TTL_PROPERTY, ttl);
+        return marker;
+    }
+
+    @Override
+    public int getPrecedence() {
+        return FragmentCacheProcessor.PRECEDENCE;
+    }
+
+    @Override
+    protected ProcessorResult processElement(Arguments arguments, Element element) {
+        NestableNode parent = element.getParent();
+        parent.removeChild(element);
+
+        Cache cache = (Cache) element.getNodeProperty(CACHE_PROPERTY);
+        String key = (String) element.getNodeProperty(KEY_PROPERTY);
+        if (cache == null) {
+            // Not created by the fragment cache processor.
+            return ProcessorResult.OK;
+        }
+
+        ITemplateWriter writer = arguments.getConfiguration()
+                .getTemplateModeHandler(arguments.getTemplateResolution().getTemplateMode()).getTemplateWriter();
+        if (!(writer instanceof AbstractGeneralTemplateWriter)) {
+            LOGGER.debug("Cannot cache the fragment {}, unsupported template writer {}", key, writer);
+            return ProcessorResult.OK;
+        }
+        StringWriter markup = new StringWriter();
+        try {
+            ((AbstractGeneralTemplateWriter) writer).writeNode(arguments, markup, parent);
+        } catch (IOException e) {
+            LOGGER.error("Cannot write the fragment {}", key, e);
+            return ProcessorResult.OK;
+        }
+        cache.set(key, markup.toString(), (Integer) element.getNodeProperty(TTL_PROPERTY));
+        return ProcessorResult.OK;
+    }
+}
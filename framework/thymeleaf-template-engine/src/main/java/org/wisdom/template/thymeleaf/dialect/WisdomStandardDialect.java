@@ -19,19 +19,52 @@
  */
 package org.wisdom.template.thymeleaf.dialect;
 
+import org.thymeleaf.processor.IProcessor;
 import org.thymeleaf.standard.StandardDialect;
 import org.thymeleaf.standard.expression.IStandardVariableExpressionEvaluator;
+import org.wisdom.api.cache.Cache;
 
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Wisdom Themeleaf dialect.
  * <p/>
  * Wisdom does not use the standard Thymeleaf dialect directly. First, injecting 'expression' object is not possible,
  * while we need to inject `routes`. In addition, the OGNL boolean fix use a method not compatible with OSGi.
+ * <p/>
+ * It also adds the {@code th:cache} attribute, caching the markup of fragments (see {@link FragmentCacheProcessor}).
  */
 public class WisdomStandardDialect extends StandardDialect {
 
+    private final Cache cache;
+
+    /**
+     * Creates the dialect, without fragment caching.
+     */
+    public WisdomStandardDialect() {
+        this(null);
+    }
+
+    /**
+     * Creates the dialect.
+     *
+     * @param cache the cache storing the fragments, {@literal null} to disable the fragment caching
+     */
+    public WisdomStandardDialect(Cache cache) {
+        super();
+        this.cache = cache;
+    }
+
+    @Override
+    public Set<IProcessor> getProcessors() {
+        Set<IProcessor> processors = new LinkedHashSet<>(super.getProcessors());
+        processors.add(new FragmentCacheProcessor(cache));
+        processors.add(new FragmentCacheStoreProcessor());
+        return processors;
+    }
+
     @Override
     public Map<String, Object> getExecutionAttributes() {
         Map<String, Object> attributes = super.getExecutionAttributes();
@@ -40,8 +73,4 @@ public class WisdomStandardDialect extends StandardDialect {
                 "StandardVariableExpressionEvaluator", expressionEvaluator);
         return attributes;
     }
-
-
-
-
 }
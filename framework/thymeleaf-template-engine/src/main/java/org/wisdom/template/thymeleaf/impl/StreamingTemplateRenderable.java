@@ -0,0 +1,156 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.template.thymeleaf.impl;
+
+import org.thymeleaf.context.Context;
+import org.thymeleaf.exceptions.TemplateProcessingException;
+import org.wisdom.api.http.MimeTypes;
+import org.wisdom.api.http.RenderableException;
+import org.wisdom.api.http.Result;
+import org.wisdom.api.http.StreamingRenderable;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A rendered template written directly to the response. The template is processed when the response is sent,
+ * and the produced HTML is encoded and sent by chunks, so the page is never held entirely in memory.
+ */
+public class StreamingTemplateRenderable implements StreamingRenderable<String> {
+
+    private final WisdomTemplateEngine engine;
+    private final String templateName;
+    private final Context context;
+    private final org.wisdom.api.http.Context http;
+
+    /**
+     * Creates the renderable object.
+     *
+     * @param engine       the engine processing the template
+     * @param templateName the template full name
+     * @param context      the Thymeleaf context containing the template variables
+     * @param http         the HTTP context of the request having rendered the template
+     */
+    public StreamingTemplateRenderable(WisdomTemplateEngine engine, String templateName, Context context,
+                                       org.wisdom.api.http.Context http) {
+        this.engine = engine;
+        this.templateName = templateName;
+        this.context = context;
+        this.http = http;
+    }
+
+    /**
+     * Processes the template, writing the HTML page to the given stream. The page is encoded in UTF-8.
+     *
+     * @param context the HTTP context
+     * @param result  the result having built this renderable object
+     * @param out     the stream receiving the content
+     * @throws IOException         if the page cannot be written
+     * @throws RenderableException if the template cannot be processed
+     */
+    @Override
+    public void writeTo(org.wisdom.api.http.Context context, Result result, OutputStream out)
+            throws IOException, RenderableException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        try {
+            write(writer);
+        } catch (TemplateProcessingException e) {
+            throw new RenderableException("Cannot render the template " + templateName, e);
+        }
+        writer.flush();
+    }
+
+    private void write(Writer writer) {
+        // The template is processed on the thread writing the response, the dialects and message resolver need
+        // the HTTP context.
+        final org.wisdom.api.http.Context previous = org.wisdom.api.http.Context.CONTEXT.get();
+        org.wisdom.api.http.Context.CONTEXT.set(http);
+        try {
+            engine.processTemplate(templateName, context, writer);
+        } finally {
+            if (previous == null) {
+                org.wisdom.api.http.Context.CONTEXT.remove();
+            } else {
+                org.wisdom.api.http.Context.CONTEXT.set(previous);
+            }
+        }
+    }
+
+    /**
+     * Processes the template into memory, for engines not supporting streaming.
+     *
+     * @param context the HTTP context
+     * @param result  the result having built this renderable object
+     * @return the stream to read the HTML page
+     * @throws RenderableException if the template cannot be processed
+     */
+    @Override
+    public InputStream render(org.wisdom.api.http.Context context, Result result) throws RenderableException {
+        try {
+            return new ByteArrayInputStream(content().getBytes(StandardCharsets.UTF_8));
+        } catch (TemplateProcessingException e) {
+            throw new RenderableException("Cannot render the template " + templateName, e);
+        }
+    }
+
+    /**
+     * @return {@literal -1}, the length is not known before the template is processed.
+     */
+    @Override
+    public long length() {
+        return -1;
+    }
+
+    @Override
+    public String mimetype() {
+        return MimeTypes.HTML;
+    }
+
+    /**
+     * Processes the template into memory.
+     *
+     * @return the HTML page
+     * @throws TemplateProcessingException if the template cannot be processed
+     */
+    @Override
+    public String content() {
+        StringWriter writer = new StringWriter();
+        write(writer);
+        return writer.toString();
+    }
+
+    @Override
+    public boolean requireSerializer() {
+        return false;
+    }
+
+    @Override
+    public void setSerializedForm(String serialized) {
+        // Not supported.
+    }
+
+    /**
+     * @return {@literal true}, the page is sent by chunks, as it is produced.
+     */
+    @Override
+    public boolean mustBeChunked() {
+        return true;
+    }
+}
@@ -37,6 +37,9 @@ import java.util.*;
 
 /**
  * Template implementation for ThymeLeaf template.
+ * <p>
+ * Instances are thread-safe and renderings are not serialized: the only mutable state is the engine reference,
+ * and each rendering uses its own variables and processing context.
  */
 public class ThymeLeafTemplateImplementation implements Template {
 
@@ -60,7 +63,10 @@ public class ThymeLeafTemplateImplementation implements Template {
      */
     private final Bundle bundle;
 
-    private WisdomTemplateEngine templateEngine;
+    /**
+     * The engine, replaced when the dialects change.
+     */
+    private volatile WisdomTemplateEngine templateEngine;
 
     public ThymeLeafTemplateImplementation(WisdomTemplateEngine templateEngine, File templateFile, Router router,
                                            Assets assets, Bundle source
@@ -87,7 +93,12 @@ public class ThymeLeafTemplateImplementation implements Template {
         this.assets = assets;
     }
 
-    public synchronized void updateEngine(WisdomTemplateEngine engine) {
+    /**
+     * Sets the engine used to render the template. Renderings already started complete with the previous engine.
+     *
+     * @param engine the new engine
+     */
+    public void updateEngine(WisdomTemplateEngine engine) {
         this.templateEngine = engine;
     }
 
@@ -140,12 +151,18 @@ public class ThymeLeafTemplateImplementation implements Template {
      * @return the rendered object.
      */
     @Override
-    public synchronized Renderable<?> render(Controller controller, Map<String, Object> variables) {
+    public Renderable<?> render(Controller controller, Map<String, Object> variables) {
+        // The variables are copied as they are modified.
         HashMap<String, Object> map = new HashMap<>(variables);
         if (!map.containsKey(ExtendedOGNLExpressionEvaluator.BUNDLE_VAR_KEY)) {
             map.put(ExtendedOGNLExpressionEvaluator.BUNDLE_VAR_KEY, bundle);
         }
-        return templateEngine.process(this, controller, router, assets, map);
+        // Read once, the engine may be replaced concurrently.
+        WisdomTemplateEngine engine = templateEngine;
+        if (engine.isStreaming()) {
+            return engine.stream(this, controller, router, assets, map);
+        }
+        return engine.process(this, controller, router, assets, map);
     }
 
     /**
@@ -20,20 +20,30 @@
 package org.wisdom.template.thymeleaf.impl;
 
 import nz.net.ultraq.thymeleaf.LayoutDialect;
+import ognl.OgnlException;
 import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.TemplateProcessingParameters;
+import org.thymeleaf.cache.ICache;
 import org.thymeleaf.context.Context;
 import org.thymeleaf.dialect.IDialect;
+import org.thymeleaf.dom.Attribute;
+import org.thymeleaf.dom.Element;
+import org.thymeleaf.dom.NestableNode;
 import org.thymeleaf.exceptions.TemplateProcessingException;
 import org.wisdom.api.Controller;
 import org.wisdom.api.asset.Assets;
 import org.wisdom.api.bodies.RenderableString;
+import org.wisdom.api.cache.Cache;
 import org.wisdom.api.http.MimeTypes;
 import org.wisdom.api.router.Router;
 import org.wisdom.api.templates.Template;
+import org.wisdom.template.thymeleaf.dialect.ExtendedOGNLExpressionEvaluator;
 import org.wisdom.template.thymeleaf.dialect.Routes;
 import org.wisdom.template.thymeleaf.dialect.WisdomStandardDialect;
 
 import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -43,11 +53,27 @@ import java.util.Set;
  */
 public class WisdomTemplateEngine extends TemplateEngine {
 
+    /**
+     * Whether rendered pages are written directly to the response, see {@link #setStreaming(boolean)}.
+     */
+    private volatile boolean streaming;
+
     public WisdomTemplateEngine(Set<IDialect> dialects) {
+        this(dialects, null);
+    }
+
+    /**
+     * Creates the engine.
+     *
+     * @param dialects the additional dialects
+     * @param cache    the cache storing the fragments marked with {@code th:cache}, {@literal null} to disable the
+     *                 fragment caching
+     */
+    public WisdomTemplateEngine(Set<IDialect> dialects, Cache cache) {
         super();
         // We clear the dialects as we are using our own standard dialect.
         clearDialects();
-        addDialect(new WisdomStandardDialect());
+        addDialect(new WisdomStandardDialect(cache));
         addDialect(new LayoutDialect());
 
         if (dialects != null) {
@@ -55,6 +81,23 @@ public class WisdomTemplateEngine extends TemplateEngine {
         }
     }
 
+    /**
+     * Enables or disables streaming. When enabled, templates are rendered to {@link StreamingTemplateRenderable}
+     * objects, written directly to the response by chunks instead of being rendered into a string first.
+     *
+     * @param streaming whether or not streaming is enabled
+     */
+    public void setStreaming(boolean streaming) {
+        this.streaming = streaming;
+    }
+
+    /**
+     * @return whether or not the rendered pages are written directly to the response.
+     */
+    public boolean isStreaming() {
+        return streaming;
+    }
+
     /**
      * Renders the given template.
      * <p>
@@ -68,6 +111,33 @@ public class WisdomTemplateEngine extends TemplateEngine {
      */
     public RenderableString process(Template template, Controller controller, Router router, Assets assets, Map<String,
             Object> variables) {
+        Context ctx = createContext(template, controller, router, assets, variables);
+        StringWriter writer = new StringWriter();
+        processTemplate(template.fullName(), ctx, writer);
+        return new RenderableString(writer, MimeTypes.HTML);
+    }
+
+    /**
+     * Prepares the rendering of the given template, without processing it. The returned object processes the
+     * template when the response is written, directly into the response.
+     * <p>
+     * Variables from the session, flash and request parameters are added to the given parameters.
+     *
+     * @param template   the template
+     * @param controller the template asking for the rendering
+     * @param router     the router service
+     * @param variables  the template parameters
+     * @return the renderable object writing the HTML page
+     */
+    public StreamingTemplateRenderable stream(Template template, Controller controller, Router router, Assets assets,
+                                              Map<String, Object> variables) {
+        Context ctx = createContext(template, controller, router, assets, variables);
+        return new StreamingTemplateRenderable(this, template.fullName(), ctx,
+                org.wisdom.api.http.Context.CONTEXT.get());
+    }
+
+    private Context createContext(Template template, Controller controller, Router router, Assets assets,
+                                  Map<String, Object> variables) {
         Context ctx = new Context();
         // Add session
         final org.wisdom.api.http.Context http = org.wisdom.api.http.Context.CONTEXT.get();
@@ -96,9 +166,19 @@ public class WisdomTemplateEngine extends TemplateEngine {
         // This variable let us resolve template using relative path (in the same directory as the current template).
         // It's mainly used for 'layout', so we can compute the full url.
         ctx.setVariable("__TEMPLATE__", template);
-        StringWriter writer = new StringWriter();
+        return ctx;
+    }
+
+    /**
+     * Processes the template, writing the result to the given writer.
+     *
+     * @param templateName the template full name
+     * @param ctx          the Thymeleaf context
+     * @param writer       the writer
+     */
+    void processTemplate(String templateName, Context ctx, Writer writer) {
         try {
-            this.process(template.fullName(), ctx, writer);
+            process(templateName, ctx, writer);
         } catch (TemplateProcessingException e) {
             // If we have a nested cause having a nested cause, heuristics say that it's the useful message.
             // Rebuild an exception using this data.
@@ -111,7 +191,77 @@ public class WisdomTemplateEngine extends TemplateEngine {
                 throw e;
             }
         }
-        return new RenderableString(writer, MimeTypes.HTML);
+    }
+
+    /**
+     * Parses the given template and the OGNL expressions it contains, so they are in the caches before the first
+     * rendering.
+     *
+     * @param template the template
+     * @return the description of the expressions that cannot be parsed, empty if all expressions are valid
+     * @throws org.thymeleaf.exceptions.TemplateEngineException if the template cannot be parsed
+     */
+    public List<String> warmUp(Template template) {
+        Context ctx = new Context();
+        ctx.setVariable("__TEMPLATE__", template);
+        org.thymeleaf.Template parsed = getTemplateRepository().getTemplate(
+                new TemplateProcessingParameters(getConfiguration(), template.fullName(), ctx));
+        List<String> errors = new ArrayList<>();
+        parseExpressions(parsed.getDocument(), getCacheManager().getExpressionCache(), errors);
+        return errors;
+    }
+
+    private static void parseExpressions(NestableNode node, ICache<String, Object> cache, List<String> errors) {
+        for (Element element : node.getElementChildren()) {
+            for (Attribute attribute : element.getAttributeMap().values()) {
+                String name = attribute.getNormalizedName();
+                if (attribute.getValue() != null && (name.startsWith("th:") || name.startsWith("data-th-"))) {
+                    for (String expression : getVariableExpressions(attribute.getValue())) {
+                        try {
+                            ExtendedOGNLExpressionEvaluator.parse(cache, expression);
+                        } catch (OgnlException e) {
+                            errors.add(name + "=\"" + attribute.getValue() + "\": " + e.getMessage());
+                        }
+                    }
+                }
+            }
+            parseExpressions(element, cache, errors);
+        }
+    }
+
+    /**
+     * Extracts the content of the {@literal ${...}} expressions from an attribute value. Expressions using
+     * preprocessing ({@literal __...__}) are ignored, as they are only known at rendering time.
+     *
+     * @param value the attribute value
+     * @return the expressions
+     */
+    static List<String> getVariableExpressions(String value) {
+        List<String> expressions = new ArrayList<>();
+        int start = value.indexOf("${");
+        while (start != -1) {
+            int depth = 1;
+            int index = start + 2;
+            while (index < value.length() && depth > 0) {
+                char c = value.charAt(index);
+                if (c == '{') {
+                    depth++;
+                } else if (c == '}') {
+                    depth--;
+                }
+                index++;
+            }
+            if (depth > 0) {
+                // Not closed.
+                break;
+            }
+            String expression = value.substring(start + 2, index - 1);
+            if (!expression.contains("__")) {
+                expressions.add(expression);
+            }
+            start = value.indexOf("${", index);
+        }
+        return expressions;
     }
 
 }
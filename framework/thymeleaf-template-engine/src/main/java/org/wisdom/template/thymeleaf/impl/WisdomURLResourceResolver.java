@@ -84,6 +84,8 @@ public class WisdomURLResourceResolver implements IResourceResolver {
                             "neither {} nor {}.thl.html exist in the template directory or is available in bundles.",
                     resourceName, resourceName, resourceName);
         } else {
+            // Track the dependency, so the rendered template is invalidated when the resolved one changes.
+            engine.resolved(mayBeParentTemplate, resourceName, template);
             try {
                 return template.getURL().openStream();
             } catch (IOException e) {
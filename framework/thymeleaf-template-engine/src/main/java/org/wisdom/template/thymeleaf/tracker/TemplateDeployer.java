@@ -28,9 +28,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wisdom.api.configuration.ApplicationConfiguration;
 import org.wisdom.template.thymeleaf.ThymeleafTemplateCollector;
+import org.wisdom.template.thymeleaf.impl.ThymeLeafTemplateImplementation;
 
 import java.io.File;
 import java.net.MalformedURLException;
+import java.util.Collections;
 
 /**
  * A Chameleon deployer tracking template files.
@@ -105,7 +107,8 @@ public class TemplateDeployer extends AbstractDeployer implements Deployer {
     @Override
     public void onFileCreate(File file) {
         try {
-            engine.addTemplate(context.getBundle(0), file.toURI().toURL());
+            ThymeLeafTemplateImplementation template = engine.addTemplate(context.getBundle(0), file.toURI().toURL());
+            engine.warmUp(Collections.singletonList(template));
         } catch (MalformedURLException e) {
             LOGGER.error("Cannot compute the url of file {}", file.getAbsolutePath(), e);
         }
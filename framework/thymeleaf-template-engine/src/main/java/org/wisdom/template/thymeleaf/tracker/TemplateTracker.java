@@ -88,13 +88,15 @@ public class TemplateTracker implements BundleTrackerCustomizer<List<ThymeLeafTe
                 list.add(template);
             }
         }
+        // Parse the templates now rather than on their first rendering (if enabled).
+        engine.warmUp(list);
         return list;
     }
 
     @Override
     public void modifiedBundle(Bundle bundle, BundleEvent bundleEvent, List<ThymeLeafTemplateImplementation> o) {
         for (ThymeLeafTemplateImplementation template : o) {
-            engine.updatedTemplate();
+            engine.updatedTemplate(template);
         }
     }
 
@@ -107,5 +109,20 @@ public class TemplateTracker implements BundleTrackerCustomizer<List<ThymeLeafTe
                 engine.deleteTemplate(template);
             }
         }
+        // The classes of the bundle may be used by the templates of any bundle (the controllers or the objects given
+        // to the templates), and are going to be replaced.
+        if (engine != null && containsClasses(bundle)) {
+            engine.clearClassCaches();
+        }
+    }
+
+    private static boolean containsClasses(Bundle bundle) {
+        try {
+            Enumeration<URL> classes = bundle.findEntries("/", "*.class", true);
+            return classes != null && classes.hasMoreElements();
+        } catch (IllegalStateException e) { //NOSONAR
+            // Already uninstalled, we cannot check.
+            return true;
+        }
     }
 }
@@ -19,19 +19,29 @@
  */
 package org.wisdom.template.thymeleaf;
 
+import org.apache.commons.io.FileUtils;
 import org.junit.Test;
 import org.osgi.framework.Bundle;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.ServiceRegistration;
+import org.thymeleaf.cache.ICacheManager;
 import org.thymeleaf.dialect.IDialect;
+import org.wisdom.api.cache.Cache;
+import org.wisdom.api.http.Context;
 import org.wisdom.api.configuration.ApplicationConfiguration;
 import org.wisdom.api.templates.Template;
+import org.wisdom.template.thymeleaf.impl.FakeController;
 import org.wisdom.template.thymeleaf.impl.MyDialect;
+import org.wisdom.template.thymeleaf.impl.ThymeLeafTemplateImplementation;
 import org.wisdom.template.thymeleaf.impl.WisdomMessageResolver;
 import org.wisdom.template.thymeleaf.impl.WisdomTemplateEngine;
+import org.wisdom.test.parents.FakeContext;
 
 import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Dictionary;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.any;
@@ -58,20 +68,8 @@ public class ThymeleafTemplateCollectorTest {
 
     @Test
     public void manageTemplates() throws Exception {
-        BundleContext ctxt = mock(BundleContext.class);
         Bundle bundle = mock(Bundle.class);
-        when(ctxt.getBundle()).thenReturn(bundle);
-        when(bundle.getBundleContext()).thenReturn(ctxt);
-        when(ctxt.registerService(any(Class.class), any(Template.class), any(Dictionary.class))).thenReturn(mock
-                (ServiceRegistration.class));
-        ThymeleafTemplateCollector collector = new ThymeleafTemplateCollector(ctxt);
-        collector.configuration = mock(ApplicationConfiguration.class);
-        when(collector.configuration.getWithDefault("application.template.thymeleaf.mode",
-                "HTML5")).thenReturn("HTML5");
-        when(collector.configuration.getIntegerWithDefault("application.template.thymeleaf.ttl",
-                60 * 1000)).thenReturn(60 * 1000);
-        collector.messageResolver = new WisdomMessageResolver();
-        collector.configure();
+        ThymeleafTemplateCollector collector = createCollector(bundle, false);
 
         assertThat(collector.getTemplates()).isEmpty();
         File javascript = new File("src/test/resources/templates/javascript.thl.html");
@@ -89,20 +87,8 @@ public class ThymeleafTemplateCollectorTest {
 
     @Test
     public void testBindAndUnbindDialects() throws Exception {
-        BundleContext ctxt = mock(BundleContext.class);
         Bundle bundle = mock(Bundle.class);
-        when(ctxt.getBundle()).thenReturn(bundle);
-        when(bundle.getBundleContext()).thenReturn(ctxt);
-        when(ctxt.registerService(any(Class.class), any(Template.class), any(Dictionary.class))).thenReturn(mock
-                (ServiceRegistration.class));
-        ThymeleafTemplateCollector collector = new ThymeleafTemplateCollector(ctxt);
-        collector.configuration = mock(ApplicationConfiguration.class);
-        when(collector.configuration.getWithDefault("application.template.thymeleaf.mode",
-                "HTML5")).thenReturn("HTML5");
-        when(collector.configuration.getIntegerWithDefault("application.template.thymeleaf.ttl",
-                60 * 1000)).thenReturn(60 * 1000);
-        collector.messageResolver = new WisdomMessageResolver();
-        collector.configure();
+        ThymeleafTemplateCollector collector = createCollector(bundle, false);
 
         assertThat(collector.getTemplates()).isEmpty();
         WisdomTemplateEngine engine = collector.engine;
@@ -132,4 +118,137 @@ public class ThymeleafTemplateCollectorTest {
         assertThat(collector.dialects).hasSize(0);
         assertThat(collector.engine).isSameAs(engine);
     }
+
+    @Test
+    public void testBindAndUnbindCache() throws Exception {
+        Bundle bundle = mock(Bundle.class);
+        ThymeleafTemplateCollector collector = createCollector(bundle, false);
+        assertThat(collector.cache).isNull();
+        WisdomTemplateEngine engine = collector.engine;
+
+        Cache cache = mock(Cache.class);
+        collector.bindCache(cache);
+        assertThat(collector.cache).isSameAs(cache);
+        assertThat(collector.engine).isNotSameAs(engine);
+        engine = collector.engine;
+
+        // Another cache leaving does not change anything.
+        collector.unbindCache(mock(Cache.class));
+        assertThat(collector.cache).isSameAs(cache);
+        assertThat(collector.engine).isSameAs(engine);
+
+        collector.unbindCache(cache);
+        assertThat(collector.cache).isNull();
+        assertThat(collector.engine).isNotSameAs(engine);
+    }
+
+    @Test
+    public void testInvalidationOfDependentTemplates() throws Exception {
+        Bundle bundle = mock(Bundle.class);
+        ThymeleafTemplateCollector collector = createCollector(bundle, false);
+
+        File directory = new File("target/dependencies");
+        FileUtils.deleteQuietly(directory);
+        File footer = new File(directory, "footer.thl.html");
+        File page = new File(directory, "page.thl.html");
+        File other = new File(directory, "other.thl.html");
+        FileUtils.write(footer, "<footer th:fragment=\"f\">v1</footer>");
+        FileUtils.write(page, "<div th:include=\"footer :: f\"></div>");
+        FileUtils.write(other, "<p th:text=\"${key}\">other</p>");
+        ThymeLeafTemplateImplementation footerTemplate = collector.addTemplate(bundle, footer.toURI().toURL());
+        ThymeLeafTemplateImplementation pageTemplate = collector.addTemplate(bundle, page.toURI().toURL());
+        ThymeLeafTemplateImplementation otherTemplate = collector.addTemplate(bundle, other.toURI().toURL());
+
+        assertThat(render(pageTemplate)).contains("v1");
+        assertThat(render(otherTemplate)).contains("value");
+
+        ICacheManager caches = collector.engine.getCacheManager();
+        assertThat(caches.getTemplateCache().get(pageTemplate.fullName())).isNotNull();
+        assertThat(caches.getTemplateCache().get("footer")).isNotNull();
+        assertThat(caches.getExpressionCache().get("{ognl-compiled}key")).isNotNull();
+
+        // Still cached.
+        FileUtils.write(footer, "<footer th:fragment=\"f\">v2</footer>");
+        assertThat(render(pageTemplate)).contains("v1");
+
+        collector.updatedTemplate(bundle, footer);
+        assertThat(caches.getTemplateCache().get(pageTemplate.fullName())).isNull();
+        assertThat(caches.getTemplateCache().get("footer")).isNull();
+        // Not depending on the footer.
+        assertThat(caches.getTemplateCache().get(otherTemplate.fullName())).isNotNull();
+        assertThat(caches.getExpressionCache().get("{ognl-compiled}key")).isNotNull();
+        assertThat(render(pageTemplate)).contains("v2");
+
+        collector.deleteTemplate(footerTemplate);
+        assertThat(caches.getTemplateCache().get(pageTemplate.fullName())).isNull();
+        assertThat(caches.getTemplateCache().get(otherTemplate.fullName())).isNotNull();
+
+        collector.clearClassCaches();
+        assertThat(caches.getExpressionCache().get("{ognl-compiled}key")).isNull();
+        assertThat(caches.getTemplateCache().get(otherTemplate.fullName())).isNotNull();
+        collector.stop();
+    }
+
+    @Test
+    public void testWarmUp() throws Exception {
+        Bundle bundle = mock(Bundle.class);
+        ThymeleafTemplateCollector collector = createCollector(bundle, true);
+        assertThat(collector.getLastWarmUpDuration()).isEqualTo(-1);
+
+        File directory = new File("target/warmup");
+        FileUtils.deleteQuietly(directory);
+        File valid = new File(directory, "valid.thl.html");
+        File invalid = new File(directory, "invalid.thl.html");
+        FileUtils.write(valid, "<ul><li th:each=\"item : ${items}\" th:text=\"${item.toUpperCase()}\">i</li></ul>");
+        FileUtils.write(invalid, "<p th:text=\"${key.}\">p</p>");
+        ThymeLeafTemplateImplementation validTemplate = collector.addTemplate(bundle, valid.toURI().toURL());
+        ThymeLeafTemplateImplementation invalidTemplate = collector.addTemplate(bundle, invalid.toURI().toURL());
+
+        collector.warmUp(Arrays.asList(validTemplate, invalidTemplate)).get(10, TimeUnit.SECONDS);
+
+        ICacheManager caches = collector.engine.getCacheManager();
+        assertThat(caches.getTemplateCache().get(validTemplate.fullName())).isNotNull();
+        assertThat(caches.getExpressionCache().get("{ognl-compiled}items")).isNotNull();
+        assertThat(caches.getExpressionCache().get("{ognl-compiled}item.toUpperCase()")).isNotNull();
+        assertThat(collector.getWarmedUpTemplateCount()).isEqualTo(1);
+        assertThat(collector.getWarmUpErrorCount()).isEqualTo(1);
+        assertThat(collector.getLastWarmUpDuration()).isGreaterThanOrEqualTo(0);
+        collector.stop();
+    }
+
+    /**
+     * Creates and configures a collector registering the templates in the given bundle.
+     */
+    private static ThymeleafTemplateCollector createCollector(Bundle bundle, boolean warmUp) {
+        BundleContext ctxt = mock(BundleContext.class);
+        when(ctxt.getBundle()).thenReturn(bundle);
+        when(bundle.getBundleContext()).thenReturn(ctxt);
+        when(ctxt.registerService(any(Class.class), any(Template.class), any(Dictionary.class))).thenReturn(mock
+                (ServiceRegistration.class));
+        ThymeleafTemplateCollector collector = new ThymeleafTemplateCollector(ctxt);
+        collector.configuration = mock(ApplicationConfiguration.class);
+        when(collector.configuration.getWithDefault("application.template.thymeleaf.mode",
+                "HTML5")).thenReturn("HTML5");
+        when(collector.configuration.getIntegerWithDefault("application.template.thymeleaf.ttl",
+                60 * 1000)).thenReturn(60 * 1000);
+        when(collector.configuration.getBooleanWithDefault("application.template.thymeleaf.streaming",
+                false)).thenReturn(false);
+        when(collector.configuration.getBooleanWithDefault("application.template.thymeleaf.warmup",
+                false)).thenReturn(warmUp);
+        when(collector.configuration.getIntegerWithDefault("application.template.thymeleaf.compilation.threshold",
+                16)).thenReturn(16);
+        collector.messageResolver = new WisdomMessageResolver();
+        collector.configure();
+        return collector;
+    }
+
+    private static String render(ThymeLeafTemplateImplementation template) {
+        Context.CONTEXT.set(new FakeContext());
+        try {
+            return (String) template.render(new FakeController(),
+                    Collections.<String, Object>singletonMap("key", "value")).content();
+        } finally {
+            Context.CONTEXT.remove();
+        }
+    }
 }
@@ -0,0 +1,233 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.template.thymeleaf.dialect;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.thymeleaf.Configuration;
+import org.thymeleaf.cache.ICache;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.context.ProcessingContext;
+import org.thymeleaf.dialect.IDialect;
+import org.thymeleaf.exceptions.TemplateProcessingException;
+import org.thymeleaf.standard.expression.OgnlVariableExpressionEvaluator;
+import org.thymeleaf.standard.expression.StandardExpressionExecutionContext;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+import org.wisdom.template.thymeleaf.impl.WisdomTemplateEngine;
+
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+/**
+ * Checks the compilation of the hot OGNL expressions.
+ */
+public class CompiledExpressionTest {
+
+    private Configuration configuration;
+    private Context context;
+
+    @Before
+    public void setUp() {
+        CompiledExpression.setCompilationThreshold(2);
+        WisdomTemplateEngine engine = new WisdomTemplateEngine(Collections.<IDialect>emptySet());
+        engine.setTemplateResolver(new ClassLoaderTemplateResolver());
+        engine.initialize();
+        configuration = engine.getConfiguration();
+        context = new Context();
+        context.setVariable("user", new User("wisdom", new Address("Grenoble")));
+    }
+
+    @After
+    public void tearDown() {
+        CompiledExpression.setCompilationThreshold(16);
+    }
+
+    @Test
+    public void testCompilationOfPropertyChains() throws Exception {
+        assertThat(evaluate("user.address.city")).isEqualTo("Grenoble");
+        assertThat(isCompiled("user.address.city")).isFalse();
+        assertThat(evaluate("user.address.city")).isEqualTo("Grenoble");
+        assertThat(isCompiled("user.address.city")).isTrue();
+        assertThat(evaluate("user.address.city")).isEqualTo("Grenoble");
+        assertThat(evaluate("user.name")).isEqualTo("wisdom");
+        assertThat(evaluate("user.name")).isEqualTo("wisdom");
+        assertThat(isCompiled("user.name")).isTrue();
+
+        // The compiled accessors read the current values.
+        context.setVariable("user", new User("wisdom", new Address("Paris")));
+        assertThat(evaluate("user.address.city")).isEqualTo("Paris");
+    }
+
+    @Test
+    public void testFallbackOnAnotherClass() throws Exception {
+        evaluate("user.name");
+        evaluate("user.name");
+        assertThat(isCompiled("user.name")).isTrue();
+
+        context.setVariable("user", new Admin("root"));
+        assertThat(evaluate("user.name")).isEqualTo("root");
+        context.setVariable("user", ImmutableMap.of("name", "map"));
+        assertThat(evaluate("user.name")).isEqualTo("map");
+        context.setVariable("user", new User("wisdom", null));
+        assertThat(evaluate("user.name")).isEqualTo("wisdom");
+    }
+
+    @Test
+    public void testNonPublicClass() throws Exception {
+        context.setVariable("user", new Admin("root"));
+        evaluate("user.name");
+        assertThat(evaluate("user.name")).isEqualTo("root");
+        assertThat(isCompiled("user.name")).isTrue();
+    }
+
+    @Test
+    public void testMapPseudoPropertiesAreInterpreted() throws Exception {
+        context.setVariable("map", ImmutableMap.of("a", "b", "c", "d"));
+        for (int i = 0; i < 4; i++) {
+            assertThat(evaluate("map.size")).isEqualTo(2);
+            assertThat(evaluate("map.a")).isEqualTo("b");
+        }
+        assertThat(isCompiled("map.size")).isFalse();
+        assertThat(isCompiled("map.a")).isTrue();
+    }
+
+    @Test
+    public void testOtherExpressionsAreInterpreted() throws Exception {
+        for (int i = 0; i < 4; i++) {
+            assertThat(evaluate("user.name + '!'")).isEqualTo("wisdom!");
+            assertThat(evaluate("user.getName()")).isEqualTo("wisdom");
+            assertThat(evaluate("true")).isEqualTo(true);
+        }
+        assertThat(isCompiled("user.name + '!'")).isFalse();
+        assertThat(isCompiled("user.getName()")).isFalse();
+        assertThat(isCompiled("true")).isFalse();
+    }
+
+    @Test
+    public void testNullIntermediateValue() throws Exception {
+        evaluate("user.address.city");
+        evaluate("user.address.city");
+        assertThat(isCompiled("user.address.city")).isTrue();
+
+        // Same failure as the interpreter.
+        context.setVariable("user", new User("wisdom", null));
+        try {
+            evaluate("user.address.city");
+            fail("Exception expected");
+        } catch (TemplateProcessingException e) {
+            assertThat(e.getMessage()).contains("user.address.city");
+        }
+    }
+
+    @Test
+    public void testExceptionThrownByGetter() throws Exception {
+        for (int i = 0; i < 4; i++) {
+            try {
+                evaluate("user.broken");
+                fail("Exception expected");
+            } catch (TemplateProcessingException e) {
+                assertThat(e.getMessage()).contains("user.broken");
+            }
+        }
+        assertThat(isCompiled("user.broken")).isTrue();
+    }
+
+    @Test
+    public void testDisabledCompilation() throws Exception {
+        CompiledExpression.setCompilationThreshold(0);
+        for (int i = 0; i < 4; i++) {
+            assertThat(evaluate("user.name")).isEqualTo("wisdom");
+        }
+        assertThat(isCompiled("user.name")).isFalse();
+    }
+
+    @Test
+    public void testSharedCacheWithTheStandardEvaluator() throws Exception {
+        // The standard evaluator stores the raw OGNL trees in the same cache.
+        assertThat(OgnlVariableExpressionEvaluator.INSTANCE.evaluate(configuration, new ProcessingContext(context),
+                "user.name", StandardExpressionExecutionContext.NORMAL, false)).isEqualTo("wisdom");
+        for (int i = 0; i < 4; i++) {
+            assertThat(evaluate("user.name")).isEqualTo("wisdom");
+        }
+        assertThat(isCompiled("user.name")).isTrue();
+        assertThat(OgnlVariableExpressionEvaluator.INSTANCE.evaluate(configuration, new ProcessingContext(context),
+                "user.name", StandardExpressionExecutionContext.NORMAL, false)).isEqualTo("wisdom");
+    }
+
+    private Object evaluate(String expression) {
+        return ExtendedOGNLExpressionEvaluator.INSTANCE.evaluate(configuration, new ProcessingContext(context),
+                expression, StandardExpressionExecutionContext.NORMAL, false);
+    }
+
+    private boolean isCompiled(String expression) throws Exception {
+        ICache<String, Object> cache = configuration.getCacheManager().getExpressionCache();
+        return ExtendedOGNLExpressionEvaluator.parse(cache, expression).isCompiled();
+    }
+
+    public static class User {
+        private final String name;
+        private final Address address;
+
+        public User(String name, Address address) {
+            this.name = name;
+            this.address = address;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Address getAddress() {
+            return address;
+        }
+
+        public String getBroken() {
+            throw new IllegalStateException("broken");
+        }
+    }
+
+    public static class Address {
+        private final String city;
+
+        public Address(String city) {
+            this.city = city;
+        }
+
+        public String getCity() {
+            return city;
+        }
+    }
+
+    private static class Admin {
+        private final String name;
+
+        private Admin(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+}
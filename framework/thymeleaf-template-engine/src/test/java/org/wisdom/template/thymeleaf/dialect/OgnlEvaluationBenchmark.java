@@ -0,0 +1,85 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.template.thymeleaf.dialect;
+
+import org.junit.After;
+import org.junit.Test;
+import org.thymeleaf.Configuration;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.context.ProcessingContext;
+import org.thymeleaf.dialect.IDialect;
+import org.thymeleaf.standard.expression.StandardExpressionExecutionContext;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+import org.wisdom.template.thymeleaf.impl.WisdomTemplateEngine;
+import org.wisdom.test.parents.WisdomBenchmark;
+
+import java.util.Collections;
+
+/**
+ * Compares the throughput of the OGNL interpreter with the compiled accessors, when evaluating the same property
+ * chain repeatedly.
+ * <p>
+ * Launch it with: {@code mvn test -Dtest=OgnlEvaluationBenchmark -Dwisdom.benchmark=true}.
+ */
+public class OgnlEvaluationBenchmark extends WisdomBenchmark {
+
+    private static final String[] EXPRESSIONS = {"user.name", "user.address.city"};
+
+    @After
+    public void tearDown() {
+        CompiledExpression.setCompilationThreshold(16);
+    }
+
+    @Test
+    public void measureThroughput() throws Exception {
+        // The interpreter, compilation disabled.
+        CompiledExpression.setCompilationThreshold(0);
+        double interpreted = measure();
+        // The compiled accessors, compiled after the first evaluation.
+        CompiledExpression.setCompilationThreshold(1);
+        double compiled = measure();
+
+        report("mode\tevaluations/s");
+        report("interpreted\t%.0f", interpreted);
+        report("compiled\t%.0f\t(x%.2f)", compiled, compiled / interpreted);
+    }
+
+    private static double measure() throws Exception {
+        // A new engine, so the expressions are parsed again with the current threshold.
+        WisdomTemplateEngine engine = new WisdomTemplateEngine(Collections.<IDialect>emptySet());
+        engine.setTemplateResolver(new ClassLoaderTemplateResolver());
+        engine.initialize();
+        Context context = new Context();
+        context.setVariable("user", new CompiledExpressionTest.User("wisdom",
+                new CompiledExpressionTest.Address("Grenoble")));
+        final ProcessingContext processingContext = new ProcessingContext(context);
+        final Configuration configuration = engine.getConfiguration();
+
+        return EXPRESSIONS.length * throughput(new Operation() {
+            @Override
+            public void run() {
+                for (String expression : EXPRESSIONS) {
+                    ExtendedOGNLExpressionEvaluator.INSTANCE.evaluate(configuration, processingContext, expression,
+                            StandardExpressionExecutionContext.NORMAL, false);
+                }
+            }
+        });
+    }
+}
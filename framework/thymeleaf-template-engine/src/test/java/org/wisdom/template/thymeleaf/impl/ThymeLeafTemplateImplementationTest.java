@@ -19,13 +19,29 @@
  */
 package org.wisdom.template.thymeleaf.impl;
 
+import com.google.common.collect.ImmutableMap;
 import org.junit.Test;
+import org.thymeleaf.dialect.IDialect;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+import org.wisdom.api.Controller;
+import org.wisdom.api.asset.Assets;
+import org.wisdom.api.http.Context;
+import org.wisdom.api.http.Renderable;
+import org.wisdom.api.http.StreamingRenderable;
 import org.wisdom.template.thymeleaf.impl.ThymeLeafTemplateImplementation;
+import org.wisdom.test.parents.FakeContext;
 
+import java.io.ByteArrayOutputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
 
 
 /**
@@ -51,4 +67,151 @@ public class ThymeLeafTemplateImplementationTest {
         assertThat(template.name()).isEqualTo("hello/footer");
     }
 
+    @Test
+    public void testRenderingsAreNotSerialized() throws Exception {
+        final ThymeLeafTemplateImplementation template = createTemplate("templates/var.thl.html");
+        final Controller controller = new FakeController();
+        // Rendering this value blocks until another rendering renders it too, so it only completes if two
+        // renderings of the same template run at the same time.
+        final CyclicBarrier barrier = new CyclicBarrier(2);
+        final Object value = new Object() {
+            @Override
+            public String toString() {
+                try {
+                    barrier.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException | BrokenBarrierException | TimeoutException e) {
+                    throw new IllegalStateException("The renderings are serialized", e);
+                }
+                return "rendered";
+            }
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<String>> futures = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                futures.add(executor.submit(new Callable<String>() {
+                    @Override
+                    public String call() throws Exception {
+                        return render(template, controller, value);
+                    }
+                }));
+            }
+            for (Future<String> future : futures) {
+                assertThat(future.get(20, TimeUnit.SECONDS)).contains("<span>rendered</span>");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testConcurrentRenderingsDoNotShareState() throws Exception {
+        final ThymeLeafTemplateImplementation template = createTemplate("templates/var.thl.html");
+        final Controller controller = new FakeController();
+        int threads = 8;
+        final int renderings = 200;
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                final int thread = t;
+                futures.add(executor.submit(new Callable<Integer>() {
+                    @Override
+                    public Integer call() throws Exception {
+                        start.await();
+                        int checked = 0;
+                        for (int i = 0; i < renderings; i++) {
+                            String value = "value-" + thread + "-" + i;
+                            String content = render(template, controller, value);
+                            assertThat(content).contains("<span>" + value + "</span>");
+                            checked++;
+                        }
+                        return checked;
+                    }
+                }));
+            }
+            start.countDown();
+            for (Future<Integer> future : futures) {
+                assertThat(future.get(60, TimeUnit.SECONDS)).isEqualTo(renderings);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testStreamingRendering() throws Exception {
+        WisdomTemplateEngine engine = new WisdomTemplateEngine(Collections.<IDialect>emptySet());
+        engine.setTemplateResolver(new ClassLoaderTemplateResolver());
+        engine.initialize();
+        ThymeLeafTemplateImplementation template = createTemplate("templates/var.thl.html", engine);
+        Controller controller = new FakeController();
+        String expected = render(template, controller, "h\u00e9llo");
+
+        engine.setStreaming(true);
+        Renderable<?> renderable;
+        Context.CONTEXT.set(new FakeContext());
+        try {
+            renderable = template.render(controller, ImmutableMap.<String, Object>of("key", "h\u00e9llo"));
+        } finally {
+            Context.CONTEXT.remove();
+        }
+        assertThat(renderable).isInstanceOf(StreamingTemplateRenderable.class);
+        assertThat(renderable.mustBeChunked()).isTrue();
+        assertThat(renderable.length()).isEqualTo(-1);
+
+        // Written later, from a thread without HTTP context.
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ((StreamingRenderable<?>) renderable).writeTo(null, null, out);
+        assertThat(new String(out.toByteArray(), StandardCharsets.UTF_8)).isEqualTo(expected)
+                .contains("h\u00e9llo");
+        assertThat(Context.CONTEXT.get()).isNull();
+    }
+
+    /**
+     * Creates a template loaded from the class path.
+     *
+     * @param path the path of the template in the class path
+     * @return the template
+     */
+    static ThymeLeafTemplateImplementation createTemplate(final String path) throws MalformedURLException {
+        WisdomTemplateEngine engine = new WisdomTemplateEngine(Collections.<IDialect>emptySet());
+        engine.setTemplateResolver(new ClassLoaderTemplateResolver());
+        engine.initialize();
+        return createTemplate(path, engine);
+    }
+
+    /**
+     * Creates a template loaded from the class path, rendered by the given engine.
+     *
+     * @param path   the path of the template in the class path
+     * @param engine the engine
+     * @return the template
+     */
+    static ThymeLeafTemplateImplementation createTemplate(final String path, WisdomTemplateEngine engine)
+            throws MalformedURLException {
+        FakeRouter router = new FakeRouter();
+        return new ThymeLeafTemplateImplementation(engine, new URL("file:/" + path), router, mock(Assets.class),
+                null) {
+            @Override
+            public String fullName() {
+                return path;
+            }
+        };
+    }
+
+    /**
+     * Renders the template with the given value for the {@literal key} variable, from a HTTP context.
+     */
+    static String render(ThymeLeafTemplateImplementation template, Controller controller, Object value) {
+        Context.CONTEXT.set(new FakeContext());
+        try {
+            return (String) template.render(controller, ImmutableMap.<String, Object>of("key", value)).content();
+        } finally {
+            Context.CONTEXT.remove();
+        }
+    }
+
 }
@@ -0,0 +1,57 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.template.thymeleaf.impl;
+
+import org.junit.Test;
+import org.wisdom.api.Controller;
+import org.wisdom.test.parents.WisdomBenchmark;
+
+/**
+ * Measures the throughput of the template rendering when the same template is rendered by a growing number of
+ * threads. As renderings are not serialized, the throughput should grow linearly with the number of threads, up
+ * to the number of cores.
+ * <p>
+ * Launch it with: {@code mvn test -Dtest=ThymeleafRenderingBenchmark -Dwisdom.benchmark=true}.
+ */
+public class ThymeleafRenderingBenchmark extends WisdomBenchmark {
+
+    @Test
+    public void measureThroughput() throws Exception {
+        final ThymeLeafTemplateImplementation template =
+                ThymeLeafTemplateImplementationTest.createTemplate("templates/var.thl.html");
+        final Controller controller = new FakeController();
+        Operation rendering = new Operation() {
+            @Override
+            public void run() {
+                ThymeLeafTemplateImplementationTest.render(template, controller, "value");
+            }
+        };
+
+        double single = 0;
+        report("threads\trenderings/s\tspeed-up");
+        for (int threads = 1; threads <= Runtime.getRuntime().availableProcessors(); threads *= 2) {
+            double throughput = throughput(threads, rendering);
+            if (threads == 1) {
+                single = throughput;
+            }
+            report("%d\t%.0f\t%.2f", threads, throughput, throughput / single);
+        }
+    }
+}
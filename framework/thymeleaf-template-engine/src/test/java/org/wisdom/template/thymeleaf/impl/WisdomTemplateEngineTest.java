@@ -21,6 +21,7 @@ package org.wisdom.template.thymeleaf.impl;
 
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import org.joda.time.Duration;
 import org.junit.After;
 import org.junit.Test;
 import org.thymeleaf.TemplateEngine;
@@ -29,6 +30,7 @@ import org.thymeleaf.dialect.IDialect;
 import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
 import org.wisdom.api.Controller;
 import org.wisdom.api.asset.Assets;
+import org.wisdom.api.cache.Cache;
 import org.wisdom.api.http.Result;
 import org.wisdom.api.templates.Template;
 import org.wisdom.template.thymeleaf.dialect.Routes;
@@ -39,6 +41,9 @@ import org.wisdom.test.parents.Invocation;
 import java.io.File;
 import java.net.MalformedURLException;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -258,6 +263,95 @@ public class WisdomTemplateEngineTest {
                 .contains("<span>request</span>");
     }
 
+    @Test
+    public void testVariableExpressionsExtraction() {
+        assertThat(WisdomTemplateEngine.getVariableExpressions("${a.b}")).containsExactly("a.b");
+        assertThat(WisdomTemplateEngine.getVariableExpressions("item : ${items}")).containsExactly("items");
+        assertThat(WisdomTemplateEngine.getVariableExpressions("|${a} and ${ {1, 2} }|"))
+                .containsExactly("a", " {1, 2} ");
+        // Preprocessing and unclosed expressions are ignored.
+        assertThat(WisdomTemplateEngine.getVariableExpressions("${__${a}__.b}")).isEmpty();
+        assertThat(WisdomTemplateEngine.getVariableExpressions("${a")).isEmpty();
+        assertThat(WisdomTemplateEngine.getVariableExpressions("#{message}")).isEmpty();
+    }
+
+    @Test
+    public void testFragmentCache() {
+        final Map<String, Object> entries = new HashMap<>();
+        final Map<String, Integer> ttls = new HashMap<>();
+        Cache cache = new Cache() {
+            @Override
+            public <T> void set(String key, T value, int expiration) {
+                entries.put(key, value);
+                ttls.put(key, expiration);
+            }
+
+            @Override
+            public <T> void set(String key, T value, Duration expiration) {
+                set(key, value, expiration.toStandardSeconds().getSeconds());
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public <T> T get(String key) {
+                return (T) entries.get(key);
+            }
+
+            @Override
+            public boolean remove(String key) {
+                return entries.remove(key) != null;
+            }
+        };
+        WisdomTemplateEngine engine = new WisdomTemplateEngine(Collections.<IDialect>emptySet(), cache);
+        engine.setTemplateResolver(new ClassLoaderTemplateResolver());
+        engine.initialize();
+
+        Context context = new Context(Locale.ENGLISH);
+        context.setVariable("section", "home");
+        context.setVariable("value", "first");
+        String processed = engine.process("templates/fragment-cache.thl.html", context);
+        assertThat(processed)
+                .contains("<nav class=\"home\">")
+                .contains("<span>first</span>")
+                .contains("<div>first</div>")
+                .doesNotContain("cache");
+        assertThat(entries).containsKey("thymeleaf:fragment:menu-home:en");
+        assertThat(ttls.get("thymeleaf:fragment:menu-home:en")).isEqualTo(300);
+        assertThat((String) entries.get("thymeleaf:fragment:menu-home:en"))
+                .startsWith("<nav class=\"home\">").contains("<span>first</span>").endsWith("</nav>");
+
+        // The cached fragment is spliced, the rest of the page is rendered.
+        context.setVariable("value", "second");
+        processed = engine.process("templates/fragment-cache.thl.html", context);
+        assertThat(processed)
+                .contains("<span>first</span>")
+                .contains("<div>second</div>")
+                .doesNotContain("cache");
+
+        // Another key or locale renders the fragment.
+        context.setVariable("section", "admin");
+        assertThat(engine.process("templates/fragment-cache.thl.html", context)).contains("<span>second</span>");
+        context.setVariable("section", "home");
+        context.setLocale(Locale.FRENCH);
+        assertThat(engine.process("templates/fragment-cache.thl.html", context)).contains("<span>second</span>");
+        assertThat(entries).hasSize(3);
+    }
+
+    @Test
+    public void testFragmentCacheWithoutCache() {
+        WisdomTemplateEngine engine = createWisdomEngine();
+        engine.initialize();
+        Context context = new Context(Locale.ENGLISH);
+        context.setVariable("section", "home");
+        context.setVariable("value", "first");
+        assertThat(engine.process("templates/fragment-cache.thl.html", context))
+                .contains("<span>first</span>")
+                .doesNotContain("cache");
+        context.setVariable("value", "second");
+        assertThat(engine.process("templates/fragment-cache.thl.html", context))
+                .contains("<span>second</span>");
+    }
+
     private WisdomTemplateEngine createWisdomEngine(Set<IDialect> dialects) {
         WisdomTemplateEngine engine = new WisdomTemplateEngine(dialects);
         engine.setTemplateResolver(new ClassLoaderTemplateResolver());
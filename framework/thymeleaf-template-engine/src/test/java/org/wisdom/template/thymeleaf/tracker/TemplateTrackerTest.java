@@ -29,6 +29,7 @@ import org.wisdom.template.thymeleaf.impl.ThymeLeafTemplateImplementation;
 import java.io.File;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Vector;
 
@@ -75,11 +76,27 @@ public class TemplateTrackerTest {
         verify(tracker.engine, times(1)).addTemplate(bundle, file.toURI().toURL());
 
         tracker.modifiedBundle(bundle, null, list);
-        verify(tracker.engine, times(1)).updatedTemplate();
+        verify(tracker.engine, times(1)).updatedTemplate(any(ThymeLeafTemplateImplementation.class));
+        verify(tracker.engine, never()).updatedTemplate();
 
         list.clear();
         list.add(mock(ThymeLeafTemplateImplementation.class));
         tracker.removedBundle(bundle, null, list);
         verify(tracker.engine, times(1)).deleteTemplate(any(ThymeLeafTemplateImplementation.class));
+        // No class in the bundle.
+        verify(tracker.engine, never()).clearClassCaches();
+
+        Vector<URL> classes = new Vector<URL>();
+        classes.add(new URL("file:/org/acme/Foo.class"));
+        when(bundle.findEntries("/", "*.class", true)).thenReturn(classes.elements());
+        tracker.removedBundle(bundle, null, list);
+        verify(tracker.engine, times(1)).clearClassCaches();
+
+        // A bundle without templates but containing classes (used by the templates of other bundles).
+        classes = new Vector<URL>();
+        classes.add(new URL("file:/org/acme/Bar.class"));
+        when(bundle.findEntries("/", "*.class", true)).thenReturn(classes.elements());
+        tracker.removedBundle(bundle, null, new ArrayList<ThymeLeafTemplateImplementation>());
+        verify(tracker.engine, times(2)).clearClassCaches();
     }
 }